@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.tools.Server;
+
+import data.BatchResult;
+import data.StorageBackend;
+import data.StudentStore;
+import model.Student;
+
+// Alta de estudiantes fila por fila (save, un viaje y un commit por fila) frente a saveAll por lotes
+// (addBatch/executeBatch, un commit por bloque) con distintos tamaños de bloque, sobre H2 en modo Oracle
+// servido por TCP (cada viaje cruza la red local, como con Oracle). Al final corta el servidor en medio
+// de un saveAll y comprueba que las filas que informa como guardadas sean exactamente las que quedaron
+// en la base y que el resto figure como fallido. Sale con código 1 si algo no coincide.
+//   java -cp target/benchmarks.jar benchmark.BatchInsertBench [rows]
+public class BatchInsertBench {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        System.setProperty("storage.backend", "jdbc");
+        EmbeddedDatabase.configureConnection();
+        System.setProperty("db.url", "jdbc:h2:tcp://localhost:" + port + "/mem:enrollment;MODE=Oracle");
+        EmbeddedDatabase.create(0, 1, 0);
+        Server server = Server.createTcpServer("-tcpPort", Integer.toString(port)).start();
+        StudentStore students = StorageBackend.getInstance().students();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Sin los mensajes de Log
+        boolean failed = false;
+        try {
+            out.printf("%,d rows per run, H2 over TCP%n", rows);
+            insert(students, "W", Math.min(rows, 2_000), 500); // Calienta el JIT y la caché de statements
+
+            long start = System.nanoTime();
+            int saved = 0;
+            for (Student student : students("R", rows)) {
+                if (students.save(student) != null) {
+                    saved++;
+                }
+            }
+            failed |= !report(out, "save(), one row per call", "R", rows, saved, 0, System.nanoTime() - start);
+            for (int batchSize : new int[] { 1, 50, 500, 5_000 }) {
+                String prefix = "B" + batchSize + "-";
+                start = System.nanoTime();
+                BatchResult<Student> result = insert(students, prefix, rows, batchSize);
+                failed |= !report(out, "saveAll, batches of " + batchSize, prefix, rows, result.getSavedCount(),
+                        result.getFailures().size(), System.nanoTime() - start);
+            }
+
+            // Corta el servidor en cuanto se confirma el primer bloque
+            Thread stopper = new Thread(() -> {
+                try {
+                    while (count("L") == 0) {
+                        Thread.sleep(1);
+                    }
+                } catch (SQLException | InterruptedException e) {
+                    // Se corta igual
+                }
+                server.stop();
+            });
+            stopper.start();
+            start = System.nanoTime();
+            BatchResult<Student> result = insert(students, "L", rows, 500);
+            stopper.join();
+            failed |= !report(out, "saveAll, server stopped midway", "L", rows, result.getSavedCount(),
+                    result.getFailures().size(), System.nanoTime() - start);
+        } finally {
+            System.setOut(out);
+            StorageBackend.shutdown();
+            server.stop();
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    private static BatchResult<Student> insert(StudentStore students, String prefix, int rows, int batchSize) {
+        return students.saveAll(students(prefix, rows), batchSize);
+    }
+
+    private static List<Student> students(String prefix, int rows) {
+        List<Student> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new Student(prefix + i, "Student " + prefix + i, prefix + i + "@example.edu"));
+        }
+        return list;
+    }
+
+    // Imprime el resultado; false si lo informado no cuadra con las filas en la base
+    private static boolean report(PrintStream out, String label, String prefix, int rows, int saved, int failures,
+                                  long nanos) throws SQLException {
+        int stored = count(prefix);
+        boolean ok = saved + failures == rows && saved == stored;
+        out.printf("  %-34s %,8d ms %,10.0f rows/s  saved %,d, failed %,d, in the database %,d%s%n", label,
+                nanos / 1_000_000, saved / (nanos / 1e9), saved, failures, stored, ok ? "" : "  MISMATCH");
+        return ok;
+    }
+
+    // Filas con ese prefijo, leídas en esta JVM sin pasar por el servidor TCP
+    private static int count(String prefix) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(EmbeddedDatabase.URL, EmbeddedDatabase.USER,
+                EmbeddedDatabase.PASSWORD);
+             PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM Student WHERE id LIKE ?")) {
+            stmt.setString(1, prefix + "%");
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
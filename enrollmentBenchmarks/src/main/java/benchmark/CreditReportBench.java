@@ -0,0 +1,175 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import data.CreditReport;
+import data.CreditTotals;
+import data.EnrollmentStore;
+import data.EnrollmentTable;
+import data.StorageBackend;
+import model.Course;
+import model.Enrollment;
+
+// Mide el armado de los totales de CreditReport sobre H2 en modo Oracle: la consulta agrupada que
+// hace la base de datos (EnrollmentStore.creditTotals en EnrollmentDAO) y el recorrido en paralelo
+// de una EnrollmentTable ya leída (CreditTotals.of, lo que usa el almacenamiento en memoria). Después
+// guarda y elimina inscripciones a través del store, mide cuánto cuesta mantener el reporte al día y
+// compara el resultado con un armado nuevo. Sale con código 1 si los totales no coinciden.
+//   java -cp target/benchmarks.jar benchmark.CreditReportBench [courses] [students] [enrollments]
+public class CreditReportBench {
+
+    private static final int RUNS = 5;
+    private static final int SQL_RUNS = 3; // H2 tarda varios segundos en el GROUP BY
+    private static final int CHANGES = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int courses = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int enrollments = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        System.setProperty("storage.backend", "jdbc");
+        EmbeddedDatabase.configureConnection();
+        EmbeddedDatabase.create(courses, students, enrollments);
+        EnrollmentStore store = StorageBackend.getInstance().enrollments();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Sin los mensajes de Log
+        boolean failed = false;
+        try {
+            out.printf("%,d enrollments (%,d students, %,d courses), %d cores%n", enrollments, students, courses,
+                    Runtime.getRuntime().availableProcessors());
+
+            long[] sql = new long[SQL_RUNS];
+            CreditTotals fromSql = null;
+            for (int i = 0; i < SQL_RUNS; i++) {
+                touchEnrollments();
+                long start = System.nanoTime();
+                fromSql = store.creditTotals();
+                sql[i] = System.nanoTime() - start;
+            }
+            print(out, "SQL GROUP BY (creditTotals)", sql);
+
+            long[] fetch = new long[RUNS];
+            EnrollmentTable table = null;
+            for (int i = 0; i < RUNS; i++) {
+                touchEnrollments();
+                long start = System.nanoTime();
+                table = store.fetchTable();
+                fetch[i] = System.nanoTime() - start;
+            }
+            print(out, "snapshot: fetchTable", fetch);
+            List<Course> catalog = StorageBackend.getInstance().courses().fetch();
+            long[] pass = new long[RUNS];
+            CreditTotals fromTable = null;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                fromTable = CreditTotals.of(table, catalog);
+                pass[i] = System.nanoTime() - start;
+            }
+            print(out, "snapshot: fork/join pass", pass);
+            failed |= !compare(out, "SQL vs. fork/join", fromSql, fromTable);
+
+            // Mantenimiento incremental: altas y bajas a través del store
+            CreditReport report = CreditReport.getInstance();
+            if (!report.refresh().get()) {
+                throw new IllegalStateException("The credit report could not be built");
+            }
+            out.printf("  %-34s %,d ms in the background%n", "CreditReport build", report.getLastBuildMillis());
+            long lookups = System.nanoTime();
+            long sum = 0;
+            for (int i = 0; i < students; i++) {
+                sum += report.creditsOf(EmbeddedDatabase.studentId(i));
+            }
+            out.printf("  %-34s %,.0f ns per creditsOf (%,d credits in total)%n", "report lookups",
+                    (System.nanoTime() - lookups) / (double) students, sum);
+
+            LocalDate today = LocalDate.now();
+            List<Enrollment> added = new ArrayList<>(CHANGES);
+            int perStudent = EmbeddedDatabase.perStudent(students, enrollments);
+            for (int i = 0; i < CHANGES; i++) {
+                // Entre dos cursos del estudiante (ver EmbeddedDatabase.enrolledCourse): no está inscrito
+                int student = i % students;
+                String course = EmbeddedDatabase.courseCode((student + courses / perStudent / 2) % courses);
+                added.add(new Enrollment(EmbeddedDatabase.studentId(student), course, today));
+            }
+            long start = System.nanoTime();
+            int saved = 0;
+            for (Enrollment enrollment : added) {
+                if (store.save(enrollment) != null) {
+                    saved++;
+                }
+            }
+            for (int i = 0; i < CHANGES / 2; i++) {
+                Enrollment enrollment = added.get(i);
+                store.delete(enrollment.getStudentId(), enrollment.getCourseCode());
+            }
+            long writeNanos = System.nanoTime() - start;
+            out.printf("  %-34s %,d saves, %,d deletes in %,d ms (report kept up to date on each)%n",
+                    "incremental", saved, CHANGES / 2, writeNanos / 1_000_000);
+            CreditTotals fresh = store.creditTotals();
+            failed |= !sameAsReport(out, "report vs. a new build", report, fresh, false);
+            // Las bajas en Oracle no leen la fecha: los totales por día se rearman en segundo plano
+            report.refresh().get();
+            failed |= !sameAsReport(out, "per day after the refresh", report, fresh, true);
+        } finally {
+            System.setOut(out);
+            StorageBackend.shutdown();
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    // H2 guarda el resultado de una consulta mientras sus tablas no cambien: se cambia una fila para
+    // medir la consulta y no la caché
+    private static void touchEnrollments() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(EmbeddedDatabase.URL, EmbeddedDatabase.USER,
+                EmbeddedDatabase.PASSWORD);
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("UPDATE Enrollment SET enrollment_date = enrollment_date "
+                    + "WHERE student_id = 'S000000' AND ROWNUM = 1");
+        }
+    }
+
+    private static void print(PrintStream out, String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        out.printf("  %-34s first %,6d ms, best %,6d ms, median %,6d ms%n", label, nanos[0] / 1_000_000,
+                sorted[0] / 1_000_000, sorted[sorted.length / 2] / 1_000_000);
+    }
+
+    private static boolean compare(PrintStream out, String label, CreditTotals a, CreditTotals b) {
+        boolean same = a.getEnrollmentCount() == b.getEnrollmentCount()
+                && a.getStudentCount() == b.getStudentCount()
+                && deepEquals(a.heaviestStudents(Integer.MAX_VALUE), b.heaviestStudents(Integer.MAX_VALUE))
+                && deepEquals(a.largestCourses(Integer.MAX_VALUE), b.largestCourses(Integer.MAX_VALUE))
+                && a.enrollmentsPerDay().equals(b.enrollmentsPerDay());
+        out.printf("  %-34s %s%n", label, same ? "same totals" : "DIFFERENT totals");
+        return same;
+    }
+
+    private static boolean sameAsReport(PrintStream out, String label, CreditReport report, CreditTotals fresh,
+                                        boolean perDay) {
+        boolean same = perDay ? report.enrollmentsPerDay().equals(fresh.enrollmentsPerDay())
+                : report.getEnrollmentCount() == fresh.getEnrollmentCount()
+                && report.getStudentCount() == fresh.getStudentCount()
+                && deepEquals(report.heaviestStudents(Integer.MAX_VALUE), fresh.heaviestStudents(Integer.MAX_VALUE))
+                && deepEquals(report.largestCourses(Integer.MAX_VALUE), fresh.largestCourses(Integer.MAX_VALUE));
+        out.printf("  %-34s %s%n", label, same ? "same totals" : "DIFFERENT totals");
+        return same;
+    }
+
+    private static boolean deepEquals(List<String[]> a, List<String[]> b) {
+        return Arrays.deepEquals(a.toArray(), b.toArray());
+    }
+}
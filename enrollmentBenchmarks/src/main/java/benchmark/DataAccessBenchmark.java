@@ -0,0 +1,264 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.CourseCache;
+import data.CourseStore;
+import data.EnrollmentIndex;
+import data.EnrollmentStore;
+import data.EnrollmentTable;
+import data.StorageBackend;
+import data.StudentStore;
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Mide los stores de cursos, estudiantes e inscripciones tal como los usa la aplicación, con los
+// dos motores de StorageBackend: jdbc (los DAOs con pool, caché de statements y caché de cursos,
+// contra H2 en memoria en modo Oracle) y memory (MemoryEngine con su log en un directorio temporal).
+// Los volúmenes se cambian con -p courses=... -p students=... -p enrollments=..., y el motor con -p backend=...
+// Cada save se mide junto con su delete para que el tamaño de las tablas no cambie entre iteraciones.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DataAccessBenchmark {
+
+    @Param({ "jdbc", "memory" })
+    public String backend;
+
+    @Param("10000")
+    public int courses;
+
+    @Param("100000")
+    public int students;
+
+    @Param("1000000")
+    public int enrollments;
+
+    private CourseStore courseStore;
+    private StudentStore studentStore;
+    private EnrollmentStore enrollmentStore;
+    private int perStudent;
+    private PrintStream originalOut;
+    private Path memoryDir;
+
+    // Claves nuevas para los save/delete; no chocan con las claves sembradas
+    private final AtomicInteger sequence = new AtomicInteger();
+    private static final String BENCH_COURSE = "BENCH";
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        perStudent = EmbeddedDatabase.perStudent(students, enrollments);
+        System.setProperty("storage.backend", backend);
+        if (backend.equals("jdbc")) {
+            EmbeddedDatabase.configureConnection();
+            EmbeddedDatabase.create(courses, students, enrollments);
+        } else {
+            memoryDir = Files.createTempDirectory("enrollment-bench");
+            System.setProperty("storage.memory.dir", memoryDir.toString());
+        }
+
+        StorageBackend storage = StorageBackend.getInstance();
+        courseStore = storage.courses();
+        studentStore = storage.students();
+        enrollmentStore = storage.enrollments();
+        if (memoryDir != null) {
+            seedMemory();
+        }
+        courseStore.save(new Course(BENCH_COURSE, "Benchmark course", 3));
+
+        // Los DAOs imprimen un mensaje por cada escritura; se descarta para no medir la consola
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        EnrollmentIndex index = EnrollmentIndex.getInstance();
+        if (index.isReady()) {
+            System.out.printf("%nEnrollment index: %d enrollments, %.1f bytes/enrollment%n",
+                    index.getEdgeCount(), index.getBytesPerEdge());
+        }
+        StorageBackend.shutdown();
+        if (memoryDir != null) {
+            Files.deleteIfExists(memoryDir.resolve("enrollment.wal"));
+            Files.deleteIfExists(memoryDir);
+        }
+    }
+
+    // Carga en el motor en memoria los mismos datos que EmbeddedDatabase siembra en H2
+    private void seedMemory() {
+        List<Course> courseRows = new ArrayList<>(courses);
+        for (int i = 0; i < courses; i++) {
+            courseRows.add(new Course(EmbeddedDatabase.courseCode(i), "Course " + i, 1 + i % 6));
+        }
+        courseStore.saveAll(courseRows, 10_000);
+
+        List<Student> studentRows = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            studentRows.add(new Student(EmbeddedDatabase.studentId(i), "Student " + i, "student" + i + "@example.edu"));
+        }
+        studentStore.saveAll(studentRows, 10_000);
+
+        List<Enrollment> enrollmentRows = new ArrayList<>(enrollments);
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < enrollments; i++) {
+            int student = i % students;
+            enrollmentRows.add(new Enrollment(EmbeddedDatabase.studentId(student),
+                    EmbeddedDatabase.enrolledCourse(student, i / students, courses, perStudent),
+                    first.plusDays(i % 1000)));
+        }
+        enrollmentStore.saveAll(enrollmentRows, 10_000);
+    }
+
+    // --- Lecturas completas ---
+
+    @Benchmark
+    public ArrayList<Course> courseFetch() {
+        return courseStore.fetch(); // Normalmente resuelto por CourseCache
+    }
+
+    @Benchmark
+    public ArrayList<Course> courseFetchUncached() {
+        CourseCache.getInstance().invalidateAll(); // Solo afecta a jdbc; memory no usa la caché
+        return courseStore.fetch();
+    }
+
+    @Benchmark
+    public ArrayList<Student> studentFetch() {
+        return studentStore.fetch();
+    }
+
+    @Benchmark
+    public List<Enrollment> enrollmentFetch() {
+        return enrollmentStore.fetch();
+    }
+
+    @Benchmark
+    public EnrollmentTable enrollmentFetchTable() {
+        return enrollmentStore.fetchTable();
+    }
+
+    @Benchmark
+    public ArrayList<Enrollment> enrollmentFetchPage() {
+        return enrollmentStore.fetchPage(randomStudent(), null, 200);
+    }
+
+    // --- Escrituras ---
+
+    @Benchmark
+    public boolean courseSaveAndDelete() {
+        String code = "B" + sequence.incrementAndGet();
+        courseStore.save(new Course(code, "Benchmark " + code, 3));
+        return courseStore.delete(code);
+    }
+
+    @Benchmark
+    public boolean studentSaveAndDelete() {
+        String id = "B" + sequence.incrementAndGet();
+        studentStore.save(new Student(id, "Benchmark " + id, id + "@example.edu"));
+        return studentStore.delete(id);
+    }
+
+    @Benchmark
+    public boolean enrollmentSaveAndDelete() {
+        // BENCH_COURSE no tiene inscripciones sembradas; cada operación usa otro estudiante
+        String studentId = EmbeddedDatabase.studentId(Math.floorMod(sequence.incrementAndGet(), students));
+        enrollmentStore.save(new Enrollment(studentId, BENCH_COURSE, LocalDate.now()));
+        return enrollmentStore.delete(studentId, BENCH_COURSE);
+    }
+
+    @Benchmark
+    public Course courseUpdate() {
+        int i = ThreadLocalRandom.current().nextInt(courses);
+        return courseStore.update(new Course(EmbeddedDatabase.courseCode(i), "Course " + i, 1 + i % 6));
+    }
+
+    @Benchmark
+    public Student studentUpdate() {
+        int i = ThreadLocalRandom.current().nextInt(students);
+        return studentStore.update(new Student(EmbeddedDatabase.studentId(i), "Student " + i, "student" + i + "@example.edu"));
+    }
+
+    @Benchmark
+    public Enrollment enrollmentUpdate() {
+        int student = ThreadLocalRandom.current().nextInt(students);
+        String studentId = EmbeddedDatabase.studentId(student);
+        String courseCode = EmbeddedDatabase.enrolledCourse(student, 0, courses, perStudent);
+        return enrollmentStore.update(new Enrollment(studentId, courseCode, LocalDate.now()));
+    }
+
+    // --- Consultas por relación ---
+
+    @Benchmark
+    public ArrayList<Course> getCoursesByStudent() {
+        return enrollmentStore.getCoursesByStudent(randomStudent());
+    }
+
+    @Benchmark
+    public ArrayList<Student> getStudentsByCourse() {
+        return enrollmentStore.getStudentsByCourse(randomCourse());
+    }
+
+    // --- Verificaciones de existencia ---
+
+    @Benchmark
+    public boolean courseExists() {
+        return courseStore.exists(randomCourse()); // Pasa por CourseCache
+    }
+
+    @Benchmark
+    public boolean studentExists() {
+        return studentStore.authenticate(randomStudent()); // jdbc: función authenticate_student
+    }
+
+    @Benchmark
+    public boolean enrollmentStudentExists() {
+        return enrollmentStore.studentExists(randomStudent());
+    }
+
+    @Benchmark
+    public boolean enrollmentExists() {
+        int student = ThreadLocalRandom.current().nextInt(students);
+        int k = ThreadLocalRandom.current().nextInt(perStudent);
+        return enrollmentStore.authenticate(EmbeddedDatabase.studentId(student),
+                EmbeddedDatabase.enrolledCourse(student, k, courses, perStudent));
+    }
+
+    private String randomStudent() {
+        return EmbeddedDatabase.studentId(ThreadLocalRandom.current().nextInt(students));
+    }
+
+    private String randomCourse() {
+        return EmbeddedDatabase.courseCode(ThreadLocalRandom.current().nextInt(courses));
+    }
+}
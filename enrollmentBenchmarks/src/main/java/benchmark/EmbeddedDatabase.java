@@ -0,0 +1,194 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+// Base de datos H2 en memoria, en modo Oracle, con el mismo esquema que usa la aplicación:
+// tablas Course, Student y Enrollment, y los procedimientos/funciones de estudiantes que
+// llama StudentDAO (implementados aquí como métodos Java registrados con CREATE ALIAS). H2 no tiene
+// ORA_ROWSCN: cada tabla tiene una columna con ese nombre que toma un valor nuevo de una secuencia al
+// insertar o actualizar la fila, así fetchChangedSince funciona igual que en Oracle.
+public final class EmbeddedDatabase {
+
+    public static final String URL = "jdbc:h2:mem:enrollment;MODE=Oracle;DB_CLOSE_DELAY=-1";
+    public static final String USER = "sa";
+    public static final String PASSWORD = "";
+
+    private static final int SEED_BATCH = 10_000;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2020, 1, 1);
+    private static final String ROW_SCN =
+            "ORA_ROWSCN NUMBER(19) DEFAULT NEXT VALUE FOR row_scn ON UPDATE NEXT VALUE FOR row_scn NOT NULL";
+
+    private EmbeddedDatabase() {
+    }
+
+    // Configura DBConnection para usar esta base; debe llamarse antes del primer getInstance()
+    public static void configureConnection() {
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", USER);
+        System.setProperty("db.password", PASSWORD);
+        if (System.getProperty("offline.enabled") == null) {
+            System.setProperty("offline.enabled", "false"); // Sin réplica local salvo que el benchmark la pida
+        }
+    }
+
+    // Crea el esquema y carga los volúmenes indicados. Las claves son deterministas:
+    // cursos C00000.., estudiantes S000000.., y cada estudiante se inscribe en cursos repartidos.
+    public static void create(int courses, int students, int enrollments) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD)) {
+            createSchema(connection);
+            connection.setAutoCommit(false);
+            seedCourses(connection, courses);
+            seedStudents(connection, students);
+            seedEnrollments(connection, courses, students, enrollments);
+            connection.setAutoCommit(true);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+        }
+    }
+
+    public static String courseCode(int i) {
+        return String.format("C%05d", i);
+    }
+
+    public static String studentId(int i) {
+        return String.format("S%06d", i);
+    }
+
+    // Curso de la k-ésima inscripción del estudiante; distinto para cada k mientras k < courses
+    public static String enrolledCourse(int student, int k, int courses, int perStudent) {
+        int stride = Math.max(1, courses / Math.max(1, perStudent));
+        return courseCode((student + k * stride) % courses);
+    }
+
+    // Inscripciones por estudiante (redondeado hacia arriba)
+    public static int perStudent(int students, int enrollments) {
+        return (enrollments + students - 1) / students;
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+            stmt.execute("CREATE SEQUENCE row_scn");
+            stmt.execute("CREATE TABLE Course (code VARCHAR2(20) PRIMARY KEY, name VARCHAR2(100) NOT NULL, "
+                    + "credits NUMBER(2) NOT NULL, capacity NUMBER(5) DEFAULT 0 NOT NULL, "
+                    + "prerequisites VARCHAR2(400), schedule VARCHAR2(200), " + ROW_SCN + ")");
+            stmt.execute("CREATE TABLE Student (id VARCHAR2(20) PRIMARY KEY, name VARCHAR2(100) NOT NULL, "
+                    + "email VARCHAR2(100) NOT NULL, " + ROW_SCN + ")");
+            stmt.execute("CREATE TABLE Enrollment (student_id VARCHAR2(20) NOT NULL, "
+                    + "course_code VARCHAR2(20) NOT NULL, enrollment_date DATE NOT NULL, " + ROW_SCN + ", "
+                    + "PRIMARY KEY (student_id, course_code), "
+                    + "FOREIGN KEY (student_id) REFERENCES Student(id), "
+                    + "FOREIGN KEY (course_code) REFERENCES Course(code))");
+            stmt.execute("CREATE INDEX enrollment_course_idx ON Enrollment(course_code)");
+
+            String procedures = EmbeddedDatabase.class.getName();
+            stmt.execute("CREATE ALIAS insert_student FOR \"" + procedures + ".insertStudent\"");
+            stmt.execute("CREATE ALIAS update_student FOR \"" + procedures + ".updateStudent\"");
+            stmt.execute("CREATE ALIAS delete_student FOR \"" + procedures + ".deleteStudent\"");
+            stmt.execute("CREATE ALIAS authenticate_student FOR \"" + procedures + ".authenticateStudent\"");
+        }
+    }
+
+    private static void seedCourses(Connection connection, int courses) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO Course (code, name, credits) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < courses; i++) {
+                stmt.setString(1, courseCode(i));
+                stmt.setString(2, "Course " + i);
+                stmt.setInt(3, 1 + i % 6);
+                addAndFlush(connection, stmt, i);
+            }
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static void seedStudents(Connection connection, int students) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO Student (id, name, email) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < students; i++) {
+                stmt.setString(1, studentId(i));
+                stmt.setString(2, "Student " + i);
+                stmt.setString(3, "student" + i + "@example.edu");
+                addAndFlush(connection, stmt, i);
+            }
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static void seedEnrollments(Connection connection, int courses, int students, int enrollments)
+            throws SQLException {
+        int perStudent = perStudent(students, enrollments);
+        if (perStudent > courses) {
+            throw new IllegalArgumentException("More enrollments per student than courses: " + perStudent);
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO Enrollment (student_id, course_code, enrollment_date) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < enrollments; i++) {
+                int student = i % students;
+                stmt.setString(1, studentId(student));
+                stmt.setString(2, enrolledCourse(student, i / students, courses, perStudent));
+                stmt.setDate(3, java.sql.Date.valueOf(FIRST_DATE.plusDays(i % 1000)));
+                addAndFlush(connection, stmt, i);
+            }
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static void addAndFlush(Connection connection, PreparedStatement stmt, int i) throws SQLException {
+        stmt.addBatch();
+        if ((i + 1) % SEED_BATCH == 0) {
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    // Equivalentes de los procedimientos y la función de Oracle que usa StudentDAO
+
+    public static void insertStudent(Connection connection, String id, String name, String email)
+            throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO Student (id, name, email) VALUES (?, ?, ?)")) {
+            stmt.setString(1, id);
+            stmt.setString(2, name);
+            stmt.setString(3, email);
+            stmt.executeUpdate();
+        }
+    }
+
+    public static void updateStudent(Connection connection, String id, String name, String email)
+            throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE Student SET name = ?, email = ? WHERE id = ?")) {
+            stmt.setString(1, name);
+            stmt.setString(2, email);
+            stmt.setString(3, id);
+            stmt.executeUpdate();
+        }
+    }
+
+    public static void deleteStudent(Connection connection, String id) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM Student WHERE id = ?")) {
+            stmt.setString(1, id);
+            stmt.executeUpdate();
+        }
+    }
+
+    public static int authenticateStudent(Connection connection, String id) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM Student WHERE id = ?")) {
+            stmt.setString(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
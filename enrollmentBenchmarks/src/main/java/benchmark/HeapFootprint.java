@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import data.EnrollmentStore;
+import data.EnrollmentTable;
+import data.StorageBackend;
+import model.Enrollment;
+
+// Mide cuánto heap queda ocupado por el resultado de leer todas las inscripciones, con la
+// representación anterior (un Enrollment con sus String y LocalDate por fila) y con EnrollmentTable.
+//   java -cp target/benchmarks.jar benchmark.HeapFootprint [courses] [students] [enrollments]
+public class HeapFootprint {
+
+    public static void main(String[] args) throws Exception {
+        int courses = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int enrollments = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        System.setProperty("storage.backend", "jdbc");
+        EmbeddedDatabase.configureConnection();
+        EmbeddedDatabase.create(courses, students, enrollments);
+        EnrollmentStore store = StorageBackend.getInstance().enrollments();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            out.printf("%d enrollments (%d students, %d courses)%n", enrollments, students, courses);
+            report(out, "objects (fetch(Consumer) into ArrayList)", enrollments, () -> {
+                ArrayList<Enrollment> rows = new ArrayList<>();
+                store.fetch(rows::add);
+                return rows;
+            });
+            report(out, "EnrollmentTable (fetchTable)", enrollments, store::fetchTable);
+            report(out, "views over EnrollmentTable (fetch)", enrollments, store::fetch);
+        } finally {
+            System.setOut(out);
+            StorageBackend.shutdown();
+        }
+    }
+
+    private static void report(PrintStream out, String label, int rows, Supplier<Object> load) {
+        long before = usedAfterGc();
+        Object result = load.get();
+        long after = usedAfterGc();
+        long bytes = after - before;
+        out.printf("  %-42s %8.1f MB  %6.1f bytes/row%n", label, bytes / 1_048_576.0, (double) bytes / rows);
+        if (result instanceof EnrollmentTable) {
+            EnrollmentTable table = (EnrollmentTable) result;
+            out.printf("  %-42s %d students, %d courses in the dictionaries%n", "", table.getDistinctStudents(),
+                    table.getDistinctCourses());
+        }
+        reachabilityFence(result);
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    // Mantiene vivo el resultado hasta después de medir
+    private static volatile Object sink;
+
+    private static void reachabilityFence(Object result) {
+        sink = result;
+        sink = null;
+    }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import data.BulkTransfer;
+import data.StorageBackend;
+
+// Mide la importación CSV de punta a punta (lectura, validación y saveAll) y la exportación.
+// Genera los archivos en un directorio temporal e importa estudiantes, cursos e inscripciones
+// al motor indicado (memory por defecto, en un directorio nuevo; o jdbc sobre H2 vacío).
+//   java -Xmx256m -cp target/benchmarks.jar benchmark.ImportThroughput [backend] [courses] [students] [enrollments]
+public class ImportThroughput {
+
+    public static void main(String[] args) throws Exception {
+        String backend = args.length > 0 ? args[0] : "memory";
+        int courses = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int students = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int enrollments = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        Path dir = Files.createTempDirectory("enrollment-import");
+        System.setProperty("storage.backend", backend);
+        System.setProperty("storage.memory.dir", dir.resolve("store").toString());
+        if (backend.equals("jdbc")) {
+            EmbeddedDatabase.configureConnection();
+            EmbeddedDatabase.create(0, 1, 0);
+        }
+
+        Path courseFile = dir.resolve("courses.csv");
+        Path studentFile = dir.resolve("students.csv");
+        Path enrollmentFile = dir.resolve("enrollments.csv");
+        writeCourses(courseFile, courses);
+        writeStudents(studentFile, students);
+        writeEnrollments(enrollmentFile, courses, students, enrollments);
+
+        try {
+            System.out.printf("backend=%s, max heap %d MB%n", backend, Runtime.getRuntime().maxMemory() >> 20);
+            run("import courses", BulkTransfer.importCsv(BulkTransfer.Entity.COURSES, courseFile, null));
+            run("import students", BulkTransfer.importCsv(BulkTransfer.Entity.STUDENTS, studentFile, null));
+            run("import enrollments", BulkTransfer.importCsv(BulkTransfer.Entity.ENROLLMENTS, enrollmentFile, null));
+            run("export enrollments", BulkTransfer.exportCsv(BulkTransfer.Entity.ENROLLMENTS,
+                    dir.resolve("export.csv"), null));
+            System.out.printf("peak heap (all pools) %.1f MB%n", peakHeap() / 1_048_576.0);
+        } finally {
+            StorageBackend.shutdown();
+        }
+    }
+
+    private static void run(String label, BulkTransfer.Job job) throws Exception {
+        BulkTransfer.Progress p = job.getResult().get();
+        System.out.printf("  %-20s %,10d rows  %,6d rejected  %,8d ms  %,10.0f rows/s  %,8.1f MB%n", label,
+                p.getRowsWritten(), p.getRowsRejected(), p.getElapsedMillis(), p.getRowsPerSecond(),
+                p.getBytes() / 1_048_576.0);
+        for (String error : p.getErrors().subList(0, Math.min(3, p.getErrors().size()))) {
+            System.out.println("    " + error);
+        }
+    }
+
+    private static void writeCourses(Path file, int courses) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("code,name,credits\n");
+            for (int i = 0; i < courses; i++) {
+                out.write(EmbeddedDatabase.courseCode(i) + ",\"Course " + i + ", section A\"," + (1 + i % 6) + "\n");
+            }
+        }
+    }
+
+    private static void writeStudents(Path file, int students) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("id,name,email\n");
+            for (int i = 0; i < students; i++) {
+                String id = EmbeddedDatabase.studentId(i);
+                out.write(id + ",Student " + i + ",student" + i + "@example.edu\n");
+            }
+        }
+    }
+
+    private static void writeEnrollments(Path file, int courses, int students, int enrollments) throws IOException {
+        int perStudent = EmbeddedDatabase.perStudent(students, enrollments);
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("student_id,course_code,enrollment_date\n");
+            for (int i = 0; i < enrollments; i++) {
+                int student = i % students;
+                out.write(EmbeddedDatabase.studentId(student) + ","
+                        + EmbeddedDatabase.enrolledCourse(student, i / students, courses, perStudent) + ","
+                        + first.plusDays(i % 1000) + "\n");
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,284 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.h2.tools.Server;
+
+import data.CourseRules;
+import data.CourseStore;
+import data.CreditReport;
+import data.EnrollmentStore;
+import data.EnrollmentTable;
+import data.LocalReplica;
+import data.StorageBackend;
+import data.StudentStore;
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Mide la réplica local (LocalReplica) sobre H2 en modo Oracle, servido por TCP para poder cortarlo:
+// la primera instantánea (lectura completa) frente a la puesta al día con las filas cambiadas, lo que
+// tarda en otra JVM abrir la aplicación sin base de datos y tener las tres tablas cargadas desde la
+// instantánea, las escrituras sin conexión (cada una al journal) y el envío del journal al volver.
+// Comprueba que la réplica tenga lo mismo que la base al cortarla y que, después de enviar el journal,
+// la base tenga lo mismo que tenía la réplica. Sale con código 1 si algo no coincide.
+// La base H2 está en la misma JVM: con el heap por defecto las pausas de GC se mezclan con los tiempos.
+//   java -Xmx3g -cp target/benchmarks.jar benchmark.OfflineSnapshotBench [courses] [students] [enrollments]
+public class OfflineSnapshotBench {
+
+    private static final int CHANGED = 5_000; // Filas cambiadas en la base entre instantáneas
+    private static final int OFFLINE_WRITES = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--cold")) {
+            coldStart(Paths.get(args[1]));
+            return;
+        }
+        int courses = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int enrollments = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        Path dir = Files.createTempDirectory("offline-bench");
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        System.setProperty("storage.backend", "jdbc");
+        EmbeddedDatabase.configureConnection();
+        System.setProperty("db.url", "jdbc:h2:tcp://localhost:" + port + "/mem:enrollment;MODE=Oracle");
+        System.setProperty("offline.enabled", "true");
+        System.setProperty("offline.dir", dir.toString());
+        System.setProperty("offline.probeSeconds", "3600"); // El benchmark decide cuándo volver
+        System.setProperty("offline.refreshMinutes", "600");
+        EmbeddedDatabase.create(courses, students, enrollments);
+        Server server = Server.createTcpServer("-tcpPort", Integer.toString(port)).start();
+
+        LocalReplica replica = LocalReplica.getInstance();
+        StorageBackend backend = StorageBackend.getInstance();
+        CourseStore courseStore = backend.courses();
+        StudentStore studentStore = backend.students();
+        EnrollmentStore enrollmentStore = backend.enrollments();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Sin los mensajes de Log
+        boolean failed = false;
+        try {
+            out.printf("%,d enrollments (%,d students, %,d courses), H2 over TCP%n", enrollments, students, courses);
+            // Armados antes de medir: si no, la primera escritura los arma en segundo plano y compiten por la
+            // CPU con lo que se mide (y con la otra JVM)
+            CourseRules.getInstance().refresh().get();
+            CreditReport.getInstance().refresh().get();
+            long nanos = 0;
+            for (int run = 0; run < 3; run++) { // La primera vuelta calienta el JIT
+                long start = System.nanoTime();
+                courseStore.fetch();
+                studentStore.fetch();
+                enrollmentStore.fetchTable();
+                nanos = System.nanoTime() - start;
+            }
+            out.printf("  %-34s %,d ms%n", "full load from the database", nanos / 1_000_000);
+
+            long start = System.nanoTime();
+            check(replica.reconcile(), "first snapshot");
+            out.printf("  %-34s %,d ms (%,d KB on disk)%n", "first snapshot (full read)",
+                    (System.nanoTime() - start) / 1_000_000, size(dir) / 1024);
+
+            Random random = new Random(42);
+            List<Student> all = studentStore.fetch();
+            for (int i = 0; i < CHANGED; i++) {
+                Student student = all.get(random.nextInt(all.size()));
+                Enrollment enrollment = new Enrollment(student.getId(), EmbeddedDatabase.courseCode(random.nextInt(courses)),
+                        LocalDate.now());
+                if (i % 2 == 0) {
+                    student.setEmail("changed" + i + "@example.com");
+                    studentStore.update(student);
+                } else if (enrollmentStore.authenticate(enrollment.getStudentId(), enrollment.getCourseCode())) {
+                    enrollmentStore.save(enrollment); // authenticate da true si todavía no está inscrito
+                } else {
+                    enrollmentStore.update(enrollment);
+                }
+            }
+            start = System.nanoTime();
+            check(replica.reconcile(), "snapshot update");
+            out.printf("  %-34s %,d ms after %,d changed rows%n", "snapshot update (changed rows)",
+                    (System.nanoTime() - start) / 1_000_000, CHANGED);
+
+            Snapshot online = Snapshot.of(backend);
+            failed |= !coldStartChild(out, dir);
+
+            server.stop();
+            start = System.nanoTime();
+            // La conexión que estaba libre no se valida (se usó hace poco), así que la primera lectura puede
+            // fallar con ella; la siguiente no puede abrir una conexión: carga la réplica y sale de ahí
+            int reads = 0;
+            while (!replica.isLocal() && reads < 3) {
+                studentStore.fetch();
+                reads++;
+            }
+            out.printf("  %-34s %,d ms until the reads came from the replica (%d reads, %s)%n", "database stopped",
+                    (System.nanoTime() - start) / 1_000_000, reads, replica.getMode());
+            failed |= !replica.isLocal();
+            failed |= !compare(out, "replica vs. database", Snapshot.of(backend), online);
+
+            start = System.nanoTime();
+            for (int i = 0; i < OFFLINE_WRITES; i++) {
+                offlineWrite(random, i, courses, students, studentStore, enrollmentStore);
+            }
+            nanos = System.nanoTime() - start;
+            out.printf("  %-34s %,.3f ms per write, %,d pending%n", "offline writes (journal)",
+                    nanos / 1e6 / OFFLINE_WRITES, replica.getPendingChanges());
+            Snapshot expected = Snapshot.of(backend);
+
+            server = Server.createTcpServer("-tcpPort", Integer.toString(port)).start();
+            start = System.nanoTime();
+            check(replica.goOnline(), "send the offline journal");
+            out.printf("  %-34s %,d ms (%s)%n", "journal sent", (System.nanoTime() - start) / 1_000_000,
+                    replica.getMode());
+            failed |= !compare(out, "database vs. replica", Snapshot.of(backend), expected);
+        } finally {
+            System.setOut(out);
+            StorageBackend.shutdown();
+            server.stop();
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    // En otra JVM, como al abrir la aplicación sin base de datos: abre la instantánea y carga las tablas
+    private static boolean coldStartChild(PrintStream out, Path dir) throws IOException, InterruptedException {
+        Process child = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), OfflineSnapshotBench.class.getName(), "--cold",
+                dir.toString()).redirectErrorStream(true).start();
+        String output = new String(child.getInputStream().readAllBytes());
+        out.print(output);
+        return child.waitFor() == 0;
+    }
+
+    private static void coldStart(Path dir) {
+        System.setProperty("storage.backend", "jdbc");
+        System.setProperty("db.url", "jdbc:h2:tcp://localhost:1/mem:none"); // Nadie escucha
+        System.setProperty("offline.dir", dir.toString());
+        System.setProperty("offline.probeSeconds", "3600");
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        LocalReplica replica = LocalReplica.getInstance();
+        long opened = System.nanoTime();
+        replica.prepare();
+        long loaded = System.nanoTime();
+        StorageBackend backend = StorageBackend.getInstance();
+        int rows = backend.courses().fetch().size() + backend.students().fetch().size()
+                + backend.enrollments().fetchTable().size();
+        long read = System.nanoTime();
+        System.setOut(out);
+        out.printf("  %-34s open %,d ms, load %,d ms, first read of the tables %,d ms (%,d rows, %s)%n",
+                "cold start from the snapshot", (opened - start) / 1_000_000, (loaded - opened) / 1_000_000,
+                (read - loaded) / 1_000_000, rows, replica.getMode());
+        System.exit(replica.isLocal() ? 0 : 1);
+    }
+
+    // Alta de estudiante, cambio de email, inscripción o baja de inscripción
+    private static void offlineWrite(Random random, int i, int courses, int students, StudentStore studentStore,
+                                     EnrollmentStore enrollmentStore) {
+        String studentId = EmbeddedDatabase.studentId(random.nextInt(students));
+        String courseCode = EmbeddedDatabase.courseCode(random.nextInt(courses));
+        switch (i % 4) {
+            case 0:
+                studentStore.save(new Student("N" + i, "Offline " + i, "offline" + i + "@example.com"));
+                break;
+            case 1:
+                Student student = studentStore.search(studentId, 1).get(0);
+                student.setEmail("offline" + i + "@example.com");
+                studentStore.update(student);
+                break;
+            case 2:
+                if (enrollmentStore.authenticate(studentId, courseCode)) {
+                    enrollmentStore.save(new Enrollment(studentId, courseCode, LocalDate.now()));
+                }
+                break;
+            default:
+                List<Course> enrolled = enrollmentStore.getCoursesByStudent(studentId);
+                if (!enrolled.isEmpty()) {
+                    enrollmentStore.delete(studentId, enrolled.get(0).getCode());
+                }
+        }
+    }
+
+    private static boolean compare(PrintStream out, String label, Snapshot actual, Snapshot expected) {
+        boolean same = actual.equals(expected);
+        out.printf("  %-34s %s%n", label, same ? "same rows (" + actual.size() + ")" : "DIFFERENT rows");
+        return same;
+    }
+
+    private static void check(boolean ok, String step) {
+        if (!ok) {
+            throw new IllegalStateException("Failed: " + step);
+        }
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    // Las tres tablas como conjuntos de filas en texto, para comparar (la instantánea guarda null como "")
+    private static final class Snapshot {
+        private final Set<String> rows = new HashSet<>();
+
+        static Snapshot of(StorageBackend backend) {
+            Snapshot snapshot = new Snapshot();
+            for (Course course : backend.courses().fetch()) {
+                snapshot.rows.add(String.join("|", "C", course.getCode(), course.getName(),
+                        Integer.toString(course.getCredits()), Integer.toString(course.getCapacity()),
+                        Objects.toString(course.getPrerequisites(), ""), Objects.toString(course.getSchedule(), "")));
+            }
+            for (Student student : backend.students().fetch()) {
+                snapshot.rows.add(String.join("|", "S", student.getId(), student.getName(), student.getEmail()));
+            }
+            EnrollmentTable table = backend.enrollments().fetchTable();
+            List<Enrollment> enrollments = table == null ? new ArrayList<>() : table.asList();
+            for (Enrollment enrollment : enrollments) {
+                snapshot.rows.add(String.join("|", "E", enrollment.getStudentId(), enrollment.getCourseCode(),
+                        enrollment.getEnrollmentDate().toString()));
+            }
+            return snapshot;
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Snapshot && rows.equals(((Snapshot) other).rows);
+        }
+
+        @Override
+        public int hashCode() {
+            return rows.hashCode();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.h2.tools.Server;
+
+import data.DBConnection;
+import data.StorageBackend;
+import data.StudentStore;
+
+// Rendimiento del pool de DBConnection con varios hilos pidiendo a la vez, sobre H2 en modo Oracle servido
+// por TCP (cada consulta es un viaje por la red local, como con Oracle). Cada configuración corre en su
+// propia JVM, porque el pool se configura al crearse: una sola conexión (como antes del pool), el pool
+// validando cada préstamo con el servidor y el pool por defecto (valida solo las conexiones que estuvieron
+// libres más de -Ddb.pool.validateAfterMs). Cada llamada verifica un estudiante por ID (authenticate).
+//   java -cp target/benchmarks.jar benchmark.PoolThroughput [callers] [seconds]
+public class PoolThroughput {
+
+    private static final int STUDENTS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--run")) {
+            run(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        int callers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%d callers, %d s each, %d cores%n", callers, seconds, Runtime.getRuntime().availableProcessors());
+        boolean failed = false;
+        failed |= !child("single connection", 1, seconds, "-Ddb.pool.min=1", "-Ddb.pool.max=1");
+        failed |= !child("single connection", callers, seconds, "-Ddb.pool.min=1", "-Ddb.pool.max=1");
+        failed |= !child("pool, validate every borrow", callers, seconds, "-Ddb.pool.validateAfterMs=0");
+        failed |= !child("pool", callers, seconds);
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    private static boolean child(String label, int callers, int seconds, String... properties)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(properties));
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), PoolThroughput.class.getName(), "--run",
+                Integer.toString(callers), Integer.toString(seconds)));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes()).trim();
+        System.out.printf("  %-38s %s%n", label + ", " + callers + (callers == 1 ? " caller" : " callers"), output);
+        return process.waitFor() == 0;
+    }
+
+    private static void run(int callers, int seconds) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        System.setProperty("storage.backend", "jdbc");
+        EmbeddedDatabase.configureConnection();
+        System.setProperty("db.url", "jdbc:h2:tcp://localhost:" + port + "/mem:enrollment;MODE=Oracle");
+        EmbeddedDatabase.create(100, STUDENTS, STUDENTS);
+        Server server = Server.createTcpServer("-tcpPort", Integer.toString(port)).start();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Sin los mensajes de Log
+        try {
+            DBConnection.getInstance().warmUp();
+            StudentStore students = StorageBackend.getInstance().students();
+            measure(students, callers, 2); // Calienta el JIT y la caché de statements
+            long[] result = measure(students, callers, seconds);
+            out.printf("%,10.0f calls/s (%,d calls, %d not found)%n", result[0] / (double) seconds, result[0], result[1]);
+            System.exit(result[1] == 0 ? 0 : 1);
+        } finally {
+            System.setOut(out);
+            server.stop();
+        }
+    }
+
+    // Llamadas hechas entre todos los hilos durante seconds, y cuántas no encontraron al estudiante
+    private static long[] measure(StudentStore students, int callers, int seconds) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong calls = new AtomicLong();
+        AtomicLong empty = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(callers);
+        for (int t = 0; t < callers; t++) {
+            long seed = t;
+            Thread caller = new Thread(() -> {
+                Random random = new Random(seed);
+                while (!stop.get()) {
+                    if (!students.authenticate(EmbeddedDatabase.studentId(random.nextInt(STUDENTS)))) {
+                        empty.incrementAndGet();
+                    }
+                    calls.incrementAndGet();
+                }
+                done.countDown();
+            });
+            caller.setDaemon(true);
+            caller.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        done.await();
+        return new long[] { calls.get(), empty.get() };
+    }
+}
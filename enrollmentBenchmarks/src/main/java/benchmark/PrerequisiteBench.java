@@ -0,0 +1,227 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import data.CourseRules;
+import data.CourseStore;
+import data.EnrollmentResult;
+import data.EnrollmentStore;
+import data.StorageBackend;
+import model.Course;
+import model.Enrollment;
+
+// Mide CourseRules sobre H2 en modo Oracle: arma el grafo de prerrequisitos y horarios, mide cuánto
+// tarda check() y cuánto cuesta cambiar los prerrequisitos o el horario de un curso a través del store
+// frente a volver a armar todo. Compara las respuestas con una verificación directa (recorrer los
+// prerrequisitos y las inscripciones del estudiante) antes y después de los cambios. Sale con código 1
+// si alguna respuesta no coincide.
+//   java -cp target/benchmarks.jar benchmark.PrerequisiteBench [courses] [students] [enrollments]
+public class PrerequisiteBench {
+
+    private static final int CHECKS = 1_000_000;
+    private static final int SAMPLE = 50_000;
+    private static final int CHAIN = 3; // Cada curso pide el anterior, en cadenas de este largo
+    private static final int UPDATES = 200;
+    private static final LocalDate PERIOD_START = LocalDate.of(2022, 3, 1); // Último tramo de las fechas sembradas
+
+    public static void main(String[] args) throws Exception {
+        int courses = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int enrollments = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        System.setProperty("storage.backend", "jdbc");
+        System.setProperty("rules.periodDays", Long.toString(ChronoUnit.DAYS.between(PERIOD_START, LocalDate.now())));
+        EmbeddedDatabase.configureConnection();
+        EmbeddedDatabase.create(courses, students, enrollments);
+        CourseStore courseStore = StorageBackend.getInstance().courses();
+        EnrollmentStore enrollmentStore = StorageBackend.getInstance().enrollments();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Sin los mensajes de Log
+        boolean failed = false;
+        try {
+            out.printf("%,d enrollments (%,d students, %,d courses), %d cores%n", enrollments, students, courses,
+                    Runtime.getRuntime().availableProcessors());
+            for (Course course : courseStore.fetch()) {
+                course.setPrerequisites(prerequisitesOf(course.getCode()));
+                course.setSchedule(scheduleOf(course.getCode()));
+                courseStore.update(course);
+            }
+
+            CourseRules rules = CourseRules.getInstance();
+            if (!rules.refresh().get()) {
+                throw new IllegalStateException("The prerequisite graph could not be built");
+            }
+            long buildMillis = rules.getLastBuildMillis();
+            out.printf("  %-34s %,d ms in the background%n", "graph build", buildMillis);
+
+            Random random = new Random(42);
+            List<Enrollment> requests = new ArrayList<>(CHECKS);
+            for (int i = 0; i < CHECKS; i++) {
+                requests.add(request(random, courses, students, enrollments));
+            }
+            int[] counts = null;
+            long nanos = 0;
+            long start;
+            for (int run = 0; run < 3; run++) { // La primera vuelta calienta el JIT
+                counts = new int[EnrollmentResult.values().length];
+                start = System.nanoTime();
+                for (Enrollment request : requests) {
+                    counts[rules.check(request).ordinal()]++;
+                }
+                nanos = System.nanoTime() - start;
+            }
+            out.printf("  %-34s %,.0f ns per check (%,d OK, %,d missing prerequisite, %,d schedule conflict)%n",
+                    "check", nanos / (double) CHECKS, counts[EnrollmentResult.OK.ordinal()],
+                    counts[EnrollmentResult.MISSING_PREREQUISITE.ordinal()],
+                    counts[EnrollmentResult.SCHEDULE_CONFLICT.ordinal()]);
+            failed |= !compare(out, "graph vs. direct check", rules, requests);
+
+            // Cambios incrementales: prerrequisitos y horarios a través del store
+            long prerequisiteNanos = 0;
+            long scheduleNanos = 0;
+            for (int i = 0; i < UPDATES; i++) {
+                Course course = courseStore.get(EmbeddedDatabase.courseCode(random.nextInt(courses)));
+                String extra = EmbeddedDatabase.courseCode(random.nextInt(courses));
+                if (i % 2 == 0) {
+                    try {
+                        course.setPrerequisites(rules.validatePrerequisites(course.getCode(),
+                                course.getPrerequisites() + ", " + extra));
+                    } catch (IllegalArgumentException e) {
+                        i--; // Cerraría un ciclo: se prueba con otro curso
+                        continue;
+                    }
+                    start = System.nanoTime();
+                    courseStore.update(course);
+                    prerequisiteNanos += System.nanoTime() - start;
+                } else {
+                    course.setSchedule(scheduleOf(extra));
+                    start = System.nanoTime();
+                    courseStore.update(course);
+                    scheduleNanos += System.nanoTime() - start;
+                }
+            }
+            out.printf("  %-34s %,.2f ms per prerequisite change, %,.2f ms per schedule change (UPDATE included)%n",
+                    "incremental course update", prerequisiteNanos / 1e6 / (UPDATES / 2),
+                    scheduleNanos / 1e6 / (UPDATES / 2));
+            for (int i = 0; i < 1_000; i++) { // authenticate da true si el estudiante no está inscrito
+                Enrollment enrollment = request(random, courses, students, enrollments);
+                if (rules.check(enrollment) == EnrollmentResult.OK
+                        && enrollmentStore.authenticate(enrollment.getStudentId(), enrollment.getCourseCode())) {
+                    enrollmentStore.save(enrollment);
+                }
+            }
+            failed |= !compare(out, "after the changes", rules, requests);
+            if (!rules.refresh().get()) {
+                throw new IllegalStateException("The prerequisite graph could not be rebuilt");
+            }
+            out.printf("  %-34s %,d ms%n", "full rebuild (for comparison)", rules.getLastBuildMillis());
+            failed |= !compare(out, "after the rebuild", rules, requests);
+        } finally {
+            System.setOut(out);
+            StorageBackend.shutdown();
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    // Curso siguiente a uno de los del estudiante (cumple parte de la cadena) o uno cualquiera, con fecha
+    // dentro o fuera del período
+    private static Enrollment request(Random random, int courses, int students, int enrollments) {
+        int student = random.nextInt(students);
+        int perStudent = EmbeddedDatabase.perStudent(students, enrollments);
+        String course;
+        if (random.nextBoolean()) {
+            String enrolled = EmbeddedDatabase.enrolledCourse(student, random.nextInt(perStudent), courses, perStudent);
+            course = EmbeddedDatabase.courseCode((Integer.parseInt(enrolled.substring(1)) + 1) % courses);
+        } else {
+            course = EmbeddedDatabase.courseCode(random.nextInt(courses));
+        }
+        LocalDate date = random.nextInt(4) == 0 ? PERIOD_START.minusDays(30) : LocalDate.now();
+        return new Enrollment(EmbeddedDatabase.studentId(student), course, date);
+    }
+
+    private static String prerequisitesOf(String code) {
+        int i = Integer.parseInt(code.substring(1));
+        return i % CHAIN == 0 ? "" : EmbeddedDatabase.courseCode(i - 1);
+    }
+
+    // Un bloque de dos horas: 5 días x 6 bloques
+    private static String scheduleOf(String code) {
+        int i = Integer.parseInt(code.substring(1));
+        String[] days = { "LU", "MA", "MI", "JU", "VI" };
+        int hour = 8 + 2 * ((i / 5) % 6);
+        return String.format("%s %02d-%02d", days[i % 5], hour, hour + 2);
+    }
+
+    // Compara check() con una verificación directa sobre el catálogo y las inscripciones actuales
+    private static boolean compare(PrintStream out, String label, CourseRules rules, List<Enrollment> requests) {
+        Map<String, Course> catalog = new HashMap<>();
+        for (Course course : StorageBackend.getInstance().courses().fetch()) {
+            catalog.put(course.getCode(), course);
+        }
+        Map<String, Map<String, LocalDate>> enrolled = new HashMap<>();
+        for (Enrollment enrollment : StorageBackend.getInstance().enrollments().fetchTable().asList()) {
+            enrolled.computeIfAbsent(enrollment.getStudentId(), id -> new HashMap<>())
+                    .put(enrollment.getCourseCode(), enrollment.getEnrollmentDate());
+        }
+        int different = 0;
+        for (Enrollment request : requests.subList(0, SAMPLE)) {
+            EnrollmentResult expected = directCheck(catalog, enrolled, request);
+            if (rules.check(request) != expected) {
+                different++;
+            }
+        }
+        out.printf("  %-34s %s%n", label, different == 0 ? "same answers on " + SAMPLE + " requests"
+                : different + " DIFFERENT answers");
+        return different == 0;
+    }
+
+    private static EnrollmentResult directCheck(Map<String, Course> catalog, Map<String, Map<String, LocalDate>> enrolled,
+                                                Enrollment request) {
+        Map<String, LocalDate> taken = enrolled.getOrDefault(request.getStudentId(), Map.of());
+        if (taken.containsKey(request.getCourseCode())) {
+            return EnrollmentResult.OK;
+        }
+        Set<String> required = new HashSet<>();
+        collect(catalog, request.getCourseCode(), required);
+        if (!taken.keySet().containsAll(required)) {
+            return EnrollmentResult.MISSING_PREREQUISITE;
+        }
+        if (!request.getEnrollmentDate().isBefore(PERIOD_START)) {
+            long[] slots = CourseRules.parseSchedule(catalog.get(request.getCourseCode()).getSchedule());
+            for (Map.Entry<String, LocalDate> course : taken.entrySet()) {
+                if (course.getValue().isBefore(PERIOD_START)) {
+                    continue;
+                }
+                long[] other = CourseRules.parseSchedule(catalog.get(course.getKey()).getSchedule());
+                for (int w = 0; w < slots.length; w++) {
+                    if ((slots[w] & other[w]) != 0) {
+                        return EnrollmentResult.SCHEDULE_CONFLICT;
+                    }
+                }
+            }
+        }
+        return EnrollmentResult.OK;
+    }
+
+    private static void collect(Map<String, Course> catalog, String code, Set<String> required) {
+        for (String prerequisite : CourseRules.parsePrerequisites(catalog.get(code).getPrerequisites())) {
+            if (catalog.containsKey(prerequisite) && required.add(prerequisite)) {
+                collect(catalog, prerequisite, required);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import data.EnrollmentQueue;
+import data.EnrollmentResult;
+import data.StorageBackend;
+import model.Enrollment;
+
+// Pico de inscripciones: muchos hilos (las estaciones) inscriben a la vez. Compara guardar cada
+// inscripción por separado (un viaje a la base por clic; con save, porque H2 no ejecuta el bloque
+// PL/SQL de saveValidated) contra dejarlas en EnrollmentQueue, que las guarda en bloques, e informa
+// inscripciones por segundo, rechazos por admisión (BUSY) y la cola más larga vista. Corre sobre H2
+// en modo Oracle.
+//   java -cp target/benchmarks.jar benchmark.QueueRush [threads] [perThread] [-Denroll.queue.limit=...]
+public class QueueRush {
+
+    private static final int COURSES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int students = threads * perThread;
+
+        Path dir = Files.createTempDirectory("enrollment-rush");
+        System.setProperty("storage.backend", "jdbc");
+        System.setProperty("storage.memory.dir", dir.toString());
+        EmbeddedDatabase.configureConnection();
+        try {
+            EmbeddedDatabase.create(COURSES, students, 0);
+            run("one per request", threads, perThread, 0, false);
+            EmbeddedDatabase.create(COURSES, students, 0);
+            run("queue", threads, perThread, 0, true);
+            EmbeddedDatabase.create(COURSES, students, 0);
+            run("queue, waits 1 s", threads, perThread, 1_000, true);
+        } finally {
+            StorageBackend.shutdown();
+        }
+    }
+
+    private static void run(String label, int threads, int perThread, long waitMs, boolean queued)
+            throws Exception {
+        EnrollmentQueue queue = EnrollmentQueue.getInstance();
+        LocalDate today = LocalDate.now();
+        List<CompletableFuture<EnrollmentResult>> results = new ArrayList<>();
+        Map<EnrollmentResult, Integer> outcomes = new EnumMap<>(EnrollmentResult.class);
+        AtomicInteger maxDepth = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                List<CompletableFuture<EnrollmentResult>> own = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    int student = worker * perThread + i;
+                    Enrollment enrollment = new Enrollment(EmbeddedDatabase.studentId(student),
+                            EmbeddedDatabase.courseCode(student % COURSES), today);
+                    if (queued) {
+                        own.add(queue.submit(enrollment, waitMs));
+                        maxDepth.accumulateAndGet(queue.size(), Math::max);
+                    } else {
+                        boolean ok = StorageBackend.getInstance().enrollments().save(enrollment) != null;
+                        own.add(CompletableFuture.completedFuture(ok ? EnrollmentResult.OK : EnrollmentResult.ERROR));
+                    }
+                }
+                synchronized (results) {
+                    results.addAll(own);
+                }
+            }, "rush-" + t));
+        }
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (CompletableFuture<EnrollmentResult> result : results) {
+            outcomes.merge(result.get(), 1, Integer::sum);
+        }
+        long nanos = System.nanoTime() - start;
+        int saved = outcomes.getOrDefault(EnrollmentResult.OK, 0);
+        System.out.printf("  %-18s %,8d requests  %,8d ms  %,10.0f saved/s  max queue %,6d  %s%n", label,
+                results.size(), nanos / 1_000_000, saved / (nanos / 1e9), maxDepth.get(), outcomes);
+    }
+}
@@ -0,0 +1,275 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import data.EnrollmentResult;
+import data.SeatReservations;
+import data.StorageBackend;
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Prueba de carga de SeatReservations: muchos hilos piden a la vez asientos de pocos cursos con pocos
+// cupos. Cada pedido aparta un asiento y después lo confirma, lo cancela o lo deja vencer; mientras
+// tanto otro hilo actualiza los cursos para que los contadores se invaliden y se vuelvan a armar.
+// Al final verifica en el almacenamiento que ningún curso tenga más inscritos que cupos y que cada
+// inscripción confirmada como OK esté guardada; después inscribe hasta llenar cada curso para ver que
+// no se perdió ningún asiento. Por último, en cursos nuevos, inscribe con todos los hilos mientras otro
+// invalida el contador sin pausa (invalidate justo mientras se toma un asiento) y verifica lo mismo.
+// Sale con código 1 si algo no cierra.
+//   java -cp target/benchmarks.jar benchmark.SeatStress [backend] [courses] [capacity] [students] [threads]
+public class SeatStress {
+
+    private static final long HOLD_MS = 300;
+    private static final int STORM_ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        String backend = args.length > 0 ? args[0] : "memory";
+        int courses = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int students = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+
+        Path dir = Files.createTempDirectory("enrollment-seats");
+        System.setProperty("storage.backend", backend);
+        System.setProperty("storage.memory.dir", dir.resolve("store").toString());
+        System.setProperty("seats.holdMs", Long.toString(HOLD_MS)); // Antes de cargar SeatReservations
+        if (backend.equals("jdbc")) {
+            EmbeddedDatabase.configureConnection();
+            EmbeddedDatabase.create(courses, students, 0);
+        } else {
+            List<Student> studentRows = new ArrayList<>(students);
+            for (int i = 0; i < students; i++) {
+                studentRows.add(new Student(EmbeddedDatabase.studentId(i), "Student " + i, "s" + i + "@example.edu"));
+            }
+            StorageBackend.getInstance().students().saveAll(studentRows);
+        }
+        try {
+            for (int i = 0; i < courses; i++) {
+                Course course = new Course(EmbeddedDatabase.courseCode(i), "Course " + i, 3, capacity);
+                if (StorageBackend.getInstance().courses().update(course) == null) {
+                    StorageBackend.getInstance().courses().save(course);
+                }
+            }
+            boolean failed = !run(courses, capacity, students, threads);
+            failed |= !invalidateStorm(courses, capacity, students, threads);
+            if (failed) {
+                System.out.println("FAILED");
+                System.exit(1);
+            }
+            System.out.println("PASSED: no course overbooked, no seat lost");
+        } finally {
+            StorageBackend.shutdown();
+        }
+    }
+
+    private static boolean run(int courses, int capacity, int students, int threads) throws Exception {
+        SeatReservations seats = SeatReservations.getInstance();
+        ConcurrentLinkedQueue<CompletableFuture<EnrollmentResult>> results = new ConcurrentLinkedQueue<>();
+        long[][] latencies = new long[threads][];
+        int[] rejected = new int[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LocalDate today = LocalDate.now();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = students * worker / threads;
+                int to = students * (worker + 1) / threads;
+                long[] times = new long[(to - from) * 2];
+                int n = 0;
+                awaitQuietly(start);
+                for (int s = from; s < to; s++) {
+                    // Cada estudiante pide dos cursos al azar (a veces el mismo: DUPLICATE)
+                    for (int k = 0; k < 2; k++) {
+                        String course = EmbeddedDatabase.courseCode(random.nextInt(courses));
+                        Enrollment enrollment = new Enrollment(EmbeddedDatabase.studentId(s), course, today);
+                        long begin = System.nanoTime();
+                        SeatReservations.Hold hold = seats.hold(enrollment);
+                        times[n++] = System.nanoTime() - begin;
+                        if (hold == null) {
+                            rejected[worker]++;
+                            continue;
+                        }
+                        int choice = random.nextInt(10);
+                        if (choice == 0) {
+                            seats.cancel(hold);
+                        } else if (choice == 1) {
+                            results.add(hold.getResult()); // Se deja vencer: EXPIRED
+                        } else {
+                            results.add(seats.confirm(hold));
+                        }
+                    }
+                }
+                latencies[worker] = Arrays.copyOf(times, n);
+            }, "stress-" + t));
+        }
+        // Invalida los contadores mientras se reserva
+        Thread updater = new Thread(() -> {
+            awaitQuietly(start);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                int i = random.nextInt(courses);
+                StorageBackend.getInstance().courses().update(
+                        new Course(EmbeddedDatabase.courseCode(i), "Course " + i, 3, capacity));
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "stress-updater");
+
+        workers.forEach(Thread::start);
+        updater.start();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long requestNanos = System.nanoTime() - begin;
+        running.set(false);
+        updater.join();
+
+        Map<EnrollmentResult, Integer> outcomes = new EnumMap<>(EnrollmentResult.class);
+        for (CompletableFuture<EnrollmentResult> result : results) {
+            outcomes.merge(result.get(), 1, Integer::sum);
+        }
+        long totalNanos = System.nanoTime() - begin;
+        int full = Arrays.stream(rejected).sum();
+        outcomes.merge(EnrollmentResult.FULL, full, Integer::sum);
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("backend=%s, %d threads, %d courses x %d seats, %,d requests in %,d ms (all saved in %,d ms)%n",
+                StorageBackend.getInstance().getName(), threads, courses, capacity, all.length,
+                requestNanos / 1_000_000, totalNanos / 1_000_000);
+        System.out.printf("  hold latency: p50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us%n",
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), all[all.length - 1] / 1e3);
+        System.out.println("  outcomes: " + outcomes);
+
+        boolean failed = false;
+        int enrolled = 0;
+        for (int i = 0; i < courses; i++) {
+            String code = EmbeddedDatabase.courseCode(i);
+            int count = StorageBackend.getInstance().enrollments().countByCourse(code);
+            enrolled += count;
+            failed |= count > capacity;
+            System.out.printf("  %s: %d / %d enrolled, %d free by counter%s%n", code, count, capacity,
+                    seats.available(code), count > capacity ? " OVERBOOKED" : "");
+        }
+        int ok = outcomes.getOrDefault(EnrollmentResult.OK, 0);
+        System.out.printf("  OK results %d, stored enrollments %d%n", ok, enrolled);
+        failed |= ok != enrolled;
+
+        // Los asientos cancelados, vencidos o rechazados tienen que haber vuelto: se inscribe hasta
+        // que cada curso diga FULL y debe quedar exactamente lleno
+        for (int i = 0; i < courses; i++) {
+            String code = EmbeddedDatabase.courseCode(i);
+            for (int s = 0; s < students; s++) {
+                Enrollment enrollment = new Enrollment(EmbeddedDatabase.studentId(s), code, today);
+                if (seats.enroll(enrollment).get() == EnrollmentResult.FULL) {
+                    break;
+                }
+            }
+            int count = StorageBackend.getInstance().enrollments().countByCourse(code);
+            if (count != capacity) {
+                System.out.printf("  %s: %d / %d enrolled after filling the free seats%n", code, count, capacity);
+                failed = true;
+            }
+        }
+        if (!failed) {
+            System.out.println("  every course filled exactly to capacity after the rush");
+        }
+        return !failed;
+    }
+
+    // En cada vuelta un curso nuevo: todos los hilos inscriben (hold + confirm) mientras otro hilo
+    // invalida su contador sin pausa, así los contadores se cierran y se vuelven a armar en medio de take
+    private static boolean invalidateStorm(int courses, int capacity, int students, int threads) throws Exception {
+        SeatReservations seats = SeatReservations.getInstance();
+        LocalDate today = LocalDate.now();
+        int perRound = Math.min(students, capacity * 3);
+        boolean failed = false;
+        long invalidations = 0;
+        int maxEnrolled = 0;
+        long begin = System.nanoTime();
+        for (int round = 0; round < STORM_ROUNDS; round++) {
+            String code = EmbeddedDatabase.courseCode(courses + round);
+            StorageBackend.getInstance().courses().save(new Course(code, "Storm " + round, 3, capacity));
+            ConcurrentLinkedQueue<CompletableFuture<EnrollmentResult>> results = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean running = new AtomicBoolean(true);
+            long[] invalidated = new long[1];
+            Thread invalidator = new Thread(() -> {
+                awaitQuietly(start);
+                while (running.get()) {
+                    seats.invalidate(code);
+                    invalidated[0]++;
+                }
+            }, "storm-invalidator");
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = perRound * t / threads;
+                int to = perRound * (t + 1) / threads;
+                workers.add(new Thread(() -> {
+                    awaitQuietly(start);
+                    for (int s = from; s < to; s++) {
+                        results.add(seats.enroll(new Enrollment(EmbeddedDatabase.studentId(s), code, today)));
+                    }
+                }, "storm-" + t));
+            }
+            invalidator.start();
+            workers.forEach(Thread::start);
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            running.set(false);
+            invalidator.join();
+            invalidations += invalidated[0];
+
+            int ok = 0;
+            for (CompletableFuture<EnrollmentResult> result : results) {
+                ok += result.get() == EnrollmentResult.OK ? 1 : 0;
+            }
+            int count = StorageBackend.getInstance().enrollments().countByCourse(code);
+            maxEnrolled = Math.max(maxEnrolled, count);
+            if (count > capacity || ok != count) {
+                System.out.printf("  %s: %d / %d enrolled, %d OK results%s%n", code, count, capacity, ok,
+                        count > capacity ? " OVERBOOKED" : "");
+                failed = true;
+            }
+        }
+        System.out.printf("  invalidate storm: %d courses, %,d requests, %,d invalidations in %,d ms, "
+                + "at most %d / %d enrolled%n", STORM_ROUNDS, STORM_ROUNDS * perRound, invalidations,
+                (System.nanoTime() - begin) / 1_000_000, maxEnrolled, capacity);
+        return !failed;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e3;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
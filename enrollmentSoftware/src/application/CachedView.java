@@ -0,0 +1,15 @@
+package application;
+
+// Controlador de una vista que ViewRegistry guarda y reutiliza. Como la vista no se vuelve a crear
+// al navegar, el controlador recibe estos avisos para pausar sus temporizadores mientras no se ve
+// y para recargar sus datos al volver solo si cambiaron. Se llaman en el hilo de JavaFX.
+public interface CachedView {
+
+    // La vista pasó a ser la raíz de la escena
+    default void onShow() {
+    }
+
+    // La vista dejó de mostrarse (se navegó a otra)
+    default void onHide() {
+    }
+}
@@ -8,6 +8,7 @@ import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;  
 import javafx.fxml.FXMLLoader;
 import javafx.scene.image.Image;
+import data.StorageBackend;
 
 public class Main extends Application {
 
@@ -15,6 +16,9 @@ public class Main extends Application {
     private static BorderPane rootLayout;  
     private static Stage primaryStage;
 
+    // Vista que se está mostrando (se reutiliza desde ViewRegistry)
+    private static ViewRegistry.View currentView;
+
     // Método principal de JavaFX que se ejecuta al iniciar la aplicación
     @Override
     public void start(Stage primaryStage) {
@@ -23,8 +27,9 @@ public class Main extends Application {
             Main.primaryStage = primaryStage;
 
             // Carga el archivo FXML (interfaz gráfica) para el menú principal
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/MainMenu.fxml"));
-            rootLayout = loader.load();  // Carga el layout en rootLayout
+            long menuStart = System.nanoTime();
+            currentView = ViewRegistry.get("/view/MainMenu.fxml");
+            rootLayout = (BorderPane) currentView.getRoot();  // Carga el layout en rootLayout
 
             // Crea la escena usando el layout cargado
             Scene scene = new Scene(rootLayout);
@@ -39,11 +44,22 @@ public class Main extends Application {
             primaryStage.setScene(scene);
             primaryStage.setTitle("Enrollment Software");  // Título de la ventana
             primaryStage.show();  // Muestra la interfaz
+
+            // Conecta a la base de datos y precarga las pantallas principales en segundo plano,
+            // para que el menú aparezca sin esperar y abrir las pantallas sea inmediato
+            Startup.markMenuShown((System.nanoTime() - menuStart) / 1_000_000);
+            Startup.begin("/view/Students.fxml", "/view/Courses.fxml", "/view/Enrollments.fxml");
         } catch (Exception e) {
             e.printStackTrace();  // Imprime errores si los hay
         }
     }
 
+    // Se ejecuta al cerrar la ventana: libera conexiones y cierra el log del motor en memoria
+    @Override
+    public void stop() {
+        StorageBackend.shutdown();
+    }
+
     // Método para cargar un ícono personalizado en la ventana
     private void loadIcon() {
         try {
@@ -79,17 +95,27 @@ public class Main extends Application {
     // Método estático para cambiar completamente de escena
     public static void loadScene(String fxmlFile) {
         try {
-            // Carga el archivo FXML como raíz de la nueva escena
-            Parent root = FXMLLoader.load(Main.class.getResource(fxmlFile));
+            // Toma la vista del registro (solo se lee el FXML la primera vez)
+            ViewRegistry.View view = ViewRegistry.get(fxmlFile);
+            if (view == currentView) {
+                return;
+            }
             Scene scene = primaryStage.getScene();
 
+            if (currentView != null && currentView.getController() instanceof CachedView) {
+                ((CachedView) currentView.getController()).onHide();
+            }
             if (scene == null) {
                 // Si no hay escena aún, crea una nueva
-                scene = new Scene(root, 600, 600);
+                scene = new Scene(view.getRoot(), 600, 600);
                 primaryStage.setScene(scene);
             } else {
                 // Si ya hay una escena, cambia solo el contenido raíz
-                scene.setRoot(root);
+                scene.setRoot(view.getRoot());
+            }
+            currentView = view;
+            if (view.getController() instanceof CachedView) {
+                ((CachedView) view.getController()).onShow();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -98,6 +124,7 @@ public class Main extends Application {
 
     // Método principal estándar de Java que lanza la aplicación JavaFX
     public static void main(String[] args) {
+        Startup.markMain(); // Tiempo de inicio de la JVM y carga de clases
         launch(args);  // Inicia la aplicación JavaFX
     }
 }
@@ -0,0 +1,188 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import data.DBConnection;
+import data.EnrollmentStore;
+import data.FuzzyIndex;
+import data.LocalReplica;
+import data.Log;
+import data.StorageBackend;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+// Arranque en segundo plano. El menú se muestra sin esperar a la base de datos; mientras tanto, en
+// otro hilo se abre el motor de almacenamiento y el pool, y se hacen las primeras consultas (catálogo
+// de cursos en CourseCache y números de cambio de las tablas, que dejan sus statements en la caché
+// de la conexión). El estado de la conexión queda en statusProperty() para mostrarlo en el menú.
+// Si hay una réplica local (ver LocalReplica) las pantallas la muestran mientras se conecta, y si
+// Oracle no responde se sigue trabajando sobre ella hasta que vuelva.
+// Cada etapa se mide y al terminar se escribe un resumen en el log.
+public final class Startup {
+
+    public enum Status {
+        CONNECTING, CONNECTED, FAILED
+    }
+
+    private static final ReadOnlyObjectWrapper<Status> STATUS = new ReadOnlyObjectWrapper<>(Status.CONNECTING);
+    private static final ReadOnlyStringWrapper MESSAGE = new ReadOnlyStringWrapper("Conectando...");
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Tiempos del arranque, en milisegundos desde que inició la JVM o de duración
+    private static long mainAt;
+    private static int classesAtMain;
+    private static long menuParseMillis;
+    private static long menuShownAt;
+
+    private Startup() {
+    }
+
+    // Estado de la conexión; solo cambia en el hilo de JavaFX
+    public static ReadOnlyObjectProperty<Status> statusProperty() {
+        return STATUS.getReadOnlyProperty();
+    }
+
+    // Texto para mostrar junto al estado
+    public static ReadOnlyStringProperty messageProperty() {
+        return MESSAGE.getReadOnlyProperty();
+    }
+
+    // Llamado al entrar a main(): lo que tomó iniciar la JVM y cargar las clases hasta ahí
+    static void markMain() {
+        mainAt = ManagementFactory.getRuntimeMXBean().getUptime();
+        classesAtMain = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+    }
+
+    // Llamado cuando el menú ya está visible
+    static void markMenuShown(long parseMillis) {
+        menuParseMillis = parseMillis;
+        menuShownAt = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    // Conecta en segundo plano y precarga las vistas indicadas
+    static void begin(String... fxmlFiles) {
+        LocalReplica.getInstance().addListener(mode -> Platform.runLater(() -> {
+            if (mode == LocalReplica.Mode.LOCAL) {
+                setStatus(Status.FAILED, offlineMessage());
+            } else if (STATUS.get() == Status.FAILED) {
+                retry(); // Volvió Oracle: se rehacen las consultas de arranque
+            }
+        }));
+        CompletableFuture<String> connect = connect();
+        CompletableFuture<List<ViewRegistry.View>> views = ViewRegistry.preload(fxmlFiles);
+        connect.thenAcceptBoth(views, (connected, loaded) -> logSummary(connected, fxmlFiles, loaded))
+                .exceptionally(error -> {
+                    Log.warn("Startup did not finish", error);
+                    return null;
+                });
+    }
+
+    // Vuelve a intentar la conexión si falló
+    public static void retry() {
+        if (STATUS.get() == Status.FAILED) {
+            connect().thenAccept(times -> Log.info("Reconnected: " + times));
+        }
+    }
+
+    // Abre el motor y hace las primeras consultas; devuelve los tiempos de cada etapa
+    private static CompletableFuture<String> connect() {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return new CompletableFuture<>();
+        }
+        setStatus(Status.CONNECTING, "Conectando...");
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread worker = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                LocalReplica replica = LocalReplica.getInstance();
+                if (replica.isLocal()) {
+                    setStatus(Status.CONNECTING, "Conectando... (mostrando datos locales del " + snapshotTime() + ")");
+                    replica.prepare();
+                }
+                StorageBackend backend = StorageBackend.getInstance();
+                long opened = System.nanoTime();
+                if (backend.getName().equals("jdbc")) {
+                    DBConnection.getInstance().warmUp();
+                    if (!replica.goOnline()) {
+                        throw new SQLException("The offline changes could not be sent");
+                    }
+                }
+                long pooled = System.nanoTime();
+                backend.courses().fetch();
+                long firstQuery = System.nanoTime();
+                EnrollmentStore enrollments = backend.enrollments();
+                backend.students().fetchChangedSince(-1);
+                enrollments.fetchChangedSince(-1);
+                enrollments.count();
+                long warmed = System.nanoTime();
+                if (replica.isLocal()) {
+                    throw new SQLException("The database stopped responding");
+                }
+                // Los índices de autocompletado se arman en segundo plano, sin retrasar el estado
+                FuzzyIndex.students().prepare();
+                FuzzyIndex.courses().prepare();
+
+                String times = String.format("backend %d ms, pool %d ms, first query %d ms, statements %d ms",
+                        millis(start, opened), millis(opened, pooled), millis(pooled, firstQuery), millis(firstQuery, warmed));
+                setStatus(Status.CONNECTED, "Conectado (" + backend.getName() + ", " + millis(start, warmed) + " ms)");
+                result.complete(times + ", connected at " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+            } catch (Exception e) {
+                Log.error("Cannot connect to the storage backend", e);
+                setStatus(Status.FAILED, LocalReplica.getInstance().isLocal() ? offlineMessage()
+                        : "Sin conexión (clic para reintentar)");
+                result.completeExceptionally(e);
+            } finally {
+                RUNNING.set(false);
+            }
+        }, "startup");
+        worker.setDaemon(true);
+        worker.start();
+        return result;
+    }
+
+    private static void logSummary(String connected, String[] fxmlFiles, List<ViewRegistry.View> views) {
+        StringBuilder viewTimes = new StringBuilder();
+        for (int i = 0; i < views.size(); i++) {
+            String name = fxmlFiles[i].substring(fxmlFiles[i].lastIndexOf('/') + 1).replace(".fxml", "");
+            viewTimes.append(i == 0 ? "" : ", ").append(name).append(' ').append(views.get(i).getLoadMillis());
+        }
+        Log.info(String.format("Startup: JVM and class loading %d ms (%d classes), menu FXML %d ms, menu visible at %d ms; "
+                + "%s; views %s ms; ready at %d ms", mainAt, classesAtMain, menuParseMillis, menuShownAt,
+                connected, viewTimes, ManagementFactory.getRuntimeMXBean().getUptime()));
+    }
+
+    // Mensaje del modo LOCAL: de cuándo son los datos y cuántos cambios faltan enviar
+    private static String offlineMessage() {
+        long pending = LocalReplica.getInstance().getPendingChanges();
+        return "Sin conexión: datos locales del " + snapshotTime()
+                + (pending > 0 ? "; " + pending + " cambios por enviar" : "") + " (clic para reintentar)";
+    }
+
+    private static String snapshotTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(LocalReplica.getInstance().getSnapshotTime()),
+                ZoneId.systemDefault()).format(SNAPSHOT_TIME);
+    }
+
+    private static void setStatus(Status status, String message) {
+        Platform.runLater(() -> {
+            STATUS.set(status);
+            MESSAGE.set(message);
+        });
+    }
+
+    private static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
+    }
+}
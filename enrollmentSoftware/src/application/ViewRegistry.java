@@ -0,0 +1,104 @@
+package application;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+// Registro de vistas: cada archivo FXML se carga una sola vez y su nodo raíz y su controlador se
+// reutilizan en los siguientes cambios de pantalla, en lugar de volver a leer el FXML y crear un
+// controlador nuevo (que además volvía a pedir la tabla completa). preload() carga vistas en un
+// hilo aparte al iniciar, así que la primera navegación tampoco espera.
+public final class ViewRegistry {
+
+    // Vista cargada: nodo raíz y controlador
+    public static final class View {
+        private final Parent root;
+        private final Object controller;
+        private final long loadMillis;
+
+        private View(Parent root, Object controller, long loadMillis) {
+            this.root = root;
+            this.controller = controller;
+            this.loadMillis = loadMillis;
+        }
+
+        public Parent getRoot() {
+            return root;
+        }
+
+        public Object getController() {
+            return controller;
+        }
+
+        // Tiempo que tomó leer el FXML y crear el controlador
+        public long getLoadMillis() {
+            return loadMillis;
+        }
+    }
+
+    private static final Map<String, CompletableFuture<View>> VIEWS = new ConcurrentHashMap<>();
+
+    // Un solo hilo: las vistas se precargan de a una sin quitarle CPU a la pantalla visible
+    private static final ExecutorService PRELOADER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "view-preload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ViewRegistry() {
+    }
+
+    // Carga en segundo plano las vistas que todavía no están en el registro. Los nodos se pueden crear
+    // fuera del hilo de JavaFX mientras no formen parte de una escena visible. Termina cuando están
+    // todas cargadas.
+    public static CompletableFuture<List<View>> preload(String... fxmlFiles) {
+        List<CompletableFuture<View>> loads = new ArrayList<>();
+        for (String fxmlFile : fxmlFiles) {
+            loads.add(VIEWS.computeIfAbsent(fxmlFile, file -> CompletableFuture.supplyAsync(() -> load(file), PRELOADER)));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> loads.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    // Devuelve la vista; si no estaba en el registro se carga en este hilo, y si se está precargando
+    // se espera a que termine
+    public static View get(String fxmlFile) {
+        CompletableFuture<View> cached = VIEWS.get(fxmlFile);
+        if (cached == null) {
+            CompletableFuture<View> loaded = CompletableFuture.completedFuture(load(fxmlFile));
+            cached = VIEWS.putIfAbsent(fxmlFile, loaded);
+            if (cached == null) {
+                return loaded.join();
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            // La precarga falló: se descarta y se intenta de nuevo aquí para que el error se vea
+            VIEWS.remove(fxmlFile, cached);
+            return get(fxmlFile);
+        }
+    }
+
+    private static View load(String fxmlFile) {
+        long start = System.nanoTime();
+        try {
+            FXMLLoader loader = new FXMLLoader(ViewRegistry.class.getResource(fxmlFile));
+            Parent root = loader.load();
+            return new View(root, loader.getController(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load view " + fxmlFile, e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import data.FuzzyIndex;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+// Autocompletado de un campo de texto: mientras se escribe muestra debajo hasta SUGGESTIONS
+// coincidencias ("clave — nombre") y al elegir una escribe su clave en el campo. Busca en el índice
+// difuso en memoria (FuzzyIndex), que responde en pocos milisegundos en el hilo de JavaFX y tolera
+// errores de tipeo; si el índice todavía no está armado, consulta al store por prefijo con
+// DebouncedSearch.
+class AutoComplete<T> {
+
+    static final int SUGGESTIONS = 8;
+
+    private final TextField field;
+    private final FuzzyIndex<T> index;
+    private final Function<T, String> keyOf;
+    private final Function<T, String> labelOf;
+    private final DebouncedSearch<ArrayList<T>> remote;
+    private final ContextMenu menu = new ContextMenu();
+    private boolean filling; // El texto lo puso el autocompletado: no se vuelve a buscar
+
+    AutoComplete(TextField field, FuzzyIndex<T> index, Function<String, CompletableFuture<ArrayList<T>>> fallback,
+                 Function<T, String> keyOf, Function<T, String> labelOf) {
+        this.field = field;
+        this.index = index;
+        this.keyOf = keyOf;
+        this.labelOf = labelOf;
+        this.remote = new DebouncedSearch<>(() -> fallback.apply(field.getText().trim()), this::show);
+        field.textProperty().addListener((obs, oldText, newText) -> onTextChanged(newText));
+        field.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                hide();
+            }
+        });
+    }
+
+    // Cierra las sugerencias y descarta la búsqueda pendiente
+    void hide() {
+        remote.cancel();
+        menu.hide();
+    }
+
+    // Solo cuando escribe el usuario; los cambios hechos por la pantalla (selección, limpiar) no buscan
+    private void onTextChanged(String text) {
+        if (filling || !field.isFocused() || field.isDisabled()) {
+            return;
+        }
+        String query = text == null ? "" : text.trim();
+        if (query.length() < 2) {
+            hide();
+            return;
+        }
+        List<T> matches = index.search(query, SUGGESTIONS);
+        if (matches != null) {
+            remote.cancel();
+            show(matches);
+        } else {
+            remote.schedule();
+        }
+    }
+
+    private void show(List<T> matches) {
+        if (!field.isFocused() || matches.isEmpty()) {
+            menu.hide();
+            return;
+        }
+        ArrayList<MenuItem> items = new ArrayList<>();
+        for (T match : matches.subList(0, Math.min(SUGGESTIONS, matches.size()))) {
+            String key = keyOf.apply(match);
+            MenuItem item = new MenuItem(key + " — " + labelOf.apply(match));
+            item.setMnemonicParsing(false);
+            item.setOnAction(event -> fill(key));
+            items.add(item);
+        }
+        menu.getItems().setAll(items);
+        if (!menu.isShowing()) {
+            menu.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void fill(String key) {
+        filling = true;
+        try {
+            field.setText(key);
+            field.positionCaret(key.length());
+        } finally {
+            filling = false;
+        }
+        hide();
+    }
+}
@@ -1,9 +1,15 @@
 package controller;
 
 // Importaciones necesarias
+import application.CachedView;
 import application.Main;
-import data.CourseDAO;
-import data.DBConnection;
+import data.CourseRules;
+import data.CourseStore;
+import data.DataExecutor;
+import data.EnrollmentStore;
+import data.StorageBackend;
+import data.UnitOfWork;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -16,19 +22,34 @@ import javafx.util.converter.IntegerStringConverter;
 import model.Course;
 import model.FXUtils;
 
-import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-public class CoursesController {
+public class CoursesController implements CachedView {
 
     // Elementos visuales conectados al archivo FXML
     @FXML private TableView<Course> courseTable;
     @FXML private TableColumn<Course, String> codeColumn;
     @FXML private TableColumn<Course, String> nameColumn;
     @FXML private TableColumn<Course, Integer> creditsColumn;
+    @FXML private TableColumn<Course, Integer> capacityColumn;
+    @FXML private TableColumn<Course, String> prerequisitesColumn;
+    @FXML private TableColumn<Course, String> scheduleColumn;
 
     @FXML private TextField codeField;
     @FXML private TextField nameField;
     @FXML private TextField creditsField;
+    @FXML private TextField capacityField;
+    @FXML private TextField prerequisitesField;
+    @FXML private TextField scheduleField;
+
+    // Búsqueda por prefijo del código o del nombre y rango de créditos
+    @FXML private TextField searchField;
+    @FXML private TextField minCreditsField;
+    @FXML private TextField maxCreditsField;
 
     @FXML private Button btnAdd;
     @FXML private Button btnUpdate;
@@ -36,47 +57,75 @@ public class CoursesController {
     @FXML private Button btnFetch;
     @FXML private Button btnBackToMenu;
 
-    // Variables de conexión y acceso a datos
-    private final Connection connection = DBConnection.getInstance().getConnection();
-    private final CourseDAO courseDAO = new CourseDAO(connection);
+    // Acceso a datos según el motor configurado (Oracle o en memoria)
+    private final CourseStore courseDAO = StorageBackend.getInstance().courses();
+    private final EnrollmentStore enrollmentDAO = StorageBackend.getInstance().enrollments();
     private final ObservableList<Course> courseList = FXCollections.observableArrayList();
 
+    // Carga de la tabla según la búsqueda; cada consulta nueva cancela la anterior
+    private final DebouncedSearch<ArrayList<Course>> search =
+            new DebouncedSearch<>(this::query, courses -> courseList.setAll(courses));
+
+    // Sincronización periódica opcional con los cursos modificados desde la última vez
+    private final DeltaSync<Course> deltaSync = new DeltaSync<>(courseDAO::fetchChangedSinceAsync, this::applyRemoteChanges);
+
+    // Recarga la tabla al volver a la pantalla solo si hubo cambios
+    private final Freshness<Course> freshness = new Freshness<>(courseDAO::fetchChangedSinceAsync, search::run,
+            this::applyRemoteChanges);
+
     @FXML
     public void initialize() {
         // Asocia columnas con propiedades del modelo
         codeColumn.setCellValueFactory(new PropertyValueFactory<>("code"));
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         creditsColumn.setCellValueFactory(new PropertyValueFactory<>("credits"));
+        capacityColumn.setCellValueFactory(new PropertyValueFactory<>("capacity"));
+        prerequisitesColumn.setCellValueFactory(new PropertyValueFactory<>("prerequisites"));
+        scheduleColumn.setCellValueFactory(new PropertyValueFactory<>("schedule"));
 
         // Hacer editable el TableView
         courseTable.setEditable(true);
 
         // Configurar edición en las columnas
-        // Código no editable (por eso no le ponemos CellFactory editable)
+        // Código no editable (por eso no le ponemos CellFactory editable); prerrequisitos y horario se
+        // editan en los campos, donde se validan
         // Nombre editable como texto simple
         nameColumn.setCellFactory(TextFieldTableCell.forTableColumn());
 
         // Créditos editable, con conversor de String a Integer
         creditsColumn.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+        capacityColumn.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
 
         // Evento edición para actualizar el nombre en base de datos y lista
         nameColumn.setOnEditCommit(event -> {
             Course course = event.getRowValue();
             course.setName(event.getNewValue());
-            courseDAO.update(course);
-            fetchCourses(); // refrescar tabla para mostrar cambio confirmado
+            applyUpdate(courseDAO.updateAsync(course)); // refrescar la fila para mostrar cambio confirmado
         });
 
         // Evento edición para actualizar créditos
         creditsColumn.setOnEditCommit(event -> {
             Course course = event.getRowValue();
             course.setCredits(event.getNewValue());
-            courseDAO.update(course);
-            fetchCourses();
+            applyUpdate(courseDAO.updateAsync(course));
+        });
+
+        // Evento edición para actualizar los cupos (vacío o negativo: sin límite)
+        capacityColumn.setOnEditCommit(event -> {
+            Course course = event.getRowValue();
+            Integer capacity = event.getNewValue();
+            course.setCapacity(capacity == null ? 0 : Math.max(0, capacity));
+            applyUpdate(courseDAO.updateAsync(course));
         });
 
         // Cargar cursos al iniciar
-        fetchCourses();
+        courseTable.setItems(courseList);
+        freshness.reloadIfStale();
+
+        // Busca en la base de datos mientras se escriben el texto o los créditos
+        searchField.textProperty().addListener((obs, oldText, newText) -> search.schedule());
+        minCreditsField.textProperty().addListener((obs, oldText, newText) -> search.schedule());
+        maxCreditsField.textProperty().addListener((obs, oldText, newText) -> search.schedule());
 
         // Cuando seleccionas fila, carga datos en campos para editar
         courseTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
@@ -84,6 +133,9 @@ public class CoursesController {
                 codeField.setText(newSel.getCode());
                 nameField.setText(newSel.getName());
                 creditsField.setText(String.valueOf(newSel.getCredits()));
+                capacityField.setText(newSel.getCapacity() > 0 ? String.valueOf(newSel.getCapacity()) : "");
+                prerequisitesField.setText(newSel.getPrerequisites());
+                scheduleField.setText(newSel.getSchedule());
                 codeField.setDisable(true); // Código no editable en edición
             }
         });
@@ -94,6 +146,9 @@ public class CoursesController {
             row.setOnMouseClicked(event -> {
                 if (!row.isEmpty() && event.getClickCount() == 2) {
                     FXUtils.clearSelectionAndFieldsC(courseTable, codeField, nameField, creditsField);
+                    capacityField.clear();
+                    prerequisitesField.clear();
+                    scheduleField.clear();
                 }
             });
             return row;
@@ -103,6 +158,9 @@ public class CoursesController {
         courseTable.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ESCAPE) {
                 FXUtils.clearSelectionAndFieldsC(courseTable, codeField, nameField, creditsField);
+                capacityField.clear();
+                prerequisitesField.clear();
+                scheduleField.clear();
             }
 
             // Tecla DELETE elimina curso seleccionado con confirmación
@@ -110,13 +168,12 @@ public class CoursesController {
                 Course selected = courseTable.getSelectionModel().getSelectedItem();
                 if (selected != null) {
                     Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
-                        "¿Eliminar el curso " + selected.getName() + "?",
+                        "¿Eliminar el curso " + selected.getName() + " y sus inscripciones?",
                         ButtonType.YES, ButtonType.NO);
                     confirm.showAndWait();
 
                     if (confirm.getResult() == ButtonType.YES) {
-                        courseDAO.delete(selected.getCode());
-                        fetchCourses();
+                        applyDelete(selected.getCode(), deleteWithEnrollments(selected.getCode()));
                         clearFields();
                     }
                 }
@@ -141,17 +198,44 @@ public class CoursesController {
             return;
         }
 
-        if (courseDAO.exists(code)) {
-            showAlert(Alert.AlertType.WARNING, "Curso duplicado", "Ya existe un curso con ese código.");
+        String capacityText = capacityField.getText().trim();
+        if (!capacityText.matches("\\d{0,5}")) {
+            showAlert(Alert.AlertType.ERROR, "Cupos inválidos", "Los cupos deben ser un número entero (vacío = sin límite).");
             return;
         }
 
-        int credits = Integer.parseInt(creditsText);
-        Course course = new Course(code, name, credits);
-        courseDAO.save(course);
+        String schedule = normalizeSchedule();
+        if (schedule == null) {
+            return;
+        }
 
-        fetchCourses();
-        clearFields();
+        int credits = Integer.parseInt(creditsText);
+        int capacity = capacityText.isEmpty() ? 0 : Integer.parseInt(capacityText);
+        String prerequisitesText = prerequisitesField.getText().trim();
+        Course course = new Course(code, name, credits, capacity, "", schedule);
+
+        // Verifica duplicado y prerrequisitos y guarda en segundo plano; devuelve el mensaje de error o null si se guardó
+        DataExecutor.supply(() -> {
+            if (courseDAO.exists(code)) {
+                return new String[] { "Curso duplicado", "Ya existe un curso con ese código." };
+            }
+            String[] prerequisites = checkPrerequisites(code, prerequisitesText);
+            if (prerequisites[1] != null) {
+                return new String[] { "Prerrequisitos inválidos", prerequisites[1] };
+            }
+            course.setPrerequisites(prerequisites[0]);
+            if (courseDAO.save(course) == null) {
+                return new String[] { "Error", "No se pudo guardar el curso." };
+            }
+            return null;
+        }).thenAccept(error -> Platform.runLater(() -> {
+            if (error != null) {
+                showAlert(Alert.AlertType.WARNING, error[0], error[1]);
+                return;
+            }
+            courseList.add(course); // Agrega solo la fila nueva
+            clearFields();
+        })).exceptionally(Failures.report("No se pudo guardar el curso."));
     }
 
     // Botón Actualizar curso (solo con selección en tabla)
@@ -176,12 +260,54 @@ public class CoursesController {
             return;
         }
 
-        selected.setName(name);
-        selected.setCredits(Integer.parseInt(creditsText));
-        courseDAO.update(selected);
+        String capacityText = capacityField.getText().trim();
+        if (!capacityText.matches("\\d{0,5}")) {
+            showAlert(Alert.AlertType.ERROR, "Cupos inválidos", "Los cupos deben ser un número entero (vacío = sin límite).");
+            return;
+        }
+
+        String schedule = normalizeSchedule();
+        if (schedule == null) {
+            return;
+        }
+
+        // Los prerrequisitos se validan en segundo plano (puede hacer falta armar el grafo) antes de actualizar
+        String code = selected.getCode();
+        String prerequisitesText = prerequisitesField.getText().trim();
+        DataExecutor.supply(() -> checkPrerequisites(code, prerequisitesText))
+            .thenAccept(prerequisites -> Platform.runLater(() -> {
+                if (prerequisites[1] != null) {
+                    showAlert(Alert.AlertType.WARNING, "Prerrequisitos inválidos", prerequisites[1]);
+                    return;
+                }
+                selected.setName(name);
+                selected.setCredits(Integer.parseInt(creditsText));
+                selected.setCapacity(capacityText.isEmpty() ? 0 : Integer.parseInt(capacityText));
+                selected.setPrerequisites(prerequisites[0]);
+                selected.setSchedule(schedule);
+                applyUpdate(courseDAO.updateAsync(selected));
+                clearFields();
+            })).exceptionally(Failures.report("No se pudieron validar los prerrequisitos."));
+    }
+
+    // Horario del campo escrito de forma canónica; null (con la alerta ya mostrada) si no se entiende
+    private String normalizeSchedule() {
+        try {
+            return CourseRules.normalizeSchedule(scheduleField.getText().trim());
+        } catch (IllegalArgumentException e) {
+            showAlert(Alert.AlertType.ERROR, "Horario inválido",
+                    "Use bloques como LU 08-10, MI 08-10 (días LU MA MI JU VI SA DO). " + e.getMessage());
+            return null;
+        }
+    }
 
-        fetchCourses();
-        clearFields();
+    // {prerrequisitos normalizados, null} o {null, motivo del rechazo}; no llamar desde el hilo de JavaFX
+    private static String[] checkPrerequisites(String code, String text) {
+        try {
+            return new String[] { CourseRules.getInstance().validatePrerequisites(code, text), null };
+        } catch (IllegalArgumentException e) {
+            return new String[] { null, e.getMessage() };
+        }
     }
 
     // Botón Eliminar curso (solo con selección en tabla)
@@ -194,22 +320,92 @@ public class CoursesController {
         }
 
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
-                "¿Eliminar el curso " + selected.getName() + "?",
+                "¿Eliminar el curso " + selected.getName() + " y sus inscripciones?",
                 ButtonType.YES, ButtonType.NO);
         confirm.showAndWait();
 
         if (confirm.getResult() == ButtonType.YES) {
-            courseDAO.delete(selected.getCode());
-            fetchCourses();
+            applyDelete(selected.getCode(), deleteWithEnrollments(selected.getCode()));
             clearFields();
         }
     }
 
-    // Carga los cursos desde la BD y actualiza la tabla
+    // Carga los cursos desde la BD en segundo plano y actualiza la tabla (quita la búsqueda y los filtros)
     @FXML
     public void fetchCourses() {
-        courseList.setAll(courseDAO.fetch());
-        courseTable.setItems(courseList);
+        searchField.clear();
+        minCreditsField.clear();
+        maxCreditsField.clear();
+        search.run();
+    }
+
+    // Sin filtros se cargan todos los cursos; con filtros, solo los que coinciden (a lo sumo LIMIT).
+    // Un límite de créditos que no es un número se ignora.
+    private CompletableFuture<ArrayList<Course>> query() {
+        String text = searchField.getText().trim();
+        String min = minCreditsField.getText().trim();
+        String max = maxCreditsField.getText().trim();
+        if (text.isEmpty() && min.isEmpty() && max.isEmpty()) {
+            return courseDAO.fetchAsync();
+        }
+        int minCredits = min.matches("\\d{1,9}") ? Integer.parseInt(min) : 0;
+        int maxCredits = max.matches("\\d{1,9}") ? Integer.parseInt(max) : Integer.MAX_VALUE;
+        return courseDAO.searchAsync(text, minCredits, maxCredits, DebouncedSearch.LIMIT);
+    }
+
+    // Cambios hechos desde otra estación: con una búsqueda activa se repite, para no agregar filas que no coinciden
+    private void applyRemoteChanges(List<Course> changed) {
+        if (searchField.getText().trim().isEmpty() && minCreditsField.getText().trim().isEmpty()
+                && maxCreditsField.getText().trim().isEmpty()) {
+            applyChanges(changed);
+        } else {
+            search.run();
+        }
+    }
+
+    // Reemplaza en la tabla la fila actualizada; si la actualización falló, recarga desde la BD
+    private void applyUpdate(CompletableFuture<Course> write) {
+        write.thenAccept(updated -> Platform.runLater(() -> {
+            if (updated == null) {
+                search.run();
+                return;
+            }
+            applyChanges(List.of(updated));
+        })).exceptionally(Failures.report("No se pudo actualizar el curso."));
+    }
+
+    // Elimina las inscripciones del curso y el curso en una sola transacción: o se eliminan todos o ninguno
+    private CompletableFuture<Boolean> deleteWithEnrollments(String code) {
+        return UnitOfWork.runAsync(() -> enrollmentDAO.deleteByCourse(code) >= 0 && courseDAO.delete(code));
+    }
+
+    // Quita de la tabla el curso eliminado; si no se eliminó, recarga desde la BD
+    private void applyDelete(String code, CompletableFuture<Boolean> write) {
+        write.thenAccept(deleted -> Platform.runLater(() -> {
+            if (deleted) {
+                courseList.removeIf(c -> c.getCode().equals(code));
+                Freshness.deleted(); // Puede haber arrastrado inscripciones
+            } else {
+                search.run();
+            }
+        })).exceptionally(Failures.report("No se pudo eliminar el curso."));
+    }
+
+    // Inserta o reemplaza en la tabla los cursos recibidos, sin tocar las demás filas
+    private void applyChanges(List<Course> changed) {
+        Map<String, Integer> indexByCode = new HashMap<>();
+        for (int i = 0; i < courseList.size(); i++) {
+            indexByCode.put(courseList.get(i).getCode(), i);
+        }
+        for (Course course : changed) {
+            Integer index = indexByCode.get(course.getCode());
+            if (index != null) {
+                courseList.set(index, course);
+            } else {
+                indexByCode.put(course.getCode(), courseList.size());
+                courseList.add(course);
+            }
+        }
     }
 
     // Limpia campos y habilita el código
@@ -217,6 +413,9 @@ public class CoursesController {
         codeField.clear();
         nameField.clear();
         creditsField.clear();
+        capacityField.clear();
+        prerequisitesField.clear();
+        scheduleField.clear();
         codeField.setDisable(false);
         courseTable.getSelectionModel().clearSelection();
     }
@@ -230,6 +429,19 @@ public class CoursesController {
         alert.showAndWait();
     }
 
+    // La vista se reutiliza entre visitas: al volver se recarga solo si los datos cambiaron
+    @Override
+    public void onShow() {
+        freshness.reloadIfStale();
+        deltaSync.start();
+        CourseRules.getInstance().prepare(); // Para validar los prerrequisitos sin esperar
+    }
+
+    @Override
+    public void onHide() {
+        deltaSync.stop();
+    }
+
     // Botón para volver al menú principal
     @FXML
     public void goBackToMenu(ActionEvent event) {
@@ -0,0 +1,58 @@
+package controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+// Búsqueda mientras se escribe. schedule() espera una pausa de -Dsearch.debounceMs (por defecto
+// 250 ms) sin cambios antes de consultar, y cada consulta nueva cancela la anterior si todavía no
+// terminó (en Oracle se cancela también en el servidor, ver RowStreams.queryAsync). Solo el
+// resultado de la última consulta llega a apply, en el hilo de JavaFX; si falla, se avisa (ver Failures).
+// Las cargas completas de estudiantes también dejan de leer filas al cancelarse (ver RowStreams.collectAsync).
+class DebouncedSearch<T> {
+
+    // Máximo de filas que devuelve una búsqueda (se puede cambiar con -Dsearch.limit)
+    static final int LIMIT = Integer.getInteger("search.limit", 500);
+
+    private final Supplier<CompletableFuture<T>> query;
+    private final Consumer<T> apply;
+    private final PauseTransition pause = new PauseTransition(Duration.millis(Integer.getInteger("search.debounceMs", 250)));
+    private CompletableFuture<T> inFlight;
+
+    DebouncedSearch(Supplier<CompletableFuture<T>> query, Consumer<T> apply) {
+        this.query = query;
+        this.apply = apply;
+        pause.setOnFinished(event -> run());
+    }
+
+    // Los filtros cambiaron: consulta cuando se deje de escribir
+    void schedule() {
+        pause.playFromStart();
+    }
+
+    // Consulta ya, sin esperar
+    void run() {
+        pause.stop();
+        cancel();
+        CompletableFuture<T> search = query.get();
+        inFlight = search;
+        search.thenAccept(result -> Platform.runLater(() -> {
+            if (inFlight == search) {
+                inFlight = null;
+                apply.accept(result);
+            }
+        })).exceptionally(Failures.report("No se pudieron cargar los datos."));
+    }
+
+    // Descarta la consulta en curso
+    void cancel() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+}
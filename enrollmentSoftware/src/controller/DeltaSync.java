@@ -0,0 +1,68 @@
+package controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import data.ChangeSet;
+import data.Log;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+// Sincronización periódica opcional de una tabla (se activa con -Dsync.intervalSeconds > 0).
+// En cada intervalo pide a la base de datos solo las filas que cambiaron desde la última
+// sincronización y las entrega en el hilo de JavaFX para aplicarlas sobre la lista.
+class DeltaSync<S> {
+
+    private final LongFunction<CompletableFuture<ChangeSet<S>>> source;
+    private final Consumer<List<S>> apply;
+    private Timeline timer;
+    private long changeNumber = -1; // -1: todavía no se conoce el punto de partida
+    private boolean running;
+
+    DeltaSync(LongFunction<CompletableFuture<ChangeSet<S>>> source, Consumer<List<S>> apply) {
+        this.source = source;
+        this.apply = apply;
+    }
+
+    void start() {
+        int seconds = Integer.getInteger("sync.intervalSeconds", 0);
+        if (seconds <= 0 || timer != null) {
+            return;
+        }
+        sync(); // Toma el número de cambio actual como punto de partida
+        timer = new Timeline(new KeyFrame(Duration.seconds(seconds), e -> sync()));
+        timer.setCycleCount(Animation.INDEFINITE);
+        timer.play();
+    }
+
+    void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
+    private void sync() {
+        if (running) {
+            return; // La sincronización anterior todavía no terminó
+        }
+        running = true;
+        long since = changeNumber;
+        source.apply(since).whenComplete((changes, error) -> Platform.runLater(() -> {
+            running = false;
+            if (error != null) {
+                Log.warn("Delta sync failed; retrying on the next interval", Failures.cause(error));
+                return;
+            }
+            changeNumber = changes.getChangeNumber();
+            if (since >= 0 && !changes.isEmpty()) {
+                apply.accept(changes.getRows());
+            }
+        }));
+    }
+}
@@ -1,32 +1,52 @@
 package controller;
 
 // Importaciones necesarias
+import application.CachedView;
 import application.Main;
 import javafx.scene.input.KeyCode;
-import data.DBConnection;
-import data.EnrollmentDAO;
+import data.CourseRules;
+import data.CreditReport;
+import data.DataExecutor;
+import data.EnrollmentQueue;
+import data.EnrollmentResult;
+import data.EnrollmentStore;
+import data.FuzzyIndex;
+import data.Log;
+import data.PagedEnrollmentList;
+import data.SeatReservations;
+import data.StorageBackend;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Duration;
 import model.Course;
 import model.Enrollment;
 import model.FXUtils;
 import model.Student;
 
-import java.sql.Connection;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-public class EnrollmentsController {
+public class EnrollmentsController implements CachedView {
 
     // Botones de la interfaz
     @FXML private Button btnAdd;
     @FXML private Button btnBackToMenu;
     @FXML private Button btnCoursesByStudent;
+    @FXML private Button btnCreditReport;
     @FXML private Button btnDelete;
     @FXML private Button btnFetch;
     @FXML private Button btnStudentsByCourse;
@@ -37,16 +57,54 @@ public class EnrollmentsController {
     @FXML private TextField courseCodeField;
     @FXML private DatePicker enrollmentDatePicker;
 
+    // Búsqueda por prefijo del estudiante o del curso y rango de fechas
+    @FXML private TextField searchField;
+    @FXML private DatePicker fromDatePicker;
+    @FXML private DatePicker toDatePicker;
+
     // Tabla y columnas para mostrar las inscripciones
     @FXML private TableView<Enrollment> enrollmentTable;
     @FXML private TableColumn<Enrollment, String> studentIdColumn;
     @FXML private TableColumn<Enrollment, String> courseCodeColumn;
     @FXML private TableColumn<Enrollment, LocalDate> enrollmentDateColumn;
 
-    // Conexión a la base de datos y acceso a datos
-    private final Connection connection = DBConnection.getInstance().getConnection();
-    private final EnrollmentDAO enrollmentDAO = new EnrollmentDAO(connection);
-    private final ObservableList<Enrollment> enrollmentList = FXCollections.observableArrayList();
+    // Estado de la cola de inscripciones y resultado de los últimos pedidos
+    @FXML private Label queueLabel;
+    @FXML private ListView<Submission> submissionList;
+
+    // Acceso a datos según el motor configurado (Oracle o en memoria)
+    private final EnrollmentStore enrollmentDAO = StorageBackend.getInstance().enrollments();
+    // Lista paginada: carga solo las páginas visibles y guarda en memoria las 10 más recientes
+    private final PagedEnrollmentList enrollmentList = new PagedEnrollmentList(enrollmentDAO, 200, 10);
+
+    // Con filtros la tabla muestra solo las inscripciones que coinciden (a lo sumo LIMIT) en lugar de la lista paginada
+    private final ObservableList<Enrollment> searchResults = FXCollections.observableArrayList();
+    private final DebouncedSearch<ArrayList<Enrollment>> search = new DebouncedSearch<>(this::query, this::showResults);
+
+    // Sincronización periódica opcional: si otra estación cambió inscripciones, se recargan las páginas
+    private final DeltaSync<Enrollment> deltaSync =
+            new DeltaSync<>(enrollmentDAO::fetchChangedSinceAsync, changed -> fetchEnrollments());
+
+    // Recarga las páginas al volver a la pantalla solo si hubo cambios
+    private final Freshness<Enrollment> freshness =
+            new Freshness<>(enrollmentDAO::fetchChangedSinceAsync, this::fetchEnrollments);
+
+    // Pedidos que se muestran debajo de los botones (los más recientes arriba)
+    private static final int RECENT_SUBMISSIONS = 20;
+    // Filas de cada lista del reporte de créditos
+    private static final int REPORT_ROWS = 10;
+
+    // Actualiza la cantidad en cola cuatro veces por segundo mientras la pantalla está abierta
+    private final Timeline queueRefresher = new Timeline(new KeyFrame(Duration.millis(250), event -> refreshQueue()));
+
+    // Un pedido de inscripción: su texto cambia de "en cola" al resultado
+    private static final class Submission {
+        final StringProperty text = new SimpleStringProperty();
+
+        Submission(String text) {
+            this.text.set(text);
+        }
+    }
 
     // Inicializa la tabla y configura los eventos
     @FXML
@@ -56,8 +114,43 @@ public class EnrollmentsController {
         courseCodeColumn.setCellValueFactory(new PropertyValueFactory<>("courseCode"));
         enrollmentDateColumn.setCellValueFactory(new PropertyValueFactory<>("enrollmentDate"));
 
+        // El orden lo define la paginación por (student_id, course_code); la lista no se puede reordenar
+        studentIdColumn.setSortable(false);
+        courseCodeColumn.setSortable(false);
+        enrollmentDateColumn.setSortable(false);
+
         // Carga las inscripciones existentes
-        fetchEnrollments();
+        enrollmentTable.setItems(enrollmentList);
+        freshness.reloadIfStale();
+
+        // Busca en la base de datos mientras se escribe o se cambian las fechas
+        searchField.textProperty().addListener((obs, oldText, newText) -> search.schedule());
+        fromDatePicker.valueProperty().addListener((obs, oldDate, newDate) -> search.schedule());
+        toDatePicker.valueProperty().addListener((obs, oldDate, newDate) -> search.schedule());
+
+        // Cada pedido muestra su estado; la celda sigue los cambios del texto
+        submissionList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Submission item, boolean empty) {
+                super.updateItem(item, empty);
+                textProperty().unbind();
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    textProperty().bind(item.text);
+                }
+            }
+        });
+        queueRefresher.setCycleCount(Timeline.INDEFINITE);
+
+        // Sugerencias de estudiantes y cursos mientras se escriben el ID y el código
+        StorageBackend backend = StorageBackend.getInstance();
+        new AutoComplete<>(studentIdField, FuzzyIndex.students(),
+                prefix -> backend.students().searchAsync(prefix, AutoComplete.SUGGESTIONS),
+                Student::getId, Student::getName);
+        new AutoComplete<>(courseCodeField, FuzzyIndex.courses(),
+                prefix -> backend.courses().searchAsync(prefix, 0, Integer.MAX_VALUE, AutoComplete.SUGGESTIONS),
+                Course::getCode, Course::getName);
 
         // Cuando el usuario selecciona una fila, se llenan los campos de texto
         enrollmentTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
@@ -102,28 +195,88 @@ public class EnrollmentsController {
             return;
         }
 
-        // Validación: existencia del estudiante y curso
-        if (!enrollmentDAO.studentExists(studentId)) {
-            showAlert(Alert.AlertType.WARNING, "Estudiante no encontrado", "El estudiante con ID " + studentId + " no existe.");
-            return;
+        // Verifica prerrequisitos y horario en memoria, aparta un cupo del curso y deja la inscripción en
+        // la cola, sin esperar a la base de datos: el resultado aparece en la lista de pedidos y se puede
+        // cargar la siguiente enseguida
+        Enrollment enrollment = new Enrollment(studentId, courseCode, date);
+        String label = studentId + " en " + courseCode + ": ";
+        Submission submission = new Submission(label + "en cola...");
+        submissionList.getItems().add(0, submission);
+        if (submissionList.getItems().size() > RECENT_SUBMISSIONS) {
+            submissionList.getItems().remove(RECENT_SUBMISSIONS);
         }
+        CourseRules rules = CourseRules.getInstance();
+        CompletableFuture<EnrollmentResult> submitted = rules.checkAsync(enrollment).thenCompose(checked ->
+                checked == EnrollmentResult.OK ? SeatReservations.getInstance().enroll(enrollment)
+                        : CompletableFuture.completedFuture(checked));
+        submitted.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                // El pedido no queda "en cola..." para siempre: se muestra que falló
+                Log.error("Enrollment submission failed", Failures.cause(error));
+                submission.text.set(label + describe(EnrollmentResult.ERROR));
+                refreshQueue();
+                return;
+            }
+            submission.text.set(label + describe(result) + detail(rules, result, enrollment));
+            refreshQueue();
+            if (result == EnrollmentResult.OK) {
+                // Agrega solo la fila nueva a la tabla (con filtros se repite la búsqueda)
+                if (isFiltered()) {
+                    search.run();
+                } else {
+                    enrollmentList.insert(enrollment);
+                }
+            }
+        }));
+        refreshQueue();
 
-        if (!enrollmentDAO.courseExists(courseCode)) {
-            showAlert(Alert.AlertType.WARNING, "Curso no encontrado", "El curso con código " + courseCode + " no existe.");
-            return;
+        // La fecha se mantiene para la siguiente inscripción
+        studentIdField.clear();
+        courseCodeField.clear();
+        studentIdField.requestFocus();
+    }
+
+    // Texto del resultado de un pedido
+    private static String describe(EnrollmentResult result) {
+        switch (result) {
+            case OK:
+                return "inscrito";
+            case FULL:
+                return "curso sin cupos disponibles";
+            case NO_STUDENT:
+                return "el estudiante no existe";
+            case NO_COURSE:
+                return "el curso no existe";
+            case DUPLICATE:
+                return "ya estaba inscrito";
+            case BUSY:
+                return "sistema ocupado, intente de nuevo";
+            case MISSING_PREREQUISITE:
+                return "faltan prerrequisitos";
+            case SCHEDULE_CONFLICT:
+                return "choque de horario";
+            default:
+                return "no se pudo guardar";
         }
+    }
 
-        // Validación: ya existe la inscripción
-        if (!enrollmentDAO.authenticate(studentId, courseCode)) {
-            showAlert(Alert.AlertType.WARNING, "Inscripción existente", "El estudiante ya está inscrito en este curso.");
-            return;
+    // Cursos que explican un rechazo por prerrequisitos o por horario
+    private static String detail(CourseRules rules, EnrollmentResult result, Enrollment enrollment) {
+        List<String> courses = null;
+        if (result == EnrollmentResult.MISSING_PREREQUISITE) {
+            courses = rules.missingPrerequisites(enrollment.getStudentId(), enrollment.getCourseCode());
+        } else if (result == EnrollmentResult.SCHEDULE_CONFLICT) {
+            courses = rules.conflictingCourses(enrollment.getStudentId(), enrollment.getCourseCode());
         }
+        return courses == null || courses.isEmpty() ? "" : " (" + String.join(", ", courses) + ")";
+    }
 
-        // Guarda la inscripción y recarga la tabla
-        Enrollment enrollment = new Enrollment(studentId, courseCode, date);
-        enrollmentDAO.save(enrollment);
-        fetchEnrollments();
-        clearFields();
+    // Muestra cuántos pedidos esperan en la cola
+    private void refreshQueue() {
+        EnrollmentQueue queue = EnrollmentQueue.getInstance();
+        int pending = queue.size();
+        queueLabel.setText(pending == 0 ? "Sin inscripciones en cola"
+                : pending + (pending == 1 ? " inscripción en cola" : " inscripciones en cola"));
     }
 
     // Actualiza la fecha de una inscripción existente
@@ -143,8 +296,13 @@ public class EnrollmentsController {
 
         // Actualiza la fecha en el objeto y la base de datos
         selected.setEnrollmentDate(newDate);
-        enrollmentDAO.update(selected);
-        fetchEnrollments();
+        enrollmentDAO.updateAsync(selected).thenAccept(updated -> Platform.runLater(() -> {
+            if (updated != null && !isFiltered()) {
+                enrollmentList.replace(updated);
+            } else {
+                fetchEnrollments();
+            }
+        })).exceptionally(Failures.report("No se pudo actualizar la inscripción."));
         clearFields();
     }
 
@@ -157,21 +315,56 @@ public class EnrollmentsController {
             return;
         }
 
-        enrollmentDAO.delete(selected.getStudentId(), selected.getCourseCode());
-        fetchEnrollments();
+        String studentId = selected.getStudentId();
+        String courseCode = selected.getCourseCode();
+        enrollmentDAO.deleteAsync(studentId, courseCode).thenAccept(deleted -> Platform.runLater(() -> {
+            if (deleted && isFiltered()) {
+                searchResults.removeIf(e -> e.getStudentId().equals(studentId) && e.getCourseCode().equals(courseCode));
+            } else if (deleted) {
+                enrollmentList.remove(studentId, courseCode);
+            } else {
+                fetchEnrollments();
+            }
+        })).exceptionally(Failures.report("No se pudo eliminar la inscripción."));
         clearFields();
     }
 
-    // Botón que recarga los datos
+    // Botón que recarga los datos (quita la búsqueda y los filtros)
     @FXML
     public void fetchEnrollments(ActionEvent event) {
+        searchField.clear();
+        fromDatePicker.setValue(null);
+        toDatePicker.setValue(null);
         fetchEnrollments();
     }
 
-    // Método para cargar las inscripciones desde la base de datos
+    // Método para cargar las inscripciones desde la base de datos: página por página, o solo las que
+    // coinciden con los filtros
     private void fetchEnrollments() {
-        enrollmentList.setAll(enrollmentDAO.fetch());
-        enrollmentTable.setItems(enrollmentList);
+        search.run();
+    }
+
+    private boolean isFiltered() {
+        return !searchField.getText().trim().isEmpty() || fromDatePicker.getValue() != null || toDatePicker.getValue() != null;
+    }
+
+    // Sin filtros no hay nada que buscar: el resultado null vuelve a la lista paginada
+    private CompletableFuture<ArrayList<Enrollment>> query() {
+        if (!isFiltered()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return enrollmentDAO.searchAsync(searchField.getText().trim(), fromDatePicker.getValue(),
+                toDatePicker.getValue(), DebouncedSearch.LIMIT);
+    }
+
+    private void showResults(ArrayList<Enrollment> results) {
+        if (results == null) {
+            enrollmentTable.setItems(enrollmentList);
+            enrollmentList.refresh(); // Descarta la recarga anterior si aún no terminó
+        } else {
+            searchResults.setAll(results);
+            enrollmentTable.setItems(searchResults);
+        }
     }
 
     // Limpia los campos de texto y restablece estado
@@ -202,15 +395,18 @@ public class EnrollmentsController {
             return;
         }
 
-        List<Course> courses = enrollmentDAO.getCoursesByStudent(studentId);
-        if (courses.isEmpty()) {
-            showAlert(Alert.AlertType.INFORMATION, "Sin resultados", "No se encontraron cursos para este estudiante.");
-        } else {
-            String message = courses.stream()
-                .map(c -> c.getCode() + " - " + c.getName() + " (" + c.getCredits() + " créditos)")
-                .collect(Collectors.joining("\n"));
-            showAlert(Alert.AlertType.INFORMATION, "Cursos del Estudiante", message);
-        }
+        enrollmentDAO.getCoursesByStudentAsync(studentId).thenAccept(courses -> Platform.runLater(() -> {
+            if (courses.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "Sin resultados", "No se encontraron cursos para este estudiante.");
+            } else {
+                String message = courses.stream()
+                    .map(c -> c.getCode() + " - " + c.getName() + " (" + c.getCredits() + " créditos)")
+                    .collect(Collectors.joining("\n"));
+                int credits = courses.stream().mapToInt(Course::getCredits).sum();
+                message += "\n\nTotal: " + credits + " créditos en " + courses.size() + " cursos";
+                showAlert(Alert.AlertType.INFORMATION, "Cursos del Estudiante", message);
+            }
+        })).exceptionally(Failures.report("No se pudieron leer los cursos del estudiante."));
     }
 
     // Muestra los estudiantes inscritos en un curso
@@ -222,15 +418,76 @@ public class EnrollmentsController {
             return;
         }
 
-        List<Student> students = enrollmentDAO.getStudentsByCourse(courseCode);
-        if (students.isEmpty()) {
-            showAlert(Alert.AlertType.INFORMATION, "Sin resultados", "No se encontraron estudiantes para este curso.");
-        } else {
-            String message = students.stream()
-                .map(s -> s.getId() + " - " + s.getName() + " (" + s.getEmail() + ")")
-                .collect(Collectors.joining("\n"));
-            showAlert(Alert.AlertType.INFORMATION, "Estudiantes del Curso", message);
+        enrollmentDAO.getStudentsByCourseAsync(courseCode).thenAccept(students -> Platform.runLater(() -> {
+            if (students.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "Sin resultados", "No se encontraron estudiantes para este curso.");
+            } else {
+                String message = students.stream()
+                    .map(s -> s.getId() + " - " + s.getName() + " (" + s.getEmail() + ")")
+                    .collect(Collectors.joining("\n"));
+                message += "\n\nTotal: " + students.size() + " inscritos";
+                showAlert(Alert.AlertType.INFORMATION, "Estudiantes del Curso", message);
+            }
+        })).exceptionally(Failures.report("No se pudieron leer los estudiantes del curso."));
+    }
+
+    // Muestra la carga académica: estudiantes con más créditos, cursos con más inscritos e
+    // inscripciones de los últimos días (ver CreditReport); la primera vez espera a que se arme
+    @FXML
+    public void showCreditReport(ActionEvent event) {
+        CreditReport report = CreditReport.getInstance();
+        CompletableFuture<Boolean> ready = report.isReady() ? CompletableFuture.completedFuture(true) : report.refresh();
+        ready.thenCompose(ok -> DataExecutor.supply(() -> ok ? describeReport(report) : null))
+            .thenAccept(message -> Platform.runLater(() -> {
+                if (message == null) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "No se pudo armar el reporte de créditos.");
+                } else {
+                    showAlert(Alert.AlertType.INFORMATION, "Reporte de Créditos", message);
+                }
+            })).exceptionally(Failures.report("No se pudo armar el reporte de créditos."));
+    }
+
+    private static String describeReport(CreditReport report) {
+        List<String[]> students = report.heaviestStudents(REPORT_ROWS);
+        List<String[]> courses = report.largestCourses(REPORT_ROWS);
+        SortedMap<LocalDate, Integer> days = report.enrollmentsPerDay();
+        if (students == null || courses == null || days == null) {
+            return null; // Se invalidó mientras tanto
+        }
+        StringBuilder message = new StringBuilder();
+        message.append(report.getEnrollmentCount()).append(" inscripciones de ")
+            .append(report.getStudentCount()).append(" estudiantes\n\nMás créditos:\n");
+        for (String[] student : students) {
+            message.append("  ").append(student[0]).append(": ").append(student[1]).append(" créditos en ")
+                .append(student[2]).append(" cursos\n");
+        }
+        message.append("\nMás inscritos:\n");
+        for (String[] course : courses) {
+            message.append("  ").append(course[0]).append(": ").append(course[1]).append("\n");
+        }
+        message.append("\nÚltimos días:\n");
+        List<Map.Entry<LocalDate, Integer>> recent = new ArrayList<>(days.entrySet());
+        for (Map.Entry<LocalDate, Integer> day : recent.subList(Math.max(0, recent.size() - REPORT_ROWS), recent.size())) {
+            message.append("  ").append(day.getKey()).append(": ").append(day.getValue()).append("\n");
         }
+        return message.toString();
+    }
+
+    // La vista se reutiliza entre visitas: al volver se recarga solo si los datos cambiaron
+    @Override
+    public void onShow() {
+        freshness.reloadIfStale();
+        deltaSync.start();
+        refreshQueue();
+        queueRefresher.play();
+        CreditReport.getInstance().prepare();
+        CourseRules.getInstance().prepare();
+    }
+
+    @Override
+    public void onHide() {
+        deltaSync.stop();
+        queueRefresher.stop();
     }
 
     // Regresa al menú principal
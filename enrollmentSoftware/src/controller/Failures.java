@@ -0,0 +1,45 @@
+package controller;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import data.Log;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+// Fallos de las operaciones en segundo plano de las pantallas. Sin esto, una excepción en un
+// CompletableFuture se pierde en silencio y la pantalla se queda esperando. Las cadenas de los
+// controladores terminan con .exceptionally(Failures.report("...")): el error queda en el log y se
+// avisa con una alerta en el hilo de JavaFX. Las consultas canceladas (una búsqueda reemplazada
+// por otra) no son un error y no se avisan.
+final class Failures {
+
+    private Failures() {
+    }
+
+    static <T> Function<Throwable, T> report(String message) {
+        return error -> {
+            if (!isCancellation(error)) {
+                Log.error(message, cause(error));
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Error");
+                    alert.setHeaderText(null);
+                    alert.setContentText(message);
+                    alert.showAndWait();
+                });
+            }
+            return null;
+        };
+    }
+
+    static boolean isCancellation(Throwable error) {
+        return cause(error) instanceof CancellationException;
+    }
+
+    // La excepción original, sin el CompletionException con que la envuelve el future
+    static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
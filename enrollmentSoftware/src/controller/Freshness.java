@@ -0,0 +1,117 @@
+package controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import data.ChangeSet;
+import data.LocalReplica;
+import javafx.application.Platform;
+
+// Decide si la tabla de una pantalla reutilizada (ver ViewRegistry) debe recargarse al volver a ella.
+// Compara el número de cambio actual de la tabla (ver ChangeSet) con el de la última carga, lo que
+// detecta filas nuevas o modificadas aunque vengan de otra estación o de una importación. Los
+// borrados no cambian ese número en Oracle: los de estudiantes y cursos de esta aplicación (que
+// pueden arrastrar inscripciones) se avisan con deleted(), y por los de otras estaciones una carga
+// se usa como mucho -Dview.maxAgeSeconds (por defecto 300).
+// Con apply, si la carga todavía sirve, se piden y aplican solo las filas cambiadas desde ella en
+// lugar de recargar todo; así se pone al día la tabla al volver de la réplica local a Oracle (ver
+// LocalReplica). Al pasar a la réplica se recarga todo.
+class Freshness<S> {
+
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("view.maxAgeSeconds", 300));
+
+    // Borrados hechos desde cualquier pantalla de esta aplicación
+    private static final AtomicLong DELETES = new AtomicLong();
+
+    private final LongFunction<CompletableFuture<ChangeSet<S>>> source;
+    private final Runnable reload;
+    private final Consumer<List<S>> apply; // null: siempre se recarga todo
+    private long changeNumber = -1; // -1: todavía no se cargó
+    private long deletes;
+    private long loadedAt;
+    private boolean checking;
+    private boolean again; // Se pidió otra revisión mientras había una en curso
+    private boolean full; // Cambió la fuente: la próxima carga es completa
+
+    Freshness(LongFunction<CompletableFuture<ChangeSet<S>>> source, Runnable reload) {
+        this(source, reload, null);
+    }
+
+    Freshness(LongFunction<CompletableFuture<ChangeSet<S>>> source, Runnable reload, Consumer<List<S>> apply) {
+        this.source = source;
+        this.reload = reload;
+        this.apply = apply;
+        LocalReplica.getInstance().addListener(mode -> Platform.runLater(() -> modeChanged(mode)));
+    }
+
+    // Una pantalla borró filas: las demás (y ella misma) recargan la próxima vez que se muestren
+    static void deleted() {
+        DELETES.incrementAndGet();
+    }
+
+    // Pide el número de cambio actual (una consulta mínima) y recarga en el hilo de JavaFX solo si
+    // los datos cambiaron desde la última carga o nunca se cargaron
+    void reloadIfStale() {
+        if (checking) {
+            again = true;
+            return;
+        }
+        checking = true;
+        long deletesNow = DELETES.get();
+        source.apply(-1).whenComplete((changes, error) -> Platform.runLater(() -> {
+            long current = error == null ? changes.getChangeNumber() : -1;
+            boolean expired = System.nanoTime() - loadedAt > MAX_AGE_NANOS;
+            boolean stale = current < 0 || current != changeNumber || deletesNow != deletes || expired || full;
+            if (!stale) {
+                finish();
+            } else if (apply != null && changeNumber >= 0 && deletesNow == deletes && !expired && !full) {
+                applyChanges(changeNumber);
+            } else {
+                reloadAll(current, deletesNow);
+            }
+        }));
+    }
+
+    // Pide las filas cambiadas desde since y las aplica; si no se pueden leer, recarga todo
+    private void applyChanges(long since) {
+        long deletesNow = deletes;
+        source.apply(since).whenComplete((changes, error) -> Platform.runLater(() -> {
+            if (error == null && changes.getChangeNumber() >= 0 && !full) {
+                changeNumber = changes.getChangeNumber();
+                apply.accept(changes.getRows());
+                finish();
+            } else {
+                reloadAll(-1, deletesNow);
+            }
+        }));
+    }
+
+    private void reloadAll(long current, long deletesNow) {
+        changeNumber = current;
+        deletes = deletesNow;
+        loadedAt = System.nanoTime();
+        full = false;
+        reload.run();
+        finish();
+    }
+
+    private void finish() {
+        checking = false;
+        if (again) {
+            again = false;
+            reloadIfStale();
+        }
+    }
+
+    // Al pasar a la réplica local se recarga todo; al volver a Oracle, lo que cambió desde la instantánea
+    private void modeChanged(LocalReplica.Mode mode) {
+        if (mode == LocalReplica.Mode.LOCAL) {
+            full = true;
+        }
+        reloadIfStale();
+    }
+}
@@ -0,0 +1,156 @@
+package controller; // Define el paquete al que pertenece esta clase
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import application.Main; // Para poder cambiar de escenas
+import data.BulkTransfer; // Importación/exportación masiva en CSV
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.stage.FileChooser;
+
+public class ImportExportController {
+
+    // Tabla a importar/exportar (en el mismo orden que BulkTransfer.Entity)
+    @FXML private ComboBox<String> entityBox;
+
+    // Avance de la transferencia en curso y errores por fila
+    @FXML private ProgressBar progressBar;
+    @FXML private Label statusLabel;
+    @FXML private ListView<String> errorList;
+
+    // Botones de la vista
+    @FXML private Button btnImport;
+    @FXML private Button btnExport;
+    @FXML private Button btnCancel;
+    @FXML private Button btnBackToMenu;
+
+    // Transferencia en curso (null si no hay ninguna)
+    private BulkTransfer.Job job;
+
+    // Último avance recibido; se muestra a lo sumo una vez por pulso de JavaFX aunque lleguen más
+    private final AtomicReference<BulkTransfer.Progress> latest = new AtomicReference<>();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    @FXML
+    public void initialize() {
+        entityBox.setItems(FXCollections.observableArrayList("Estudiantes", "Cursos", "Inscripciones"));
+        entityBox.getSelectionModel().selectFirst();
+        progressBar.setProgress(0);
+        btnCancel.setDisable(true);
+    }
+
+    // Importa un archivo CSV a la tabla seleccionada
+    @FXML
+    void importCsv(ActionEvent event) {
+        BulkTransfer.Entity entity = selectedEntity();
+        File file = chooser(entity).showOpenDialog(btnImport.getScene().getWindow());
+        if (file != null) {
+            start(BulkTransfer.importCsv(entity, file.toPath(), this::onProgress), "Importando " + file.getName());
+        }
+    }
+
+    // Exporta la tabla seleccionada a un archivo CSV
+    @FXML
+    void exportCsv(ActionEvent event) {
+        BulkTransfer.Entity entity = selectedEntity();
+        FileChooser chooser = chooser(entity);
+        chooser.setInitialFileName(entity.name().toLowerCase() + ".csv");
+        File file = chooser.showSaveDialog(btnExport.getScene().getWindow());
+        if (file != null) {
+            start(BulkTransfer.exportCsv(entity, file.toPath(), this::onProgress), "Exportando a " + file.getName());
+        }
+    }
+
+    // Detiene la transferencia en curso (las filas ya importadas quedan guardadas)
+    @FXML
+    void cancelTransfer(ActionEvent event) {
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
+    private void start(BulkTransfer.Job newJob, String status) {
+        job = newJob;
+        setRunning(true);
+        statusLabel.setText(status + "...");
+        errorList.getItems().clear();
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+
+        newJob.getResult().whenComplete((result, error) -> Platform.runLater(() -> {
+            if (job != newJob) {
+                return;
+            }
+            job = null;
+            setRunning(false);
+            if (error != null) {
+                progressBar.setProgress(0);
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                statusLabel.setText("Error: " + cause.getMessage());
+                showAlert(Alert.AlertType.ERROR, "Error en la transferencia", cause.getMessage());
+                return;
+            }
+            show(result);
+            errorList.getItems().setAll(result.getErrors());
+        }));
+    }
+
+    // Llega desde los hilos de la transferencia
+    private void onProgress(BulkTransfer.Progress progress) {
+        latest.set(progress);
+        if (updateScheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                updateScheduled.set(false);
+                BulkTransfer.Progress current = latest.get();
+                if (job != null && !current.isDone()) {
+                    show(current);
+                }
+            });
+        }
+    }
+
+    private void show(BulkTransfer.Progress p) {
+        progressBar.setProgress(p.getFraction() < 0 ? ProgressBar.INDETERMINATE_PROGRESS : p.getFraction());
+        String state = !p.isDone() ? "En curso" : p.isCancelled() ? "Cancelado" : "Terminado";
+        statusLabel.setText(String.format("%s: %,d filas guardadas, %,d rechazadas (%,.0f filas/s, %.1f s)",
+                state, p.getRowsWritten(), p.getRowsRejected(), p.getRowsPerSecond(), p.getElapsedMillis() / 1000.0));
+    }
+
+    private void setRunning(boolean running) {
+        btnImport.setDisable(running);
+        btnExport.setDisable(running);
+        entityBox.setDisable(running);
+        btnCancel.setDisable(!running);
+    }
+
+    private BulkTransfer.Entity selectedEntity() {
+        return BulkTransfer.Entity.values()[Math.max(0, entityBox.getSelectionModel().getSelectedIndex())];
+    }
+
+    // Selector de archivos CSV; el título indica las columnas esperadas
+    private FileChooser chooser(BulkTransfer.Entity entity) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("CSV: " + String.join(",", BulkTransfer.columnsOf(entity)));
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        return chooser;
+    }
+
+    // Muestra una alerta en pantalla con el tipo, título y contenido especificado
+    private void showAlert(Alert.AlertType type, String title, String content) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+
+    // Botón para regresar al menú principal; una transferencia en curso sigue en segundo plano
+    @FXML
+    void goBackToMenu(ActionEvent event) {
+        Main.loadScene("/view/MainMenu.fxml");
+    }
+}
@@ -1,9 +1,11 @@
 package controller; // Define el paquete donde se encuentra esta clase
 
 import application.Main; // Importa la clase principal para cambiar escenas
+import application.Startup; // Estado de la conexión abierta en segundo plano
 import javafx.event.ActionEvent; // Para manejar eventos de botones
 import javafx.fxml.FXML; // Para enlazar elementos del archivo FXML
 import javafx.scene.control.Button; // Botón de la interfaz
+import javafx.scene.control.Label; // Texto del estado de la conexión
 import javafx.scene.layout.VBox; // Contenedor vertical (layout)
 
 public class MainMenuController {
@@ -20,10 +22,41 @@ public class MainMenuController {
     @FXML
     private Button btnStudent;
 
+    // Enlaza el botón para ir a la importación/exportación en CSV
+    @FXML
+    private Button btnImportExport;
+
+    // Enlaza el botón para ir a las métricas de acceso a datos
+    @FXML
+    private Button btnMetrics;
+
+    // Indicador del estado de la conexión con la base de datos
+    @FXML
+    private Label connectionStatus;
+
     // Enlaza el VBox principal del menú (puede usarse para efectos visuales o control de layout)
     @FXML
     private VBox root;
 
+    /**
+     * Muestra el estado de la conexión, que se abre en segundo plano al iniciar.
+     * Si la conexión falló, un clic sobre el indicador la vuelve a intentar.
+     */
+    @FXML
+    public void initialize() {
+        connectionStatus.textProperty().bind(Startup.messageProperty());
+        Startup.statusProperty().addListener((obs, oldStatus, newStatus) -> showStatus(newStatus));
+        showStatus(Startup.statusProperty().get());
+        connectionStatus.setOnMouseClicked(event -> Startup.retry());
+    }
+
+    // Color del texto según el estado: amarillo conectando, verde conectado, rojo sin conexión
+    private void showStatus(Startup.Status status) {
+        String color = status == Startup.Status.CONNECTED ? "#81C784"
+                : status == Startup.Status.FAILED ? "#E57373" : "#FFD54F";
+        connectionStatus.setStyle("-fx-text-fill: " + color + "; -fx-font-size: 12;");
+    }
+
     /**
      * Método privado reutilizable que cambia la escena actual a otra
      * según la ruta del archivo FXML que se le pase.
@@ -64,4 +97,22 @@ public class MainMenuController {
     void goToEnrollment(ActionEvent event) {
         loadScene("/view/Enrollments.fxml");  
     }
+
+    /**
+     * Acción cuando se presiona el botón "Importar / Exportar".
+     * Navega a la vista ImportExport.fxml.
+     */
+    @FXML
+    void goToImportExport(ActionEvent event) {
+        loadScene("/view/ImportExport.fxml");
+    }
+
+    /**
+     * Acción cuando se presiona el botón "Métricas".
+     * Navega a la vista Metrics.fxml.
+     */
+    @FXML
+    void goToMetrics(ActionEvent event) {
+        loadScene("/view/Metrics.fxml");
+    }
 }
@@ -0,0 +1,122 @@
+package controller; // Define el paquete al que pertenece esta clase
+
+import application.CachedView; // Vista reutilizada entre visitas
+import application.Main; // Para poder cambiar de escenas
+import data.DBConnection; // Estado del pool de conexiones
+import data.Log; // Mensajes descartados por el log asíncrono
+import data.Metrics; // Métricas de cada operación de acceso a datos
+import data.OperationStats;
+import data.StorageBackend; // Motor de almacenamiento en uso
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.util.Duration;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+public class MetricsController implements CachedView {
+
+    // Tabla con una fila por operación (StudentStore.fetch, EnrollmentStore.save, ...)
+    @FXML private TableView<OperationStats> metricsTable;
+    @FXML private TableColumn<OperationStats, String> nameColumn;
+    @FXML private TableColumn<OperationStats, Number> callsColumn;
+    @FXML private TableColumn<OperationStats, Number> errorsColumn;
+    @FXML private TableColumn<OperationStats, Number> rowsColumn;
+    @FXML private TableColumn<OperationStats, Number> meanColumn;
+    @FXML private TableColumn<OperationStats, Number> p50Column;
+    @FXML private TableColumn<OperationStats, Number> p99Column;
+    @FXML private TableColumn<OperationStats, Number> p999Column;
+    @FXML private TableColumn<OperationStats, Number> maxColumn;
+    @FXML private TableColumn<OperationStats, Number> poolWaitColumn;
+
+    // Resumen del motor, del pool y del log
+    @FXML private Label summaryLabel;
+
+    @FXML private Button btnReset;
+    @FXML private Button btnBackToMenu;
+
+    private final ObservableList<OperationStats> operations = FXCollections.observableArrayList();
+
+    // Actualiza la tabla una vez por segundo mientras la pantalla está abierta
+    private final Timeline refresher = new Timeline(new KeyFrame(Duration.seconds(1), event -> refresh()));
+
+    @FXML
+    public void initialize() {
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getName()));
+        count(callsColumn, OperationStats::getCalls);
+        count(errorsColumn, OperationStats::getErrors);
+        count(rowsColumn, OperationStats::getRows);
+        millis(meanColumn, OperationStats::getMeanMillis);
+        millis(p50Column, OperationStats::getP50Millis);
+        millis(p99Column, OperationStats::getP99Millis);
+        millis(p999Column, OperationStats::getP999Millis);
+        millis(maxColumn, OperationStats::getMaxMillis);
+        millis(poolWaitColumn, OperationStats::getMeanPoolWaitMillis);
+
+        metricsTable.setItems(operations);
+        refresher.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    // Solo se actualiza mientras la pantalla está visible
+    @Override
+    public void onShow() {
+        refresh();
+        refresher.play();
+    }
+
+    @Override
+    public void onHide() {
+        refresher.stop();
+    }
+
+    // Vuelve a leer los contadores (se leen en vivo, sin detener las operaciones)
+    private void refresh() {
+        operations.setAll(Metrics.getAll());
+        metricsTable.sort();
+
+        StorageBackend backend = StorageBackend.getInstance();
+        StringBuilder summary = new StringBuilder("Motor: " + backend.getName());
+        if (backend.getName().equals("jdbc")) {
+            DBConnection db = DBConnection.getInstance();
+            summary.append(String.format("   Pool: %d en uso, %d libres   Caché de statements: %d aciertos, %d fallos",
+                    db.getActiveCount(), db.getIdleCount(), db.getStatementCacheHits(), db.getStatementCacheMisses()));
+        }
+        summary.append("   Mensajes de log descartados: ").append(Log.getDropped());
+        summaryLabel.setText(summary.toString());
+    }
+
+    // Pone en cero todas las métricas
+    @FXML
+    void resetMetrics(ActionEvent event) {
+        Metrics.resetAll();
+        refresh();
+    }
+
+    private void count(TableColumn<OperationStats, Number> column, ToLongFunction<OperationStats> value) {
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.applyAsLong(cell.getValue())));
+    }
+
+    // Columna en milisegundos con tres decimales
+    private void millis(TableColumn<OperationStats, Number> column, ToDoubleFunction<OperationStats> value) {
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.applyAsDouble(cell.getValue())));
+        column.setCellFactory(col -> new TableCell<OperationStats, Number>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.3f", item.doubleValue()));
+            }
+        });
+    }
+
+    // Botón para regresar al menú principal
+    @FXML
+    void goBackToMenu(ActionEvent event) {
+        Main.loadScene("/view/MainMenu.fxml");
+    }
+}
@@ -1,11 +1,20 @@
 package controller; // Define el paquete al que pertenece esta clase
 
 // Importaciones necesarias para manejo de base de datos y JavaFX
-import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import application.CachedView; // Vista reutilizada entre visitas
 import application.Main; // Para poder cambiar de escenas
-import data.DBConnection; // Conexión a la base de datos
-import data.StudentDAO; // Acceso a los datos de estudiantes
+import data.DataExecutor; // Ejecución de consultas fuera del hilo de JavaFX
+import data.EnrollmentStore; // Inscripciones del estudiante que se elimina
+import data.StorageBackend; // Motor de almacenamiento configurado (Oracle o en memoria)
+import data.StudentStore; // Acceso a los datos de estudiantes
+import data.UnitOfWork; // Varias escrituras en una sola transacción
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -16,7 +25,7 @@ import model.FXUtils; // Utilidades gráficas para limpiar campos
 import model.Student; // Modelo de datos de Estudiante
 import javafx.scene.input.KeyCode; // Para capturar tecla ESC
 
-public class StudentsController {
+public class StudentsController implements CachedView {
 
     // Tabla donde se listan los estudiantes
     @FXML private TableView<Student> studentTable;
@@ -31,6 +40,9 @@ public class StudentsController {
     @FXML private TextField nameField;
     @FXML private TextField emailField;
 
+    // Búsqueda por prefijo del ID o del nombre
+    @FXML private TextField searchField;
+
     // Botones para interactuar con los estudiantes
     @FXML private Button btnAdd;
     @FXML private Button btnUpdate;
@@ -38,11 +50,22 @@ public class StudentsController {
     @FXML private Button btnFetch;
     @FXML private Button btnBackToMenu;
 
-    // Conexión a la base de datos, DAO y lista observable de estudiantes
-    private final Connection connection = DBConnection.getInstance().getConnection();
-    private final StudentDAO studentDAO = new StudentDAO(connection);
+    // Acceso a datos (según el motor configurado) y lista observable de estudiantes
+    private final StudentStore studentDAO = StorageBackend.getInstance().students();
+    private final EnrollmentStore enrollmentDAO = StorageBackend.getInstance().enrollments();
     private final ObservableList<Student> studentList = FXCollections.observableArrayList();
 
+    // Carga de la tabla según la búsqueda; cada consulta nueva cancela la anterior
+    private final DebouncedSearch<ArrayList<Student>> search =
+            new DebouncedSearch<>(this::query, students -> studentList.setAll(students));
+
+    // Sincronización periódica opcional con los estudiantes modificados desde la última vez
+    private final DeltaSync<Student> deltaSync = new DeltaSync<>(studentDAO::fetchChangedSinceAsync, this::applyRemoteChanges);
+
+    // Recarga la tabla al volver a la pantalla solo si hubo cambios
+    private final Freshness<Student> freshness = new Freshness<>(studentDAO::fetchChangedSinceAsync, search::run,
+            this::applyRemoteChanges);
+
     // Método que se ejecuta automáticamente al iniciar el controlador
     @FXML
     public void initialize() {
@@ -52,7 +75,11 @@ public class StudentsController {
         emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
 
         // Carga los estudiantes desde la base de datos
-        fetchStudents();
+        studentTable.setItems(studentList);
+        freshness.reloadIfStale();
+
+        // Busca en la base de datos mientras se escribe
+        searchField.textProperty().addListener((obs, oldText, newText) -> search.schedule());
 
         // Al seleccionar un estudiante de la tabla, llena los campos de texto
         studentTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
@@ -97,17 +124,24 @@ public class StudentsController {
             return;
         }
 
-        // Verifica si ya existe un estudiante con ese ID
-        if (studentDAO.authenticate(id)) {
-            showAlert(Alert.AlertType.WARNING, "Estudiante duplicado", "Ya existe un estudiante con ese ID.");
-            return;
-        }
-
-        // Crea y guarda el nuevo estudiante
+        // Verifica si ya existe un estudiante con ese ID y lo guarda en segundo plano
         Student student = new Student(id, name, email);
-        studentDAO.save(student);
-        fetchStudents(); // Actualiza la tabla
-        clearFields(); // Limpia los campos
+        DataExecutor.supply(() -> {
+            if (studentDAO.authenticate(id)) {
+                return new String[] { "Estudiante duplicado", "Ya existe un estudiante con ese ID." };
+            }
+            if (studentDAO.save(student) == null) {
+                return new String[] { "Error", "No se pudo guardar el estudiante." };
+            }
+            return null;
+        }).thenAccept(error -> Platform.runLater(() -> {
+            if (error != null) {
+                showAlert(Alert.AlertType.WARNING, error[0], error[1]);
+                return;
+            }
+            studentList.add(student); // Agrega solo la fila nueva a la tabla
+            clearFields(); // Limpia los campos
+        })).exceptionally(Failures.report("No se pudo guardar el estudiante."));
     }
 
     // Método para actualizar un estudiante existente
@@ -133,8 +167,7 @@ public class StudentsController {
         // Aplica cambios y actualiza en base de datos
         selected.setName(name);
         selected.setEmail(email);
-        studentDAO.update(selected);
-        fetchStudents();
+        applyUpdate(studentDAO.updateAsync(selected));
         clearFields();
     }
 
@@ -148,17 +181,80 @@ public class StudentsController {
             return;
         }
 
-        // Elimina por ID
-        studentDAO.delete(selected.getId());
-        fetchStudents();
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "¿Eliminar al estudiante " + selected.getName() + " y sus inscripciones?",
+                ButtonType.YES, ButtonType.NO);
+        confirm.showAndWait();
+        if (confirm.getResult() != ButtonType.YES) {
+            return;
+        }
+
+        // Elimina por ID, junto con sus inscripciones en una sola transacción
+        String id = selected.getId();
+        applyDelete(id, UnitOfWork.runAsync(() -> enrollmentDAO.deleteByStudent(id) >= 0 && studentDAO.delete(id)));
         clearFields();
     }
 
-    // Carga todos los estudiantes desde la base de datos a la tabla
+    // Carga todos los estudiantes desde la base de datos a la tabla, en segundo plano (quita la búsqueda)
     @FXML
     public void fetchStudents() {
-        studentList.setAll(studentDAO.fetch());
-        studentTable.setItems(studentList);
+        searchField.clear();
+        search.run();
+    }
+
+    // Sin texto se cargan todos los estudiantes; con texto, solo los que coinciden (a lo sumo LIMIT)
+    private CompletableFuture<ArrayList<Student>> query() {
+        String text = searchField.getText().trim();
+        return text.isEmpty() ? studentDAO.fetchAsync() : studentDAO.searchAsync(text, DebouncedSearch.LIMIT);
+    }
+
+    // Cambios hechos desde otra estación: con una búsqueda activa se repite, para no agregar filas que no coinciden
+    private void applyRemoteChanges(List<Student> changed) {
+        if (searchField.getText().trim().isEmpty()) {
+            applyChanges(changed);
+        } else {
+            search.run();
+        }
+    }
+
+    // Reemplaza en la tabla la fila actualizada; si la actualización falló, recarga desde la BD
+    private void applyUpdate(CompletableFuture<Student> write) {
+        write.thenAccept(updated -> Platform.runLater(() -> {
+            if (updated == null) {
+                search.run();
+                return;
+            }
+            applyChanges(List.of(updated));
+        })).exceptionally(Failures.report("No se pudo actualizar el estudiante."));
+    }
+
+    // Quita de la tabla el estudiante eliminado; si no se eliminó, recarga desde la BD
+    private void applyDelete(String id, CompletableFuture<Boolean> write) {
+        write.thenAccept(deleted -> Platform.runLater(() -> {
+            if (deleted) {
+                studentList.removeIf(s -> s.getId().equals(id));
+                Freshness.deleted(); // Puede haber arrastrado inscripciones
+            } else {
+                search.run();
+            }
+        })).exceptionally(Failures.report("No se pudo eliminar el estudiante."));
+    }
+
+    // Inserta o reemplaza en la tabla los estudiantes recibidos, sin tocar las demás filas
+    private void applyChanges(List<Student> changed) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < studentList.size(); i++) {
+            indexById.put(studentList.get(i).getId(), i);
+        }
+        for (Student student : changed) {
+            Integer index = indexById.get(student.getId());
+            if (index != null) {
+                studentList.set(index, student);
+            } else {
+                indexById.put(student.getId(), studentList.size());
+                studentList.add(student);
+            }
+        }
     }
 
     // Limpia los campos de texto y deselecciona la tabla
@@ -179,6 +275,18 @@ public class StudentsController {
         alert.showAndWait();
     }
 
+    // La vista se reutiliza entre visitas: al volver se recarga solo si los datos cambiaron
+    @Override
+    public void onShow() {
+        freshness.reloadIfStale();
+        deltaSync.start();
+    }
+
+    @Override
+    public void onHide() {
+        deltaSync.stop();
+    }
+
     // Botón para regresar al menú principal
     @FXML
     void goBackToMenu(ActionEvent event) {
@@ -0,0 +1,57 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resultado de una carga masiva (saveAll): cuántas filas se guardaron y cuáles fallaron.
+public class BatchResult<E> {
+
+    // Fila que no se pudo guardar, con su posición en la colección original
+    public static class Failure<E> {
+        private final int index;
+        private final E entity;
+        private final String message;
+
+        public Failure(int index, E entity, String message) {
+            this.index = index;
+            this.entity = entity;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public E getEntity() {
+            return entity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private int savedCount;
+    private final List<Failure<E>> failures = new ArrayList<>();
+
+    void addSaved(int rows) {
+        savedCount += rows;
+    }
+
+    void addFailure(int index, E entity, String message) {
+        failures.add(new Failure<>(index, entity, message));
+    }
+
+    public int getSavedCount() {
+        return savedCount;
+    }
+
+    public List<Failure<E>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
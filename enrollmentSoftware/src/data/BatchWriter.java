@@ -0,0 +1,137 @@
+package data;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Escritura por lotes compartida por los DAOs: agrupa las filas con addBatch/executeBatch
+// y confirma una transacción por cada bloque de batchSize filas.
+final class BatchWriter {
+
+    // Tamaño de lote por defecto (se puede cambiar con -Ddb.batch.size)
+    static final int DEFAULT_BATCH_SIZE = Integer.getInteger("db.batch.size", 500);
+
+    // Asigna los parámetros de una fila al statement
+    interface Binder<E> {
+        void bind(PreparedStatement stmt, E entity) throws SQLException;
+    }
+
+    private BatchWriter() {
+    }
+
+    // Ejecuta sql para cada entidad. Si un bloque falla, se deshace y se reintenta fila por fila
+    // para guardar las filas válidas y reportar exactamente cuáles fallaron. Si el bloque no se
+    // puede escribir de ninguna forma (p. ej. se perdió la conexión), se deshace y todas sus filas
+    // quedan como fallidas: siempre se cumple saved + failures == entities.size().
+    static <E> BatchResult<E> write(DBConnection db, String sql, boolean callable,
+                                   Collection<E> entities, int batchSize, Binder<E> binder) {
+        BatchResult<E> result = new BatchResult<>();
+        if (entities.isEmpty()) {
+            return result;
+        }
+        int chunkSize = Math.max(1, batchSize);
+
+        List<E> chunk = new ArrayList<>(chunkSize);
+        int chunkStart = 0;
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = callable ? connection.prepareCall(sql) : connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+
+            boolean open = true;
+            for (E entity : entities) {
+                chunk.add(entity);
+                if (chunk.size() == chunkSize) {
+                    open = tryChunk(connection, stmt, chunk, chunkStart, binder, result);
+                    chunkStart += chunk.size();
+                    chunk.clear();
+                    if (!open) {
+                        break; // Conexión perdida: el resto queda como fallido abajo
+                    }
+                }
+            }
+            if (open && !chunk.isEmpty()) {
+                tryChunk(connection, stmt, chunk, chunkStart, binder, result);
+                chunkStart += chunk.size();
+            }
+        } catch (SQLException e) {
+            // No se pudo pedir la conexión ni preparar el statement: no se escribió nada desde chunkStart
+            Log.error("Error during batch write", e);
+        }
+        if (chunkStart < entities.size()) {
+            String message = "Not written: the batch could not be sent";
+            int index = 0;
+            for (E entity : entities) {
+                if (index >= chunkStart) {
+                    result.addFailure(index, entity, message);
+                }
+                index++;
+            }
+        }
+        return result;
+    }
+
+    // Escribe un bloque; si falla por algo que no es una fila rechazada, lo deshace y anota todas sus
+    // filas como fallidas. Devuelve false si la conexión quedó cerrada (no tiene sentido seguir).
+    private static <E> boolean tryChunk(Connection connection, PreparedStatement stmt, List<E> chunk,
+                                        int chunkStart, Binder<E> binder, BatchResult<E> result) {
+        try {
+            writeChunk(connection, stmt, chunk, chunkStart, binder, result);
+            return true;
+        } catch (SQLException e) {
+            Log.error("Error during batch write; rolling back " + chunk.size() + " rows", e);
+            try {
+                stmt.clearBatch();
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                // La conexión está rota: no queda nada confirmado de este bloque
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                result.addFailure(chunkStart + i, chunk.get(i), e.getMessage());
+            }
+            try {
+                return !connection.isClosed();
+            } catch (SQLException closedError) {
+                return false;
+            }
+        }
+    }
+
+    // Solo anota en result lo que quedó confirmado: si el commit falla, tryChunk anota el bloque entero
+    private static <E> void writeChunk(Connection connection, PreparedStatement stmt, List<E> chunk,
+                                       int chunkStart, Binder<E> binder, BatchResult<E> result) throws SQLException {
+        try {
+            for (E entity : chunk) {
+                binder.bind(stmt, entity);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            connection.commit();
+            result.addSaved(chunk.size());
+            return;
+        } catch (BatchUpdateException e) {
+            connection.rollback();
+            stmt.clearBatch();
+        }
+
+        // Reintento fila por fila dentro de la misma transacción del bloque
+        List<BatchResult.Failure<E>> rejected = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            E entity = chunk.get(i);
+            try {
+                binder.bind(stmt, entity);
+                stmt.execute();
+            } catch (SQLException e) {
+                rejected.add(new BatchResult.Failure<>(chunkStart + i, entity, e.getMessage()));
+            }
+        }
+        connection.commit();
+        result.addSaved(chunk.size() - rejected.size());
+        for (BatchResult.Failure<E> failure : rejected) {
+            result.addFailure(failure.getIndex(), failure.getEntity(), failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,611 @@
+package data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Importación y exportación masiva en CSV contra el motor configurado (StorageBackend).
+//
+// La importación es una cadena de tres etapas en hilos propios, unidas por colas acotadas:
+//   lectura (CsvReader) -> validación (texto a Course/Student/Enrollment) -> escritura (saveAll)
+// Cada cola guarda a lo sumo import.queueChunks bloques de import.chunkSize filas: si la escritura
+// va más lenta, la lectura se detiene a esperar (contrapresión), así que la memoria usada no depende
+// del tamaño del archivo. Las filas inválidas o rechazadas por el almacenamiento se cuentan y se
+// informan (las primeras MAX_ERRORS, con su número de línea) sin detener la importación.
+//
+// La exportación recorre stream() del almacenamiento y escribe a un archivo temporal que reemplaza
+// al destino solo si termina bien.
+//
+// El avance se informa con snapshots de Progress a un Consumer, desde hilos de fondo; la interfaz
+// debe pasarlos a su hilo con Platform.runLater.
+public final class BulkTransfer {
+
+    public enum Entity {
+        STUDENTS, COURSES, ENROLLMENTS
+    }
+
+    private static final int CHUNK_SIZE = Integer.getInteger("import.chunkSize", 5_000);
+    private static final int QUEUE_CHUNKS = Integer.getInteger("import.queueChunks", 4);
+    private static final int MAX_ERRORS = 100;
+    private static final long POLL_MS = 100;
+
+    private BulkTransfer() {
+    }
+
+    // Estado de una importación o exportación en un momento dado
+    public static final class Progress {
+        private final long rowsRead;
+        private final long rowsWritten;
+        private final long rowsRejected;
+        private final long bytes;
+        private final long totalBytes;
+        private final long elapsedNanos;
+        private final boolean done;
+        private final boolean cancelled;
+        private final List<String> errors;
+
+        private Progress(long rowsRead, long rowsWritten, long rowsRejected, long bytes, long totalBytes,
+                long elapsedNanos, boolean done, boolean cancelled, List<String> errors) {
+            this.rowsRead = rowsRead;
+            this.rowsWritten = rowsWritten;
+            this.rowsRejected = rowsRejected;
+            this.bytes = bytes;
+            this.totalBytes = totalBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.done = done;
+            this.cancelled = cancelled;
+            this.errors = errors;
+        }
+
+        // Filas leídas del archivo (importación) o del almacenamiento (exportación)
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        // Filas guardadas en el almacenamiento (importación) o en el archivo (exportación)
+        public long getRowsWritten() {
+            return rowsWritten;
+        }
+
+        // Filas inválidas o rechazadas por el almacenamiento (duplicadas, sin estudiante/curso...)
+        public long getRowsRejected() {
+            return rowsRejected;
+        }
+
+        // Bytes leídos (importación) o escritos (exportación)
+        public long getBytes() {
+            return bytes;
+        }
+
+        // Tamaño del archivo a importar; -1 en una exportación
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        // Fracción completada entre 0 y 1, o -1 si no se conoce el total
+        public double getFraction() {
+            if (done) {
+                return 1;
+            }
+            return totalBytes > 0 ? Math.min(1.0, (double) bytes / totalBytes) : -1;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos > 0 ? rowsWritten * 1e9 / elapsedNanos : 0;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Primeros errores por fila (con número de línea en la importación); vacío hasta terminar
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    // Transferencia en curso: su resultado final y la posibilidad de cancelarla
+    public static final class Job {
+        private final CompletableFuture<Progress> result;
+        private final Transfer transfer;
+
+        private Job(CompletableFuture<Progress> result, Transfer transfer) {
+            this.result = result;
+            this.transfer = transfer;
+        }
+
+        // Progress final (isDone); termina con excepción si el archivo no se pudo leer/escribir.
+        public CompletableFuture<Progress> getResult() {
+            return result;
+        }
+
+        // Detiene la transferencia; lo que ya se guardó en el almacenamiento no se deshace
+        public void cancel() {
+            transfer.cancelled = true;
+            transfer.stopped = true;
+        }
+    }
+
+    // Importa el archivo a la tabla de entity. La primera línea debe tener los nombres de las
+    // columnas (en cualquier orden; ver columnsOf).
+    public static Job importCsv(Entity entity, Path file, Consumer<Progress> listener) {
+        return importCsv(formatOf(entity), file, listener);
+    }
+
+    // Exporta toda la tabla de entity, con una primera línea de nombres de columna
+    public static Job exportCsv(Entity entity, Path file, Consumer<Progress> listener) {
+        return exportCsv(formatOf(entity), file, listener);
+    }
+
+    // Columnas que se esperan (y que se escriben) para entity
+    public static List<String> columnsOf(Entity entity) {
+        return List.of(formatOf(entity).columns);
+    }
+
+    // --- Importación ---
+
+    private static <E> Job importCsv(Format<E> format, Path file, Consumer<Progress> listener) {
+        Transfer transfer = new Transfer(listener);
+        BlockingQueue<Chunk<String[]>> parsed = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        BlockingQueue<Chunk<E>> validated = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        int[] columnIndex = new int[format.columns.length];
+
+        CompletableFuture<Void> reader = transfer.stage(() -> {
+            try (CsvReader csv = CsvReader.open(file)) {
+                transfer.totalBytes = Files.size(file);
+                readHeader(csv, format, columnIndex);
+                Chunk<String[]> chunk = new Chunk<>(CHUNK_SIZE);
+                String[] row;
+                while (!transfer.stopped && (row = csv.next()) != null) {
+                    chunk.add(row, csv.getLineNumber());
+                    if (chunk.isFull()) {
+                        transfer.bytes.set(csv.getBytesRead());
+                        transfer.rowsRead.addAndGet(chunk.size());
+                        transfer.put(parsed, chunk);
+                        chunk = new Chunk<>(CHUNK_SIZE);
+                    }
+                }
+                transfer.bytes.set(csv.getBytesRead());
+                transfer.rowsRead.addAndGet(chunk.size());
+                chunk.last = true;
+                transfer.put(parsed, chunk);
+            }
+        });
+
+        CompletableFuture<Void> validator = transfer.stage(() -> {
+            Chunk<String[]> raw;
+            do {
+                raw = transfer.take(parsed);
+                if (raw == null) {
+                    return;
+                }
+                Chunk<E> valid = new Chunk<>(raw.size());
+                String[] values = new String[columnIndex.length];
+                for (int i = 0; i < raw.size(); i++) {
+                    String[] row = raw.rows.get(i);
+                    try {
+                        for (int c = 0; c < columnIndex.length; c++) {
+                            if (columnIndex[c] < 0) {
+                                values[c] = ""; // Columna opcional que el archivo no trae
+                                continue;
+                            }
+                            if (columnIndex[c] >= row.length) {
+                                throw new IllegalArgumentException("expected " + format.columns.length
+                                        + " fields, found " + row.length);
+                            }
+                            values[c] = row[columnIndex[c]].trim();
+                        }
+                        valid.add(format.parse(values), raw.lines[i]);
+                    } catch (IllegalArgumentException | DateTimeException e) {
+                        transfer.reject(raw.lines[i], e.getMessage());
+                    }
+                }
+                valid.last = raw.last;
+                transfer.put(validated, valid);
+            } while (!raw.last);
+        });
+
+        CompletableFuture<Void> writer = transfer.stage(() -> {
+            Chunk<E> chunk;
+            do {
+                chunk = transfer.take(validated);
+                if (chunk == null) {
+                    return;
+                }
+                if (chunk.size() > 0) {
+                    BatchResult<E> result = format.saveAll(chunk.rows, CHUNK_SIZE);
+                    transfer.rowsWritten.addAndGet(result.getSavedCount());
+                    for (BatchResult.Failure<E> failure : result.getFailures()) {
+                        transfer.reject(chunk.lines[failure.getIndex()], failure.getMessage());
+                    }
+                }
+                transfer.report();
+            } while (!chunk.last);
+        });
+
+        return transfer.finish(CompletableFuture.allOf(reader, validator, writer));
+    }
+
+    private static void readHeader(CsvReader csv, Format<?> format, int[] columnIndex) throws IOException {
+        String[] header = csv.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        List<String> names = new ArrayList<>(header.length);
+        for (String name : header) {
+            names.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        for (int c = 0; c < format.columns.length; c++) {
+            columnIndex[c] = names.indexOf(format.columns[c]);
+            if (columnIndex[c] < 0 && c < format.required) {
+                throw new IOException("Missing column '" + format.columns[c] + "'; expected "
+                        + String.join(",", format.columns));
+            }
+        }
+    }
+
+    // --- Exportación ---
+
+    private static <E> Job exportCsv(Format<E> format, Path file, Consumer<Progress> listener) {
+        Transfer transfer = new Transfer(listener);
+        Path tmp = file.resolveSibling(file.getFileName() + ".part");
+        CompletableFuture<Void> export = transfer.stage(() -> {
+            boolean complete = false;
+            try (Stream<E> rows = format.stream(); CsvWriter csv = CsvWriter.create(tmp)) {
+                csv.writeRow(format.columns);
+                Iterator<E> it = rows.iterator();
+                long count = 0;
+                while (!transfer.stopped && it.hasNext()) {
+                    csv.writeRow(format.toRow(it.next()));
+                    if (++count % CHUNK_SIZE == 0) {
+                        transfer.rowsRead.set(count);
+                        transfer.rowsWritten.set(count);
+                        transfer.bytes.set(csv.getBytesWritten());
+                        transfer.report();
+                    }
+                }
+                transfer.rowsRead.set(count);
+                transfer.rowsWritten.set(count);
+                complete = !transfer.stopped;
+            } finally {
+                if (complete) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    transfer.bytes.set(Files.size(file));
+                } else {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        });
+        return transfer.finish(export);
+    }
+
+    // --- Estado compartido entre etapas ---
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static final class Transfer {
+        final Consumer<Progress> listener;
+        final long start = System.nanoTime();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsWritten = new AtomicLong();
+        final AtomicLong rowsRejected = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile long totalBytes = -1;
+        volatile boolean stopped;   // Cancelada o con error: todas las etapas terminan
+        volatile boolean cancelled;
+        volatile Throwable failure;
+
+        Transfer(Consumer<Progress> listener) {
+            this.listener = listener;
+        }
+
+        // Ejecuta una etapa en segundo plano; si falla, detiene a las demás
+        CompletableFuture<Void> stage(Stage stage) {
+            return DataExecutor.run(() -> {
+                try {
+                    stage.run();
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    stopped = true;
+                }
+            });
+        }
+
+        // Espera a que haya lugar en la cola (contrapresión); devuelve false si se detuvo
+        <T> boolean put(BlockingQueue<T> queue, T item) throws InterruptedException {
+            while (!stopped) {
+                if (queue.offer(item, POLL_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Espera el siguiente bloque; devuelve null si se detuvo
+        <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            while (!stopped) {
+                T item = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        void reject(long line, String message) {
+            rowsRejected.incrementAndGet();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(line > 0 ? "Line " + line + ": " + message : message);
+            }
+        }
+
+        void report() {
+            if (listener != null) {
+                listener.accept(snapshot(false));
+            }
+        }
+
+        Progress snapshot(boolean done) {
+            List<String> list;
+            synchronized (errors) {
+                list = done ? List.copyOf(errors) : Collections.emptyList();
+            }
+            return new Progress(rowsRead.get(), rowsWritten.get(), rowsRejected.get(), bytes.get(), totalBytes,
+                    System.nanoTime() - start, done, cancelled, list);
+        }
+
+        // Resultado del trabajo cuando terminan todas sus etapas
+        Job finish(CompletableFuture<Void> stages) {
+            CompletableFuture<Progress> result = new CompletableFuture<>();
+            stages.whenComplete((ignored, e) -> {
+                Throwable error = failure != null ? failure : e;
+                if (error != null && !cancelled) {
+                    result.completeExceptionally(error);
+                    return;
+                }
+                Progress last = snapshot(true);
+                if (listener != null) {
+                    listener.accept(last);
+                }
+                result.complete(last);
+            });
+            return new Job(result, this);
+        }
+    }
+
+    // Bloque de filas que pasa de una etapa a la siguiente, con la línea del archivo de cada una
+    private static final class Chunk<T> {
+        final ArrayList<T> rows;
+        final long[] lines;
+        boolean last;
+
+        Chunk(int capacity) {
+            rows = new ArrayList<>(capacity);
+            lines = new long[capacity];
+        }
+
+        void add(T row, long line) {
+            lines[rows.size()] = line;
+            rows.add(row);
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        boolean isFull() {
+            return rows.size() == lines.length;
+        }
+    }
+
+    // --- Formato de cada tabla ---
+
+    private static Format<?> formatOf(Entity entity) {
+        switch (entity) {
+            case STUDENTS:
+                return STUDENTS;
+            case COURSES:
+                return COURSES;
+            default:
+                return ENROLLMENTS;
+        }
+    }
+
+    private abstract static class Format<E> {
+        final String[] columns;
+        final int required; // Las primeras required columnas son obligatorias; las demás pueden faltar
+
+        Format(String... columns) {
+            this(columns.length, columns);
+        }
+
+        Format(int required, String... columns) {
+            this.required = required;
+            this.columns = columns;
+        }
+
+        // Convierte los valores (en el orden de columns, sin espacios en los extremos);
+        // IllegalArgumentException con el motivo si la fila no es válida
+        abstract E parse(String[] values);
+
+        abstract String[] toRow(E entity);
+
+        abstract BatchResult<E> saveAll(List<E> rows, int batchSize);
+
+        abstract Stream<E> stream();
+
+        // Mismos límites que las columnas de la base de datos
+        static String text(String value, String column, int maxLength) {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException(column + " is empty");
+            }
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+            }
+            return value;
+        }
+    }
+
+    private static final Format<Student> STUDENTS = new Format<Student>("id", "name", "email") {
+        @Override
+        Student parse(String[] v) {
+            String email = text(v[2], "email", 100);
+            if (email.indexOf('@') < 1) {
+                throw new IllegalArgumentException("invalid email '" + email + "'");
+            }
+            return new Student(text(v[0], "id", 20), text(v[1], "name", 100), email);
+        }
+
+        @Override
+        String[] toRow(Student s) {
+            return new String[] { s.getId(), s.getName(), s.getEmail() };
+        }
+
+        @Override
+        BatchResult<Student> saveAll(List<Student> rows, int batchSize) {
+            return StorageBackend.getInstance().students().saveAll(rows, batchSize);
+        }
+
+        @Override
+        Stream<Student> stream() {
+            return StorageBackend.getInstance().students().stream();
+        }
+    };
+
+    // capacity, prerequisites y schedule son opcionales para seguir aceptando los archivos exportados
+    // antes. Los prerrequisitos pueden nombrar cursos del mismo archivo: solo se revisa el formato, y
+    // CourseRules ignora con un aviso los que no son cursos o cierran un ciclo.
+    private static final Format<Course> COURSES = new Format<Course>(3, "code", "name", "credits", "capacity",
+            "prerequisites", "schedule") {
+        @Override
+        Course parse(String[] v) {
+            int credits;
+            try {
+                credits = Integer.parseInt(v[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("credits '" + v[2] + "' is not a number");
+            }
+            if (credits < 1 || credits > 99) {
+                throw new IllegalArgumentException("credits must be between 1 and 99");
+            }
+            int capacity = 0;
+            if (!v[3].isEmpty()) {
+                try {
+                    capacity = Integer.parseInt(v[3]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("capacity '" + v[3] + "' is not a number");
+                }
+                if (capacity < 0 || capacity > 99_999) {
+                    throw new IllegalArgumentException("capacity must be between 0 and 99999");
+                }
+            }
+            String prerequisites = String.join(", ", CourseRules.parsePrerequisites(v[4]));
+            if (prerequisites.length() > 400) {
+                throw new IllegalArgumentException("prerequisites is longer than 400 characters");
+            }
+            String schedule = CourseRules.normalizeSchedule(v[5]);
+            if (schedule.length() > 200) {
+                throw new IllegalArgumentException("schedule is longer than 200 characters");
+            }
+            return new Course(text(v[0], "code", 20), text(v[1], "name", 100), credits, capacity, prerequisites,
+                    schedule);
+        }
+
+        @Override
+        String[] toRow(Course c) {
+            return new String[] { c.getCode(), c.getName(), Integer.toString(c.getCredits()),
+                    Integer.toString(c.getCapacity()), c.getPrerequisites(), c.getSchedule() };
+        }
+
+        @Override
+        BatchResult<Course> saveAll(List<Course> rows, int batchSize) {
+            return StorageBackend.getInstance().courses().saveAll(rows, batchSize);
+        }
+
+        @Override
+        Stream<Course> stream() {
+            return StorageBackend.getInstance().courses().stream();
+        }
+    };
+
+    private static final Format<Enrollment> ENROLLMENTS = new Format<Enrollment>("student_id", "course_code",
+            "enrollment_date") {
+        @Override
+        Enrollment parse(String[] v) {
+            return new Enrollment(text(v[0], "student_id", 20), text(v[1], "course_code", 20), date(v[2]));
+        }
+
+        // Fechas ISO (2024-02-15), como las escribe la exportación. El caso común se lee a mano:
+        // LocalDate.parse pasa por DateTimeFormatter y cuesta más que el resto de la fila.
+        private LocalDate date(String value) {
+            if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+                int year = digits(value, 0, 4);
+                int month = digits(value, 5, 7);
+                int day = digits(value, 8, 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+            return LocalDate.parse(value);
+        }
+
+        private int digits(String value, int from, int to) {
+            int result = 0;
+            for (int i = from; i < to; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                result = result * 10 + (c - '0');
+            }
+            return result;
+        }
+
+        @Override
+        String[] toRow(Enrollment e) {
+            return new String[] { e.getStudentId(), e.getCourseCode(), e.getEnrollmentDate().toString() };
+        }
+
+        @Override
+        BatchResult<Enrollment> saveAll(List<Enrollment> rows, int batchSize) {
+            return StorageBackend.getInstance().enrollments().saveAll(rows, batchSize);
+        }
+
+        @Override
+        Stream<Enrollment> stream() {
+            return StorageBackend.getInstance().enrollments().stream();
+        }
+    };
+}
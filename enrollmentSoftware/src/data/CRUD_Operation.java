@@ -1,13 +1,57 @@
 package data;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface CRUD_Operation<S,T> {
-	// C: Create
-    void save(S entity);
+	// C: Create (devuelve la entidad guardada, o null si no se pudo guardar)
+    S save(S entity);
     ArrayList<S> fetch();
-    void update(S entity);
-    void delete(T id);
+    // R: Read por streaming, fila por fila a medida que llegan (sin armar la lista completa)
+    void fetch(Consumer<S> consumer);
+    // Igual que fetch(Consumer) pero como Stream; debe cerrarse (try-with-resources) para liberar la conexión
+    Stream<S> stream();
+    // U: Update (devuelve la entidad actualizada, o null si no se pudo actualizar)
+    S update(S entity);
+    // D: Delete (devuelve true si se eliminó)
+    boolean delete(T id);
     boolean authenticate(T id);
+    // Filas que cambiaron desde changeNumber (ver ChangeSet); con changeNumber < 0 solo el número actual
+    ChangeSet<S> fetchChangedSince(long changeNumber);
 
-}
\ No newline at end of file
+    // Carga masiva con addBatch/executeBatch: una transacción por cada bloque de batchSize filas
+    BatchResult<S> saveAll(Collection<S> entities, int batchSize);
+
+    default BatchResult<S> saveAll(Collection<S> entities) {
+        return saveAll(entities, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    // Versiones asíncronas: se ejecutan en DataExecutor, fuera del hilo de JavaFX
+    default CompletableFuture<S> saveAsync(S entity) {
+        return DataExecutor.supply(() -> save(entity));
+    }
+
+    default CompletableFuture<ArrayList<S>> fetchAsync() {
+        return DataExecutor.supply(this::fetch);
+    }
+
+    default CompletableFuture<S> updateAsync(S entity) {
+        return DataExecutor.supply(() -> update(entity));
+    }
+
+    default CompletableFuture<Boolean> deleteAsync(T id) {
+        return DataExecutor.supply(() -> delete(id));
+    }
+
+    default CompletableFuture<ChangeSet<S>> fetchChangedSinceAsync(long changeNumber) {
+        return DataExecutor.supply(() -> fetchChangedSince(changeNumber));
+    }
+
+    default CompletableFuture<Boolean> authenticateAsync(T id) {
+        return DataExecutor.supply(() -> authenticate(id));
+    }
+
+}
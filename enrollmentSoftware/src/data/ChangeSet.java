@@ -0,0 +1,28 @@
+package data;
+
+import java.util.Collections;
+import java.util.List;
+
+// Filas que cambiaron desde un número de cambio (SCN de Oracle) y el número de cambio
+// hasta el que llegan; se pasa a la siguiente llamada de fetchChangedSince.
+public class ChangeSet<S> {
+    private final List<S> rows;
+    private final long changeNumber;
+
+    public ChangeSet(List<S> rows, long changeNumber) {
+        this.rows = rows;
+        this.changeNumber = changeNumber;
+    }
+
+    public List<S> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public long getChangeNumber() {
+        return changeNumber;
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+}
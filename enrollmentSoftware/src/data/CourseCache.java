@@ -0,0 +1,221 @@
+package data;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.Course;
+
+// Caché en memoria del catálogo de cursos, compartida por CourseDAO y EnrollmentDAO.
+// Lee de la base de datos solo cuando la entrada no está o venció (TTL), y los DAOs la
+// actualizan en cada save/update/delete. Guarda copias: los objetos que entrega se pueden
+// modificar sin afectar la caché. Una lectura que falla no se guarda: si no, un curso que no se pudo
+// leer figuraría como inexistente hasta que venza el TTL.
+public class CourseCache {
+    private static final CourseCache instance = new CourseCache(); //Singleton
+
+    // Lectura de un curso desde la base de datos: null si no existe, SQLException si no se pudo leer
+    public interface CourseLoader {
+        Course load(String code) throws SQLException;
+    }
+
+    // Lectura del catálogo completo; SQLException si no se pudo leer entero
+    public interface CatalogLoader {
+        ArrayList<Course> load() throws SQLException;
+    }
+
+    // Configuración (se puede cambiar con -Dcache.course.*)
+    private final long ttlMs = Long.getLong("cache.course.ttlMs", 300_000);
+    private final int maxSize = Integer.getInteger("cache.course.maxSize", 10_000);
+
+    // Entrada de la caché; course == null significa "el curso no existe"
+    private static final class Entry {
+        private final Course course;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Entry(Course course) {
+            this.course = course;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private long catalogLoadedAt; // Momento de la última carga completa; 0 si no está completa
+    private long version; // Cambia con cada escritura; evita guardar una carga que quedó vieja
+
+    // Estadísticas
+    private long hits;
+    private long misses;
+    private long loadCount;
+    private long totalLoadNanos;
+
+    private CourseCache() {
+        // Orden de inserción (estable para la tabla): al superar maxSize se descarta el más antiguo
+        entries = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    catalogLoadedAt = 0; // Ya no está el catálogo completo
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static CourseCache getInstance() {
+        return instance;
+    }
+
+    // Devuelve el curso con ese código, o null si no existe; lo carga con loader si hace falta.
+    // Si la lectura falla devuelve null sin guardarlo (el error queda en Log y en Metrics).
+    public Course get(String code, CourseLoader loader) {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+            long now = System.currentTimeMillis();
+            Entry entry = entries.get(code);
+            if (entry != null && now - entry.loadedAt <= ttlMs) {
+                hits++;
+                return copy(entry.course);
+            }
+            if (entry == null && isCatalogFresh(now)) {
+                hits++; // Con el catálogo completo, si no está es porque no existe
+                return null;
+            }
+            misses++;
+        }
+
+        long start = System.nanoTime();
+        Course loaded;
+        try {
+            loaded = loader.load(code);
+        } catch (SQLException e) {
+            Log.error("CourseCache could not load course " + code, e);
+            return null;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (this) {
+            recordLoad(elapsed);
+            if (version == startVersion) {
+                entries.put(code, new Entry(copy(loaded)));
+            }
+        }
+        return copy(loaded);
+    }
+
+    // Devuelve todo el catálogo; lo recarga con loader si no está completo o venció. Si la lectura
+    // falla devuelve una lista vacía y el catálogo sigue sin estar completo.
+    public ArrayList<Course> getAll(CatalogLoader loader) {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+            if (isCatalogFresh(System.currentTimeMillis())) {
+                hits++;
+                return copyAll();
+            }
+            misses++;
+        }
+
+        long start = System.nanoTime();
+        ArrayList<Course> loaded;
+        try {
+            loaded = loader.load();
+        } catch (SQLException e) {
+            Log.error("CourseCache could not load the course catalog", e);
+            return new ArrayList<>();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (this) {
+            recordLoad(elapsed);
+            if (version == startVersion) {
+                entries.clear();
+                for (Course course : loaded) {
+                    entries.put(course.getCode(), new Entry(copy(course)));
+                }
+                catalogLoadedAt = loaded.size() <= maxSize ? System.currentTimeMillis() : 0;
+            }
+        }
+
+        ArrayList<Course> result = new ArrayList<>(loaded.size());
+        for (Course course : loaded) {
+            result.add(copy(course));
+        }
+        return result;
+    }
+
+    // Guarda o reemplaza un curso después de escribirlo en la base de datos
+    public synchronized void put(Course course) {
+        version++;
+        entries.put(course.getCode(), new Entry(copy(course)));
+    }
+
+    // Marca un curso como inexistente después de borrarlo
+    public synchronized void remove(String code) {
+        version++;
+        entries.put(code, new Entry(null));
+    }
+
+    // Descarta una entrada; la próxima lectura irá a la base de datos
+    public synchronized void invalidate(String code) {
+        version++;
+        entries.remove(code);
+        catalogLoadedAt = 0;
+    }
+
+    // Descarta toda la caché
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+        catalogLoadedAt = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    // Proporción de lecturas resueltas en memoria (0 a 1)
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    // Tiempo medio de carga desde la base de datos, en milisegundos
+    public synchronized double getAverageLoadTimeMs() {
+        return loadCount == 0 ? 0 : totalLoadNanos / 1_000_000.0 / loadCount;
+    }
+
+    private boolean isCatalogFresh(long now) {
+        return catalogLoadedAt != 0 && now - catalogLoadedAt <= ttlMs;
+    }
+
+    private void recordLoad(long elapsedNanos) {
+        loadCount++;
+        totalLoadNanos += elapsedNanos;
+    }
+
+    private ArrayList<Course> copyAll() {
+        ArrayList<Course> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            if (entry.course != null) {
+                result.add(copy(entry.course));
+            }
+        }
+        return result;
+    }
+
+    private static Course copy(Course course) {
+        return course == null ? null : new Course(course.getCode(), course.getName(), course.getCredits(), course.getCapacity(),
+                course.getPrerequisites(), course.getSchedule());
+    }
+}
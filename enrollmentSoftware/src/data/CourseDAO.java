@@ -2,137 +2,258 @@ package data;
 
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import model.Course; // Importa la clase Course, que es el modelo de datos
 
 // Esta clase maneja todas las operaciones CRUD (Crear, Leer, Actualizar, Eliminar) para la tabla Course.
-public class CourseDAO implements CRUD_Operation<Course, String> {
+public class CourseDAO implements CourseStore {
     
-    private Connection connection; // Conexión a la base de datos
+    private final DBConnection db; // Pool de conexiones a la base de datos
+    private final CourseCache cache = CourseCache.getInstance(); // Catálogo de cursos en memoria
+    private final FuzzyIndex<Course> index = FuzzyIndex.courses(); // Búsqueda difusa en memoria
+    private final SeatReservations seats = SeatReservations.getInstance(); // Cupos libres de cada curso
+    private final CreditReport report = CreditReport.getInstance(); // Créditos por estudiante
+    private final CourseRules rules = CourseRules.getInstance(); // Prerrequisitos y horarios
 
-    // Constructor que recibe la conexión a la base de datos
-    public CourseDAO(Connection connection) {
-        this.connection = connection;
+    // Constructor que recibe el pool de conexiones a la base de datos
+    public CourseDAO(DBConnection db) {
+        this.db = db;
     }
 
     // Método para guardar un nuevo curso en la base de datos (CREATE)
     @Override
-    public void save(Course course) {
-        String query = "INSERT INTO Course (code, name, credits) VALUES (?, ?, ?)"; // Consulta SQL para insertar un nuevo curso
+    public Course save(Course course) {
+        String query = "INSERT INTO Course (code, name, credits, capacity, prerequisites, schedule) VALUES (?, ?, ?, ?, ?, ?)"; // Consulta SQL para insertar un nuevo curso
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             // Establece los valores de los parámetros para la consulta SQL
             pstmt.setString(1, course.getCode());  // Código del curso
             pstmt.setString(2, course.getName());  // Nombre del curso
             pstmt.setInt(3, course.getCredits());  // Créditos del curso
+            pstmt.setInt(4, course.getCapacity()); // Cupos (0 = sin límite)
+            pstmt.setString(5, course.getPrerequisites()); // Códigos de los cursos previos
+            pstmt.setString(6, course.getSchedule()); // Bloques semanales
 
             // Ejecuta la actualización en la base de datos
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                System.out.println("Course inserted successfully."); // Imprime un mensaje si la inserción fue exitosa
+                cache.put(course); // Mantiene la caché al día
+                index.put(course);
+                rules.courseChanged(course);
+                Log.debug("Course inserted successfully.");
+                return course;
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Manejo de errores de SQL
+            cache.invalidate(course.getCode()); // Estado desconocido: se vuelve a leer de la base de datos
+            Log.error("CourseDAO.save failed", e);
         }
+        return null;
     }
 
-    // Método para verificar si un curso ya existe en la base de datos (se basa en el código del curso)
+    // Método para guardar muchos cursos por lotes (CREATE masivo)
+    @Override
+    public BatchResult<Course> saveAll(Collection<Course> courses, int batchSize) {
+        String query = "INSERT INTO Course (code, name, credits, capacity, prerequisites, schedule) VALUES (?, ?, ?, ?, ?, ?)";
+        BatchResult<Course> result = BatchWriter.write(db, query, false, courses, batchSize, (pstmt, course) -> {
+            pstmt.setString(1, course.getCode());
+            pstmt.setString(2, course.getName());
+            pstmt.setInt(3, course.getCredits());
+            pstmt.setInt(4, course.getCapacity());
+            pstmt.setString(5, course.getPrerequisites());
+            pstmt.setString(6, course.getSchedule());
+        });
+        cache.invalidateAll(); // La próxima lectura recarga el catálogo completo
+        index.invalidate();
+        rules.refresh(); // Cursos nuevos en el grafo de prerrequisitos
+        return result;
+    }
+
+    // Método para verificar si un curso ya existe (se responde desde la caché del catálogo)
+    @Override
     public boolean exists(String code) {
-        String query = "SELECT COUNT(*) FROM course WHERE code = ?"; // Consulta SQL para contar cuántos registros con el mismo código existen
+        return cache.get(code, this::findByCode) != null;
+    }
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+    // Método para obtener un curso por su código; usa la caché del catálogo
+    @Override
+    public Course get(String code) {
+        return cache.get(code, this::findByCode);
+    }
+
+    // Consulta un curso por código en la base de datos; null si no existe. Los errores llegan a la
+    // caché, que no guarda una lectura fallida como "no existe".
+    private Course findByCode(String code) throws SQLException {
+        String query = "SELECT code, name, credits, capacity, prerequisites, schedule FROM Course WHERE code = ?";
+
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, code); // Establece el valor del código
-            ResultSet rs = stmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) {
-                return rs.getInt(1) > 0; // Si el contador es mayor que 0, el curso ya existe
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRow(rs);
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace(); // Manejo de errores de SQL
         }
-        return false; // Si no hay coincidencias, devuelve false
+        return null; // Si no hay coincidencias, devuelve null
     }
 
-    // Método para obtener todos los cursos (READ)
+    // Método para obtener todos los cursos (READ); usa la caché del catálogo
     @Override
     public ArrayList<Course> fetch() {
+        return cache.getAll(this::fetchFromDatabase);
+    }
+
+    // Lee todos los cursos directamente de la base de datos. A diferencia de fetch(Consumer), un error
+    // se lanza: una lectura a medias no debe quedar en la caché como el catálogo completo.
+    private ArrayList<Course> fetchFromDatabase() throws SQLException {
         ArrayList<Course> courses = new ArrayList<>(); // Lista para almacenar los cursos
-        String query = "SELECT code, name, credits FROM Course"; // Consulta SQL para seleccionar todos los cursos
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) { // Ejecuta la consulta
-
-            // Recorre todos los resultados y los agrega a la lista de cursos
-            while (rs.next()) {
-                String code = rs.getString("code"); // Obtiene el código del curso
-                String name = rs.getString("name"); // Obtiene el nombre del curso
-                int credits = rs.getInt("credits"); // Obtiene los créditos del curso
-                Course course = new Course(code, name, credits); // Crea un objeto Course
-                courses.add(course); // Agrega el curso a la lista
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(FETCH_ALL)) {
+            stmt.setFetchSize(RowStreams.DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapRow(rs));
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace(); // Manejo de errores de SQL
         }
-
         return courses; // Retorna la lista de cursos
     }
 
+    // Método para recorrer todos los cursos fila por fila a medida que llegan de la base de datos
+    @Override
+    public void fetch(Consumer<Course> consumer) {
+        RowStreams.forEach(db, FETCH_ALL, CourseDAO::mapRow, consumer);
+    }
+
+    // Método para obtener todos los cursos como Stream; cerrar el Stream devuelve la conexión al pool
+    @Override
+    public Stream<Course> stream() {
+        return RowStreams.stream(db, FETCH_ALL, CourseDAO::mapRow);
+    }
+
+    // Método para obtener los cursos creados o modificados desde changeNumber
+    @Override
+    public ChangeSet<Course> fetchChangedSince(long changeNumber) {
+        ChangeSet<Course> changes = RowStreams.fetchChangedSince(db,
+                "SELECT code, name, credits, capacity, prerequisites, schedule, ORA_ROWSCN AS scn FROM Course", "Course", changeNumber, CourseDAO::mapRow);
+        for (Course course : changes.getRows()) {
+            cache.put(course); // La caché también recibe los cambios
+            index.put(course);
+            seats.invalidate(course.getCode());
+            report.courseChanged(course);
+            rules.courseChanged(course);
+        }
+        return changes;
+    }
+
+    // Búsqueda por prefijo del código o del nombre y rango de créditos; no usa la caché para no
+    // depender de que el catálogo completo esté cargado
+    @Override
+    public ArrayList<Course> search(String prefix, int minCredits, int maxCredits, int limit) {
+        return RowStreams.query(db, SEARCH, searchParams(prefix, minCredits, maxCredits, limit), CourseDAO::mapRow);
+    }
+
+    // Igual que search(), pero cancelar el future cancela también la consulta en Oracle
+    @Override
+    public CompletableFuture<ArrayList<Course>> searchAsync(String prefix, int minCredits, int maxCredits, int limit) {
+        return RowStreams.queryAsync(db, SEARCH, searchParams(prefix, minCredits, maxCredits, limit), CourseDAO::mapRow);
+    }
+
+    private static Object[] searchParams(String prefix, int minCredits, int maxCredits, int limit) {
+        return new Object[] { RowStreams.prefixPattern(prefix), RowStreams.prefixPattern(prefix.toUpperCase()),
+                minCredits, maxCredits, limit };
+    }
+
+    private static final String FETCH_ALL = "SELECT code, name, credits, capacity, prerequisites, schedule FROM Course"; // Consulta SQL para seleccionar todos los cursos
+
+    // Prefijo del código (clave primaria) o del nombre (índice sobre UPPER(name)); los créditos se
+    // filtran sobre las filas que ya coincidieron
+    private static final String SEARCH = "SELECT code, name, credits, capacity, prerequisites, schedule FROM ("
+            + "SELECT code, name, credits, capacity, prerequisites, schedule FROM Course WHERE code LIKE ? ESCAPE '\\' "
+            + "UNION SELECT code, name, credits, capacity, prerequisites, schedule FROM Course WHERE UPPER(name) LIKE ? ESCAPE '\\') "
+            + "WHERE credits BETWEEN ? AND ? ORDER BY code FETCH FIRST ? ROWS ONLY";
+
+    // Crea un objeto Course a partir de la fila actual
+    private static Course mapRow(ResultSet rs) throws SQLException {
+        String code = rs.getString("code"); // Obtiene el código del curso
+        String name = rs.getString("name"); // Obtiene el nombre del curso
+        int credits = rs.getInt("credits"); // Obtiene los créditos del curso
+        int capacity = rs.getInt("capacity"); // Obtiene los cupos del curso
+        String prerequisites = rs.getString("prerequisites"); // Oracle guarda "" como NULL
+        String schedule = rs.getString("schedule");
+        return new Course(code, name, credits, capacity, prerequisites, schedule);
+    }
+
     // Método para actualizar los detalles de un curso existente (UPDATE)
     @Override
-    public void update(Course course) {
-        String sql = "UPDATE Course SET name=?, credits=? WHERE code=?"; // Consulta SQL para actualizar los campos de un curso
+    public Course update(Course course) {
+        String sql = "UPDATE Course SET name=?, credits=?, capacity=?, prerequisites=?, schedule=? WHERE code=?"; // Consulta SQL para actualizar los campos de un curso
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             // Establece los valores de los parámetros para la consulta SQL
             stmt.setString(1, course.getName());
             stmt.setInt(2, course.getCredits());
-            stmt.setString(3, course.getCode());
+            stmt.setInt(3, course.getCapacity());
+            stmt.setString(4, course.getPrerequisites());
+            stmt.setString(5, course.getSchedule());
+            stmt.setString(6, course.getCode());
 
             // Ejecuta la actualización
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                cache.put(course); // Mantiene la caché al día
+                index.put(course);
+                seats.invalidate(course.getCode()); // Puede haber cambiado la capacidad
+                report.courseChanged(course); // O los créditos
+                rules.courseChanged(course); // O los prerrequisitos y el horario
+                return course;
+            }
         } catch (SQLException e) {
-            e.printStackTrace(); // Manejo de errores de SQL
+            cache.invalidate(course.getCode());
+            Log.error("CourseDAO.update failed", e);
         }
+        return null;
     }
 
     // Método para eliminar un curso basado en su código (DELETE)
     @Override
-    public void delete(String code) {
+    public boolean delete(String code) {
         String sql = "DELETE FROM Course WHERE code=?"; // Consulta SQL para eliminar un curso por código
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, code); // Establece el valor del código a eliminar
             int rowsAffected = stmt.executeUpdate(); // Ejecuta la eliminación
+            cache.remove(code); // El curso ya no existe
+            index.remove(code);
+            seats.invalidate(code);
+            rules.courseDeleted(code);
 
             // Si se eliminó algún curso, imprime un mensaje
             if (rowsAffected > 0) {
-                System.out.println("Course with code " + code + " has been deleted successfully.");
+                Log.debug("Course with code " + code + " has been deleted successfully.");
+                return true;
             } else {
-                System.out.println("No course found with the code: " + code); // Si no se encontró el curso, imprime un mensaje
+                Log.debug("No course found with the code: " + code);
             }
         } catch (SQLException e) {
-            System.err.println("Error while deleting course with code " + code); // Si hubo un error en la eliminación, muestra un mensaje de error
-            e.printStackTrace();
+            cache.invalidate(code);
+            Log.error("Error while deleting course with code " + code, e);
         }
+        return false;
     }
 
     // Método para autenticar si un curso con un código específico ya existe (puede ser usado para verificar la duplicidad)
     @Override
     public boolean authenticate(String code) {
-        String sql = "SELECT code FROM Course WHERE code=?"; // Consulta SQL para verificar si el código del curso existe
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, code); // Establece el valor del código
-            ResultSet rs = stmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) {
-                return rs.getString("code").equals(code); // Si el código coincide, el curso existe
-            }
-        } catch (SQLException e) {
-            e.printStackTrace(); // Manejo de errores de SQL
-        }
-        return false; // Si no hay coincidencias, devuelve false
+        return exists(code); // Se responde desde la caché del catálogo
     }
 }
 
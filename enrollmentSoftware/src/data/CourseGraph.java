@@ -0,0 +1,404 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import model.Course;
+
+// Grafo de prerrequisitos y horarios precalculado para que CourseRules responda en tiempo constante:
+// cada curso tiene un número, la clausura transitiva de sus prerrequisitos en un BitSet y sus bloques
+// semanales en una máscara de bits (ver CourseRules.parseSchedule); cada estudiante tiene un BitSet
+// con los cursos que tomó y la máscara de los bloques que ocupan sus inscripciones del período actual.
+// No es segura para hilos: CourseRules la protege.
+final class CourseGraph {
+
+    // Estado de un estudiante: cursos inscritos con su fecha y bloques ocupados en el período
+    private static final class StudentState {
+        final BitSet taken = new BitSet();
+        int[] courses = new int[4];
+        int[] days = new int[4];
+        int count;
+        final long[] busy = new long[CourseRules.SCHEDULE_WORDS];
+    }
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> codes = new ArrayList<>();
+    private boolean[] exists = new boolean[16]; // false para códigos que solo aparecen como prerrequisito
+    private int[][] requires = new int[16][]; // Prerrequisitos directos
+    private BitSet[] closure = new BitSet[16]; // Todos los prerrequisitos, directos o no
+    private long[][] slots = new long[16][];
+    private final HashMap<String, StudentState> students = new HashMap<>();
+    private final int periodStart; // Número de día desde el que una inscripción ocupa su horario
+
+    private CourseGraph(int periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    // Arma el grafo con el catálogo y las inscripciones; periodStart es el primer día del período actual
+    static CourseGraph of(Collection<Course> catalog, EnrollmentTable table, int periodStart) {
+        CourseGraph graph = new CourseGraph(periodStart);
+        for (Course course : catalog) {
+            graph.define(course);
+        }
+        graph.computeClosures(null);
+
+        int[] courseIds = new int[table.getDistinctCourses()];
+        for (int c = 0; c < courseIds.length; c++) {
+            courseIds[c] = graph.idOf(table.courseKey(c));
+        }
+        StudentState[] states = new StudentState[table.getDistinctStudents()];
+        for (int row = 0, rows = table.size(); row < rows; row++) {
+            int s = table.studentIndex(row);
+            StudentState state = states[s];
+            if (state == null) {
+                state = new StudentState();
+                states[s] = state;
+                graph.students.put(table.studentKey(s), state);
+            }
+            graph.add(state, courseIds[table.courseIndex(row)], table.getEpochDay(row));
+        }
+        return graph;
+    }
+
+    // --- Consultas ---
+
+    // OK si la inscripción cumple los prerrequisitos y no choca con el horario del estudiante. Un curso
+    // desconocido o una inscripción repetida dan OK: el store responde NO_COURSE o DUPLICATE.
+    EnrollmentResult check(String studentId, String courseCode, int epochDay) {
+        Integer id = ids.get(courseCode);
+        if (id == null || !exists[id]) {
+            return EnrollmentResult.OK;
+        }
+        StudentState state = students.get(studentId);
+        if (state != null && state.taken.get(id)) {
+            return EnrollmentResult.OK;
+        }
+        BitSet required = closure[id];
+        if (!required.isEmpty() && (state == null || !contains(state.taken, required))) {
+            return EnrollmentResult.MISSING_PREREQUISITE;
+        }
+        if (state != null && epochDay >= periodStart && overlaps(state.busy, slots[id])) {
+            return EnrollmentResult.SCHEDULE_CONFLICT;
+        }
+        return EnrollmentResult.OK;
+    }
+
+    // Prerrequisitos (directos o no) que le faltan al estudiante para inscribirse en el curso
+    List<String> missingPrerequisites(String studentId, String courseCode) {
+        List<String> missing = new ArrayList<>();
+        Integer id = ids.get(courseCode);
+        if (id == null) {
+            return missing;
+        }
+        StudentState state = students.get(studentId);
+        BitSet required = closure[id];
+        for (int p = required.nextSetBit(0); p >= 0; p = required.nextSetBit(p + 1)) {
+            if (state == null || !state.taken.get(p)) {
+                missing.add(codes.get(p));
+            }
+        }
+        return missing;
+    }
+
+    // Cursos del período actual del estudiante que comparten algún bloque con el curso
+    List<String> conflictingCourses(String studentId, String courseCode) {
+        List<String> conflicts = new ArrayList<>();
+        Integer id = ids.get(courseCode);
+        StudentState state = students.get(studentId);
+        if (id == null || state == null) {
+            return conflicts;
+        }
+        for (int i = 0; i < state.count; i++) {
+            int other = state.courses[i];
+            if (other != id && state.days[i] >= periodStart && overlaps(slots[other], slots[id])) {
+                conflicts.add(codes.get(other));
+            }
+        }
+        return conflicts;
+    }
+
+    // true si el curso existe en el grafo
+    boolean knows(String courseCode) {
+        Integer id = ids.get(courseCode);
+        return id != null && exists[id];
+    }
+
+    // true si el curso code es course o uno de sus prerrequisitos, directo o no
+    boolean dependsOn(String course, String code) {
+        Integer from = ids.get(course);
+        Integer to = ids.get(code);
+        return from != null && to != null && (from.equals(to) || closure[from].get(to));
+    }
+
+    int getCourseCount() {
+        int count = 0;
+        for (int id = 0; id < codes.size(); id++) {
+            if (exists[id]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getStudentCount() {
+        return students.size();
+    }
+
+    // --- Cambios (CourseRules) ---
+
+    // Inscripción nueva; false si el curso no está en el grafo (llega con el próximo armado)
+    boolean added(String studentId, String courseCode, int epochDay) {
+        int id = idOf(courseCode);
+        StudentState state = students.computeIfAbsent(studentId, key -> new StudentState());
+        if (!state.taken.get(id)) {
+            add(state, id, epochDay);
+        }
+        return exists[id];
+    }
+
+    void removed(String studentId, String courseCode) {
+        Integer id = ids.get(courseCode);
+        StudentState state = students.get(studentId);
+        if (id == null || state == null || !state.taken.get(id)) {
+            return;
+        }
+        for (int i = 0; i < state.count; i++) {
+            if (state.courses[i] == id) {
+                state.count--;
+                state.courses[i] = state.courses[state.count];
+                state.days[i] = state.days[state.count];
+                break;
+            }
+        }
+        state.taken.clear(id);
+        if (state.count == 0) {
+            students.remove(studentId);
+        } else {
+            recomputeBusy(state);
+        }
+    }
+
+    // Cambió la fecha de una inscripción: puede haber entrado o salido del período actual
+    void dateChanged(String studentId, String courseCode, int epochDay) {
+        Integer id = ids.get(courseCode);
+        StudentState state = students.get(studentId);
+        if (id == null || state == null) {
+            return;
+        }
+        for (int i = 0; i < state.count; i++) {
+            if (state.courses[i] == id) {
+                state.days[i] = epochDay;
+                recomputeBusy(state);
+                return;
+            }
+        }
+    }
+
+    // Curso nuevo o modificado. Si cambiaron sus prerrequisitos se vuelven a calcular solo las clausuras
+    // que pueden depender de él (la suya y las que lo incluyen); si cambió su horario, solo las máscaras
+    // de los estudiantes que lo tomaron.
+    void courseChanged(Course course) {
+        Integer known = ids.get(course.getCode());
+        boolean wasDefined = known != null && exists[known];
+        int[] oldRequires = wasDefined ? requires[known] : null;
+        long[] oldSlots = wasDefined ? slots[known] : null;
+        int id = define(course);
+        if (!wasDefined || !Arrays.equals(oldRequires, requires[id])) {
+            computeClosures(dependentsOf(id));
+        }
+        if (wasDefined && !Arrays.equals(oldSlots, slots[id])) {
+            recomputeBusy(id);
+        }
+    }
+
+    // Curso eliminado: deja de ser prerrequisito de los demás (sus inscripciones se eliminan aparte)
+    void courseDeleted(String courseCode) {
+        Integer id = ids.get(courseCode);
+        if (id == null || !exists[id]) {
+            return;
+        }
+        exists[id] = false;
+        requires[id] = new int[0];
+        slots[id] = new long[CourseRules.SCHEDULE_WORDS];
+        computeClosures(dependentsOf(id));
+        recomputeBusy(id);
+    }
+
+    // --- Armado ---
+
+    // Número del curso; los códigos nuevos se agregan sin definir
+    private int idOf(String code) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            return id;
+        }
+        int next = codes.size();
+        if (next == exists.length) {
+            int capacity = next * 2;
+            exists = Arrays.copyOf(exists, capacity);
+            requires = Arrays.copyOf(requires, capacity);
+            closure = Arrays.copyOf(closure, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        ids.put(code, next);
+        codes.add(code);
+        requires[next] = new int[0];
+        closure[next] = new BitSet();
+        slots[next] = new long[CourseRules.SCHEDULE_WORDS];
+        return next;
+    }
+
+    // Carga los prerrequisitos directos y el horario del curso; un dato guardado que no se entiende se
+    // ignora con un aviso en el log para no bloquear las inscripciones
+    private int define(Course course) {
+        int id = idOf(course.getCode());
+        exists[id] = true;
+        List<String> prerequisites;
+        try {
+            prerequisites = CourseRules.parsePrerequisites(course.getPrerequisites());
+        } catch (IllegalArgumentException e) {
+            Log.warn("Ignoring the prerequisites of course " + course.getCode() + ": " + e.getMessage());
+            prerequisites = List.of();
+        }
+        int[] direct = new int[prerequisites.size()];
+        for (int i = 0; i < direct.length; i++) {
+            direct[i] = idOf(prerequisites.get(i));
+        }
+        Arrays.sort(direct);
+        requires[id] = direct;
+        try {
+            slots[id] = CourseRules.parseSchedule(course.getSchedule());
+        } catch (IllegalArgumentException e) {
+            Log.warn("Ignoring the schedule of course " + course.getCode() + ": " + e.getMessage());
+            slots[id] = new long[CourseRules.SCHEDULE_WORDS];
+        }
+        return id;
+    }
+
+    // El curso y todos los que dependen de él, directa o indirectamente. Se mira también la lista de
+    // prerrequisitos directos: un código que recién se define no está en ninguna clausura.
+    private BitSet dependentsOf(int id) {
+        BitSet dependents = new BitSet();
+        dependents.set(id);
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (int other = 0; other < codes.size(); other++) {
+                if (!dependents.get(other) && (closure[other].intersects(dependents) || requiresAny(other, dependents))) {
+                    dependents.set(other);
+                    grew = true;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private boolean requiresAny(int id, BitSet courses) {
+        for (int p : requires[id]) {
+            if (courses.get(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Vuelve a calcular las clausuras de los cursos indicados (todos si es null) con una búsqueda en
+    // profundidad; las demás ya están al día. Una arista que cierra un ciclo se ignora con un aviso.
+    private void computeClosures(BitSet stale) {
+        int count = codes.size();
+        byte[] state = new byte[count]; // 0 = por calcular, 1 = en curso, 2 = listo
+        if (stale != null) {
+            Arrays.fill(state, (byte) 2);
+            for (int id = stale.nextSetBit(0); id >= 0; id = stale.nextSetBit(id + 1)) {
+                state[id] = 0;
+            }
+        }
+        for (int id = 0; id < count; id++) {
+            if (state[id] == 0) {
+                computeClosure(id, state);
+            }
+        }
+    }
+
+    private void computeClosure(int id, byte[] state) {
+        state[id] = 1;
+        BitSet all = new BitSet();
+        for (int p : requires[id]) {
+            if (!exists[p]) {
+                continue; // Código que no es un curso: no se puede cumplir, se ignora
+            }
+            if (state[p] == 1) {
+                Log.warn("Ignoring prerequisite " + codes.get(p) + " of course " + codes.get(id) + ": it forms a cycle");
+                continue;
+            }
+            if (state[p] == 0) {
+                computeClosure(p, state);
+            }
+            all.set(p);
+            all.or(closure[p]);
+        }
+        all.clear(id);
+        closure[id] = all;
+        state[id] = 2;
+    }
+
+    private void add(StudentState state, int id, int epochDay) {
+        if (state.count == state.courses.length) {
+            state.courses = Arrays.copyOf(state.courses, state.count * 2);
+            state.days = Arrays.copyOf(state.days, state.count * 2);
+        }
+        state.courses[state.count] = id;
+        state.days[state.count] = epochDay;
+        state.count++;
+        state.taken.set(id);
+        if (epochDay >= periodStart) {
+            or(state.busy, slots[id]);
+        }
+    }
+
+    // Máscaras de los estudiantes que tomaron el curso
+    private void recomputeBusy(int id) {
+        for (StudentState state : students.values()) {
+            if (state.taken.get(id)) {
+                recomputeBusy(state);
+            }
+        }
+    }
+
+    private void recomputeBusy(StudentState state) {
+        Arrays.fill(state.busy, 0);
+        for (int i = 0; i < state.count; i++) {
+            if (state.days[i] >= periodStart) {
+                or(state.busy, slots[state.courses[i]]);
+            }
+        }
+    }
+
+    private static boolean contains(BitSet set, BitSet subset) {
+        for (int p = subset.nextSetBit(0); p >= 0; p = subset.nextSetBit(p + 1)) {
+            if (!set.get(p)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean overlaps(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void or(long[] target, long[] mask) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= mask[i];
+        }
+    }
+}
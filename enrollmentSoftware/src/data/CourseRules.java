@@ -0,0 +1,399 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import model.Course;
+import model.Enrollment;
+
+// Prerrequisitos y choques de horario de las inscripciones, respondidos en memoria con un grafo
+// precalculado (ver CourseGraph): la clausura transitiva de los prerrequisitos de cada curso y los
+// bloques ocupados de cada estudiante, así verificar una inscripción no recorre el catálogo ni consulta
+// la base de datos. Se arma en segundo plano la primera vez que se pide y después los stores lo
+// mantienen al día: un curso modificado solo recalcula las clausuras que dependen de él, y una
+// inscripción solo toca al estudiante. Los cambios masivos piden un nuevo armado sin dejar de usar el
+// actual, igual que CreditReport.
+//
+// Un horario son bloques "DD HH-HH" separados por coma (p. ej. "LU 08-10, MI 08-10"), con los días
+// LU MA MI JU VI SA DO y horas enteras de 0 a 24. Solo ocupan horario las inscripciones del período
+// actual: las de los últimos -Drules.periodDays días (120 por defecto).
+public final class CourseRules {
+    private static final CourseRules instance = new CourseRules(); //Singleton
+
+    private static final String[] DAYS = { "LU", "MA", "MI", "JU", "VI", "SA", "DO" };
+    static final int SCHEDULE_WORDS = 3; // 7 días x 24 horas = 168 bits
+
+    // Se vuelve a armar pasado este tiempo (-Drules.ttlMs): cambios de otras estaciones y el período
+    // actual, que avanza con los días
+    private final long ttlMs = Long.getLong("rules.ttlMs", 300_000);
+    private final int periodDays = Integer.getInteger("rules.periodDays", 120);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CourseGraph graph; // null hasta que termina el primer armado
+    private long builtAt;
+    private long buildMillis;
+    private boolean building;
+    private CompletableFuture<Boolean> current; // Armado en curso
+    private CompletableFuture<Boolean> again; // Armado pedido mientras había otro en curso
+    private int generation; // Cambia con invalidate(); un armado que empezó antes se descarta
+    private List<Predicate<CourseGraph>> pending = new ArrayList<>(); // Cambios hechos durante el armado
+
+    private CourseRules() {
+    }
+
+    public static CourseRules getInstance() {
+        return instance;
+    }
+
+    // --- Formato de prerrequisitos y horarios ---
+
+    // Códigos de una lista de prerrequisitos separados por coma o espacios, sin repetidos
+    public static List<String> parsePrerequisites(String text) {
+        Set<String> codes = new LinkedHashSet<>();
+        if (text != null && !text.isBlank()) {
+            for (String code : text.trim().split("[,\\s]+")) {
+                if (code.length() > 20) {
+                    throw new IllegalArgumentException("prerequisite '" + code + "' is longer than 20 characters");
+                }
+                codes.add(code);
+            }
+        }
+        return new ArrayList<>(codes);
+    }
+
+    // Máscara de los bloques de un horario: bit (día * 24 + hora); IllegalArgumentException si no se entiende
+    public static long[] parseSchedule(String text) {
+        long[] mask = new long[SCHEDULE_WORDS];
+        if (text == null || text.isBlank()) {
+            return mask;
+        }
+        for (String block : text.trim().split("\\s*,\\s*")) {
+            String[] parts = block.trim().toUpperCase().split("\\s+");
+            int day = parts.length == 2 ? List.of(DAYS).indexOf(parts[0]) : -1;
+            if (day < 0 || !parts[1].matches("\\d{1,2}-\\d{1,2}")) {
+                throw new IllegalArgumentException("invalid schedule block '" + block + "', expected e.g. 'LU 08-10'");
+            }
+            String[] hours = parts[1].split("-");
+            int from = Integer.parseInt(hours[0]);
+            int to = Integer.parseInt(hours[1]);
+            if (from >= to || to > 24) {
+                throw new IllegalArgumentException("invalid hours in schedule block '" + block + "'");
+            }
+            for (int hour = from; hour < to; hour++) {
+                int bit = day * 24 + hour;
+                mask[bit >> 6] |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+
+    // El horario escrito de forma canónica: días en orden y bloques contiguos unidos ("lu 8-9,LU 9-10" -> "LU 08-10")
+    public static String normalizeSchedule(String text) {
+        long[] mask = parseSchedule(text);
+        StringBuilder normalized = new StringBuilder();
+        for (int day = 0; day < DAYS.length; day++) {
+            int hour = 0;
+            while (hour < 24) {
+                if (!isSet(mask, day * 24 + hour)) {
+                    hour++;
+                    continue;
+                }
+                int from = hour;
+                while (hour < 24 && isSet(mask, day * 24 + hour)) {
+                    hour++;
+                }
+                if (normalized.length() > 0) {
+                    normalized.append(", ");
+                }
+                normalized.append(String.format("%s %02d-%02d", DAYS[day], from, hour));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isSet(long[] mask, int bit) {
+        return (mask[bit >> 6] & (1L << bit)) != 0;
+    }
+
+    // --- Consultas ---
+
+    // true si el grafo ya está armado y responde las consultas
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return graph != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Pide el primer armado sin esperarlo (p. ej. al abrir la pantalla de inscripciones)
+    public void prepare() {
+        if (!isReady()) {
+            refresh();
+        }
+    }
+
+    // Vuelve a armar el grafo en segundo plano; el future da true cuando el nuevo está en uso
+    public CompletableFuture<Boolean> refresh() {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                if (again == null) {
+                    again = new CompletableFuture<>();
+                }
+                return again;
+            }
+            return start();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Milisegundos que tardó el último armado
+    public long getLastBuildMillis() {
+        lock.readLock().lock();
+        try {
+            return buildMillis;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // OK, MISSING_PREREQUISITE o SCHEDULE_CONFLICT; null si el grafo no está listo
+    public EnrollmentResult check(Enrollment enrollment) {
+        int day = (int) enrollment.getEnrollmentDate().toEpochDay();
+        return read(graph -> graph.check(enrollment.getStudentId(), enrollment.getCourseCode(), day));
+    }
+
+    // Igual, pero si el grafo no está listo espera el armado. Si no se pudo armar da OK: la inscripción
+    // sigue con las validaciones del store en lugar de quedar bloqueada.
+    public CompletableFuture<EnrollmentResult> checkAsync(Enrollment enrollment) {
+        EnrollmentResult result = check(enrollment);
+        if (result != null) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return whenBuilt().thenApply(built -> {
+            EnrollmentResult checked = check(enrollment);
+            return checked == null ? EnrollmentResult.OK : checked;
+        });
+    }
+
+    // Prerrequisitos que le faltan al estudiante para el curso; null si el grafo no está listo
+    public List<String> missingPrerequisites(String studentId, String courseCode) {
+        return read(graph -> graph.missingPrerequisites(studentId, courseCode));
+    }
+
+    // Cursos del período actual del estudiante que chocan con el horario del curso; null si no está listo
+    public List<String> conflictingCourses(String studentId, String courseCode) {
+        return read(graph -> graph.conflictingCourses(studentId, courseCode));
+    }
+
+    // Valida la lista de prerrequisitos del curso code y la devuelve normalizada. IllegalArgumentException
+    // si un código no es un curso, si es el mismo curso o si cierra un ciclo. Puede esperar el armado:
+    // no llamar desde el hilo de JavaFX.
+    public String validatePrerequisites(String code, String text) {
+        List<String> prerequisites = parsePrerequisites(text);
+        CourseStore courses = StorageBackend.getInstance().courses();
+        for (String prerequisite : prerequisites) {
+            if (prerequisite.equals(code)) {
+                throw new IllegalArgumentException("a course cannot be its own prerequisite");
+            }
+            if (!courses.exists(prerequisite)) {
+                throw new IllegalArgumentException("prerequisite '" + prerequisite + "' is not a course");
+            }
+        }
+        if (!prerequisites.isEmpty() && !isReady()) {
+            whenBuilt().join();
+        }
+        for (String prerequisite : prerequisites) {
+            Boolean cycle = read(graph -> graph.dependsOn(prerequisite, code));
+            if (cycle != null && cycle) {
+                throw new IllegalArgumentException("prerequisite '" + prerequisite + "' already requires " + code
+                        + " (it would form a cycle)");
+            }
+        }
+        return String.join(", ", prerequisites);
+    }
+
+    // --- Cambios (stores) ---
+
+    // Registra una inscripción guardada
+    void added(Enrollment enrollment) {
+        String studentId = enrollment.getStudentId();
+        String courseCode = enrollment.getCourseCode();
+        int day = (int) enrollment.getEnrollmentDate().toEpochDay();
+        change(graph -> graph.added(studentId, courseCode, day));
+    }
+
+    // Registra una inscripción eliminada
+    void removed(String studentId, String courseCode) {
+        change(graph -> {
+            graph.removed(studentId, courseCode);
+            return true;
+        });
+    }
+
+    // Una inscripción cambió de fecha
+    void dateChanged(Enrollment enrollment) {
+        String studentId = enrollment.getStudentId();
+        String courseCode = enrollment.getCourseCode();
+        int day = (int) enrollment.getEnrollmentDate().toEpochDay();
+        change(graph -> {
+            graph.dateChanged(studentId, courseCode, day);
+            return true;
+        });
+    }
+
+    // Curso nuevo o modificado; se copia porque la pantalla sigue editando el mismo objeto
+    void courseChanged(Course course) {
+        Course copy = new Course(course.getCode(), course.getName(), course.getCredits(), course.getCapacity(),
+                course.getPrerequisites(), course.getSchedule());
+        change(graph -> {
+            graph.courseChanged(copy);
+            return true;
+        });
+    }
+
+    void courseDeleted(String courseCode) {
+        change(graph -> {
+            graph.courseDeleted(courseCode);
+            return true;
+        });
+    }
+
+    // Descarta el grafo (p. ej. al deshacer una unidad de trabajo); la próxima consulta lo vuelve a armar
+    void invalidate() {
+        lock.writeLock().lock();
+        try {
+            graph = null;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Consulta el grafo en uso con el read lock; si no hay pide un armado y devuelve null, y si venció
+    // pide uno nuevo sin dejar de usarlo
+    private <T> T read(Function<CourseGraph, T> query) {
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                if (!building && System.currentTimeMillis() - builtAt > ttlMs) {
+                    DataExecutor.run(this::refresh);
+                }
+                return query.apply(graph);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        refresh();
+        return null;
+    }
+
+    // El armado en curso, o uno nuevo si no hay
+    private CompletableFuture<Boolean> whenBuilt() {
+        lock.writeLock().lock();
+        try {
+            return building ? current : start();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aplica el cambio al grafo en uso y lo guarda para el armado en curso; el cambio devuelve false si
+    // nombra un curso que el grafo no conoce, y entonces se pide un armado nuevo
+    private void change(Predicate<CourseGraph> change) {
+        boolean unknownCourse = false;
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pending.add(change); // El armado en curso puede no haberlo visto
+            }
+            if (graph != null) {
+                unknownCourse = !change.test(graph);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (unknownCourse) {
+            refresh();
+        }
+    }
+
+    // Con el write lock tomado: arma un grafo nuevo en segundo plano
+    private CompletableFuture<Boolean> start() {
+        int startGeneration = generation;
+        building = true;
+        pending = new ArrayList<>();
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        current = done;
+        int periodStart = (int) LocalDate.now().minusDays(periodDays).toEpochDay();
+        DataExecutor.run(() -> {
+            long start = System.nanoTime();
+            CourseGraph built = null;
+            try {
+                // Los stores no lanzan al fallar: registran el error y devuelven lo que alcanzaron a leer.
+                // Un grafo armado con datos a medias diría que faltan prerrequisitos que el estudiante
+                // tiene, así que en ese caso no se instala y sigue el anterior (o ninguno).
+                StorageBackend backend = StorageBackend.getInstance();
+                long errors = Metrics.errorCount();
+                ArrayList<Course> courses = backend.courses().fetch();
+                EnrollmentTable enrollments = backend.enrollments().fetchTable();
+                if (Metrics.errorCount() == errors) {
+                    built = CourseGraph.of(courses, enrollments, periodStart);
+                } else {
+                    Log.warn("Prerequisite graph not rebuilt: reading from the database failed");
+                }
+            } catch (RuntimeException e) {
+                Log.error("Error building the prerequisite graph", e);
+            }
+            finish(built, (System.nanoTime() - start) / 1_000_000, startGeneration, done);
+        });
+        return done;
+    }
+
+    private void finish(CourseGraph built, long millis, int startGeneration, CompletableFuture<Boolean> done) {
+        boolean installed = false;
+        boolean unknownCourse = false;
+        CompletableFuture<Boolean> next;
+        lock.writeLock().lock();
+        try {
+            building = false;
+            if (built != null && startGeneration == generation) {
+                for (Predicate<CourseGraph> change : pending) {
+                    unknownCourse |= !change.test(built);
+                }
+                graph = built;
+                builtAt = System.currentTimeMillis();
+                buildMillis = millis;
+                installed = true;
+            }
+            pending = new ArrayList<>();
+            next = again;
+            again = null;
+            if (next != null || unknownCourse || (built != null && startGeneration != generation)) {
+                // Cambió algo que este armado no vio: se arma otro enseguida
+                CompletableFuture<Boolean> following = start();
+                if (next != null) {
+                    following.whenComplete((ok, e) -> next.complete(ok != null && ok));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (installed) {
+            Log.info(String.format("Prerequisite graph built: %d courses, %d students in %d ms",
+                    built.getCourseCount(), built.getStudentCount(), millis));
+        }
+        done.complete(installed);
+    }
+}
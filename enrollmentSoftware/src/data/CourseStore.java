@@ -0,0 +1,25 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import model.Course;
+
+// Almacenamiento de cursos. CourseDAO (Oracle) y MemoryCourseStore (en memoria) lo implementan;
+// StorageBackend decide cuál se usa.
+public interface CourseStore extends CRUD_Operation<Course, String> {
+    // true si existe un curso con ese código
+    boolean exists(String code);
+
+    // El curso con ese código, o null si no existe
+    Course get(String code);
+
+    // Cursos cuyo código empieza con prefix o cuyo nombre empieza con prefix (sin distinguir
+    // mayúsculas), con créditos entre minCredits y maxCredits, ordenados por código; a lo sumo limit filas
+    ArrayList<Course> search(String prefix, int minCredits, int maxCredits, int limit);
+
+    // Cancelar el future descarta la búsqueda (en Oracle también se cancela la consulta)
+    default CompletableFuture<ArrayList<Course>> searchAsync(String prefix, int minCredits, int maxCredits, int limit) {
+        return DataExecutor.supply(() -> search(prefix, minCredits, maxCredits, limit));
+    }
+}
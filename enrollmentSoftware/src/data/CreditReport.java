@@ -0,0 +1,293 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import model.Course;
+import model.Enrollment;
+
+// Reporte de carga académica en memoria: créditos y cursos de cada estudiante, inscritos de cada
+// curso e inscripciones por día (ver CreditTotals). Se arma en segundo plano la primera vez que se
+// pide, con EnrollmentStore.creditTotals(): en Oracle un solo GROUP BY GROUPING SETS que hace la
+// base de datos, en memoria un recorrido en paralelo de las inscripciones. Después los stores lo
+// mantienen al día en save/delete sin volver a recorrer nada, y los cambios masivos (importaciones,
+// eliminar un curso, cambios de otras estaciones) piden un nuevo armado sin dejar de usar el actual.
+// Mientras no está listo las consultas devuelven -1 o null.
+public final class CreditReport {
+    private static final CreditReport instance = new CreditReport(); //Singleton
+
+    // Se vuelve a armar pasado este tiempo (-Dreport.ttlMs), para ver los cambios de otras estaciones
+    private final long ttlMs = Long.getLong("report.ttlMs", 300_000);
+
+    // Cambio hecho mientras se armaba el reporte; se aplica al terminar
+    private static final class PendingChange {
+        final String studentId;
+        final String courseCode;
+        final LocalDate date; // null si no se conoce (los totales por día quedan para el próximo armado)
+        final int sign;
+
+        PendingChange(String studentId, String courseCode, LocalDate date, int sign) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+            this.date = date;
+            this.sign = sign;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CreditTotals totals; // null hasta que termina el primer armado
+    private long builtAt;
+    private long buildMillis;
+    private boolean daysStale; // Se eliminó o cambió de fecha una inscripción sin saber su fecha
+    private boolean building;
+    private CompletableFuture<Boolean> again; // Armado pedido mientras había otro en curso
+    private int generation; // Cambia con invalidate(); un armado que empezó antes se descarta
+    private ArrayList<PendingChange> pending = new ArrayList<>();
+
+    private CreditReport() {
+    }
+
+    public static CreditReport getInstance() {
+        return instance;
+    }
+
+    // true si el reporte ya está armado y responde las consultas
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return totals != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Pide el primer armado sin esperarlo (p. ej. al abrir la pantalla de inscripciones)
+    public void prepare() {
+        if (!isReady()) {
+            refresh();
+        }
+    }
+
+    // Vuelve a armar el reporte en segundo plano; el future da true cuando el nuevo está en uso
+    public CompletableFuture<Boolean> refresh() {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                if (again == null) {
+                    again = new CompletableFuture<>();
+                }
+                return again;
+            }
+            return start();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Milisegundos que tardó el último armado
+    public long getLastBuildMillis() {
+        lock.readLock().lock();
+        try {
+            return buildMillis;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Créditos inscritos del estudiante, o -1 si el reporte no está listo
+    public int creditsOf(String studentId) {
+        Integer credits = read(totals -> totals.creditsOf(studentId));
+        return credits == null ? -1 : credits;
+    }
+
+    // Inscritos del curso, o -1 si el reporte no está listo
+    public int headcountOf(String courseCode) {
+        Integer headcount = read(totals -> totals.headcountOf(courseCode));
+        return headcount == null ? -1 : headcount;
+    }
+
+    // Total de inscripciones, o -1 si el reporte no está listo
+    public long getEnrollmentCount() {
+        Long count = read(CreditTotals::getEnrollmentCount);
+        return count == null ? -1 : count;
+    }
+
+    // Estudiantes con al menos una inscripción, o -1 si el reporte no está listo
+    public int getStudentCount() {
+        Integer count = read(CreditTotals::getStudentCount);
+        return count == null ? -1 : count;
+    }
+
+    // Inscripciones por fecha (copia), o null si el reporte no está listo
+    public SortedMap<LocalDate, Integer> enrollmentsPerDay() {
+        return read(totals -> {
+            if (daysStale && !building) {
+                DataExecutor.run(this::refresh); // Mientras tanto se muestran los totales anteriores
+            }
+            return totals.enrollmentsPerDay();
+        });
+    }
+
+    // Los limit estudiantes con más créditos: {studentId, créditos, cursos}; null si no está listo
+    public List<String[]> heaviestStudents(int limit) {
+        return read(totals -> totals.heaviestStudents(limit));
+    }
+
+    // Los limit cursos con más inscritos: {courseCode, inscritos}; null si no está listo
+    public List<String[]> largestCourses(int limit) {
+        return read(totals -> totals.largestCourses(limit));
+    }
+
+    // Registra una inscripción guardada
+    void added(Enrollment enrollment) {
+        change(new PendingChange(enrollment.getStudentId(), enrollment.getCourseCode(),
+                enrollment.getEnrollmentDate(), 1));
+    }
+
+    // Registra una inscripción eliminada; date puede ser null si no se conoce
+    void removed(String studentId, String courseCode, LocalDate date) {
+        change(new PendingChange(studentId, courseCode, date, -1));
+    }
+
+    // Una inscripción cambió de fecha: solo cambian los totales por día
+    void dateChanged() {
+        lock.writeLock().lock();
+        try {
+            daysStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Un curso cambió: si cambiaron sus créditos hay que volver a sumar los de sus estudiantes
+    void courseChanged(Course course) {
+        boolean changed;
+        lock.readLock().lock();
+        try {
+            changed = totals != null && totals.creditsChanged(course);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changed) {
+            refresh();
+        }
+    }
+
+    // Descarta el reporte (p. ej. al deshacer una unidad de trabajo); la próxima consulta lo vuelve a armar
+    void invalidate() {
+        lock.writeLock().lock();
+        try {
+            totals = null;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Consulta los totales en uso con el read lock; si no hay pide un armado y devuelve null, y si
+    // vencieron pide uno nuevo sin dejar de usarlos
+    private <T> T read(Function<CreditTotals, T> query) {
+        lock.readLock().lock();
+        try {
+            if (totals != null) {
+                if (!building && System.currentTimeMillis() - builtAt > ttlMs) {
+                    DataExecutor.run(this::refresh);
+                }
+                return query.apply(totals);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        refresh();
+        return null;
+    }
+
+    private void change(PendingChange change) {
+        boolean unknownCourse = false;
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pending.add(change); // El recorrido en curso puede no haberla visto
+            }
+            if (totals != null) {
+                unknownCourse = !apply(totals, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (unknownCourse) {
+            refresh(); // Curso nuevo: sus créditos llegan con el próximo armado
+        }
+    }
+
+    // Aplica el cambio; false si los créditos del curso no se conocen
+    private boolean apply(CreditTotals target, PendingChange change) {
+        target.apply(change.studentId, change.courseCode, change.date, change.sign);
+        if (change.date == null) {
+            daysStale = true;
+        }
+        return target.knowsCourse(change.courseCode);
+    }
+
+    // Con el write lock tomado: arma un reporte nuevo en segundo plano
+    private CompletableFuture<Boolean> start() {
+        int startGeneration = generation;
+        building = true;
+        pending = new ArrayList<>();
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        DataExecutor.run(() -> {
+            long start = System.nanoTime();
+            CreditTotals built = null;
+            try {
+                built = StorageBackend.getInstance().enrollments().creditTotals();
+            } catch (RuntimeException e) {
+                Log.error("Error building the credit report", e);
+            }
+            finish(built, (System.nanoTime() - start) / 1_000_000, startGeneration, done);
+        });
+        return done;
+    }
+
+    private void finish(CreditTotals built, long millis, int startGeneration, CompletableFuture<Boolean> done) {
+        boolean installed = false;
+        boolean unknownCourse = false;
+        CompletableFuture<Boolean> next;
+        lock.writeLock().lock();
+        try {
+            building = false;
+            if (built != null && startGeneration == generation) {
+                daysStale = false;
+                for (PendingChange change : pending) {
+                    unknownCourse |= !apply(built, change);
+                }
+                totals = built;
+                builtAt = System.currentTimeMillis();
+                buildMillis = millis;
+                installed = true;
+            }
+            pending = new ArrayList<>();
+            next = again;
+            again = null;
+            if (next != null || unknownCourse || (built != null && startGeneration != generation)) {
+                // Cambió algo que este armado no vio: se arma otro enseguida
+                CompletableFuture<Boolean> following = start();
+                if (next != null) {
+                    following.whenComplete((ok, e) -> next.complete(ok != null && ok));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (installed) {
+            Log.info(String.format("Credit report built: %d enrollments, %d students in %d ms",
+                    built.getEnrollmentCount(), built.getStudentCount(), millis));
+        }
+        done.complete(installed);
+    }
+}
@@ -0,0 +1,256 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.Course;
+
+// Totales de carga académica en un solo recorrido de las inscripciones: créditos y cursos de cada
+// estudiante, inscritos de cada curso e inscripciones de cada día. Los arma
+// EnrollmentStore.creditTotals() (con un GROUP BY en Oracle o con of() sobre una EnrollmentTable) y
+// CreditReport los guarda y los mantiene al día. No es segura para hilos: CreditReport la protege.
+public final class CreditTotals {
+
+    // Filas por tarea en of(); por debajo no conviene repartir el trabajo
+    private static final int MIN_ROWS_PER_TASK = 1 << 16;
+
+    private final Map<String, Integer> courseCredits; // Créditos de cada curso al armar los totales
+    private final HashMap<String, int[]> students = new HashMap<>(); // {créditos, cursos}
+    private final HashMap<String, int[]> courses = new HashMap<>(); // {inscritos}
+    private final TreeMap<Integer, int[]> days = new TreeMap<>(); // Número de día -> {inscripciones}
+    private long enrollments;
+
+    CreditTotals(Map<String, Integer> courseCredits) {
+        this.courseCredits = courseCredits;
+    }
+
+    // Créditos de cada curso del catálogo
+    static Map<String, Integer> creditsOf(Collection<Course> catalog) {
+        Map<String, Integer> credits = new HashMap<>(catalog.size() * 2);
+        for (Course course : catalog) {
+            credits.put(course.getCode(), course.getCredits());
+        }
+        return credits;
+    }
+
+    // Arma los totales recorriendo la tabla en paralelo (fork/join): cada tarea suma un rango de filas
+    // en arreglos indexados por el número de diccionario de la tabla y al final se suman los arreglos
+    public static CreditTotals of(EnrollmentTable table, Collection<Course> catalog) {
+        Map<String, Integer> credits = creditsOf(catalog);
+        CreditTotals totals = new CreditTotals(credits);
+        int rows = table.size();
+        if (rows == 0) {
+            return totals;
+        }
+        int[] creditsByCourse = new int[table.getDistinctCourses()];
+        for (int c = 0; c < creditsByCourse.length; c++) {
+            creditsByCourse[c] = credits.getOrDefault(table.courseKey(c), 0);
+        }
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (int row = 0; row < rows; row++) {
+            int day = table.getEpochDay(row);
+            firstDay = Math.min(firstDay, day);
+            lastDay = Math.max(lastDay, day);
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, rows / (pool.getParallelism() * 4));
+        Pass pass = new Pass(table, creditsByCourse, firstDay, lastDay - firstDay + 1, 0, rows, rowsPerTask);
+        int[][] sums = pool.invoke(pass);
+
+        int[] studentCredits = sums[0];
+        int[] studentCourses = sums[1];
+        for (int s = 0; s < studentCourses.length; s++) {
+            if (studentCourses[s] > 0) {
+                totals.students.put(table.studentKey(s), new int[] { studentCredits[s], studentCourses[s] });
+            }
+        }
+        int[] headcount = sums[2];
+        for (int c = 0; c < headcount.length; c++) {
+            if (headcount[c] > 0) {
+                totals.courses.put(table.courseKey(c), new int[] { headcount[c] });
+            }
+        }
+        int[] perDay = sums[3];
+        for (int d = 0; d < perDay.length; d++) {
+            if (perDay[d] > 0) {
+                totals.days.put(firstDay + d, new int[] { perDay[d] });
+            }
+        }
+        totals.enrollments = rows;
+        return totals;
+    }
+
+    // Suma las filas [from, to): {créditos por estudiante, cursos por estudiante, inscritos por curso,
+    // inscripciones por día desde firstDay}
+    private static final class Pass extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final EnrollmentTable table;
+        private final int[] creditsByCourse;
+        private final int firstDay;
+        private final int dayCount;
+        private final int from;
+        private final int to;
+        private final int rowsPerTask;
+
+        Pass(EnrollmentTable table, int[] creditsByCourse, int firstDay, int dayCount, int from, int to, int rowsPerTask) {
+            this.table = table;
+            this.creditsByCourse = creditsByCourse;
+            this.firstDay = firstDay;
+            this.dayCount = dayCount;
+            this.from = from;
+            this.to = to;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from > rowsPerTask) {
+                int middle = (from + to) >>> 1;
+                Pass left = new Pass(table, creditsByCourse, firstDay, dayCount, from, middle, rowsPerTask);
+                left.fork();
+                int[][] sums = new Pass(table, creditsByCourse, firstDay, dayCount, middle, to, rowsPerTask).compute();
+                int[][] other = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    for (int j = 0; j < sums[i].length; j++) {
+                        sums[i][j] += other[i][j];
+                    }
+                }
+                return sums;
+            }
+            int students = table.getDistinctStudents();
+            int[] studentCredits = new int[students];
+            int[] studentCourses = new int[students];
+            int[] headcount = new int[creditsByCourse.length];
+            int[] perDay = new int[dayCount];
+            for (int row = from; row < to; row++) {
+                int s = table.studentIndex(row);
+                int c = table.courseIndex(row);
+                studentCredits[s] += creditsByCourse[c];
+                studentCourses[s]++;
+                headcount[c]++;
+                perDay[table.getEpochDay(row) - firstDay]++;
+            }
+            return new int[][] { studentCredits, studentCourses, headcount, perDay };
+        }
+    }
+
+    // --- Lectura ---
+
+    public int creditsOf(String studentId) {
+        int[] load = students.get(studentId);
+        return load == null ? 0 : load[0];
+    }
+
+    public int coursesOf(String studentId) {
+        int[] load = students.get(studentId);
+        return load == null ? 0 : load[1];
+    }
+
+    public int headcountOf(String courseCode) {
+        int[] count = courses.get(courseCode);
+        return count == null ? 0 : count[0];
+    }
+
+    public long getEnrollmentCount() {
+        return enrollments;
+    }
+
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    // Inscripciones por fecha, en orden (copia)
+    public SortedMap<LocalDate, Integer> enrollmentsPerDay() {
+        SortedMap<LocalDate, Integer> copy = new TreeMap<>();
+        for (Map.Entry<Integer, int[]> day : days.entrySet()) {
+            copy.put(LocalDate.ofEpochDay(day.getKey()), day.getValue()[0]);
+        }
+        return copy;
+    }
+
+    // Los limit estudiantes con más créditos, de mayor a menor: {studentId, créditos, cursos}
+    public List<String[]> heaviestStudents(int limit) {
+        List<Map.Entry<String, int[]>> entries = new ArrayList<>(students.entrySet());
+        entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                ? Integer.compare(b.getValue()[0], a.getValue()[0]) : a.getKey().compareTo(b.getKey()));
+        List<String[]> heaviest = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<String, int[]> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            heaviest.add(new String[] { entry.getKey(), Integer.toString(entry.getValue()[0]),
+                    Integer.toString(entry.getValue()[1]) });
+        }
+        return heaviest;
+    }
+
+    // Los limit cursos con más inscritos, de mayor a menor: {courseCode, inscritos}
+    public List<String[]> largestCourses(int limit) {
+        List<Map.Entry<String, int[]>> entries = new ArrayList<>(courses.entrySet());
+        entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                ? Integer.compare(b.getValue()[0], a.getValue()[0]) : a.getKey().compareTo(b.getKey()));
+        List<String[]> largest = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<String, int[]> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            largest.add(new String[] { entry.getKey(), Integer.toString(entry.getValue()[0]) });
+        }
+        return largest;
+    }
+
+    // --- Armado y cambios (EnrollmentDAO y CreditReport) ---
+
+    void putStudent(String studentId, int credits, int courseCount) {
+        students.put(studentId, new int[] { credits, courseCount });
+        enrollments += courseCount;
+    }
+
+    void putCourse(String courseCode, int headcount) {
+        courses.put(courseCode, new int[] { headcount });
+    }
+
+    void putDay(LocalDate date, int count) {
+        days.put((int) date.toEpochDay(), new int[] { count });
+    }
+
+    // Suma (sign = 1) o resta (sign = -1) una inscripción; con date null no toca los totales por día
+    void apply(String studentId, String courseCode, LocalDate date, int sign) {
+        int credits = courseCredits.getOrDefault(courseCode, 0);
+        int[] load = students.computeIfAbsent(studentId, id -> new int[2]);
+        load[0] += sign * credits;
+        load[1] += sign;
+        if (load[1] <= 0) {
+            students.remove(studentId);
+        }
+        int[] headcount = courses.computeIfAbsent(courseCode, code -> new int[1]);
+        headcount[0] += sign;
+        if (headcount[0] <= 0) {
+            courses.remove(courseCode);
+        }
+        if (date != null) {
+            int[] count = days.computeIfAbsent((int) date.toEpochDay(), day -> new int[1]);
+            count[0] += sign;
+            if (count[0] <= 0) {
+                days.remove((int) date.toEpochDay());
+            }
+        }
+        enrollments += sign;
+    }
+
+    // true si se conocen los créditos del curso (los cursos nuevos no están hasta el próximo armado)
+    boolean knowsCourse(String courseCode) {
+        return courseCredits.containsKey(courseCode);
+    }
+
+    // true si el curso cambió de créditos desde que se armaron los totales
+    boolean creditsChanged(Course course) {
+        Integer credits = courseCredits.get(course.getCode());
+        return credits != null && credits != course.getCredits();
+    }
+}
@@ -0,0 +1,178 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// Lector de CSV (RFC 4180) sobre un canal NIO: lee el archivo en bloques de 64 KB a un buffer
+// directo y los decodifica a un arreglo de caracteres reutilizable, así que la memoria usada no
+// depende del tamaño del archivo. Soporta campos entre comillas (con comas, saltos de línea y ""),
+// finales de línea \n o \r\n, BOM inicial, y salta las líneas vacías.
+public final class CsvReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private int position;
+    private int limit;
+    private boolean endOfInput; // El canal ya no tiene más bytes
+    private boolean drained;    // Y el decodificador ya entregó todo
+
+    private final StringBuilder field = new StringBuilder(64);
+    private final ArrayList<String> row = new ArrayList<>();
+    private long bytesRead;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(ReadableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    // Abre un archivo en UTF-8
+    public static CsvReader open(Path file) throws IOException {
+        return new CsvReader(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8);
+    }
+
+    // Bytes leídos del canal hasta ahora (para mostrar el avance)
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Línea del archivo donde empieza el último registro devuelto por next()
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    // Siguiente registro, o null al final del archivo
+    public String[] next() throws IOException {
+        row.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean afterQuote = false; // Justo después de cerrar comillas: otra comilla es un "" escapado
+        boolean empty = true;       // Todavía no hay nada en este registro (línea vacía)
+        recordLine = line;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field starting at line " + recordLine);
+                }
+                if (empty) {
+                    return null;
+                }
+                row.add(field.toString());
+                return row.toArray(new String[0]);
+            }
+            char c = chars[position++];
+
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') {
+                    continue;
+                }
+            }
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                    afterQuote = true;
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+                continue;
+            }
+            if (c == '"' && afterQuote) {
+                field.append('"');
+                quoted = true;
+                afterQuote = false;
+                continue;
+            }
+            afterQuote = false;
+
+            switch (c) {
+                case '"':
+                    if (field.length() == 0) {
+                        quoted = true;
+                    } else {
+                        field.append(c); // Comilla suelta dentro de un campo sin comillas
+                    }
+                    empty = false;
+                    break;
+                case ',':
+                    row.add(field.toString());
+                    field.setLength(0);
+                    empty = false;
+                    break;
+                case '\r':
+                    break;
+                case '\n':
+                    line++;
+                    if (empty) {
+                        recordLine = line;
+                        break;
+                    }
+                    row.add(field.toString());
+                    return row.toArray(new String[0]);
+                default:
+                    field.append(c);
+                    empty = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Decodifica el siguiente bloque; devuelve false cuando ya no quedan caracteres
+    private boolean fill() throws IOException {
+        if (drained) {
+            return false;
+        }
+        charBuffer.clear();
+        while (charBuffer.position() == 0 && !drained) {
+            if (!endOfInput) {
+                int read = channel.read(bytes);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    bytesRead += read;
+                }
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, charBuffer, endOfInput);
+            bytes.compact();
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput && result.isUnderflow()) {
+                decoder.flush(charBuffer);
+                drained = true;
+            }
+        }
+        position = 0;
+        limit = charBuffer.position();
+        return limit > 0;
+    }
+}
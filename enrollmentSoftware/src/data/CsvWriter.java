@@ -0,0 +1,91 @@
+package data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Escritor de CSV (RFC 4180) en UTF-8 con un buffer de 64 KB sobre un canal NIO. Pone entre
+// comillas solo los campos que lo necesitan (comas, comillas, saltos de línea o espacios en los
+// extremos) y termina cada registro con \r\n, como espera Excel.
+public final class CsvWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final BufferedWriter out;
+
+    private CsvWriter(FileChannel channel) {
+        this.channel = channel;
+        this.out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                StandardCharsets.UTF_8.newEncoder()), BUFFER_SIZE);
+    }
+
+    // Crea (o reemplaza) el archivo
+    public static CsvWriter create(Path file) throws IOException {
+        return new CsvWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public void writeRow(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(values[i] == null ? "" : values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    // Bytes escritos en el archivo hasta ahora (sin contar lo que sigue en el buffer)
+    public long getBytesWritten() throws IOException {
+        return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.flush();
+            channel.force(false);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('"', start)) >= 0) {
+            out.write(value, start, quote + 1 - start);
+            out.write('"');
+            start = quote + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,38 +1,364 @@
 package data;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Pool de conexiones acotado. Cada DAO pide una conexión por operación con getConnection()
+// y la devuelve al pool al cerrarla (try-with-resources).
 public class DBConnection {
-    private static DBConnection instance; //Singleton
-    private Connection connection;
-	private final String username="ajerez";
-	private final String password="4j3r3z";
+    private static volatile DBConnection instance; //Singleton
+	// Datos de conexión (se pueden cambiar con -Ddb.url, -Ddb.user y -Ddb.password)
+	private final String username = System.getProperty("db.user", "ajerez");
+	private final String password = System.getProperty("db.password", "4j3r3z");
 	private final String host = "192.168.254.215";
 	private final String port = "1521";
 	private final String service = "orcl";
 
+	// Configuración del pool (se puede cambiar con -Ddb.pool.*)
+	private final int minSize = Integer.getInteger("db.pool.min", 2);
+	private final int maxSize = Integer.getInteger("db.pool.max", 8);
+	private final long borrowTimeoutMs = Long.getLong("db.pool.borrowTimeoutMs", 10_000);
+	private final long idleTimeoutMs = Long.getLong("db.pool.idleTimeoutMs", 300_000);
+	private final long leakThresholdMs = Long.getLong("db.pool.leakThresholdMs", 60_000);
+	// Con -Ddb.pool.leakTrace=true el aviso de fuga incluye dónde se pidió la conexión (guarda la pila
+	// en cada préstamo, así que solo conviene para buscar una fuga)
+	private final boolean leakTrace = Boolean.getBoolean("db.pool.leakTrace");
+	private final int validationTimeoutSec = Integer.getInteger("db.pool.validationTimeoutSec", 2);
+	// Las conexiones libres desde hace más de esto se validan con el servidor antes de prestarlas; las
+	// usadas hace poco solo se revisan localmente (validar siempre agrega un viaje a cada operación)
+	private final long validateAfterMs = Long.getLong("db.pool.validateAfterMs", 30_000);
+	private final int statementCacheSize = Integer.getInteger("db.statementCache.size", 50);
+	// Espera máxima al abrir una conexión física (-Ddb.connectTimeoutMs); si el servidor no responde,
+	// falla en este tiempo en lugar del tiempo de espera de TCP
+	private final long connectTimeoutMs = Long.getLong("db.connectTimeoutMs", 5_000);
+
+	private final String url;
+	private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+	private final Map<Connection, PooledEntry> borrowed = new ConcurrentHashMap<>();
+	private final Semaphore permits;
+	private final AtomicInteger openCount = new AtomicInteger();
+	private final ScheduledExecutorService housekeeper;
+	// Conexión de la unidad de trabajo abierta en cada hilo (ver UnitOfWork); mientras existe,
+	// getConnection() se la entrega a los DAOs de ese hilo en lugar de prestar otra
+	private final ThreadLocal<Connection> unitConnection = new ThreadLocal<>();
+	// false desde que no se pudo abrir una conexión hasta que se abre otra (ver LocalReplica)
+	private volatile boolean reachable = true;
+	// Conexiones que no se pudieron abrir desde cada hilo: si cambia durante una operación, la
+	// operación no llegó al servidor
+	private final ThreadLocal<int[]> failedOpens = ThreadLocal.withInitial(() -> new int[1]);
+
     private DBConnection() {
-        try {
-            connection = DriverManager.getConnection(getConnectionString(), username, password);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Error connecting to the database.");
-        }
+        this.url = getConnectionString();
+        this.permits = new Semaphore(maxSize, true);
+        // No se conecta aquí: crear el singleton no debe bloquear ni fallar si Oracle no responde
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, 30, 30, TimeUnit.SECONDS);
     }
 
     public static DBConnection getInstance() {
-        if (instance == null) {
-            instance = new DBConnection();
+        DBConnection result = instance;
+        if (result == null) {
+            synchronized (DBConnection.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new DBConnection();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
-    public Connection getConnection() {
-        return connection;
+    // Abre las conexiones mínimas del pool. La aplicación lo llama en segundo plano al iniciar
+    // (ver Startup); si nadie lo llama, getConnection() abre conexiones a medida que se necesitan.
+    public void warmUp() throws SQLException {
+        while (openCount.get() < minSize) {
+            idle.offer(new PooledEntry(openPhysical()));
+        }
+    }
+
+    // Presta una conexión del pool. Se devuelve al pool cuando se llama a close().
+    public Connection getConnection() throws SQLException {
+        Connection unit = unitConnection.get();
+        if (unit != null) {
+            return unit;
+        }
+        return borrow();
     }
+
+    // Presta una conexión del pool aunque el hilo tenga una unidad de trabajo abierta
+    Connection borrow() throws SQLException {
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout waiting for a pooled connection (max " + maxSize + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        } finally {
+            Metrics.recordPoolWait(System.nanoTime() - waitStart);
+        }
+
+        try {
+            PooledEntry entry;
+            // Revisa las conexiones libres antes de prestarlas; las caídas se descartan
+            long now = System.currentTimeMillis();
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry, now)) {
+                    break;
+                }
+                discard(entry);
+            }
+            if (entry == null) {
+                entry = new PooledEntry(openPhysical());
+            }
+            entry.borrowedAt = now;
+            entry.leakReported = false;
+            entry.borrowSite = leakTrace ? new Throwable("Connection borrowed here") : null;
+            Connection proxy = entry.newProxy();
+            borrowed.put(proxy, entry);
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
 	public String getConnectionString() {
+		String configured = System.getProperty("db.url");
+		if (configured != null) {
+			return configured;
+		}
 		return String.format("jdbc:oracle:thin:@%s:%s:%s", this.host, this.port, this.service);
 	}
+
+	// false si la última conexión que se intentó abrir falló
+	public boolean isReachable() {
+		return reachable;
+	}
+
+	// Conexiones que no se pudieron abrir desde el hilo actual
+	int getFailedOpens() {
+		return failedOpens.get()[0];
+	}
+
+	// true si el servidor responde: presta una conexión (validando una libre o abriendo una nueva)
+	// y la devuelve. LocalReplica lo usa para saber cuándo volvió la base de datos.
+	boolean probe() {
+		try {
+			borrow().close();
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	// Asocia (o con null, desasocia) la conexión de una unidad de trabajo al hilo actual
+	void bindUnit(Connection connection) {
+		if (connection == null) {
+			unitConnection.remove();
+		} else {
+			unitConnection.set(connection);
+		}
+	}
+
+	// Número de conexiones prestadas en este momento
+	public int getActiveCount() {
+		return borrowed.size();
+	}
+
+	// Número de conexiones libres en el pool
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	// Aciertos de la caché de statements de todas las conexiones
+	public long getStatementCacheHits() {
+		return StatementCache.getHitCount();
+	}
+
+	// Fallos de la caché de statements (statements preparados de nuevo)
+	public long getStatementCacheMisses() {
+		return StatementCache.getMissCount();
+	}
+
+	// Cierra todas las conexiones del pool (al salir de la aplicación)
+	public void shutdown() {
+		housekeeper.shutdownNow();
+		PooledEntry entry;
+		while ((entry = idle.pollFirst()) != null) {
+			discard(entry);
+		}
+	}
+
+    private Connection openPhysical() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        if (url.startsWith("jdbc:oracle:")) {
+            properties.setProperty("oracle.net.CONNECT_TIMEOUT", Long.toString(connectTimeoutMs));
+        }
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(url, properties);
+        } catch (SQLException e) {
+            reachable = false;
+            failedOpens.get()[0]++;
+            throw e;
+        }
+        reachable = true;
+        openCount.incrementAndGet();
+        // Orden binario: la paginación por clave y las comparaciones en Java usan el mismo orden que ORDER BY
+        if (url.startsWith("jdbc:oracle:")) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ALTER SESSION SET NLS_SORT = BINARY");
+            }
+        }
+        return connection;
+    }
+
+    private boolean isUsable(PooledEntry entry, long now) {
+        try {
+            return !entry.physical.isClosed()
+                    && (now - entry.lastUsed <= validateAfterMs || entry.physical.isValid(validationTimeoutSec));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        openCount.decrementAndGet();
+        entry.statements.closeAll();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // La conexión ya estaba rota; no hay nada más que hacer
+        }
+    }
+
+    // Devuelve una conexión al pool, restaurando su estado por defecto
+    private void release(Connection proxy, PooledEntry entry) {
+        if (borrowed.remove(proxy) == null) {
+            return; // close() llamado dos veces
+        }
+        try {
+            if (entry.physical.isClosed()) { // El driver la cerró al perder la sesión
+                discard(entry);
+                // Las libres probablemente también se cayeron: se validan antes de volver a prestarlas
+                for (PooledEntry other : idle) {
+                    other.lastUsed = 0;
+                }
+                return;
+            }
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            entry.borrowSite = null;
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Cierra conexiones ociosas por encima del mínimo y reporta posibles fugas
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry : idle) {
+            if (openCount.get() > minSize && now - entry.lastUsed > idleTimeoutMs && idle.remove(entry)) {
+                discard(entry);
+            }
+        }
+        for (PooledEntry entry : borrowed.values()) {
+            if (!entry.leakReported && now - entry.borrowedAt > leakThresholdMs) {
+                entry.leakReported = true; // Se reporta una sola vez
+                Throwable site = entry.borrowSite;
+                if (site != null) {
+                    Log.warn("Possible connection leak: borrowed " + (now - entry.borrowedAt) + " ms ago.", site);
+                } else {
+                    Log.warn("Possible connection leak: borrowed " + (now - entry.borrowedAt)
+                            + " ms ago (run with -Ddb.pool.leakTrace=true to see where).");
+                }
+            }
+        }
+    }
+
+    // Conexión física del pool junto con sus datos de uso
+    private final class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite; // Solo con leakTrace
+        private volatile boolean leakReported;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize);
+        }
+
+        // Envuelve la conexión física: close() la devuelve al pool en vez de cerrarla,
+        // y prepareStatement(sql)/prepareCall(sql) pasan por la caché de statements
+        private Connection newProxy() {
+            Connection[] self = new Connection[1];
+            InvocationHandler handler = (p, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        release(self[0], this);
+                        return null;
+                    case "isClosed":
+                        return !borrowed.containsKey(self[0]) || physical.isClosed();
+                    case "prepareStatement":
+                    case "prepareCall":
+                        if (args.length == 1 && borrowed.containsKey(self[0])) {
+                            return statements.prepare(self[0], (String) args[0], method.getName().equals("prepareCall"));
+                        }
+                        break;
+                    case "unwrap":
+                        if (((Class<?>) args[0]).isInstance(physical)) {
+                            return physical;
+                        }
+                        break;
+                    case "equals":
+                        return p == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(p);
+                    default:
+                        break;
+                }
+                if (!borrowed.containsKey(self[0])) {
+                    throw new SQLException("Connection has already been returned to the pool.");
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            self[0] = (Connection) Proxy.newProxyInstance(
+                    DBConnection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+            return self[0];
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package data;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Ejecutor dedicado para el acceso a datos, fuera del hilo de JavaFX.
+// Usa hilos virtuales si la JVM los soporta; si no, un pool fijo del tamaño del pool de conexiones.
+public final class DataExecutor {
+
+    private static final ExecutorService EXECUTOR = create();
+
+    private DataExecutor() {
+    }
+
+    // Ejecuta una consulta en segundo plano y devuelve su resultado como CompletableFuture
+    public static <R> CompletableFuture<R> supply(Supplier<R> task) {
+        return CompletableFuture.supplyAsync(task, EXECUTOR);
+    }
+
+    // Ejecuta una operación sin resultado en segundo plano
+    public static CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, EXECUTOR);
+    }
+
+    private static ExecutorService create() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // JVM sin hilos virtuales: pool fijo de hilos daemon
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(Integer.getInteger("db.pool.max", 8), r -> {
+                Thread t = new Thread(r, "data-access-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -1,31 +1,48 @@
 package data;
 
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.Date;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import model.Course;
 import model.Enrollment;
 import model.Student;
 
-public class EnrollmentDAO {
-    private Connection connection;
+public class EnrollmentDAO implements EnrollmentStore {
+    private final DBConnection db; // Pool de conexiones a la base de datos
+    private final CourseDAO courseDAO; // Para verificar cursos con la caché del catálogo
+    private final EnrollmentIndex index = EnrollmentIndex.getInstance(); // Relación estudiante <-> curso en memoria
+    private final SeatReservations seats = SeatReservations.getInstance(); // Cupos libres de cada curso
+    private final CreditReport report = CreditReport.getInstance(); // Créditos por estudiante e inscritos por curso
+    private final CourseRules rules = CourseRules.getInstance(); // Prerrequisitos y horarios de cada estudiante
 
-    // Constructor que recibe la conexión a la base de datos
-    public EnrollmentDAO(Connection connection) {
-        this.connection = connection;
+    // Constructor que recibe el pool de conexiones a la base de datos
+    public EnrollmentDAO(DBConnection db) {
+        this.db = db;
+        this.courseDAO = new CourseDAO(db);
     }
 
     // Método para guardar una nueva inscripción en la base de datos
-    public void save(Enrollment enrollment) {
+    public Enrollment save(Enrollment enrollment) {
         String query = "INSERT INTO Enrollment (student_id, course_code, enrollment_date) VALUES (?, ?, ?)";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             // Establece los valores de los parámetros para la consulta SQL
             pstmt.setString(1, enrollment.getStudentId());
             pstmt.setString(2, enrollment.getCourseCode());
@@ -36,45 +53,384 @@ public class EnrollmentDAO {
             // Ejecuta la consulta SQL y obtiene el número de filas afectadas
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                System.out.println("Enrollment inserted successfully."); // Si la inserción fue exitosa
+                index.add(enrollment.getStudentId(), enrollment.getCourseCode()); // Mantiene el índice al día
+                seats.enrollmentsChanged(enrollment.getCourseCode()); // Un cupo menos
+                report.added(enrollment);
+                rules.added(enrollment);
+                Log.debug("Enrollment inserted successfully.");
+                return enrollment;
             } else {
-                System.out.println("No rows affected, enrollment was not inserted."); // Si no se afectaron filas
+                Log.debug("No rows affected, enrollment was not inserted.");
             }
         } catch (SQLException e) {
-            System.err.println("Error inserting enrollment: " + e.getMessage());
-            e.printStackTrace();  // Imprime el error si ocurre una excepción
+            Log.error("Error inserting enrollment", e);
         }
+        return null;
     }
 
-    // Método para obtener todas las inscripciones de la base de datos
-    public ArrayList<Enrollment> fetch() {
-        ArrayList<Enrollment> enrollments = new ArrayList<>();
-        String query = "SELECT student_id, course_code, enrollment_date FROM Enrollment";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            // Itera sobre los resultados y crea un objeto Enrollment para cada registro
-            while (rs.next()) {
-                String studentId = rs.getString("student_id");
-                String courseCode = rs.getString("course_code");
-                LocalDate enrollmentDate = rs.getDate("enrollment_date").toLocalDate();
-                Enrollment enrollment = new Enrollment(studentId, courseCode, enrollmentDate);
-                enrollments.add(enrollment);
+    // Método para validar y guardar una inscripción en un solo viaje a la base de datos.
+    // Un bloque PL/SQL verifica estudiante, curso y duplicado e inserta si todo es válido.
+    public EnrollmentResult saveValidated(Enrollment enrollment) {
+        String sql = "DECLARE " +
+                     "  v_student Enrollment.student_id%TYPE := ?; " +
+                     "  v_course  Enrollment.course_code%TYPE := ?; " +
+                     "  v_date    DATE := ?; " +
+                     "  v_count   NUMBER; " +
+                     "  v_result  VARCHAR2(20) := 'OK'; " +
+                     "BEGIN " +
+                     "  SELECT COUNT(*) INTO v_count FROM Student WHERE id = v_student; " +
+                     "  IF v_count = 0 THEN v_result := 'NO_STUDENT'; " +
+                     "  ELSE " +
+                     "    SELECT COUNT(*) INTO v_count FROM Course WHERE code = v_course; " +
+                     "    IF v_count = 0 THEN v_result := 'NO_COURSE'; " +
+                     "    ELSE " +
+                     "      SELECT COUNT(*) INTO v_count FROM Enrollment " +
+                     "       WHERE student_id = v_student AND course_code = v_course; " +
+                     "      IF v_count > 0 THEN v_result := 'DUPLICATE'; " +
+                     "      ELSE " +
+                     "        BEGIN " +
+                     "          INSERT INTO Enrollment (student_id, course_code, enrollment_date) " +
+                     "          VALUES (v_student, v_course, v_date); " +
+                     "        EXCEPTION WHEN DUP_VAL_ON_INDEX THEN v_result := 'DUPLICATE'; " +
+                     "        END; " +
+                     "      END IF; " +
+                     "    END IF; " +
+                     "  END IF; " +
+                     "  ? := v_result; " +
+                     "END;";
+
+        try (Connection connection = db.getConnection();
+             CallableStatement stmt = connection.prepareCall(sql)) {
+            stmt.setString(1, enrollment.getStudentId());
+            stmt.setString(2, enrollment.getCourseCode());
+            stmt.setDate(3, Date.valueOf(enrollment.getEnrollmentDate()));
+            stmt.registerOutParameter(4, Types.VARCHAR);
+            stmt.execute();
+            EnrollmentResult result = EnrollmentResult.valueOf(stmt.getString(4));
+            if (result == EnrollmentResult.OK) {
+                index.add(enrollment.getStudentId(), enrollment.getCourseCode());
+                seats.enrollmentsChanged(enrollment.getCourseCode());
+                report.added(enrollment);
+                rules.added(enrollment);
+            }
+            return result;
+        } catch (SQLException e) {
+            Log.error("Error inserting enrollment", e);
+        }
+        return EnrollmentResult.ERROR;
+    }
+
+    // Método para guardar muchas inscripciones por lotes (una transacción por bloque)
+    public BatchResult<Enrollment> saveAll(Collection<Enrollment> enrollments, int batchSize) {
+        String query = "INSERT INTO Enrollment (student_id, course_code, enrollment_date) VALUES (?, ?, ?)";
+        BatchResult<Enrollment> result = BatchWriter.write(db, query, false, enrollments, batchSize, (pstmt, enrollment) -> {
+            pstmt.setString(1, enrollment.getStudentId());
+            pstmt.setString(2, enrollment.getCourseCode());
+            pstmt.setDate(3, Date.valueOf(enrollment.getEnrollmentDate()));
+        });
+        if (result.getSavedCount() > 0) {
+            seats.enrollmentsChanged(); // Importación: se vuelven a contar los cupos de todos los cursos
+        }
+
+        // Agrega al índice las filas guardadas; si la carga se cortó no se sabe cuáles son y se rearma
+        if (result.getSavedCount() + result.getFailures().size() != enrollments.size()) {
+            index.invalidate();
+            report.refresh();
+            rules.refresh();
+            return result;
+        }
+        Set<Integer> failed = new HashSet<>();
+        for (BatchResult.Failure<Enrollment> failure : result.getFailures()) {
+            failed.add(failure.getIndex());
+        }
+        int i = 0;
+        for (Enrollment enrollment : enrollments) {
+            if (!failed.contains(i++)) {
+                index.add(enrollment.getStudentId(), enrollment.getCourseCode());
+                report.added(enrollment);
+                rules.added(enrollment);
+            }
+        }
+        return result;
+    }
+
+    // Método para obtener todas las inscripciones de la base de datos.
+    // La lista es la propia EnrollmentTable: cada elemento es una vista que se crea al pedirlo, no hay
+    // un objeto por fila ni se repiten los IDs, códigos ni fechas.
+    public List<Enrollment> fetch() {
+        return fetchTable().asList(); // Retorna la lista de inscripciones
+    }
+
+    // Método para leer todas las inscripciones directamente en columnas, sin crear un Enrollment por fila
+    @Override
+    public EnrollmentTable fetchTable() {
+        EnrollmentTable table = new EnrollmentTable();
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(FETCH_ALL)) {
+            stmt.setFetchSize(RowStreams.DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    table.add(rs.getString(1), rs.getString(2), rs.getDate(3).toLocalDate().toEpochDay());
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error fetching enrollments", e);
+        }
+        table.trimToSize();
+        return table;
+    }
+
+    // Método para recorrer todas las inscripciones fila por fila a medida que llegan
+    public void fetch(Consumer<Enrollment> consumer) {
+        RowStreams.forEach(db, FETCH_ALL, EnrollmentDAO::mapRow, consumer);
+    }
+
+    // Método para obtener todas las inscripciones como Stream; cerrar el Stream devuelve la conexión
+    public Stream<Enrollment> stream() {
+        return RowStreams.stream(db, FETCH_ALL, EnrollmentDAO::mapRow);
+    }
+
+    // Método para obtener las inscripciones creadas o modificadas desde changeNumber
+    public ChangeSet<Enrollment> fetchChangedSince(long changeNumber) {
+        ChangeSet<Enrollment> changes = fetchChangedRows(changeNumber);
+        for (Enrollment enrollment : changes.getRows()) {
+            index.add(enrollment.getStudentId(), enrollment.getCourseCode()); // El índice también recibe los cambios
+            seats.enrollmentsChanged(enrollment.getCourseCode()); // Inscripciones de otras estaciones
+        }
+        if (!changes.getRows().isEmpty()) {
+            report.refresh(); // No se sabe cuáles son nuevas y cuáles cambiaron de fecha
+            rules.refresh();
+        }
+        return changes;
+    }
+
+    // Lo mismo sin avisar a los índices ni a los reportes: para LocalReplica, que copia las filas a
+    // la instantánea y no cambia nada de lo que ellos muestran
+    ChangeSet<Enrollment> fetchChangedRows(long changeNumber) {
+        return RowStreams.fetchChangedSince(db,
+                "SELECT student_id, course_code, enrollment_date, ORA_ROWSCN AS scn FROM Enrollment",
+                "Enrollment", changeNumber, EnrollmentDAO::mapRow);
+    }
+
+    // Búsqueda por prefijo del estudiante o del curso y rango de fechas
+    @Override
+    public ArrayList<Enrollment> search(String prefix, LocalDate from, LocalDate to, int limit) {
+        return RowStreams.query(db, searchSql(prefix), searchParams(prefix, from, to, limit), EnrollmentDAO::mapRow);
+    }
+
+    // Igual que search(), pero cancelar el future cancela también la consulta en Oracle
+    @Override
+    public CompletableFuture<ArrayList<Enrollment>> searchAsync(String prefix, LocalDate from, LocalDate to, int limit) {
+        return RowStreams.queryAsync(db, searchSql(prefix), searchParams(prefix, from, to, limit), EnrollmentDAO::mapRow);
+    }
+
+    private static String searchSql(String prefix) {
+        return prefix.isEmpty() ? SEARCH_BY_DATE : SEARCH;
+    }
+
+    private static Object[] searchParams(String prefix, LocalDate from, LocalDate to, int limit) {
+        Date fromDate = Date.valueOf(from != null ? from : MIN_DATE);
+        Date toDate = Date.valueOf(to != null ? to : MAX_DATE);
+        if (prefix.isEmpty()) {
+            return new Object[] { fromDate, toDate, limit };
+        }
+        String pattern = RowStreams.prefixPattern(prefix);
+        return new Object[] { pattern, pattern, fromDate, toDate, limit };
+    }
+
+    private static final String FETCH_ALL = "SELECT student_id, course_code, enrollment_date FROM Enrollment";
+
+    // Totales por estudiante (con sus créditos), por curso y por fecha; ver creditTotals()
+    private static final String REPORT_MODE = System.getProperty("report.mode", "sql");
+    private static final String TOTALS_GROUPING_SETS =
+            "SELECT e.student_id, e.course_code, e.enrollment_date, COUNT(*), SUM(c.credits) " +
+            "FROM Enrollment e JOIN Course c ON c.code = e.course_code " +
+            "GROUP BY GROUPING SETS ((e.student_id), (e.course_code), (e.enrollment_date))";
+    private static final String TOTALS_UNION =
+            "SELECT e.student_id, CAST(NULL AS VARCHAR2(20)), CAST(NULL AS DATE), COUNT(*), SUM(c.credits) " +
+            "FROM Enrollment e JOIN Course c ON c.code = e.course_code GROUP BY e.student_id " +
+            "UNION ALL SELECT NULL, course_code, NULL, COUNT(*), 0 FROM Enrollment GROUP BY course_code " +
+            "UNION ALL SELECT NULL, NULL, enrollment_date, COUNT(*), 0 FROM Enrollment GROUP BY enrollment_date";
+    private static volatile boolean groupingSets = true; // false si la base de datos no lo conoce
+
+    // Prefijo del estudiante (inicio de la clave primaria) o del curso (índice de la clave foránea);
+    // la fecha se filtra sobre las filas que ya coincidieron
+    private static final String SEARCH = "SELECT student_id, course_code, enrollment_date FROM ("
+            + "SELECT student_id, course_code, enrollment_date FROM Enrollment WHERE student_id LIKE ? ESCAPE '\\' "
+            + "UNION SELECT student_id, course_code, enrollment_date FROM Enrollment WHERE course_code LIKE ? ESCAPE '\\') "
+            + "WHERE enrollment_date BETWEEN ? AND ? ORDER BY student_id, course_code FETCH FIRST ? ROWS ONLY";
+
+    // Sin texto: solo el rango de fechas
+    private static final String SEARCH_BY_DATE = "SELECT student_id, course_code, enrollment_date FROM Enrollment "
+            + "WHERE enrollment_date BETWEEN ? AND ? ORDER BY student_id, course_code FETCH FIRST ? ROWS ONLY";
+
+    // Límites de fecha cuando el filtro no tiene uno de los extremos
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    // Crea un objeto Enrollment para la fila actual
+    private static Enrollment mapRow(ResultSet rs) throws SQLException {
+        String studentId = rs.getString("student_id");
+        String courseCode = rs.getString("course_code");
+        LocalDate enrollmentDate = rs.getDate("enrollment_date").toLocalDate();
+        return new Enrollment(studentId, courseCode, enrollmentDate);
+    }
+
+    // Método para obtener una página de inscripciones con paginación por clave (student_id, course_code).
+    // La página empieza en la clave indicada (inclusive); si fromStudentId es null empieza desde el inicio.
+    public ArrayList<Enrollment> fetchPage(String fromStudentId, String fromCourseCode, int pageSize) {
+        return fetchPage(fromStudentId, fromCourseCode, null, null, pageSize);
+    }
+
+    // Igual que fetchPage, pero se detiene antes de la clave toStudentId/toCourseCode (exclusive)
+    public ArrayList<Enrollment> fetchPage(String fromStudentId, String fromCourseCode,
+                                           String toStudentId, String toCourseCode, int pageSize) {
+        ArrayList<Enrollment> enrollments = new ArrayList<>(pageSize);
+        StringBuilder query = new StringBuilder("SELECT student_id, course_code, enrollment_date FROM Enrollment WHERE 1 = 1");
+        if (fromStudentId != null) {
+            query.append(" AND (student_id > ? OR (student_id = ? AND course_code >= ?))");
+        }
+        if (toStudentId != null) {
+            query.append(" AND (student_id < ? OR (student_id = ? AND course_code < ?))");
+        }
+        query.append(" ORDER BY student_id, course_code FETCH FIRST ? ROWS ONLY");
+
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            int param = 1;
+            if (fromStudentId != null) {
+                stmt.setString(param++, fromStudentId);
+                stmt.setString(param++, fromStudentId);
+                stmt.setString(param++, fromCourseCode);
+            }
+            if (toStudentId != null) {
+                stmt.setString(param++, toStudentId);
+                stmt.setString(param++, toStudentId);
+                stmt.setString(param++, toCourseCode);
+            }
+            stmt.setInt(param, pageSize);
+            stmt.setFetchSize(pageSize);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String studentId = rs.getString("student_id");
+                    String courseCode = rs.getString("course_code");
+                    LocalDate enrollmentDate = rs.getDate("enrollment_date").toLocalDate();
+                    enrollments.add(new Enrollment(studentId, courseCode, enrollmentDate));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error fetching enrollment page", e);
+        }
+
+        return enrollments;
+    }
+
+    // Método para obtener la clave inicial {student_id, course_code} de cada página.
+    // Solo lee las columnas de la clave, así que puede resolverse con el índice de la clave primaria.
+    public ArrayList<String[]> fetchPageKeys(int pageSize) {
+        ArrayList<String[]> keys = new ArrayList<>();
+        String query = "SELECT student_id, course_code FROM (" +
+                       "SELECT student_id, course_code, " +
+                       "ROW_NUMBER() OVER (ORDER BY student_id, course_code) AS rn FROM Enrollment) " +
+                       "WHERE MOD(rn - 1, ?) = 0 ORDER BY rn";
+
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, pageSize);
+            stmt.setFetchSize(500);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(new String[] { rs.getString("student_id"), rs.getString("course_code") });
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error fetching enrollments: " + e.getMessage());
-            e.printStackTrace();  // Imprime el error si ocurre una excepción
+            Log.error("Error fetching enrollment page keys", e);
         }
 
-        return enrollments; // Retorna la lista de inscripciones
+        return keys;
+    }
+
+    // Método para contar el total de inscripciones
+    public int count() {
+        String sql = "SELECT COUNT(*) FROM Enrollment";
+        try (Connection connection = db.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            Log.error("EnrollmentDAO.count failed", e);
+        }
+        return 0;
+    }
+
+    // Inscritos en un curso (usa el índice enrollment_course_idx)
+    @Override
+    public int countByCourse(String courseCode) {
+        String sql = "SELECT COUNT(*) FROM Enrollment WHERE course_code = ?";
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, courseCode);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("EnrollmentDAO.countByCourse failed", e);
+        }
+        return -1;
+    }
+
+    // Totales para CreditReport con una sola consulta: la base de datos agrupa por estudiante, por
+    // curso y por fecha (GROUPING SETS) y devuelve solo los totales, no las inscripciones. Cada fila
+    // trae una sola de las tres columnas de grupo (las otras en NULL). Si la base de datos no conoce
+    // GROUPING SETS se usa la misma consulta con UNION ALL. Con -Dreport.mode=snapshot se recorre en
+    // memoria como en el almacenamiento en memoria (ver EnrollmentStore.creditTotals).
+    @Override
+    public CreditTotals creditTotals() {
+        if ("snapshot".equals(REPORT_MODE)) {
+            return EnrollmentStore.super.creditTotals();
+        }
+        CreditTotals totals = new CreditTotals(CreditTotals.creditsOf(courseDAO.fetch()));
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(groupingSets ? TOTALS_GROUPING_SETS : TOTALS_UNION)) {
+            stmt.setFetchSize(Math.max(RowStreams.DEFAULT_FETCH_SIZE, 5_000));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String studentId = rs.getString(1);
+                    String courseCode = rs.getString(2);
+                    if (studentId != null) {
+                        totals.putStudent(studentId, rs.getInt(5), rs.getInt(4));
+                    } else if (courseCode != null) {
+                        totals.putCourse(courseCode, rs.getInt(4));
+                    } else {
+                        totals.putDay(rs.getDate(3).toLocalDate(), rs.getInt(4));
+                    }
+                }
+            }
+            return totals;
+        } catch (SQLSyntaxErrorException e) {
+            if (groupingSets) {
+                Log.info("GROUPING SETS is not supported, using UNION ALL for the credit report");
+                groupingSets = false;
+                return creditTotals();
+            }
+            Log.error("EnrollmentDAO.creditTotals failed", e);
+        } catch (SQLException e) {
+            Log.error("EnrollmentDAO.creditTotals failed", e);
+        }
+        return null;
     }
 
     // Método para actualizar una inscripción en la base de datos
-    public void update(Enrollment enrollment) {
+    public Enrollment update(Enrollment enrollment) {
         String sql = "UPDATE Enrollment SET student_id=?, course_code=?, enrollment_date=? WHERE student_id=? AND course_code=?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             // Establece los valores de los parámetros para la consulta SQL
             stmt.setString(1, enrollment.getStudentId());
             stmt.setString(2, enrollment.getCourseCode());
@@ -87,20 +443,25 @@ public class EnrollmentDAO {
             // Ejecuta la actualización y obtiene el número de filas afectadas
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
-                System.out.println("Enrollment updated successfully."); // Si la actualización fue exitosa
+                report.dateChanged();
+                rules.dateChanged(enrollment);
+                Log.debug("Enrollment updated successfully.");
+                return enrollment;
             } else {
-                System.out.println("No enrollment found for update."); // Si no se encontró ninguna inscripción para actualizar
+                Log.debug("No enrollment found for update.");
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("EnrollmentDAO.update failed", e);
         }
+        return null;
     }
 
     // Método para eliminar una inscripción de la base de datos
-    public void delete(String studentId, String courseCode) {
+    public boolean delete(String studentId, String courseCode) {
         String sql = "DELETE FROM Enrollment WHERE student_id=? AND course_code=?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, studentId); // Establece el valor del studentId
             stmt.setString(2, courseCode); // Establece el valor del courseCode
             
@@ -108,25 +469,79 @@ public class EnrollmentDAO {
             int rowsAffected = stmt.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("Enrollment deleted successfully."); // Si la eliminación fue exitosa
+                index.remove(studentId, courseCode); // Mantiene el índice al día
+                seats.enrollmentsChanged(courseCode); // Un cupo más
+                report.removed(studentId, courseCode, null); // La fecha no se leyó: los totales por día se rearman
+                rules.removed(studentId, courseCode);
+                Log.debug("Enrollment deleted successfully.");
+                return true;
             } else {
-                System.out.println("No enrollment found with the given studentId and courseCode."); // Si no se encontró la inscripción
+                Log.debug("No enrollment found with the given studentId and courseCode.");
             }
         } catch (SQLException e) {
-            System.err.println("Error while deleting enrollment: " + e.getMessage());
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("Error while deleting enrollment", e);
         }
+        return false;
+    }
+
+    // Elimina todas las inscripciones de un curso
+    @Override
+    public int deleteByCourse(String courseCode) {
+        return deleteWhere("DELETE FROM Enrollment WHERE course_code=?", courseCode);
     }
 
-    // Método para obtener los cursos en los que un estudiante está inscrito
+    // Elimina todas las inscripciones de un estudiante
+    @Override
+    public int deleteByStudent(String studentId) {
+        return deleteWhere("DELETE FROM Enrollment WHERE student_id=?", studentId);
+    }
+
+    private int deleteWhere(String sql, String key) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                index.invalidate(); // Varias aristas menos: se vuelve a armar en la próxima consulta
+                seats.enrollmentsChanged();
+                report.refresh();
+                rules.refresh();
+            }
+            Log.debug(rowsAffected + " enrollments deleted for " + key + ".");
+            return rowsAffected;
+        } catch (SQLException e) {
+            Log.error("Error while deleting the enrollments of " + key, e);
+        }
+        return -1;
+    }
+
+    // Método para obtener los cursos en los que un estudiante está inscrito.
+    // Con el índice listo, los códigos salen de memoria y los cursos de la caché del catálogo.
     public ArrayList<Course> getCoursesByStudent(String studentId) {
+        String[] codes = index.coursesOf(studentId, db);
+        if (codes == null) {
+            return queryCoursesByStudent(studentId); // Índice todavía armándose
+        }
+        ArrayList<Course> courses = new ArrayList<>(codes.length);
+        for (String code : codes) {
+            Course course = courseDAO.get(code);
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        return courses;
+    }
+
+    // Consulta con JOIN, mientras el índice no está listo
+    private ArrayList<Course> queryCoursesByStudent(String studentId) {
         ArrayList<Course> courses = new ArrayList<>();
-        String query = "SELECT c.code, c.name, c.credits " +
+        String query = "SELECT c.code, c.name, c.credits, c.capacity, c.prerequisites, c.schedule " +
                        "FROM Course c " +
                        "JOIN Enrollment e ON c.code = e.course_code " +
                        "WHERE e.student_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, studentId); // Establece el valor del studentId
             ResultSet rs = stmt.executeQuery(); // Ejecuta la consulta
             
@@ -135,25 +550,71 @@ public class EnrollmentDAO {
                 String code = rs.getString("code");
                 String name = rs.getString("name");
                 int credits = rs.getInt("credits");
-                Course course = new Course(code, name, credits);
+                Course course = new Course(code, name, credits, rs.getInt("capacity"),
+                        rs.getString("prerequisites"), rs.getString("schedule"));
                 courses.add(course);
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("EnrollmentDAO.queryCoursesByStudent failed", e);
         }
         
         return courses; // Retorna la lista de cursos
     }
 
-    // Método para obtener los estudiantes que están inscritos en un curso específico
+    // Método para obtener los estudiantes que están inscritos en un curso específico.
+    // Con el índice listo, los IDs salen de memoria y los estudiantes se leen por clave primaria.
     public ArrayList<Student> getStudentsByCourse(String courseCode) {
+        String[] ids = index.studentsOf(courseCode, db);
+        if (ids == null) {
+            return queryStudentsByCourse(courseCode); // Índice todavía armándose
+        }
+        return findStudents(ids);
+    }
+
+    // Lee los estudiantes con esos IDs con WHERE id IN (...), en bloques de hasta 1000 (límite de Oracle).
+    // La lista de parámetros se completa hasta un tamaño fijo para reutilizar los statements de la caché.
+    private ArrayList<Student> findStudents(String[] ids) {
+        ArrayList<Student> students = new ArrayList<>(ids.length);
+        for (int start = 0; start < ids.length; start += 1000) {
+            int count = Math.min(1000, ids.length - start);
+            int slots = 16;
+            while (slots < count) {
+                slots = Math.min(slots * 4, 1000);
+            }
+            StringBuilder query = new StringBuilder("SELECT id, name, email FROM Student WHERE id IN (?");
+            for (int i = 1; i < slots; i++) {
+                query.append(", ?");
+            }
+            query.append(")");
+
+            try (Connection connection = db.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+                for (int i = 0; i < slots; i++) {
+                    stmt.setString(i + 1, ids[start + Math.min(i, count - 1)]); // Repite el último ID en los sobrantes
+                }
+                stmt.setFetchSize(slots);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        students.add(new Student(rs.getString("id"), rs.getString("name"), rs.getString("email")));
+                    }
+                }
+            } catch (SQLException e) {
+                Log.error("EnrollmentDAO.findStudents failed", e);
+            }
+        }
+        return students;
+    }
+
+    // Consulta con JOIN, mientras el índice no está listo
+    private ArrayList<Student> queryStudentsByCourse(String courseCode) {
         ArrayList<Student> students = new ArrayList<>();
         String query = "SELECT s.id, s.name, s.email " +
                        "FROM Student s " +
                        "JOIN Enrollment e ON s.id = e.student_id " +
                        "WHERE e.course_code = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, courseCode); // Establece el valor del courseCode
             ResultSet rs = stmt.executeQuery(); // Ejecuta la consulta
             
@@ -166,7 +627,7 @@ public class EnrollmentDAO {
                 students.add(student);
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("EnrollmentDAO.queryStudentsByCourse failed", e);
         }
         
         return students; // Retorna la lista de estudiantes
@@ -176,7 +637,8 @@ public class EnrollmentDAO {
     public boolean authenticate(String studentId, String courseCode) {
         String sql = "SELECT COUNT(*) FROM Enrollment WHERE student_id=? AND course_code=?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, studentId); // Establece el valor del studentId
             stmt.setString(2, courseCode); // Establece el valor del courseCode
             
@@ -184,13 +646,13 @@ public class EnrollmentDAO {
                 if (rs.next()) {
                     int count = rs.getInt(1); // Obtiene el número de registros
                     if (count > 0) {
-                        System.out.println("The student is already enrolled in this course.");
+                        Log.debug("The student is already enrolled in this course.");
                         return false;  // Si el estudiante ya está inscrito, devuelve false
                     }
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("EnrollmentDAO.authenticate failed", e);
         }
         
         return true; // Si no está inscrito, devuelve true
@@ -199,30 +661,21 @@ public class EnrollmentDAO {
     // Método para verificar si un estudiante existe en la base de datos
     public boolean studentExists(String studentId) {
         String sql = "SELECT COUNT(*) FROM Student WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, studentId); // Establece el valor del studentId
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt(1) > 0; // Si el número de registros es mayor que 0, el estudiante existe
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
+            Log.error("EnrollmentDAO.studentExists failed", e);
         }
         return false; // Si no existe, retorna false
     }
 
-    // Método para verificar si un curso existe en la base de datos
+    // Método para verificar si un curso existe (se responde desde la caché del catálogo)
     public boolean courseExists(String courseCode) {
-        String sql = "SELECT COUNT(*) FROM Course WHERE code = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, courseCode); // Establece el valor del courseCode
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0; // Si el número de registros es mayor que 0, el curso existe
-            }
-        } catch (SQLException e) {
-            e.printStackTrace(); // Imprime el error si ocurre una excepción
-        }
-        return false; // Si no existe, retorna false
+        return courseDAO.exists(courseCode);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,385 @@
+package data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice en memoria de la relación estudiante <-> curso, para responder getCoursesByStudent y
+// getStudentsByCourse sin un JOIN por consulta. Se arma con un solo recorrido de la tabla Enrollment
+// (en segundo plano, la primera vez que se pide) y EnrollmentDAO lo mantiene al día en save/delete.
+// Los IDs de estudiante y códigos de curso se convierten en enteros consecutivos; cada lado guarda
+// un int[] de vecinos por vértice, así cada inscripción ocupa unos 8 bytes (4 por cada dirección).
+// Mientras no está listo, los DAOs consultan la base de datos como antes.
+public final class EnrollmentIndex {
+    private static final EnrollmentIndex instance = new EnrollmentIndex(); //Singleton
+
+    // Se reconstruye en segundo plano pasado este tiempo (-Denrollment.index.ttlMs), para ver
+    // las inscripciones que agregaron o quitaron otras estaciones
+    private final long ttlMs = Long.getLong("enrollment.index.ttlMs", 300_000);
+
+    // Un grafo completo e inmutable en su forma; los arreglos de vecinos sí cambian con add/remove
+    private static final class Graph {
+        final Map<String, Integer> studentIds = new HashMap<>();
+        final Map<String, Integer> courseIds = new HashMap<>();
+        final ArrayList<String> studentKeys = new ArrayList<>();
+        final ArrayList<String> courseKeys = new ArrayList<>();
+        int[][] coursesOf = new int[0][]; // Por estudiante: ids de sus cursos
+        int[] courseCount = new int[0];
+        int[][] studentsOf = new int[0][]; // Por curso: ids de sus estudiantes
+        int[] studentCount = new int[0];
+        long edges;
+        final long builtAt = System.currentTimeMillis();
+    }
+
+    // Cambio hecho mientras se armaba el índice; se aplica al terminar
+    private static final class PendingChange {
+        final String studentId;
+        final String courseCode;
+        final boolean added;
+
+        PendingChange(String studentId, String courseCode, boolean added) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+            this.added = added;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Graph graph; // null hasta que termina el primer armado
+    private boolean building;
+    private int generation; // Cambia con invalidate(); un armado que empezó antes se descarta
+    private ArrayList<PendingChange> pending = new ArrayList<>();
+
+    private EnrollmentIndex() {
+    }
+
+    public static EnrollmentIndex getInstance() {
+        return instance;
+    }
+
+    // true si el índice ya está armado y responde las consultas
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return graph != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Número de inscripciones en el índice
+    public long getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return graph == null ? 0 : graph.edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes de los arreglos de vecinos (incluidos encabezados y espacio libre) por inscripción.
+    // No cuenta los diccionarios de IDs, que dependen del número de estudiantes y cursos.
+    public double getBytesPerEdge() {
+        lock.readLock().lock();
+        try {
+            if (graph == null || graph.edges == 0) {
+                return 0;
+            }
+            long bytes = adjacencyBytes(graph.coursesOf, graph.studentKeys.size())
+                    + adjacencyBytes(graph.studentsOf, graph.courseKeys.size())
+                    + arrayBytes(graph.courseCount.length) + arrayBytes(graph.studentCount.length);
+            return (double) bytes / graph.edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Códigos de los cursos del estudiante, o null si el índice no está listo (hay que ir a la BD)
+    String[] coursesOf(String studentId, DBConnection db) {
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                refreshIfStale(db);
+                Integer s = graph.studentIds.get(studentId);
+                if (s == null || s >= graph.coursesOf.length) {
+                    return new String[0];
+                }
+                return keys(graph.coursesOf[s], graph.courseCount[s], graph.courseKeys);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        build(db);
+        return null;
+    }
+
+    // IDs de los estudiantes del curso, o null si el índice no está listo
+    String[] studentsOf(String courseCode, DBConnection db) {
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                refreshIfStale(db);
+                Integer c = graph.courseIds.get(courseCode);
+                if (c == null || c >= graph.studentsOf.length) {
+                    return new String[0];
+                }
+                return keys(graph.studentsOf[c], graph.studentCount[c], graph.studentKeys);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        build(db);
+        return null;
+    }
+
+    // Registra una inscripción guardada
+    void add(String studentId, String courseCode) {
+        change(new PendingChange(studentId, courseCode, true));
+    }
+
+    // Registra una inscripción eliminada
+    void remove(String studentId, String courseCode) {
+        change(new PendingChange(studentId, courseCode, false));
+    }
+
+    // Descarta el índice (p. ej. después de una carga masiva); la próxima consulta lo vuelve a armar
+    void invalidate() {
+        lock.writeLock().lock();
+        try {
+            graph = null;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(PendingChange change) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pending.add(change); // El recorrido en curso puede no haberla visto
+            }
+            if (graph != null) {
+                apply(graph, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Con el read lock tomado: si el índice venció, pide un nuevo armado sin dejar de usar el actual
+    private void refreshIfStale(DBConnection db) {
+        if (!building && System.currentTimeMillis() - graph.builtAt > ttlMs) {
+            DataExecutor.run(() -> build(db));
+        }
+    }
+
+    // Arma un índice nuevo en segundo plano, si no hay otro armado en curso
+    private void build(DBConnection db) {
+        int startGeneration;
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                return;
+            }
+            building = true;
+            startGeneration = generation;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        DataExecutor.run(() -> {
+            Graph built = scan(db);
+            lock.writeLock().lock();
+            try {
+                building = false;
+                if (built != null && startGeneration == generation) {
+                    for (PendingChange change : pending) {
+                        apply(built, change);
+                    }
+                    graph = built;
+                }
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Recorre Enrollment una vez y arma los dos lados; null si falló la consulta
+    private Graph scan(DBConnection db) {
+        long start = System.nanoTime();
+        Graph built = new Graph();
+        // Primero se juntan las aristas en dos arreglos planos; después cada vértice recibe
+        // un arreglo del tamaño exacto de sus vecinos
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int edges = 0;
+        String sql = "SELECT student_id, course_code FROM Enrollment";
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setFetchSize(Math.max(RowStreams.DEFAULT_FETCH_SIZE, 5_000));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (edges == from.length) {
+                        from = Arrays.copyOf(from, edges * 2);
+                        to = Arrays.copyOf(to, edges * 2);
+                    }
+                    from[edges] = intern(built.studentIds, built.studentKeys, rs.getString(1));
+                    to[edges] = intern(built.courseIds, built.courseKeys, rs.getString(2));
+                    edges++;
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error building enrollment index", e);
+            return null;
+        }
+
+        int students = built.studentKeys.size();
+        int courses = built.courseKeys.size();
+        built.courseCount = new int[students];
+        built.studentCount = new int[courses];
+        for (int i = 0; i < edges; i++) {
+            built.courseCount[from[i]]++;
+            built.studentCount[to[i]]++;
+        }
+        built.coursesOf = new int[students][];
+        for (int s = 0; s < students; s++) {
+            built.coursesOf[s] = new int[built.courseCount[s]];
+        }
+        built.studentsOf = new int[courses][];
+        for (int c = 0; c < courses; c++) {
+            built.studentsOf[c] = new int[built.studentCount[c]];
+        }
+        int[] courseFill = new int[students];
+        int[] studentFill = new int[courses];
+        for (int i = 0; i < edges; i++) {
+            built.coursesOf[from[i]][courseFill[from[i]]++] = to[i];
+            built.studentsOf[to[i]][studentFill[to[i]]++] = from[i];
+        }
+        built.edges = edges;
+
+        Log.info(String.format("Enrollment index built: %d enrollments, %d students, %d courses in %d ms (%.1f bytes/enrollment)",
+                edges, students, courses, (System.nanoTime() - start) / 1_000_000,
+                edges == 0 ? 0.0 : (double) (adjacencyBytes(built.coursesOf, students)
+                        + adjacencyBytes(built.studentsOf, courses) + arrayBytes(students) + arrayBytes(courses)) / edges));
+        return built;
+    }
+
+    // Aplica un alta o baja a los dos lados del grafo (idempotente)
+    private static void apply(Graph g, PendingChange change) {
+        if (change.added) {
+            int s = intern(g.studentIds, g.studentKeys, change.studentId);
+            int c = intern(g.courseIds, g.courseKeys, change.courseCode);
+            ensureVertices(g);
+            if (indexOf(g.coursesOf[s], g.courseCount[s], c) >= 0) {
+                return;
+            }
+            g.coursesOf[s] = append(g.coursesOf[s], g.courseCount[s]++, c);
+            g.studentsOf[c] = append(g.studentsOf[c], g.studentCount[c]++, s);
+            g.edges++;
+        } else {
+            Integer s = g.studentIds.get(change.studentId);
+            Integer c = g.courseIds.get(change.courseCode);
+            if (s == null || c == null || s >= g.coursesOf.length || c >= g.studentsOf.length) {
+                return;
+            }
+            if (removeValue(g.coursesOf[s], g.courseCount, s, c)) {
+                removeValue(g.studentsOf[c], g.studentCount, c, s);
+                g.edges--;
+            }
+        }
+    }
+
+    // Agranda los arreglos por vértice si se internaron estudiantes o cursos nuevos
+    private static void ensureVertices(Graph g) {
+        int students = g.studentKeys.size();
+        if (g.coursesOf.length < students) {
+            int size = Math.max(students, g.coursesOf.length + g.coursesOf.length / 2);
+            int old = g.coursesOf.length;
+            g.coursesOf = Arrays.copyOf(g.coursesOf, size);
+            g.courseCount = Arrays.copyOf(g.courseCount, size);
+            for (int i = old; i < size; i++) {
+                g.coursesOf[i] = new int[0];
+            }
+        }
+        int courses = g.courseKeys.size();
+        if (g.studentsOf.length < courses) {
+            int size = Math.max(courses, g.studentsOf.length + g.studentsOf.length / 2);
+            int old = g.studentsOf.length;
+            g.studentsOf = Arrays.copyOf(g.studentsOf, size);
+            g.studentCount = Arrays.copyOf(g.studentCount, size);
+            for (int i = old; i < size; i++) {
+                g.studentsOf[i] = new int[0];
+            }
+        }
+    }
+
+    private static int intern(Map<String, Integer> ids, ArrayList<String> keys, String key) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = keys.size();
+            ids.put(key, id);
+            keys.add(key);
+        }
+        return id;
+    }
+
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) {
+            // Crece de a poco (25%): los grados son chicos y el espacio libre cuenta por inscripción
+            values = Arrays.copyOf(values, Math.max(count + 2, count + count / 4));
+        }
+        values[count] = value;
+        return values;
+    }
+
+    // Quita value del arreglo de vecinos de vertex intercambiándolo con el último
+    private static boolean removeValue(int[] values, int[] counts, int vertex, int value) {
+        int count = counts[vertex];
+        int i = indexOf(values, count, value);
+        if (i < 0) {
+            return false;
+        }
+        values[i] = values[count - 1];
+        counts[vertex] = count - 1;
+        return true;
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] keys(int[] ids, int count, ArrayList<String> keys) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = keys.get(ids[i]);
+        }
+        return result;
+    }
+
+    // Tamaño aproximado en el heap: encabezado de 16 bytes más el contenido, alineado a 8
+    private static long arrayBytes(int ints) {
+        return (16 + 4L * ints + 7) & ~7L;
+    }
+
+    private static long adjacencyBytes(int[][] lists, int vertices) {
+        long bytes = (16 + 4L * lists.length + 7) & ~7L; // Arreglo de referencias (comprimidas)
+        for (int i = 0; i < vertices; i++) {
+            bytes += arrayBytes(lists[i].length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import model.Enrollment;
+
+// Cola de inscripciones para los picos de inicio de período: quien inscribe no espera a la base de
+// datos, deja el pedido acá y recibe un CompletableFuture con el resultado. El hilo
+// "enrollment-writer" junta los pedidos en bloques (hasta -Denroll.queue.batchSize, o lo que llegue en
+// -Denroll.queue.flushMs después del primero) y los guarda con un solo saveAll; las filas que el bloque
+// rechaza se reintentan con saveValidated para saber el motivo (DUPLICATE, NO_STUDENT, ...).
+//
+// Control de admisión: si la base de datos se atrasa, la cola no crece sin límite. Un pedido se
+// rechaza con BUSY cuando ya hay -Denroll.queue.limit pedidos sin terminar, o cuando el más viejo de
+// la cola lleva más de -Denroll.queue.maxWaitMs esperando. submit(enrollment) nunca bloquea (se puede
+// llamar desde el hilo de JavaFX); submit(enrollment, waitMs) espera lugar hasta waitMs antes de
+// rechazar, para productores en segundo plano que deben frenar al ritmo de la base (contrapresión).
+//
+// SeatReservations guarda por acá las reservas confirmadas.
+public final class EnrollmentQueue {
+
+    private static final int LIMIT = Integer.getInteger("enroll.queue.limit", 10_000);
+    private static final long MAX_WAIT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("enroll.queue.maxWaitMs", 10_000));
+    private static final int BATCH_SIZE = Integer.getInteger("enroll.queue.batchSize", 500);
+    private static final long FLUSH_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("enroll.queue.flushMs", 5));
+
+    private static final OperationStats WAITS = Metrics.register("EnrollmentQueue.request");
+    private static final OperationStats FLUSHES = Metrics.register("EnrollmentQueue.flush");
+
+    private static final EnrollmentQueue INSTANCE = new EnrollmentQueue();
+
+    public static EnrollmentQueue getInstance() {
+        return INSTANCE;
+    }
+
+    // Pedido en la cola
+    private static final class Request {
+        final Enrollment enrollment;
+        final Consumer<EnrollmentResult> onSaved; // Se llama en el hilo de escritura antes de completar
+        final CompletableFuture<EnrollmentResult> result = new CompletableFuture<>();
+        final long submittedAt = System.nanoTime();
+
+        Request(Enrollment enrollment, Consumer<EnrollmentResult> onSaved) {
+            this.enrollment = enrollment;
+            this.onSaved = onSaved;
+        }
+    }
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Semaphore admission = new Semaphore(LIMIT); // Un permiso por pedido sin terminar
+    private final AtomicLong rejected = new AtomicLong();
+    private final Thread writer;
+
+    // Bloques que empezaron y que terminaron de guardarse (ver SeatReservations)
+    private final AtomicLong flushesStarted = new AtomicLong();
+    private final AtomicLong flushesFinished = new AtomicLong();
+
+    private EnrollmentQueue() {
+        writer = new Thread(this::drain, "enrollment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Encola la inscripción; BUSY si la cola está llena o atrasada
+    public CompletableFuture<EnrollmentResult> submit(Enrollment enrollment) {
+        return submit(enrollment, 0, null);
+    }
+
+    // Igual, pero espera hasta waitMs a que haya lugar (no usar desde el hilo de JavaFX)
+    public CompletableFuture<EnrollmentResult> submit(Enrollment enrollment, long waitMs) {
+        return submit(enrollment, waitMs, null);
+    }
+
+    CompletableFuture<EnrollmentResult> submit(Enrollment enrollment, long waitMs, Consumer<EnrollmentResult> onSaved) {
+        Request request = new Request(enrollment, onSaved);
+        if (!admit(waitMs)) {
+            rejected.incrementAndGet();
+            finish(request, EnrollmentResult.BUSY);
+            return request.result;
+        }
+        queue.add(request);
+        return request.result;
+    }
+
+    // Pedidos sin terminar: en la cola o guardándose
+    public int size() {
+        return LIMIT - admission.availablePermits();
+    }
+
+    // Pedidos rechazados con BUSY desde que empezó la aplicación
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // true en el hilo que guarda los bloques (los stores no avisan a SeatReservations desde acá)
+    boolean isWriter() {
+        return Thread.currentThread() == writer;
+    }
+
+    long flushesStarted() {
+        return flushesStarted.get();
+    }
+
+    long flushesFinished() {
+        return flushesFinished.get();
+    }
+
+    private boolean admit(long waitMs) {
+        Request oldest = queue.peek();
+        if (oldest != null && System.nanoTime() - oldest.submittedAt > MAX_WAIT_NANOS) {
+            return false; // La base de datos no da abasto: esperar más solo alarga la cola
+        }
+        if (waitMs <= 0) {
+            return admission.tryAcquire();
+        }
+        try {
+            return admission.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void finish(Request request, EnrollmentResult result) {
+        try {
+            if (request.onSaved != null) {
+                request.onSaved.accept(result);
+            } else if (result == EnrollmentResult.OK) {
+                SeatReservations.getInstance().invalidate(request.enrollment.getCourseCode()); // Un cupo menos
+            }
+        } catch (Throwable e) {
+            // El hilo de escritura sigue: los demás pedidos del bloque también tienen que terminar
+            Log.error("EnrollmentQueue could not notify a saved enrollment", e);
+        }
+        WAITS.record(System.nanoTime() - request.submittedAt, 0, result == EnrollmentResult.ERROR);
+        request.result.complete(result);
+    }
+
+    // --- Guardado en bloques ---
+
+    private void drain() {
+        List<Request> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+                long deadline = System.nanoTime() + FLUSH_NANOS;
+                while (batch.size() < BATCH_SIZE) {
+                    Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                persist(batch);
+            } catch (Throwable e) {
+                // persist solo atrapa RuntimeException; un Error (p. ej. OutOfMemoryError) no puede matar
+                // el hilo de escritura: nadie más completaría los pedidos ni devolvería sus permisos
+                Log.error("EnrollmentQueue could not save a batch of " + batch.size() + " enrollments", e);
+                for (Request request : batch) {
+                    if (!request.result.isDone()) {
+                        finish(request, EnrollmentResult.ERROR);
+                    }
+                }
+            } finally {
+                admission.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<Request> batch) {
+        long start = System.nanoTime();
+        flushesStarted.incrementAndGet();
+        boolean failed = false;
+        try {
+            EnrollmentStore store = StorageBackend.getInstance().enrollments();
+            List<Enrollment> rows = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                rows.add(request.enrollment);
+            }
+            EnrollmentResult[] results = new EnrollmentResult[batch.size()];
+            try {
+                BatchResult<Enrollment> saved = store.saveAll(rows, BATCH_SIZE);
+                // Si las cuentas no cierran la carga se cortó y no se sabe qué filas quedaron (ver
+                // EnrollmentDAO.saveAll): ninguna se da por guardada, todas pasan por saveValidated
+                if (saved.getSavedCount() + saved.getFailures().size() == rows.size()) {
+                    Arrays.fill(results, EnrollmentResult.OK);
+                    for (BatchResult.Failure<Enrollment> failure : saved.getFailures()) {
+                        results[failure.getIndex()] = null;
+                    }
+                } else {
+                    failed = true;
+                    Log.warn("EnrollmentQueue: batch of " + batch.size() + " enrollments reported "
+                            + saved.getSavedCount() + " saved and " + saved.getFailures().size()
+                            + " failed; checking each row");
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+                Log.error("EnrollmentQueue could not save a batch of " + batch.size() + " enrollments", e);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Request request = batch.get(i);
+                EnrollmentResult result = results[i];
+                if (result == null) {
+                    // Rechazada en el bloque: saveValidated dice por qué (o la guarda si el bloque falló por otra)
+                    try {
+                        result = store.saveValidated(request.enrollment);
+                    } catch (RuntimeException e) {
+                        Log.error("EnrollmentQueue could not save an enrollment", e);
+                        result = EnrollmentResult.ERROR;
+                    }
+                }
+                finish(request, result);
+            }
+        } finally {
+            flushesFinished.incrementAndGet();
+            FLUSHES.record(System.nanoTime() - start, 0, failed);
+            FLUSHES.addRows(batch.size());
+        }
+    }
+}
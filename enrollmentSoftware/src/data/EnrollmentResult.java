@@ -0,0 +1,17 @@
+package data;
+
+// Resultado de EnrollmentDAO.saveValidated: indica si la inscripción se guardó o por qué se rechazó.
+// FULL y EXPIRED los da SeatReservations, BUSY EnrollmentQueue y MISSING_PREREQUISITE y
+// SCHEDULE_CONFLICT CourseRules.
+public enum EnrollmentResult {
+    OK,          // Inscripción guardada
+    NO_STUDENT,  // El estudiante no existe
+    NO_COURSE,   // El curso no existe
+    DUPLICATE,   // El estudiante ya está inscrito en el curso
+    FULL,        // El curso no tiene cupos libres
+    EXPIRED,     // El asiento apartado venció o se canceló antes de confirmarlo
+    BUSY,        // Demasiadas inscripciones en cola: intentar más tarde
+    MISSING_PREREQUISITE, // El estudiante no tomó todos los prerrequisitos del curso
+    SCHEDULE_CONFLICT,    // El horario del curso choca con otro curso del estudiante en el período
+    ERROR        // Error de base de datos
+}
@@ -0,0 +1,125 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Almacenamiento de inscripciones. Sigue el contrato de CRUD_Operation, pero la clave es
+// compuesta (studentId, courseCode), así que delete/authenticate reciben las dos partes.
+// EnrollmentDAO (Oracle) y MemoryEnrollmentStore (en memoria) lo implementan.
+public interface EnrollmentStore {
+    // C: Create (devuelve la inscripción guardada, o null si no se pudo guardar)
+    Enrollment save(Enrollment enrollment);
+    // Valida estudiante, curso y duplicado y guarda en una sola operación
+    EnrollmentResult saveValidated(Enrollment enrollment);
+    BatchResult<Enrollment> saveAll(Collection<Enrollment> enrollments, int batchSize);
+
+    default BatchResult<Enrollment> saveAll(Collection<Enrollment> enrollments) {
+        return saveAll(enrollments, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    // R: Read (lista completa, fila por fila, o como Stream que debe cerrarse)
+    List<Enrollment> fetch();
+    void fetch(Consumer<Enrollment> consumer);
+    Stream<Enrollment> stream();
+
+    // Todas las inscripciones en formato por columnas (ver EnrollmentTable); ocupa mucho menos que fetch()
+    default EnrollmentTable fetchTable() {
+        EnrollmentTable table = new EnrollmentTable(Math.max(count(), 16));
+        fetch(table::add);
+        table.trimToSize();
+        return table;
+    }
+
+    // Página ordenada por (studentId, courseCode) desde la clave from (inclusive) hasta to (exclusive);
+    // con from o to en null no hay límite de ese lado
+    ArrayList<Enrollment> fetchPage(String fromStudentId, String fromCourseCode,
+                                    String toStudentId, String toCourseCode, int pageSize);
+    // Clave inicial {studentId, courseCode} de cada página de pageSize filas
+    ArrayList<String[]> fetchPageKeys(int pageSize);
+    int count();
+    // Inscritos en el curso (para los cupos, ver SeatReservations); -1 si falló
+    int countByCourse(String courseCode);
+    ChangeSet<Enrollment> fetchChangedSince(long changeNumber);
+
+    // Créditos y cursos por estudiante, inscritos por curso e inscripciones por día en un solo
+    // recorrido (ver CreditReport); null si falló. Por defecto recorre fetchTable() en paralelo.
+    default CreditTotals creditTotals() {
+        return CreditTotals.of(fetchTable(), StorageBackend.getInstance().courses().fetch());
+    }
+
+    // Inscripciones cuyo studentId o courseCode empieza con prefix (vacío: todas) y con fecha entre
+    // from y to (inclusive; null: sin límite), ordenadas por (studentId, courseCode); a lo sumo limit filas
+    ArrayList<Enrollment> search(String prefix, LocalDate from, LocalDate to, int limit);
+
+    // U: Update (devuelve la inscripción actualizada, o null si no existía)
+    Enrollment update(Enrollment enrollment);
+    // D: Delete (devuelve true si se eliminó)
+    boolean delete(String studentId, String courseCode);
+    // Elimina todas las inscripciones del curso o del estudiante, antes de eliminarlo en la misma
+    // unidad de trabajo (ver UnitOfWork); devuelven cuántas se eliminaron, o -1 si falló
+    int deleteByCourse(String courseCode);
+    int deleteByStudent(String studentId);
+
+    ArrayList<Course> getCoursesByStudent(String studentId);
+    ArrayList<Student> getStudentsByCourse(String courseCode);
+    // true si el estudiante todavía NO está inscrito en el curso
+    boolean authenticate(String studentId, String courseCode);
+    boolean studentExists(String studentId);
+    boolean courseExists(String courseCode);
+
+    default ArrayList<Enrollment> fetchPage(String fromStudentId, String fromCourseCode, int pageSize) {
+        return fetchPage(fromStudentId, fromCourseCode, null, null, pageSize);
+    }
+
+    // Versiones asíncronas: se ejecutan en DataExecutor, fuera del hilo de JavaFX
+    default CompletableFuture<Enrollment> saveAsync(Enrollment enrollment) {
+        return DataExecutor.supply(() -> save(enrollment));
+    }
+
+    default CompletableFuture<EnrollmentResult> saveValidatedAsync(Enrollment enrollment) {
+        return DataExecutor.supply(() -> saveValidated(enrollment));
+    }
+
+    default CompletableFuture<List<Enrollment>> fetchAsync() {
+        return DataExecutor.supply(this::fetch);
+    }
+
+    default CompletableFuture<ArrayList<Enrollment>> fetchPageAsync(String fromStudentId, String fromCourseCode,
+                                                                    String toStudentId, String toCourseCode, int pageSize) {
+        return DataExecutor.supply(() -> fetchPage(fromStudentId, fromCourseCode, toStudentId, toCourseCode, pageSize));
+    }
+
+    default CompletableFuture<Enrollment> updateAsync(Enrollment enrollment) {
+        return DataExecutor.supply(() -> update(enrollment));
+    }
+
+    default CompletableFuture<Boolean> deleteAsync(String studentId, String courseCode) {
+        return DataExecutor.supply(() -> delete(studentId, courseCode));
+    }
+
+    // Cancelar el future descarta la búsqueda (en Oracle también se cancela la consulta)
+    default CompletableFuture<ArrayList<Enrollment>> searchAsync(String prefix, LocalDate from, LocalDate to, int limit) {
+        return DataExecutor.supply(() -> search(prefix, from, to, limit));
+    }
+
+    default CompletableFuture<ChangeSet<Enrollment>> fetchChangedSinceAsync(long changeNumber) {
+        return DataExecutor.supply(() -> fetchChangedSince(changeNumber));
+    }
+
+    default CompletableFuture<ArrayList<Course>> getCoursesByStudentAsync(String studentId) {
+        return DataExecutor.supply(() -> getCoursesByStudent(studentId));
+    }
+
+    default CompletableFuture<ArrayList<Student>> getStudentsByCourseAsync(String courseCode) {
+        return DataExecutor.supply(() -> getStudentsByCourse(courseCode));
+    }
+}
@@ -0,0 +1,217 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Enrollment;
+
+// Inscripciones guardadas por columnas: el estudiante y el curso de cada fila son enteros que
+// apuntan a diccionarios compartidos (cada ID y cada código se guarda una sola vez) y la fecha es
+// el número de día (epoch day). Son 12 bytes por fila en lugar de un Enrollment con dos String y
+// un LocalDate propios. get(i) devuelve una vista liviana (Row) que lee y escribe en las columnas,
+// así que la tabla se puede mostrar en un TableView como cualquier lista de Enrollment.
+// No es segura para hilos: se arma en un hilo y después se lee (o modifica) desde uno solo.
+public final class EnrollmentTable {
+
+    // Valores distintos de una columna de texto, numerados en orden de aparición
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        String valueOf(int id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private final Dictionary students = new Dictionary();
+    private final Dictionary courses = new Dictionary();
+    private int[] studentCol;
+    private int[] courseCol;
+    private int[] dateCol;
+    private int size;
+
+    public EnrollmentTable() {
+        this(1024);
+    }
+
+    public EnrollmentTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        studentCol = new int[capacity];
+        courseCol = new int[capacity];
+        dateCol = new int[capacity];
+    }
+
+    // Agrega una fila; el LocalDate no se guarda, solo su número de día
+    public void add(String studentId, String courseCode, long epochDay) {
+        if (size == studentCol.length) {
+            int capacity = Math.max(size + (size >> 1), 16); // Después de trimToSize puede quedar en 0 o 1
+            studentCol = Arrays.copyOf(studentCol, capacity);
+            courseCol = Arrays.copyOf(courseCol, capacity);
+            dateCol = Arrays.copyOf(dateCol, capacity);
+        }
+        studentCol[size] = students.idOf(studentId);
+        courseCol[size] = courses.idOf(courseCode);
+        dateCol[size] = (int) epochDay;
+        size++;
+    }
+
+    public void add(Enrollment enrollment) {
+        add(enrollment.getStudentId(), enrollment.getCourseCode(), enrollment.getEnrollmentDate().toEpochDay());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getStudentId(int row) {
+        return students.valueOf(studentCol[checkRow(row)]);
+    }
+
+    public String getCourseCode(int row) {
+        return courses.valueOf(courseCol[checkRow(row)]);
+    }
+
+    public int getEpochDay(int row) {
+        return dateCol[checkRow(row)];
+    }
+
+    public LocalDate getEnrollmentDate(int row) {
+        return LocalDate.ofEpochDay(getEpochDay(row));
+    }
+
+    // Vista de la fila; varias vistas de la misma fila son iguales (equals)
+    public Enrollment get(int row) {
+        return new Row(this, checkRow(row));
+    }
+
+    // Todas las filas como lista de vistas (de solo lectura en tamaño; las vistas sí se pueden modificar)
+    public List<Enrollment> asList() {
+        return new AbstractList<Enrollment>() {
+            @Override
+            public Enrollment get(int index) {
+                return EnrollmentTable.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Estudiantes y cursos distintos guardados en los diccionarios
+    public int getDistinctStudents() {
+        return students.size();
+    }
+
+    public int getDistinctCourses() {
+        return courses.size();
+    }
+
+    // Números de diccionario de la fila y sus valores, para recorrer la tabla sin crear Strings
+    // (ver CreditTotals.of)
+    int studentIndex(int row) {
+        return studentCol[row];
+    }
+
+    int courseIndex(int row) {
+        return courseCol[row];
+    }
+
+    String studentKey(int index) {
+        return students.valueOf(index);
+    }
+
+    String courseKey(int index) {
+        return courses.valueOf(index);
+    }
+
+    // Libera la capacidad sobrante de las columnas después de llenarlas
+    public void trimToSize() {
+        studentCol = Arrays.copyOf(studentCol, size);
+        courseCol = Arrays.copyOf(courseCol, size);
+        dateCol = Arrays.copyOf(dateCol, size);
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return row;
+    }
+
+    // Vista de una fila: no guarda datos propios, lee y escribe en las columnas de la tabla
+    private static final class Row extends Enrollment {
+        private final EnrollmentTable table;
+        private final int row;
+
+        private Row(EnrollmentTable table, int row) {
+            super(null, null, null);
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public String getStudentId() {
+            return table.getStudentId(row);
+        }
+
+        @Override
+        public void setStudentId(String studentId) {
+            table.studentCol[row] = table.students.idOf(studentId);
+        }
+
+        @Override
+        public String getCourseCode() {
+            return table.getCourseCode(row);
+        }
+
+        @Override
+        public void setCourseCode(String courseCode) {
+            table.courseCol[row] = table.courses.idOf(courseCode);
+        }
+
+        @Override
+        public LocalDate getEnrollmentDate() {
+            return table.getEnrollmentDate(row);
+        }
+
+        @Override
+        public void setEnrollmentDate(LocalDate enrollmentDate) {
+            table.dateCol[row] = (int) enrollmentDate.toEpochDay();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Row)) {
+                return false;
+            }
+            Row other = (Row) obj;
+            return table == other.table && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(table) * 31 + row;
+        }
+    }
+}
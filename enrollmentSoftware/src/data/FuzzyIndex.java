@@ -0,0 +1,448 @@
+package data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import model.Course;
+import model.Student;
+
+// Índice difuso en memoria para buscar estudiantes y cursos mientras se escribe, con tolerancia a
+// errores de tipeo y a palabras incompletas. Cada campo (ID/código, nombre, correo) se normaliza
+// (minúsculas, sin tildes) y se parte en trigramas: "juan" -> " ju", "jua", "uan", "an ". Por cada
+// trigrama se guarda la lista de documentos que lo contienen; una búsqueda cuenta, por documento,
+// cuántos trigramas de la consulta comparte y devuelve los K mejores. Como solo hay 37 símbolos
+// (separador, a-z, 0-9), cada trigrama es un entero menor a 37^3 y las listas están en un arreglo.
+// Se arma con un recorrido por streaming del store (fetch(Consumer)) la primera vez que se pide y
+// los DAOs lo mantienen al día en save/update/delete. Pasado -Dsearch.fuzzy.ttlMs (300000) se
+// vuelve a armar en segundo plano para ver los cambios de otras estaciones.
+public final class FuzzyIndex<T> {
+
+    private static final int SYMBOLS = 37;
+    private static final int GRAMS = SYMBOLS * SYMBOLS * SYMBOLS;
+
+    private static final FuzzyIndex<Student> STUDENTS = new FuzzyIndex<>("students", Student::getId,
+            s -> new String[] { s.getId(), s.getName(), s.getEmail() }, MemoryEngine::copy,
+            consumer -> StorageBackend.getInstance().students().fetch(consumer));
+    private static final FuzzyIndex<Course> COURSES = new FuzzyIndex<>("courses", Course::getCode,
+            c -> new String[] { c.getCode(), c.getName() }, MemoryEngine::copy,
+            consumer -> StorageBackend.getInstance().courses().fetch(consumer));
+
+    private final long ttlMs = Long.getLong("search.fuzzy.ttlMs", 300_000);
+
+    private final String name;
+    private final Function<T, String> keyOf;
+    private final Function<T, String[]> fieldsOf;
+    private final UnaryOperator<T> copy;
+    private final Consumer<Consumer<T>> source;
+
+    // Contenido de un armado. Un documento actualizado o eliminado queda marcado (docs[id] == null)
+    // y sus entradas en las listas se saltan; con muchos marcados se arma de nuevo.
+    private static final class Data {
+        final int[][] postings = new int[GRAMS][];
+        final int[] postingSize = new int[GRAMS];
+        final Map<String, Integer> docByKey = new HashMap<>();
+        Object[] docs = new Object[1024];
+        String[][] normalized = new String[1024][]; // Campos normalizados, para premiar prefijos
+        int[] gramCount = new int[1024];
+        int size;
+        int dead;
+        final long builtAt = System.currentTimeMillis();
+    }
+
+    // Cambio hecho mientras se armaba el índice; se aplica al terminar
+    private static final class PendingChange<T> {
+        final String key;
+        final T item; // null si se eliminó
+
+        PendingChange(String key, T item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
+    // Contadores por documento de una búsqueda. Se reutilizan entre búsquedas del mismo hilo (casi
+    // siempre el de JavaFX) y al terminar solo se limpian los documentos tocados, en lugar de pedir
+    // y poner en cero un arreglo del tamaño del índice cada vez.
+    private static final class Scratch {
+        int[] hits = new int[0];
+        int[] touched = new int[256];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Data data; // null hasta que termina el primer armado
+    private boolean building;
+    private int generation; // Cambia con invalidate(); un armado que empezó antes se descarta
+    private ArrayList<PendingChange<T>> pending = new ArrayList<>();
+
+    private FuzzyIndex(String name, Function<T, String> keyOf, Function<T, String[]> fieldsOf,
+                       UnaryOperator<T> copy, Consumer<Consumer<T>> source) {
+        this.name = name;
+        this.keyOf = keyOf;
+        this.fieldsOf = fieldsOf;
+        this.copy = copy;
+        this.source = source;
+    }
+
+    public static FuzzyIndex<Student> students() {
+        return STUDENTS;
+    }
+
+    public static FuzzyIndex<Course> courses() {
+        return COURSES;
+    }
+
+    // true si el índice ya está armado y responde las búsquedas
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return data != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Empieza a armar el índice en segundo plano si todavía no existe
+    public void prepare() {
+        if (!isReady()) {
+            build();
+        }
+    }
+
+    // Número de documentos vigentes en el índice
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data == null ? 0 : data.docByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Los limit documentos que mejor coinciden con query (copias), del mejor al peor; null si el
+    // índice no está listo (se empieza a armar y hay que buscar en el store)
+    public List<T> search(String query, int limit) {
+        String normalizedQuery = normalize(query).trim();
+        int[] grams = gramsOf(false, normalizedQuery);
+        lock.readLock().lock();
+        try {
+            if (data != null) {
+                refreshIfStale();
+                return grams.length == 0 || limit <= 0 ? new ArrayList<>() : rank(data, grams, normalizedQuery, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        build();
+        return null;
+    }
+
+    // Registra un documento guardado o actualizado
+    void put(T item) {
+        change(new PendingChange<>(keyOf.apply(item), copy.apply(item)));
+    }
+
+    // Registra un documento eliminado
+    void remove(String key) {
+        change(new PendingChange<>(key, null));
+    }
+
+    // Descarta el índice (p. ej. después de una carga masiva); la próxima búsqueda lo vuelve a armar
+    void invalidate() {
+        lock.writeLock().lock();
+        try {
+            data = null;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(PendingChange<T> change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pending.add(change); // El recorrido en curso puede no haberlo visto
+            }
+            if (data == null) {
+                return;
+            }
+            apply(data, change);
+            compact = !building && data.dead > 1_000 && data.dead > data.size / 4;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            build();
+        }
+    }
+
+    private void apply(Data d, PendingChange<T> change) {
+        if (change.item != null) {
+            add(d, change.key, change.item);
+        } else {
+            Integer old = d.docByKey.remove(change.key);
+            if (old != null) {
+                kill(d, old);
+            }
+        }
+    }
+
+    // Con el read lock tomado: si el índice venció, pide un nuevo armado sin dejar de usar el actual
+    private void refreshIfStale() {
+        if (!building && System.currentTimeMillis() - data.builtAt > ttlMs) {
+            DataExecutor.run(this::build);
+        }
+    }
+
+    // Arma un índice nuevo en segundo plano, si no hay otro armado en curso
+    private void build() {
+        int startGeneration;
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                return;
+            }
+            building = true;
+            startGeneration = generation;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        DataExecutor.run(() -> {
+            Data built = null;
+            try {
+                built = scan();
+            } catch (RuntimeException e) {
+                Log.error("Error building the " + name + " fuzzy index", e);
+            }
+            lock.writeLock().lock();
+            try {
+                building = false;
+                // Un recorrido vacío puede ser una consulta fallida (fetch(Consumer) solo la registra):
+                // si ya había un índice se conserva
+                boolean usable = built != null && (built.size > 0 || data == null);
+                if (usable && startGeneration == generation) {
+                    for (PendingChange<T> change : pending) {
+                        apply(built, change);
+                    }
+                    data = built;
+                }
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Data scan() {
+        long start = System.nanoTime();
+        Data built = new Data();
+        // Las filas del recorrido son objetos nuevos: no hace falta copiarlas
+        source.accept(item -> add(built, keyOf.apply(item), item));
+        Log.info(String.format("Fuzzy index of %s built: %,d documents in %.1f ms", name, built.size,
+                (System.nanoTime() - start) / 1e6));
+        return built;
+    }
+
+    private void add(Data d, String key, T item) {
+        Integer old = d.docByKey.get(key);
+        if (old != null) {
+            kill(d, old);
+        }
+        int id = d.size++;
+        if (id == d.docs.length) {
+            d.docs = Arrays.copyOf(d.docs, id * 2);
+            d.normalized = Arrays.copyOf(d.normalized, id * 2);
+            d.gramCount = Arrays.copyOf(d.gramCount, id * 2);
+        }
+        String[] fields = fieldsOf.apply(item);
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        int[] grams = gramsOf(true, normalized);
+        for (int gram : grams) {
+            int[] list = d.postings[gram];
+            int n = d.postingSize[gram];
+            if (list == null) {
+                list = d.postings[gram] = new int[4];
+            } else if (n == list.length) {
+                list = d.postings[gram] = Arrays.copyOf(list, n * 2);
+            }
+            list[n] = id;
+            d.postingSize[gram] = n + 1;
+        }
+        d.docs[id] = item;
+        d.normalized[id] = normalized;
+        d.gramCount[id] = grams.length;
+        d.docByKey.put(key, id);
+    }
+
+    private static void kill(Data d, int id) {
+        d.docs[id] = null;
+        d.normalized[id] = null;
+        d.dead++;
+    }
+
+    // Puntaje: qué parte de la consulta aparece en el documento (lo principal) más el coeficiente de
+    // Dice, que prefiere documentos cortos; los candidatos que empiezan igual que la consulta suben
+    @SuppressWarnings("unchecked")
+    private List<T> rank(Data d, int[] grams, String query, int limit) {
+        Scratch scratch = SCRATCH.get();
+        if (scratch.hits.length < d.size) {
+            scratch.hits = new int[Math.max(d.size, scratch.hits.length * 2)];
+        }
+        int[] hits = scratch.hits;
+        int[] touched = scratch.touched;
+        int touchedCount = 0;
+        for (int gram : grams) {
+            int[] list = d.postings[gram];
+            int n = d.postingSize[gram];
+            for (int i = 0; i < n; i++) {
+                int id = list[i];
+                if (hits[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = scratch.touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        // Hace falta compartir al menos un tercio de los trigramas de la consulta
+        int minHits = Math.max(1, grams.length / 3);
+        int candidates = limit * 4;
+        PriorityQueue<double[]> best = new PriorityQueue<>(candidates + 1, (a, b) -> Double.compare(a[0], b[0]));
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            int h = hits[id];
+            hits[id] = 0;
+            if (h < minHits || d.docs[id] == null) {
+                continue;
+            }
+            double score = (double) h / grams.length + 0.25 * 2.0 * h / (grams.length + d.gramCount[id]);
+            if (best.size() < candidates) {
+                best.add(new double[] { score, id });
+            } else if (score > best.peek()[0]) {
+                best.poll();
+                best.add(new double[] { score, id });
+            }
+        }
+
+        ArrayList<double[]> ranked = new ArrayList<>(best);
+        for (double[] candidate : ranked) {
+            candidate[0] += prefixBonus(d.normalized[(int) candidate[1]], query);
+        }
+        // A igual puntaje, por clave
+        ranked.sort((a, b) -> a[0] != b[0] ? Double.compare(b[0], a[0])
+                : keyOf.apply((T) d.docs[(int) a[1]]).compareTo(keyOf.apply((T) d.docs[(int) b[1]])));
+        ArrayList<T> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(copy.apply((T) d.docs[(int) ranked.get(i)[1]]));
+        }
+        return result;
+    }
+
+    // +1 si la clave empieza con la consulta, +0.5 si alguna palabra de otro campo empieza con ella
+    private static double prefixBonus(String[] fields, String query) {
+        if (fields[0].startsWith(query)) {
+            return 1;
+        }
+        for (int i = 1; i < fields.length; i++) {
+            String field = fields[i];
+            for (int at = field.indexOf(query); at >= 0; at = field.indexOf(query, at + 1)) {
+                if (at == 0 || field.charAt(at - 1) == ' ') {
+                    return 0.5;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Minúsculas sin tildes; todo lo que no es letra o dígito pasa a ser un espacio
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbol(text.charAt(i));
+            out.append(symbol == 0 ? ' ' : symbol <= 26 ? (char) ('a' + symbol - 1) : (char) ('0' + symbol - 27));
+        }
+        return out.toString();
+    }
+
+    // 0 = separador, 1-26 = a-z, 27-36 = 0-9
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        if (c < 128) {
+            return 0;
+        }
+        // Letras con tilde, ñ, ü...: se queda la letra base
+        char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+        return base < 128 ? symbol(base) : 0;
+    }
+
+    // Trigramas distintos de los textos ya normalizados, cada palabra rodeada de separadores. Con
+    // closeLast en false la última palabra no se cierra: en una consulta puede estar a medio escribir.
+    private static int[] gramsOf(boolean closeLast, String... texts) {
+        int[] grams = new int[16];
+        int count = 0;
+        for (int t = 0; t < texts.length; t++) {
+            String text = texts[t];
+            boolean close = closeLast || t < texts.length - 1;
+            int a = 0;
+            int b = 0;
+            int length = text.length();
+            for (int i = 0; i <= length; i++) {
+                int c = i < length ? symbol(text.charAt(i)) : 0;
+                if (c == 0 && b == 0) {
+                    continue; // Separadores seguidos
+                }
+                if (i == length && !close) {
+                    break;
+                }
+                // Un trigrama con el separador al medio cruzaría dos palabras
+                if (b != 0 || a == 0) {
+                    if (!(a == 0 && b == 0)) {
+                        if (count == grams.length) {
+                            grams = Arrays.copyOf(grams, count * 2);
+                        }
+                        grams[count++] = (a * SYMBOLS + b) * SYMBOLS + c;
+                    }
+                }
+                a = b;
+                b = c;
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
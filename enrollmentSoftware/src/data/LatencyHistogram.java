@@ -0,0 +1,92 @@
+package data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias en nanosegundos con cubetas log-lineales, como HdrHistogram: cada potencia
+// de dos se divide en 32 cubetas iguales, así que cualquier percentil sale con un error menor al 3,2%
+// usando memoria fija (~9 KB) sin importar cuántos valores se registren. Los valores mayores a
+// MAX_NANOS (unos 18 minutos) cuentan en la última cubeta. record() no toma bloqueos.
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final long MAX_NANOS = (1L << 40) - 1;
+    private static final int BUCKETS = indexOf(MAX_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_NANOS);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long getCount() {
+        return total.sum();
+    }
+
+    long getSumNanos() {
+        return sum.sum();
+    }
+
+    long getMaxNanos() {
+        return max.get();
+    }
+
+    // Valor (límite superior de su cubeta) por debajo del cual queda la fracción quantile de los registros
+    long percentileNanos(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    // Los valores menores a SUB_BUCKETS tienen cubeta propia; los demás, según su potencia de dos
+    // (exponente) y los SUB_BITS bits siguientes al más alto
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
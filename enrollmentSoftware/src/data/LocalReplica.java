@@ -0,0 +1,559 @@
+package data;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Réplica local para abrir y usar la aplicación sin Oracle (solo con -Dstorage.backend=jdbc).
+// En -Doffline.dir (por defecto ~/.enrollment/offline) se guarda una instantánea binaria de cursos,
+// estudiantes e inscripciones (ver LocalSnapshot). Si existe, la aplicación arranca en modo LOCAL: las
+// pantallas leen de la instantánea, mapeada y cargada en un MemoryEngine, sin esperar a la base de
+// datos. Los cambios hechos en modo LOCAL van al journal (un WriteAheadLog junto a la instantánea) y se
+// envían a Oracle en orden al volver (goOnline), que se prueba cada -Doffline.probeSeconds (por
+// defecto 30). Si Oracle deja de responder estando en línea, la operación que no pudo abrir una
+// conexión se repite en la réplica y se pasa a modo LOCAL.
+// En línea, cada -Doffline.refreshMinutes (por defecto 10) la instantánea se pone al día y se guarda
+// de nuevo (reconcile). Con -Doffline.enabled=false no se usa.
+public final class LocalReplica {
+    private static final LocalReplica instance = new LocalReplica(); //Singleton
+
+    public enum Mode {
+        ONLINE, // Las operaciones van a Oracle
+        LOCAL   // Las operaciones van a la réplica y los cambios al journal
+    }
+
+    private static final String JOURNAL = "journal.wal";
+
+    private final boolean enabled = Boolean.parseBoolean(System.getProperty("offline.enabled", "true"))
+            && System.getProperty("storage.backend", "jdbc").equals("jdbc");
+    private final Path dir = Paths.get(System.getProperty("offline.dir",
+            Paths.get(System.getProperty("user.home"), ".enrollment", "offline").toString()));
+    private final long probeSeconds = Long.getLong("offline.probeSeconds", 30);
+    private final long refreshMillis = TimeUnit.MINUTES.toMillis(Long.getLong("offline.refreshMinutes", 10));
+
+    private final List<Consumer<Mode>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, Object> online = new ConcurrentHashMap<>(); // Store de Oracle de cada tipo
+    private final ReentrantLock reconciling = new ReentrantLock();
+    private volatile Mode mode = Mode.ONLINE;
+    private volatile Local local; // Réplica cargada; null hasta que se necesita y al volver a Oracle
+    private LocalSnapshot opened; // Instantánea abierta al iniciar, hasta cargarla en la réplica
+    private volatile long snapshotAt; // Cuándo se guardó la instantánea más reciente; 0 si no hay
+    private volatile long reconciledAt;
+
+    // La réplica cargada: el motor con la instantánea y el journal, y un store de cada tipo sobre él
+    private static final class Local {
+        final MemoryEngine engine;
+        final Map<Class<?>, Object> stores = new HashMap<>();
+        final Map<Class<?>, Long> changeNumbers = new HashMap<>(); // De Oracle, al guardar la instantánea
+
+        Local(LocalSnapshot snapshot, MemoryEngine engine) {
+            this.engine = engine;
+            stores.put(CourseStore.class, new MemoryCourseStore(engine));
+            stores.put(StudentStore.class, new MemoryStudentStore(engine));
+            stores.put(EnrollmentStore.class, new MemoryEnrollmentStore(engine));
+            changeNumbers.put(CourseStore.class, snapshot.getChangeNumber(LocalSnapshot.COURSES));
+            changeNumbers.put(StudentStore.class, snapshot.getChangeNumber(LocalSnapshot.STUDENTS));
+            changeNumbers.put(EnrollmentStore.class, snapshot.getChangeNumber(LocalSnapshot.ENROLLMENTS));
+        }
+    }
+
+    private LocalReplica() {
+        if (!enabled) {
+            return;
+        }
+        opened = LocalSnapshot.open(dir);
+        if (opened != null) {
+            snapshotAt = opened.getSavedAt();
+            reconciledAt = snapshotAt;
+            mode = Mode.LOCAL; // Las pantallas leen la instantánea mientras se abre el pool
+        }
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "local-replica");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::tick, probeSeconds, probeSeconds, TimeUnit.SECONDS);
+    }
+
+    public static LocalReplica getInstance() {
+        return instance;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isLocal() {
+        return mode == Mode.LOCAL;
+    }
+
+    // Cuándo se guardó la instantánea más reciente (epoch ms), o 0 si todavía no hay ninguna
+    public long getSnapshotTime() {
+        return snapshotAt;
+    }
+
+    // Cambios hechos sin conexión que todavía no se enviaron a Oracle
+    public long getPendingChanges() {
+        Local current = local;
+        return current == null ? 0 : current.engine.getLogRecordCount();
+    }
+
+    // listener recibe el modo nuevo en el hilo que lo cambió (no en el de JavaFX)
+    public void addListener(Consumer<Mode> listener) {
+        listeners.add(listener);
+    }
+
+    // Carga la réplica si se está trabajando con ella (Startup, antes de abrir el pool)
+    public void prepare() {
+        if (mode == Mode.LOCAL) {
+            current();
+        }
+    }
+
+    // Vuelve a Oracle: envía los cambios del journal en orden y pasa a modo ONLINE. Lo llaman Startup
+    // después de abrir el pool y el sondeo periódico. false si Oracle dejó de responder a mitad del
+    // envío: se sigue en modo LOCAL y la próxima vez se envía el journal completo (cada cambio se
+    // guarda encima de lo que haya, así que repetir los ya enviados no cambia el resultado).
+    public boolean goOnline() {
+        if (!enabled) {
+            return true;
+        }
+        boolean switched;
+        synchronized (this) {
+            Local current = local;
+            if (mode == Mode.ONLINE && current == null && !Files.exists(journal())) {
+                return true;
+            }
+            boolean sent = current == null ? sendJournal(null)
+                    : current.engine.exclusive(() -> sendJournal(current.engine)); // Sin escrituras locales a medias
+            if (!sent) {
+                return false;
+            }
+            local = null;
+            opened = null;
+            switched = mode == Mode.LOCAL;
+            mode = Mode.ONLINE;
+        }
+        if (switched) {
+            Log.info("Database reachable: back to online mode");
+            changed(Mode.ONLINE);
+        }
+        return true;
+    }
+
+    // Pone al día la instantánea con Oracle y la guarda en un archivo nuevo; true si se guardó. Corre
+    // en segundo plano. Cursos y estudiantes se leen completos (son pocos, y los borrados de otras
+    // estaciones no dejan rastro en ORA_ROWSCN); las inscripciones son las de la instantánea anterior
+    // más las cambiadas desde su número de cambio, y se leen completas solo si el total no coincide
+    // con count() (hubo borrados). Si alguna lectura falla se conserva la instantánea anterior.
+    public boolean reconcile() {
+        if (!enabled || mode == Mode.LOCAL || online.size() < 3 || !reconciling.tryLock()) {
+            return false;
+        }
+        try {
+            CourseStore courses = store(CourseStore.class);
+            StudentStore students = store(StudentStore.class);
+            EnrollmentStore enrollments = store(EnrollmentStore.class);
+            DBConnection db = DBConnection.getInstance();
+            int failures = db.getFailedOpens();
+            long errors = Metrics.errorCount();
+            long start = System.nanoTime();
+
+            // Los números de cambio antes que las filas: lo que cambie mientras tanto entra en la próxima
+            long courseChange = courses.fetchChangedSince(-1).getChangeNumber();
+            long studentChange = students.fetchChangedSince(-1).getChangeNumber();
+            ArrayList<Course> courseRows = courses.fetch();
+            ArrayList<Student> studentRows = students.fetch();
+            EnrollmentRead read = readEnrollments(LocalSnapshot.open(dir), enrollments);
+            if (db.getFailedOpens() != failures || Metrics.errorCount() != errors) {
+                Log.warn("Local snapshot not updated: reading from the database failed");
+                if (db.getFailedOpens() != failures) {
+                    goLocal();
+                }
+                return false;
+            }
+            snapshotAt = LocalSnapshot.write(dir, new long[] { courseChange, studentChange, read.changeNumber },
+                    courseRows, studentRows, read.table);
+            reconciledAt = System.currentTimeMillis();
+            Log.info(String.format("Local snapshot saved: %d courses, %d students, %d enrollments (%s) in %d ms",
+                    courseRows.size(), studentRows.size(), read.table.size(),
+                    read.changed < 0 ? "full read" : read.changed + " changed enrollments", (System.nanoTime() - start) / 1_000_000));
+            return true;
+        } catch (IOException e) {
+            Log.error("Cannot save the local snapshot in " + dir, e);
+            return false;
+        } finally {
+            reconciling.unlock();
+        }
+    }
+
+    // Store que va a Oracle o a la réplica según el modo, medido por Metrics (lo arma JdbcBackend)
+    <T> T route(Class<T> type, T onlineStore, Class<? extends T> localClass) {
+        if (!enabled) {
+            return Metrics.instrument(type, onlineStore);
+        }
+        online.put(type, onlineStore);
+        Router<T> router = new Router<>(type, onlineStore, localClass);
+        T routed = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, router));
+        T instrumented = Metrics.instrument(type, routed);
+        router.outer = instrumented;
+        return instrumented;
+    }
+
+    // Unidad de trabajo de JdbcBackend: sobre la réplica en modo LOCAL o si Oracle no responde
+    UnitOfWork begin(DBConnection db, UnitOfWork.Isolation isolation) {
+        Local current = mode == Mode.LOCAL ? current() : null;
+        if (current != null) {
+            return UnitOfWork.memory(current.engine);
+        }
+        int failures = db.getFailedOpens();
+        try {
+            return UnitOfWork.jdbc(db, isolation);
+        } catch (IllegalStateException e) {
+            Local fallback = enabled && db.getFailedOpens() != failures && goLocal() ? current() : null;
+            if (fallback != null) {
+                return UnitOfWork.memory(fallback.engine);
+            }
+            throw e;
+        }
+    }
+
+    // Al cerrar la aplicación (StorageBackend.shutdown): el journal queda escrito para la próxima vez
+    void close() {
+        synchronized (this) {
+            Local current = local;
+            local = null;
+            if (current != null) {
+                current.engine.close();
+            }
+        }
+    }
+
+    // Oracle no responde: pasa a modo LOCAL; false si no hay réplica que usar
+    boolean goLocal() {
+        synchronized (this) {
+            if (!enabled || current() == null) {
+                return false;
+            }
+            if (mode == Mode.LOCAL) {
+                return true;
+            }
+            mode = Mode.LOCAL;
+        }
+        Log.warn("Database unreachable: working on the local replica");
+        changed(Mode.LOCAL);
+        return true;
+    }
+
+    // La réplica, cargándola si hace falta; null si no hay instantánea o no se pudo cargar
+    private Local current() {
+        Local current = local;
+        return current != null ? current : load();
+    }
+
+    private synchronized Local load() {
+        if (local != null || !enabled) {
+            return local;
+        }
+        LocalSnapshot snapshot = opened != null ? opened : LocalSnapshot.open(dir);
+        opened = null;
+        if (snapshot == null) {
+            mode = Mode.ONLINE; // Sin réplica no hay modo local
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            local = new Local(snapshot, MemoryEngine.replica(snapshot, journal()));
+        } catch (RuntimeException e) {
+            Log.error("Cannot load the local replica from " + snapshot.getFile(), e);
+            mode = Mode.ONLINE;
+            return null;
+        }
+        snapshotAt = snapshot.getSavedAt();
+        Log.info(String.format("Local replica loaded: %d courses, %d students, %d enrollments, %d pending changes in %d ms",
+                snapshot.getCourseCount(), snapshot.getStudentCount(), snapshot.getEnrollmentCount(),
+                local.engine.getLogRecordCount(), (System.nanoTime() - start) / 1_000_000));
+        return local;
+    }
+
+    private void changed(Mode newMode) {
+        UnitOfWork.invalidateCaches(); // Tienen filas de la otra fuente
+        for (Consumer<Mode> listener : listeners) {
+            listener.accept(newMode);
+        }
+    }
+
+    // Cada probeSeconds: en modo LOCAL prueba si Oracle volvió; en línea guarda la instantánea si venció
+    private void tick() {
+        try {
+            if (mode == Mode.LOCAL) {
+                if (online.size() == 3 && DBConnection.getInstance().probe()) {
+                    goOnline();
+                }
+            } else if (System.currentTimeMillis() - reconciledAt >= refreshMillis
+                    && DBConnection.getInstance().isReachable()) { // Sin réplica, se reintenta al reconectar
+                reconcile();
+            }
+        } catch (RuntimeException e) {
+            Log.error("Local replica task failed", e);
+        }
+    }
+
+    // Con el write lock de engine (si hay réplica cargada): envía el journal y, si llegó completo,
+    // cierra la réplica y lo borra
+    private boolean sendJournal(MemoryEngine engine) {
+        Path journal = journal();
+        if (Files.exists(journal)) {
+            if (online.size() < 3) {
+                return false; // Todavía no se armó JdbcBackend
+            }
+            JournalSender sender = new JournalSender();
+            try {
+                if (!MemoryEngine.replayInto(journal, sender)) {
+                    Log.warn("Database unreachable while sending the offline journal (" + sender.sent
+                            + " changes sent); it will be sent again");
+                    return false;
+                }
+            } catch (IOException e) {
+                Log.error("Cannot read the offline journal " + journal, e);
+                return false;
+            }
+            Log.info(String.format("Offline journal sent: %d changes, %d rejected by the database",
+                    sender.sent, sender.rejected));
+        }
+        if (engine != null) {
+            engine.close();
+        }
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            Log.error("Cannot delete the offline journal " + journal + "; its changes will be sent again", e);
+        }
+        return true;
+    }
+
+    private Path journal() {
+        return dir.resolve(JOURNAL);
+    }
+
+    private <T> T store(Class<T> type) {
+        return type.cast(online.get(type));
+    }
+
+    // Inscripciones leídas para una instantánea nueva
+    private static final class EnrollmentRead {
+        EnrollmentTable table;
+        long changeNumber;
+        int changed = -1; // Filas cambiadas desde la instantánea anterior, o -1 si se leyeron todas
+    }
+
+    // Las inscripciones de previous más las cambiadas desde su número de cambio (la consulta devuelve
+    // también el número de cambio nuevo); si no hay instantánea anterior o el total no coincide con
+    // count() (hubo borrados), se leen todas
+    private static EnrollmentRead readEnrollments(LocalSnapshot previous, EnrollmentStore enrollments) {
+        EnrollmentRead read = new EnrollmentRead();
+        if (previous != null) {
+            long since = previous.getChangeNumber(LocalSnapshot.ENROLLMENTS);
+            ChangeSet<Enrollment> changes = enrollments instanceof EnrollmentDAO
+                    ? ((EnrollmentDAO) enrollments).fetchChangedRows(since) // Sin reconstruir CreditReport ni CourseRules
+                    : enrollments.fetchChangedSince(since);
+            EnrollmentTable table = merge(previous, changes.getRows());
+            if (table.size() == enrollments.count()) {
+                read.table = table;
+                read.changeNumber = changes.getChangeNumber();
+                read.changed = changes.getRows().size();
+                return read;
+            }
+        }
+        read.changeNumber = enrollments.fetchChangedSince(-1).getChangeNumber();
+        read.table = enrollments.fetchTable();
+        return read;
+    }
+
+    private static EnrollmentTable merge(LocalSnapshot previous, List<Enrollment> changes) {
+        Map<String, Map<String, Integer>> days = new HashMap<>(); // studentId -> courseCode -> día
+        for (Enrollment enrollment : changes) {
+            days.computeIfAbsent(enrollment.getStudentId(), id -> new HashMap<>())
+                    .put(enrollment.getCourseCode(), (int) enrollment.getEnrollmentDate().toEpochDay());
+        }
+        EnrollmentTable table = new EnrollmentTable(previous.getEnrollmentCount() + changes.size());
+        previous.forEachEnrollment((studentId, courseCode, epochDay) -> {
+            Map<String, Integer> courses = days.get(studentId);
+            Integer day = courses == null ? null : courses.remove(courseCode);
+            table.add(studentId, courseCode, day != null ? day : epochDay);
+        });
+        for (Map.Entry<String, Map<String, Integer>> student : days.entrySet()) {
+            for (Map.Entry<String, Integer> course : student.getValue().entrySet()) {
+                table.add(student.getKey(), course.getKey(), course.getValue());
+            }
+        }
+        table.trimToSize();
+        return table;
+    }
+
+    // Métodos default de type que impl no sobrescribe
+    private static Set<Method> defaultsOf(Class<?> type, Class<?> impl) {
+        Set<Method> methods = new HashSet<>();
+        for (Method method : type.getMethods()) {
+            try {
+                if (method.isDefault() && impl.getMethod(method.getName(), method.getParameterTypes()).isDefault()) {
+                    methods.add(method);
+                }
+            } catch (NoSuchMethodException e) {
+                // No pasa: impl implementa type
+            }
+        }
+        return methods;
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Elige el store de cada llamada: el de la unidad de trabajo abierta en el hilo, o si no hay una,
+    // el del modo actual. Los métodos default que el store no sobrescribe se llaman sobre el proxy de
+    // Metrics, así lo que llaman (p. ej. fetch() desde fetchAsync()) también pasa por aquí.
+    private final class Router<T> implements InvocationHandler {
+        private final Class<T> type;
+        private final T onlineStore;
+        private final Set<Method> onlineDefaults;
+        private final Set<Method> localDefaults;
+        private Object outer;
+
+        Router(Class<T> type, T onlineStore, Class<? extends T> localClass) {
+            this.type = type;
+            this.onlineStore = onlineStore;
+            onlineDefaults = defaultsOf(type, onlineStore.getClass());
+            localDefaults = defaultsOf(type, localClass);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "LocalReplica." + type.getSimpleName();
+                }
+            }
+            UnitOfWork unit = UnitOfWork.current();
+            if (unit != null ? unit.isMemory() : mode == Mode.LOCAL) {
+                if (localDefaults.contains(method)) {
+                    return InvocationHandler.invokeDefault(outer, method, args);
+                }
+                Local current = unit != null ? local : current();
+                if (current != null) {
+                    if (method.getName().equals("fetchChangedSince")) {
+                        // El número de cambio de Oracle al guardar la instantánea, no el del motor: al volver,
+                        // las pantallas piden a Oracle solo lo que cambió desde ahí (ver Freshness y DeltaSync)
+                        return new ChangeSet<>(new ArrayList<>(), current.changeNumbers.get(type));
+                    }
+                    return call(current.stores.get(type), method, args);
+                }
+            }
+            if (onlineDefaults.contains(method)) {
+                return InvocationHandler.invokeDefault(outer, method, args);
+            }
+            DBConnection db = DBConnection.getInstance();
+            int failures = db.getFailedOpens();
+            Object result = call(onlineStore, method, args);
+            if (unit == null && db.getFailedOpens() != failures && goLocal()) {
+                // No se pudo abrir una conexión, así que la operación no llegó a Oracle: se repite en la réplica
+                return invoke(proxy, method, args);
+            }
+            return result;
+        }
+    }
+
+    // Envía a Oracle cada cambio del journal. Gana el cambio hecho sin conexión (se guarda encima de lo
+    // que haya); los que Oracle rechaza (p. ej. una inscripción en un curso que otra estación eliminó)
+    // quedan en el log y se descartan. Se detiene si no se puede abrir una conexión.
+    private final class JournalSender implements MemoryEngine.ChangeTarget {
+        private final DBConnection db = DBConnection.getInstance();
+        private final CourseStore courses = store(CourseStore.class);
+        private final StudentStore students = store(StudentStore.class);
+        private final EnrollmentStore enrollments = store(EnrollmentStore.class);
+        private int sent;
+        private int rejected;
+
+        @Override
+        public boolean putCourse(Course course) {
+            return send("course " + course.getCode(), () -> courses.exists(course.getCode())
+                    ? courses.update(course) != null : courses.save(course) != null);
+        }
+
+        @Override
+        public boolean deleteCourse(String code) {
+            return send("course deletion " + code, () -> courses.delete(code));
+        }
+
+        @Override
+        public boolean putStudent(Student student) {
+            return send("student " + student.getId(), () -> students.authenticate(student.getId())
+                    ? students.update(student) != null : students.save(student) != null);
+        }
+
+        @Override
+        public boolean deleteStudent(String id) {
+            return send("student deletion " + id, () -> students.delete(id));
+        }
+
+        @Override
+        public boolean putEnrollment(Enrollment enrollment) {
+            // authenticate da true si el estudiante todavía no está inscrito en el curso
+            return send("enrollment " + enrollment.getStudentId() + "/" + enrollment.getCourseCode(),
+                    () -> enrollments.authenticate(enrollment.getStudentId(), enrollment.getCourseCode())
+                            ? enrollments.save(enrollment) != null : enrollments.update(enrollment) != null);
+        }
+
+        @Override
+        public boolean deleteEnrollment(String studentId, String courseCode) {
+            return send("enrollment deletion " + studentId + "/" + courseCode,
+                    () -> enrollments.delete(studentId, courseCode));
+        }
+
+        private boolean send(String change, BooleanSupplier write) {
+            int failures = db.getFailedOpens();
+            boolean applied = write.getAsBoolean();
+            if (db.getFailedOpens() != failures) {
+                return false;
+            }
+            sent++;
+            if (!applied) {
+                rejected++;
+                Log.warn("Offline change rejected by the database: " + change);
+            }
+            return true;
+        }
+    }
+}
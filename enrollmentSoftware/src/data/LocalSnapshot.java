@@ -0,0 +1,334 @@
+package data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import model.Course;
+import model.Student;
+
+// Instantánea binaria de las tres tablas para la réplica local (ver LocalReplica). Se abre mapeada en
+// memoria (solo lectura) y las filas se leen directamente del archivo, sin copiarlo antes.
+// Formato (big endian):
+//   encabezado  magic int, versión int, guardada (epoch ms) long, número de cambio de cursos,
+//               estudiantes e inscripciones (long cada uno), cantidad de cursos, estudiantes,
+//               IDs distintos, códigos distintos e inscripciones (int cada uno)
+//   cursos      código, nombre, créditos int, cupo int, prerrequisitos, horario
+//   estudiantes ID, nombre, email
+//   inscripciones como en EnrollmentTable: los IDs y los códigos distintos, y por fila el número
+//               de ID, el número de código y el número de día (int cada uno)
+//   crc32 int   de todo lo anterior
+// Cada texto es su largo en bytes (short sin signo) seguido de los bytes UTF-8.
+// Cada instantánea se escribe en un archivo nuevo (snapshot-<guardada>.bin) y se cambia de nombre al
+// terminar, así nunca se reemplaza un archivo que sigue mapeado (Windows no lo permite) y un corte a
+// mitad de la escritura deja la anterior intacta. Las anteriores se borran después.
+final class LocalSnapshot {
+
+    private static final int MAGIC = 0x454E5253; // "ENRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 3 * 8 + 5 * 4;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    // Índices de los números de cambio
+    static final int COURSES = 0;
+    static final int STUDENTS = 1;
+    static final int ENROLLMENTS = 2;
+
+    // Recibe cada inscripción sin crear un Enrollment
+    interface EnrollmentVisitor {
+        void visit(String studentId, String courseCode, int epochDay);
+    }
+
+    private final Path file;
+    private final ByteBuffer buffer; // Todo el archivo, mapeado
+    private final long savedAt;
+    private final long[] changeNumbers = new long[3];
+    private final int courseCount;
+    private final int studentCount;
+    private final int studentKeyCount;
+    private final int courseKeyCount;
+    private final int enrollmentCount;
+    private byte[] scratch = new byte[256];
+
+    private LocalSnapshot(Path file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        savedAt = buffer.getLong(8);
+        for (int i = 0; i < changeNumbers.length; i++) {
+            changeNumbers[i] = buffer.getLong(16 + 8 * i);
+        }
+        courseCount = buffer.getInt(40);
+        studentCount = buffer.getInt(44);
+        studentKeyCount = buffer.getInt(48);
+        courseKeyCount = buffer.getInt(52);
+        enrollmentCount = buffer.getInt(56);
+    }
+
+    // La instantánea más reciente de dir que esté completa, o null si no hay ninguna
+    static LocalSnapshot open(Path dir) {
+        for (Path file : list(dir)) {
+            try {
+                LocalSnapshot snapshot = map(file);
+                if (snapshot != null) {
+                    return snapshot;
+                }
+                Log.warn("Ignoring damaged local snapshot " + file);
+            } catch (IOException e) {
+                Log.warn("Cannot read the local snapshot " + file, e);
+            }
+        }
+        return null;
+    }
+
+    // Escribe una instantánea nueva en dir y borra las anteriores; devuelve cuándo quedó guardada
+    static long write(Path dir, long[] changeNumbers, Collection<Course> courses, Collection<Student> students,
+                      EnrollmentTable enrollments) throws IOException {
+        Files.createDirectories(dir);
+        long savedAt = System.currentTimeMillis();
+        for (Path existing : list(dir)) {
+            savedAt = Math.max(savedAt, savedAtOf(existing) + 1); // El nombre nuevo siempre es el más reciente
+        }
+        Path file = dir.resolve(PREFIX + savedAt + SUFFIX);
+        Path tmp = dir.resolve(PREFIX + savedAt + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedAt);
+            for (long changeNumber : changeNumbers) {
+                out.writeLong(changeNumber);
+            }
+            out.writeInt(courses.size());
+            out.writeInt(students.size());
+            out.writeInt(enrollments.getDistinctStudents());
+            out.writeInt(enrollments.getDistinctCourses());
+            out.writeInt(enrollments.size());
+            for (Course course : courses) {
+                writeString(out, course.getCode());
+                writeString(out, course.getName());
+                out.writeInt(course.getCredits());
+                out.writeInt(course.getCapacity());
+                writeString(out, course.getPrerequisites());
+                writeString(out, course.getSchedule());
+            }
+            for (Student student : students) {
+                writeString(out, student.getId());
+                writeString(out, student.getName());
+                writeString(out, student.getEmail());
+            }
+            for (int i = 0; i < enrollments.getDistinctStudents(); i++) {
+                writeString(out, enrollments.studentKey(i));
+            }
+            for (int i = 0; i < enrollments.getDistinctCourses(); i++) {
+                writeString(out, enrollments.courseKey(i));
+            }
+            for (int row = 0; row < enrollments.size(); row++) {
+                out.writeInt(enrollments.studentIndex(row));
+                out.writeInt(enrollments.courseIndex(row));
+                out.writeInt(enrollments.getEpochDay(row));
+            }
+            out.flush();
+            int checksum = (int) crc.getValue();
+            out.writeInt(checksum);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        for (Path old : list(dir)) {
+            if (!old.equals(file)) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    Log.debug("Old local snapshot not deleted yet (still mapped?): " + old);
+                }
+            }
+        }
+        return savedAt;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getSavedAt() {
+        return savedAt;
+    }
+
+    // Número de cambio (SCN de Oracle) de la tabla al guardar (COURSES, STUDENTS o ENROLLMENTS)
+    long getChangeNumber(int table) {
+        return changeNumbers[table];
+    }
+
+    long[] getChangeNumbers() {
+        return changeNumbers.clone();
+    }
+
+    int getCourseCount() {
+        return courseCount;
+    }
+
+    int getStudentCount() {
+        return studentCount;
+    }
+
+    int getEnrollmentCount() {
+        return enrollmentCount;
+    }
+
+    // Recorre las secciones en orden; no es segura para hilos (usa un solo buffer de lectura)
+
+    void forEachCourse(Consumer<Course> consumer) {
+        ByteBuffer in = section(HEADER_SIZE);
+        for (int i = 0; i < courseCount; i++) {
+            String code = readString(in);
+            String name = readString(in);
+            int credits = in.getInt();
+            int capacity = in.getInt();
+            consumer.accept(new Course(code, name, credits, capacity, readString(in), readString(in)));
+        }
+    }
+
+    void forEachStudent(Consumer<Student> consumer) {
+        ByteBuffer in = section(HEADER_SIZE);
+        skipCourses(in);
+        for (int i = 0; i < studentCount; i++) {
+            consumer.accept(new Student(readString(in), readString(in), readString(in)));
+        }
+    }
+
+    void forEachEnrollment(EnrollmentVisitor visitor) {
+        ByteBuffer in = section(HEADER_SIZE);
+        skipCourses(in);
+        for (int i = 0; i < studentCount * 3; i++) {
+            skipString(in);
+        }
+        String[] studentKeys = new String[studentKeyCount];
+        for (int i = 0; i < studentKeys.length; i++) {
+            studentKeys[i] = readString(in);
+        }
+        String[] courseKeys = new String[courseKeyCount];
+        for (int i = 0; i < courseKeys.length; i++) {
+            courseKeys[i] = readString(in);
+        }
+        for (int row = 0; row < enrollmentCount; row++) {
+            visitor.visit(studentKeys[in.getInt()], courseKeys[in.getInt()], in.getInt());
+        }
+    }
+
+    // Las inscripciones en formato por columnas
+    EnrollmentTable enrollments() {
+        EnrollmentTable table = new EnrollmentTable(enrollmentCount);
+        forEachEnrollment(table::add);
+        return table;
+    }
+
+    // Mapea file y revisa encabezado y crc; null si está incompleto o dañado
+    private static LocalSnapshot map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + 4 || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Sigue válido al cerrar el canal
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return null;
+        }
+        int end = buffer.capacity() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            return null;
+        }
+        return new LocalSnapshot(file, buffer);
+    }
+
+    // Instantáneas de dir, de la más reciente a la más antigua
+    private static List<Path> list(Path dir) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                if (savedAtOf(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Cannot list the local snapshots in " + dir, e);
+        }
+        files.sort((a, b) -> Long.compare(savedAtOf(b), savedAtOf(a)));
+        return files;
+    }
+
+    // Momento de guardado según el nombre del archivo, o -1 si no es una instantánea
+    private static long savedAtOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private ByteBuffer section(int position) {
+        return buffer.duplicate().position(position);
+    }
+
+    private void skipCourses(ByteBuffer in) {
+        for (int i = 0; i < courseCount; i++) {
+            skipString(in);
+            skipString(in);
+            in.position(in.position() + 8);
+            skipString(in);
+            skipString(in);
+        }
+    }
+
+    private String readString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        in.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        in.position(in.position() + length);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Value too long for the local snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,121 @@
+package data;
+
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Log con niveles y asíncrono para la capa de datos, en lugar de System.out/printStackTrace.
+// Quien registra solo pone el mensaje en una cola acotada; un hilo aparte le da formato y lo escribe
+// (INFO/DEBUG en stdout, WARN/ERROR en stderr), así que una consulta nunca espera a la consola.
+// Si la cola se llena, los mensajes nuevos se descartan y se cuentan (getDropped).
+// Nivel mínimo con -Dlog.level=DEBUG|INFO|WARN|ERROR (por defecto INFO).
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final Level THRESHOLD = Level.valueOf(System.getProperty("log.level", "INFO").toUpperCase());
+    private static final int QUEUE_SIZE = Integer.getInteger("log.queueSize", 8_192);
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    static {
+        startWriter();
+    }
+
+    private Log() {
+    }
+
+    // Mensaje ya armado junto con los datos del momento en que se registró
+    private static final class Entry {
+        final Level level;
+        final String message;
+        final Throwable error;
+        final String thread = Thread.currentThread().getName();
+        final LocalTime time = LocalTime.now();
+
+        Entry(Level level, String message, Throwable error) {
+            this.level = level;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public static void warn(String message, Throwable error) {
+        log(Level.WARN, message, error);
+    }
+
+    // Los errores también se cuentan en las métricas de la operación en curso (ver Metrics)
+    public static void error(String message, Throwable error) {
+        Metrics.countError();
+        log(Level.ERROR, message, error);
+    }
+
+    // Mensajes descartados porque la cola estaba llena
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    private static void log(Level level, String message, Throwable error) {
+        if (isEnabled(level) && !QUEUE.offer(new Entry(level, message, error))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static void startWriter() {
+        Thread writer = new Thread(Log::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Al salir se escribe lo que quedó en la cola
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            writer.interrupt();
+            try {
+                writer.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "log-flush"));
+    }
+
+    private static void drain() {
+        while (true) {
+            try {
+                write(QUEUE.take());
+            } catch (InterruptedException e) {
+                Entry entry;
+                while ((entry = QUEUE.poll()) != null) {
+                    write(entry);
+                }
+                return;
+            }
+        }
+    }
+
+    private static void write(Entry entry) {
+        PrintStream out = entry.level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        out.println(entry.time + " " + entry.level + " [" + entry.thread + "] " + entry.message);
+        if (entry.error != null) {
+            entry.error.printStackTrace(out);
+        }
+    }
+}
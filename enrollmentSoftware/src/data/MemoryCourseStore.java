@@ -0,0 +1,106 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Course;
+
+// Cursos en el motor en memoria (ver MemoryEngine). No usa CourseCache: los datos ya están en memoria.
+final class MemoryCourseStore implements CourseStore {
+    private static final Comparator<Course> BY_CODE = Comparator.comparing(Course::getCode);
+
+    private final MemoryEngine engine;
+    private final FuzzyIndex<Course> index = FuzzyIndex.courses();
+
+    MemoryCourseStore(MemoryEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public Course save(Course course) {
+        if (!engine.insertCourse(course)) {
+            return null;
+        }
+        index.put(course);
+        CourseRules.getInstance().courseChanged(course);
+        return course;
+    }
+
+    @Override
+    public BatchResult<Course> saveAll(Collection<Course> courses, int batchSize) {
+        BatchResult<Course> result = engine.insertCourses(courses, batchSize);
+        index.invalidate();
+        CourseRules.getInstance().refresh();
+        return result;
+    }
+
+    @Override
+    public boolean exists(String code) {
+        return engine.courses.containsKey(code);
+    }
+
+    @Override
+    public Course get(String code) {
+        MemoryEngine.Versioned<Course> row = engine.courses.get(code);
+        return row == null ? null : MemoryEngine.copy(row.value);
+    }
+
+    @Override
+    public ArrayList<Course> fetch() {
+        return MemoryEngine.copyAll(engine.courses, BY_CODE, MemoryEngine::copy);
+    }
+
+    @Override
+    public void fetch(Consumer<Course> consumer) {
+        fetch().forEach(consumer);
+    }
+
+    @Override
+    public Stream<Course> stream() {
+        return fetch().stream();
+    }
+
+    @Override
+    public ArrayList<Course> search(String prefix, int minCredits, int maxCredits, int limit) {
+        return MemoryEngine.search(engine.courses,
+                c -> (c.getCode().startsWith(prefix) || MemoryEngine.startsWithIgnoreCase(c.getName(), prefix))
+                        && c.getCredits() >= minCredits && c.getCredits() <= maxCredits,
+                BY_CODE, limit, MemoryEngine::copy);
+    }
+
+    @Override
+    public ChangeSet<Course> fetchChangedSince(long changeNumber) {
+        return engine.changedSince(engine.courses, changeNumber, MemoryEngine::copy);
+    }
+
+    @Override
+    public Course update(Course course) {
+        if (!engine.updateCourse(course)) {
+            return null;
+        }
+        index.put(course);
+        SeatReservations.getInstance().invalidate(course.getCode()); // Puede haber cambiado la capacidad
+        CreditReport.getInstance().courseChanged(course); // O los créditos
+        CourseRules.getInstance().courseChanged(course); // O los prerrequisitos y el horario
+        return course;
+    }
+
+    @Override
+    public boolean delete(String code) {
+        if (!engine.deleteCourse(code)) {
+            return false;
+        }
+        index.remove(code);
+        SeatReservations.getInstance().invalidate(code);
+        CourseRules.getInstance().courseDeleted(code);
+        return true;
+    }
+
+    @Override
+    public boolean authenticate(String code) {
+        return exists(code);
+    }
+}
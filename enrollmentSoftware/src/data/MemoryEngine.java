@@ -0,0 +1,795 @@
+package data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Motor de almacenamiento en memoria para -Dstorage.backend=memory.
+// Índices hash concurrentes por Course.code, Student.id y (student_id, course_code), más un índice
+// ordenado de inscripciones para la paginación por clave y los índices estudiante->cursos y
+// curso->estudiantes. Las lecturas no toman bloqueos; las escrituras se hacen de a una (writeLock),
+// primero en el WriteAheadLog y después en memoria. Al abrir se reconstruye todo desde el log.
+// Igual que las claves foráneas de Oracle, no se puede inscribir a un estudiante o curso inexistente
+// ni eliminar un estudiante o curso con inscripciones.
+final class MemoryEngine {
+
+    // Operaciones del log
+    private static final byte PUT_COURSE = 1;
+    private static final byte DELETE_COURSE = 2;
+    private static final byte PUT_STUDENT = 3;
+    private static final byte DELETE_STUDENT = 4;
+    private static final byte PUT_ENROLLMENT = 5;
+    private static final byte DELETE_ENROLLMENT = 6;
+
+    // Si el log tiene más registros que esto por encima del doble de filas vivas, se compacta al abrir
+    private static final long COMPACTION_SLACK = 10_000;
+
+    // Fila guardada con el número de cambio de su última escritura (para fetchChangedSince).
+    // El valor nunca sale del motor: los stores entregan copias.
+    static final class Versioned<T> {
+        final T value;
+        final long version;
+
+        private Versioned(T value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    // Clave compuesta de una inscripción, ordenada como ORDER BY student_id, course_code
+    static final class EnrollmentKey implements Comparable<EnrollmentKey> {
+        final String studentId;
+        final String courseCode;
+
+        EnrollmentKey(String studentId, String courseCode) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+        }
+
+        @Override
+        public int compareTo(EnrollmentKey other) {
+            int result = studentId.compareTo(other.studentId);
+            return result != 0 ? result : courseCode.compareTo(other.courseCode);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof EnrollmentKey)) {
+                return false;
+            }
+            EnrollmentKey other = (EnrollmentKey) obj;
+            return studentId.equals(other.studentId) && courseCode.equals(other.courseCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * studentId.hashCode() + courseCode.hashCode();
+        }
+    }
+
+    final Map<String, Versioned<Course>> courses;
+    final Map<String, Versioned<Student>> students;
+    final Map<EnrollmentKey, Versioned<Enrollment>> enrollments;
+    final ConcurrentSkipListSet<EnrollmentKey> enrollmentOrder = new ConcurrentSkipListSet<>();
+    final Map<String, Set<String>> coursesByStudent;
+    final Map<String, Set<String>> studentsByCourse;
+
+    // Fechas de inscripción distintas, compartidas por todas las filas (hay pocas y se repiten mucho);
+    // solo se usa con writeLock o al reproducir el log
+    private final Map<LocalDate, LocalDate> dates = new HashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long version; // Último número de cambio; solo cambia con writeLock
+    private WriteAheadLog log;
+    // Primer error del log: desde ahí la memoria puede tener cambios que el archivo no tiene,
+    // así que no se aceptan más escrituras hasta reiniciar (al abrir se reconstruye desde el log)
+    private IOException logFailure;
+    // Cómo deshacer cada cambio de la unidad de trabajo abierta (ver beginUnit); null si no hay una
+    private ArrayList<Inverse> undo;
+    private boolean undoing; // Deshaciendo: los cambios que se hacen ahora no se vuelven a registrar
+
+    private MemoryEngine() {
+        this(16, 16, 16);
+    }
+
+    // Con los mapas ya del tamaño esperado: cargar una instantánea no los hace crecer fila por fila
+    private MemoryEngine(int courseCount, int studentCount, int enrollmentCount) {
+        courses = new ConcurrentHashMap<>(courseCount);
+        students = new ConcurrentHashMap<>(studentCount);
+        enrollments = new ConcurrentHashMap<>(enrollmentCount);
+        coursesByStudent = new ConcurrentHashMap<>(studentCount);
+        studentsByCourse = new ConcurrentHashMap<>(courseCount);
+    }
+
+    // Abre el motor en dir, reproduciendo el log si ya existe
+    static MemoryEngine open(Path dir) {
+        MemoryEngine engine = new MemoryEngine();
+        boolean sync = Boolean.getBoolean("storage.memory.sync");
+        try {
+            engine.log = WriteAheadLog.open(dir.resolve("enrollment.wal"), sync, engine::replay);
+            long live = engine.courses.size() + engine.students.size() + engine.enrollments.size();
+            if (engine.log.getRecordCount() > 2 * live + COMPACTION_SLACK) {
+                engine.log.rewrite(engine::writeSnapshot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the storage log in " + dir, e);
+        }
+        return engine;
+    }
+
+    // Réplica local (ver LocalReplica): las filas de snapshot se cargan sin pasar por el log y encima
+    // se reproduce journal, el log de los cambios hechos sin conexión, que recibe también los nuevos.
+    // El journal hace force() en cada commit: un cambio hecho sin conexión solo existe en ese archivo.
+    static MemoryEngine replica(LocalSnapshot snapshot, Path journal) {
+        MemoryEngine engine = new MemoryEngine(snapshot.getCourseCount(), snapshot.getStudentCount(),
+                snapshot.getEnrollmentCount());
+        snapshot.forEachCourse(engine::applyPutCourse);
+        snapshot.forEachStudent(engine::applyPutStudent);
+        snapshot.forEachEnrollment((studentId, courseCode, epochDay) ->
+                engine.applyPutEnrollment(new Enrollment(studentId, courseCode, LocalDate.ofEpochDay(epochDay))));
+        try {
+            engine.log = WriteAheadLog.open(journal, true, engine::replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the offline journal " + journal, e);
+        }
+        return engine;
+    }
+
+    // Recibe los cambios de un log ya convertidos en filas (ver replayInto); cada método devuelve
+    // false para detener la reproducción
+    interface ChangeTarget {
+        boolean putCourse(Course course);
+        boolean deleteCourse(String code);
+        boolean putStudent(Student student);
+        boolean deleteStudent(String id);
+        boolean putEnrollment(Enrollment enrollment);
+        boolean deleteEnrollment(String studentId, String courseCode);
+    }
+
+    // Entrega en orden los cambios del log file a target (p. ej. para enviar el journal de la réplica
+    // local a Oracle); true si los entregó todos, false si target la detuvo
+    static boolean replayInto(Path file, ChangeTarget target) throws IOException {
+        ArrayList<Byte> ops = new ArrayList<>();
+        ArrayList<String[]> records = new ArrayList<>();
+        WriteAheadLog.read(file, (op, fields) -> {
+            ops.add(op);
+            records.add(fields);
+        });
+        for (int i = 0; i < ops.size(); i++) {
+            String[] f = records.get(i);
+            boolean more;
+            switch (ops.get(i)) {
+                case PUT_COURSE:
+                    more = target.putCourse(courseOf(f));
+                    break;
+                case DELETE_COURSE:
+                    more = target.deleteCourse(f[0]);
+                    break;
+                case PUT_STUDENT:
+                    more = target.putStudent(new Student(f[0], f[1], f[2]));
+                    break;
+                case DELETE_STUDENT:
+                    more = target.deleteStudent(f[0]);
+                    break;
+                case PUT_ENROLLMENT:
+                    more = target.putEnrollment(new Enrollment(f[0], f[1], LocalDate.parse(f[2])));
+                    break;
+                case DELETE_ENROLLMENT:
+                    more = target.deleteEnrollment(f[0], f[1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown log operation: " + ops.get(i));
+            }
+            if (!more) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Registros del log (reproducidos al abrir más agregados); en la réplica local, los cambios por enviar
+    long getLogRecordCount() {
+        writeLock.lock();
+        try {
+            return log.getRecordCount();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Ejecuta action con writeLock: mientras tanto no corre ninguna escritura ni unidad de trabajo
+    <R> R exclusive(Supplier<R> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Cierra el log; las escrituras posteriores se rechazan (las lecturas siguen funcionando)
+    void close() {
+        writeLock.lock();
+        try {
+            if (logFailure == null) {
+                logFailure = new IOException("Storage is closed");
+            }
+            log.close();
+        } catch (IOException e) {
+            Log.error("Cannot close the storage log", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- Unidades de trabajo (ver UnitOfWork) ---
+    // Mientras hay una unidad abierta su hilo tiene writeLock: las escrituras de otros hilos esperan
+    // (las lecturas no, y pueden ver cambios todavía sin confirmar). Las escrituras de la unidad van
+    // al log sin confirmarlo y guardan su inverso; commitUnit confirma el log una sola vez y
+    // rollbackUnitTo aplica los inversos (también escritos en el log) en orden contrario.
+
+    void beginUnit() {
+        writeLock.lock();
+        undo = new ArrayList<>();
+    }
+
+    // Posición a la que se puede volver con rollbackUnitTo
+    int unitSavepoint() {
+        return undo.size();
+    }
+
+    // Deshace los cambios de la unidad posteriores a savepoint; false si el log falló. Aunque el log
+    // falle, los cambios se siguen deshaciendo en memoria (append ya no escribe, ver append)
+    boolean rollbackUnitTo(int savepoint) {
+        undoing = true;
+        try {
+            for (int i = undo.size() - 1; i >= savepoint; i--) {
+                Inverse inverse = undo.get(i);
+                try {
+                    inverse.run();
+                } catch (IOException e) {
+                    logFailure = e;
+                    Log.error("Storage log write failed; further writes are refused until restart", e);
+                    inverse.run(); // Con logFailure puesto no toca el log: solo aplica el cambio en memoria
+                }
+                undo.remove(i);
+            }
+            return logFailure == null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No pasa: sin log no hay escritura que pueda fallar
+        } finally {
+            undoing = false;
+        }
+    }
+
+    // Confirma la unidad y la cierra; false si el log falló. En ese caso los cambios de la unidad se
+    // deshacen en memoria antes de soltar el lock: nadie llega a leer una unidad que no se confirmó
+    boolean commitUnit() {
+        try {
+            if (logFailure == null) {
+                log.commit();
+                return true;
+            }
+        } catch (IOException e) {
+            logFailure = e;
+            Log.error("Storage log write failed; further writes are refused until restart", e);
+        }
+        try {
+            rollbackUnitTo(0);
+            return false;
+        } finally {
+            undo = null;
+            writeLock.unlock();
+        }
+    }
+
+    // Deshace toda la unidad y la cierra
+    void rollbackUnit() {
+        try {
+            if (rollbackUnitTo(0) && logFailure == null) {
+                log.commit();
+            }
+        } catch (IOException e) {
+            logFailure = e;
+            Log.error("Storage log write failed; further writes are refused until restart", e);
+        } finally {
+            undo = null;
+            writeLock.unlock();
+        }
+    }
+
+    // --- Cursos ---
+
+    boolean insertCourse(Course course) {
+        return write(() -> insertCourseLocked(course) == null, false);
+    }
+
+    boolean updateCourse(Course course) {
+        return write(() -> {
+            if (!courses.containsKey(course.getCode())) {
+                return false;
+            }
+            putCourse(course);
+            return true;
+        }, false);
+    }
+
+    boolean deleteCourse(String code) {
+        return write(() -> {
+            if (!courses.containsKey(code) || !studentsByCourse.getOrDefault(code, Collections.emptySet()).isEmpty()) {
+                return false;
+            }
+            removeCourse(code);
+            return true;
+        }, false);
+    }
+
+    BatchResult<Course> insertCourses(Collection<Course> courses, int batchSize) {
+        return writeAll(courses, batchSize, this::insertCourseLocked);
+    }
+
+    // --- Estudiantes ---
+
+    boolean insertStudent(Student student) {
+        return write(() -> insertStudentLocked(student) == null, false);
+    }
+
+    boolean updateStudent(Student student) {
+        return write(() -> {
+            if (!students.containsKey(student.getId())) {
+                return false;
+            }
+            putStudent(student);
+            return true;
+        }, false);
+    }
+
+    boolean deleteStudent(String id) {
+        return write(() -> {
+            if (!students.containsKey(id) || !coursesByStudent.getOrDefault(id, Collections.emptySet()).isEmpty()) {
+                return false;
+            }
+            removeStudent(id);
+            return true;
+        }, false);
+    }
+
+    BatchResult<Student> insertStudents(Collection<Student> students, int batchSize) {
+        return writeAll(students, batchSize, this::insertStudentLocked);
+    }
+
+    // --- Inscripciones ---
+
+    EnrollmentResult insertEnrollment(Enrollment enrollment) {
+        return write(() -> validateEnrollment(enrollment), EnrollmentResult.ERROR);
+    }
+
+    boolean updateEnrollment(Enrollment enrollment) {
+        return write(() -> {
+            if (!enrollments.containsKey(keyOf(enrollment))) {
+                return false;
+            }
+            putEnrollment(enrollment);
+            return true;
+        }, false);
+    }
+
+    boolean deleteEnrollment(String studentId, String courseCode) {
+        return write(() -> {
+            if (!enrollments.containsKey(new EnrollmentKey(studentId, courseCode))) {
+                return false;
+            }
+            removeEnrollment(studentId, courseCode);
+            return true;
+        }, false);
+    }
+
+    // Elimina todas las inscripciones del curso; devuelve cuántas, o -1 si falló el log
+    int deleteEnrollmentsOfCourse(String code) {
+        return write(() -> {
+            int deleted = 0;
+            for (String studentId : new ArrayList<>(studentsByCourse.getOrDefault(code, Collections.emptySet()))) {
+                removeEnrollment(studentId, code);
+                deleted++;
+            }
+            return deleted;
+        }, -1);
+    }
+
+    // Elimina todas las inscripciones del estudiante; devuelve cuántas, o -1 si falló el log
+    int deleteEnrollmentsOfStudent(String id) {
+        return write(() -> {
+            int deleted = 0;
+            for (String courseCode : new ArrayList<>(coursesByStudent.getOrDefault(id, Collections.emptySet()))) {
+                removeEnrollment(id, courseCode);
+                deleted++;
+            }
+            return deleted;
+        }, -1);
+    }
+
+    BatchResult<Enrollment> insertEnrollments(Collection<Enrollment> enrollments, int batchSize) {
+        return writeAll(enrollments, batchSize, enrollment -> {
+            EnrollmentResult result = validateEnrollment(enrollment);
+            return result == EnrollmentResult.OK ? null : result.name();
+        });
+    }
+
+    // Filas de rows escritas después de changeNumber; con changeNumber < 0 solo el número actual.
+    // Toma writeLock para que ninguna escritura quede a medias entre el número y las filas.
+    <T> ChangeSet<T> changedSince(Map<?, Versioned<T>> rows, long changeNumber, UnaryOperator<T> copy) {
+        writeLock.lock();
+        try {
+            ArrayList<T> changed = new ArrayList<>();
+            if (changeNumber >= 0) {
+                for (Versioned<T> row : rows.values()) {
+                    if (row.version > changeNumber) {
+                        changed.add(copy.apply(row.value));
+                    }
+                }
+            }
+            return new ChangeSet<>(changed, version);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Copias de todas las filas de rows, ordenadas según order
+    static <T> ArrayList<T> copyAll(Map<?, Versioned<T>> rows, Comparator<T> order, UnaryOperator<T> copy) {
+        ArrayList<T> result = new ArrayList<>(rows.size());
+        for (Versioned<T> row : rows.values()) {
+            result.add(copy.apply(row.value));
+        }
+        result.sort(order);
+        return result;
+    }
+
+    // Copias de las filas que cumplen filter, ordenadas según order; a lo sumo limit
+    static <T> ArrayList<T> search(Map<?, Versioned<T>> rows, Predicate<T> filter, Comparator<T> order,
+                                   int limit, UnaryOperator<T> copy) {
+        ArrayList<T> result = new ArrayList<>();
+        for (Versioned<T> row : rows.values()) {
+            if (filter.test(row.value)) {
+                result.add(row.value);
+            }
+        }
+        result.sort(order);
+        ArrayList<T> page = new ArrayList<>(Math.min(limit, result.size()));
+        for (int i = 0; i < result.size() && i < limit; i++) {
+            page.add(copy.apply(result.get(i)));
+        }
+        return page;
+    }
+
+    // true si value empieza con prefix sin distinguir mayúsculas
+    static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    static Course copy(Course course) {
+        return course == null ? null : new Course(course.getCode(), course.getName(), course.getCredits(), course.getCapacity(),
+                course.getPrerequisites(), course.getSchedule());
+    }
+
+    static Student copy(Student student) {
+        return student == null ? null : new Student(student.getId(), student.getName(), student.getEmail());
+    }
+
+    static Enrollment copy(Enrollment enrollment) {
+        return enrollment == null ? null
+                : new Enrollment(enrollment.getStudentId(), enrollment.getCourseCode(), enrollment.getEnrollmentDate());
+    }
+
+    static EnrollmentKey keyOf(Enrollment enrollment) {
+        return new EnrollmentKey(enrollment.getStudentId(), enrollment.getCourseCode());
+    }
+
+    // --- Escrituras (con writeLock tomado) ---
+
+    // Operación de escritura; puede lanzar IOException si falla el log
+    private interface LockedWrite<R> {
+        R run() throws IOException;
+    }
+
+    // Ejecuta una escritura con writeLock y la hace durable; si el log falla devuelve onError
+    private <R> R write(LockedWrite<R> operation, R onError) {
+        writeLock.lock();
+        try {
+            if (logFailure != null) {
+                return onError;
+            }
+            R result = operation.run();
+            if (undo == null) {
+                log.commit(); // Dentro de una unidad de trabajo se confirma una sola vez al final
+            }
+            return result;
+        } catch (IOException e) {
+            logFailure = e;
+            Log.error("Storage log write failed; further writes are refused until restart", e);
+            return onError;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Carga masiva: un commit del log por cada bloque de batchSize filas (commit en grupo).
+    // insertOne devuelve null si guardó la fila, o el motivo por el que no la guardó.
+    private <E> BatchResult<E> writeAll(Collection<E> entities, int batchSize, LockedInsert<E> insertOne) {
+        BatchResult<E> result = new BatchResult<>();
+        int size = Math.max(batchSize, 1);
+        ArrayList<E> chunk = new ArrayList<>(Math.min(size, entities.size()));
+        int index = 0;
+        for (E entity : entities) {
+            chunk.add(entity);
+            if (chunk.size() == size) {
+                writeChunk(chunk, index, insertOne, result);
+                index += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, index, insertOne, result);
+        }
+        return result;
+    }
+
+    // Cambio que deshace otro
+    private interface Inverse {
+        void run() throws IOException;
+    }
+
+    private interface LockedInsert<E> {
+        String insert(E entity) throws IOException;
+    }
+
+    private <E> void writeChunk(ArrayList<E> chunk, int firstIndex, LockedInsert<E> insertOne, BatchResult<E> result) {
+        writeLock.lock();
+        try {
+            int saved = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                E entity = chunk.get(i);
+                String error;
+                if (logFailure != null) {
+                    error = "Storage log failed: " + logFailure.getMessage();
+                } else {
+                    try {
+                        error = insertOne.insert(entity);
+                    } catch (IOException e) {
+                        logFailure = e;
+                        error = e.getMessage();
+                    }
+                }
+                if (error == null) {
+                    saved++;
+                } else {
+                    result.addFailure(firstIndex + i, entity, error);
+                }
+            }
+            if (undo == null) {
+                log.commit();
+            }
+            result.addSaved(saved);
+        } catch (IOException e) {
+            logFailure = e;
+            Log.error("Storage log write failed; further writes are refused until restart", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private String insertCourseLocked(Course course) throws IOException {
+        if (courses.containsKey(course.getCode())) {
+            return "Duplicate course: " + course.getCode();
+        }
+        putCourse(course);
+        return null;
+    }
+
+    private String insertStudentLocked(Student student) throws IOException {
+        if (students.containsKey(student.getId())) {
+            return "Duplicate student: " + student.getId();
+        }
+        putStudent(student);
+        return null;
+    }
+
+    private EnrollmentResult validateEnrollment(Enrollment enrollment) throws IOException {
+        if (!students.containsKey(enrollment.getStudentId())) {
+            return EnrollmentResult.NO_STUDENT;
+        }
+        if (!courses.containsKey(enrollment.getCourseCode())) {
+            return EnrollmentResult.NO_COURSE;
+        }
+        if (enrollments.containsKey(keyOf(enrollment))) {
+            return EnrollmentResult.DUPLICATE;
+        }
+        putEnrollment(enrollment);
+        return EnrollmentResult.OK;
+    }
+
+    // Cada cambio registra su inverso (la fila anterior, o eliminarla si no existía) por si la
+    // unidad de trabajo en curso se deshace
+
+    private void putCourse(Course course) throws IOException {
+        Versioned<Course> old = courses.get(course.getCode());
+        append(PUT_COURSE, course.getCode(), course.getName(), Integer.toString(course.getCredits()),
+                Integer.toString(course.getCapacity()), course.getPrerequisites(), course.getSchedule());
+        applyPutCourse(copy(course));
+        remember(old == null ? () -> removeCourse(course.getCode()) : () -> putCourse(old.value));
+    }
+
+    private void removeCourse(String code) throws IOException {
+        Versioned<Course> old = courses.get(code);
+        append(DELETE_COURSE, code);
+        applyDeleteCourse(code);
+        remember(() -> putCourse(old.value));
+    }
+
+    private void putStudent(Student student) throws IOException {
+        Versioned<Student> old = students.get(student.getId());
+        append(PUT_STUDENT, student.getId(), student.getName(), student.getEmail());
+        applyPutStudent(copy(student));
+        remember(old == null ? () -> removeStudent(student.getId()) : () -> putStudent(old.value));
+    }
+
+    private void removeStudent(String id) throws IOException {
+        Versioned<Student> old = students.get(id);
+        append(DELETE_STUDENT, id);
+        applyDeleteStudent(id);
+        remember(() -> putStudent(old.value));
+    }
+
+    private void putEnrollment(Enrollment enrollment) throws IOException {
+        Versioned<Enrollment> old = enrollments.get(keyOf(enrollment));
+        append(PUT_ENROLLMENT, enrollment.getStudentId(), enrollment.getCourseCode(),
+                enrollment.getEnrollmentDate().toString());
+        applyPutEnrollment(copy(enrollment));
+        remember(old == null ? () -> removeEnrollment(enrollment.getStudentId(), enrollment.getCourseCode())
+                : () -> putEnrollment(old.value));
+    }
+
+    private void removeEnrollment(String studentId, String courseCode) throws IOException {
+        Versioned<Enrollment> old = enrollments.get(new EnrollmentKey(studentId, courseCode));
+        append(DELETE_ENROLLMENT, studentId, courseCode);
+        applyDeleteEnrollment(studentId, courseCode);
+        remember(() -> putEnrollment(old.value));
+    }
+
+    // Agrega el cambio al log; con el log caído no escribe nada (solo se llega así deshaciendo una
+    // unidad de trabajo, que tiene que volver atrás en memoria aunque el archivo ya no acepte registros)
+    private void append(byte op, String... fields) throws IOException {
+        if (logFailure == null) {
+            log.append(op, fields);
+        }
+    }
+
+    private void remember(Inverse inverse) {
+        if (undo != null && !undoing) {
+            undo.add(inverse);
+        }
+    }
+
+    // --- Aplicación en memoria (escrituras en vivo y reproducción del log) ---
+
+    private void replay(byte op, String[] f) {
+        switch (op) {
+            case PUT_COURSE:
+                applyPutCourse(courseOf(f));
+                break;
+            case DELETE_COURSE:
+                applyDeleteCourse(f[0]);
+                break;
+            case PUT_STUDENT:
+                applyPutStudent(new Student(f[0], f[1], f[2]));
+                break;
+            case DELETE_STUDENT:
+                applyDeleteStudent(f[0]);
+                break;
+            case PUT_ENROLLMENT:
+                applyPutEnrollment(new Enrollment(f[0], f[1], LocalDate.parse(f[2])));
+                break;
+            case DELETE_ENROLLMENT:
+                applyDeleteEnrollment(f[0], f[1]);
+                break;
+            default:
+                throw new IllegalStateException("Unknown log operation: " + op);
+        }
+    }
+
+    // Los registros anteriores a los cupos no traen el cuarto campo, ni los anteriores a los
+    // prerrequisitos el quinto y el sexto
+    private static Course courseOf(String[] f) {
+        return new Course(f[0], f[1], Integer.parseInt(f[2]), f.length > 3 ? Integer.parseInt(f[3]) : 0,
+                f.length > 5 ? f[4] : "", f.length > 5 ? f[5] : "");
+    }
+
+    private void applyPutCourse(Course course) {
+        courses.put(course.getCode(), new Versioned<>(course, ++version));
+    }
+
+    private void applyDeleteCourse(String code) {
+        courses.remove(code);
+        version++;
+    }
+
+    private void applyPutStudent(Student student) {
+        students.put(student.getId(), new Versioned<>(student, ++version));
+    }
+
+    private void applyDeleteStudent(String id) {
+        students.remove(id);
+        version++;
+    }
+
+    private void applyPutEnrollment(Enrollment enrollment) {
+        // Comparte el String del ID/código con el estudiante y el curso guardados: una sola copia de
+        // cada uno en memoria, en lugar de una por inscripción (las de un CSV o del log son todas nuevas)
+        Versioned<Student> student = students.get(enrollment.getStudentId());
+        if (student != null) {
+            enrollment.setStudentId(student.value.getId());
+        }
+        Versioned<Course> course = courses.get(enrollment.getCourseCode());
+        if (course != null) {
+            enrollment.setCourseCode(course.value.getCode());
+        }
+        enrollment.setEnrollmentDate(dates.computeIfAbsent(enrollment.getEnrollmentDate(), date -> date));
+        EnrollmentKey key = keyOf(enrollment);
+        if (enrollments.put(key, new Versioned<>(enrollment, ++version)) == null) {
+            enrollmentOrder.add(key);
+            coursesByStudent.computeIfAbsent(key.studentId, k -> ConcurrentHashMap.newKeySet()).add(key.courseCode);
+            studentsByCourse.computeIfAbsent(key.courseCode, k -> ConcurrentHashMap.newKeySet()).add(key.studentId);
+        }
+    }
+
+    private void applyDeleteEnrollment(String studentId, String courseCode) {
+        EnrollmentKey key = new EnrollmentKey(studentId, courseCode);
+        if (enrollments.remove(key) != null) {
+            enrollmentOrder.remove(key);
+            removeFromIndex(coursesByStudent, studentId, courseCode);
+            removeFromIndex(studentsByCourse, courseCode, studentId);
+        }
+        version++;
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String value) {
+        index.computeIfPresent(key, (k, values) -> {
+            values.remove(value);
+            return values.isEmpty() ? null : values;
+        });
+    }
+
+    // Contenido del log compactado: una inserción por fila viva
+    private void writeSnapshot(WriteAheadLog target) throws IOException {
+        for (Versioned<Course> row : courses.values()) {
+            Course c = row.value;
+            target.append(PUT_COURSE, c.getCode(), c.getName(), Integer.toString(c.getCredits()),
+                    Integer.toString(c.getCapacity()), c.getPrerequisites(), c.getSchedule());
+        }
+        for (Versioned<Student> row : students.values()) {
+            Student s = row.value;
+            target.append(PUT_STUDENT, s.getId(), s.getName(), s.getEmail());
+        }
+        for (EnrollmentKey key : enrollmentOrder) {
+            Enrollment e = enrollments.get(key).value;
+            target.append(PUT_ENROLLMENT, e.getStudentId(), e.getCourseCode(), e.getEnrollmentDate().toString());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import data.MemoryEngine.EnrollmentKey;
+import data.MemoryEngine.Versioned;
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+// Inscripciones en el motor en memoria (ver MemoryEngine). El orden de fetch/fetchPage es el del
+// índice ordenado por (studentId, courseCode), igual que el ORDER BY de EnrollmentDAO.
+final class MemoryEnrollmentStore implements EnrollmentStore {
+    private final MemoryEngine engine;
+    private final SeatReservations seats = SeatReservations.getInstance();
+    private final CreditReport report = CreditReport.getInstance();
+    private final CourseRules rules = CourseRules.getInstance();
+
+    MemoryEnrollmentStore(MemoryEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public Enrollment save(Enrollment enrollment) {
+        return saveValidated(enrollment) == EnrollmentResult.OK ? enrollment : null;
+    }
+
+    @Override
+    public EnrollmentResult saveValidated(Enrollment enrollment) {
+        EnrollmentResult result = engine.insertEnrollment(enrollment);
+        if (result == EnrollmentResult.OK) {
+            seats.enrollmentsChanged(enrollment.getCourseCode());
+            report.added(enrollment);
+            rules.added(enrollment);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Enrollment> saveAll(Collection<Enrollment> enrollments, int batchSize) {
+        BatchResult<Enrollment> result = engine.insertEnrollments(enrollments, batchSize);
+        if (result.getSavedCount() > 0) {
+            seats.enrollmentsChanged();
+        }
+        if (result.getSavedCount() + result.getFailures().size() != enrollments.size()) {
+            report.refresh(); // La carga se cortó: no se sabe qué filas quedaron
+            rules.refresh();
+            return result;
+        }
+        Set<Integer> failed = new HashSet<>();
+        for (BatchResult.Failure<Enrollment> failure : result.getFailures()) {
+            failed.add(failure.getIndex());
+        }
+        int i = 0;
+        for (Enrollment enrollment : enrollments) {
+            if (!failed.contains(i++)) {
+                report.added(enrollment);
+                rules.added(enrollment);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ArrayList<Enrollment> fetch() {
+        ArrayList<Enrollment> enrollments = new ArrayList<>(engine.enrollments.size());
+        fetch(enrollments::add);
+        return enrollments;
+    }
+
+    @Override
+    public void fetch(Consumer<Enrollment> consumer) {
+        for (EnrollmentKey key : engine.enrollmentOrder) {
+            Enrollment enrollment = find(key);
+            if (enrollment != null) {
+                consumer.accept(enrollment);
+            }
+        }
+    }
+
+    @Override
+    public Stream<Enrollment> stream() {
+        return engine.enrollmentOrder.stream().map(this::find).filter(e -> e != null);
+    }
+
+    @Override
+    public ArrayList<Enrollment> fetchPage(String fromStudentId, String fromCourseCode,
+                                           String toStudentId, String toCourseCode, int pageSize) {
+        // Un courseCode null se toma como el menor posible: la página empieza (o termina) con el estudiante
+        NavigableSet<EnrollmentKey> range = engine.enrollmentOrder;
+        if (fromStudentId != null) {
+            range = range.tailSet(new EnrollmentKey(fromStudentId, fromCourseCode == null ? "" : fromCourseCode), true);
+        }
+        if (toStudentId != null) {
+            range = range.headSet(new EnrollmentKey(toStudentId, toCourseCode == null ? "" : toCourseCode), false);
+        }
+        ArrayList<Enrollment> page = new ArrayList<>(pageSize);
+        for (EnrollmentKey key : range) {
+            if (page.size() >= pageSize) {
+                break;
+            }
+            Enrollment enrollment = find(key);
+            if (enrollment != null) {
+                page.add(enrollment);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public ArrayList<String[]> fetchPageKeys(int pageSize) {
+        ArrayList<String[]> keys = new ArrayList<>();
+        int row = 0;
+        for (EnrollmentKey key : engine.enrollmentOrder) {
+            if (row++ % pageSize == 0) {
+                keys.add(new String[] { key.studentId, key.courseCode });
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public int count() {
+        return engine.enrollments.size();
+    }
+
+    @Override
+    public int countByCourse(String courseCode) {
+        return engine.studentsByCourse.getOrDefault(courseCode, Collections.emptySet()).size();
+    }
+
+    @Override
+    public ArrayList<Enrollment> search(String prefix, LocalDate from, LocalDate to, int limit) {
+        // Recorre las claves en orden, así que se detiene al llegar a limit coincidencias
+        ArrayList<Enrollment> found = new ArrayList<>();
+        for (EnrollmentKey key : engine.enrollmentOrder) {
+            if (found.size() >= limit) {
+                break;
+            }
+            if (!key.studentId.startsWith(prefix) && !key.courseCode.startsWith(prefix)) {
+                continue;
+            }
+            Enrollment enrollment = find(key);
+            if (enrollment != null && (from == null || !enrollment.getEnrollmentDate().isBefore(from))
+                    && (to == null || !enrollment.getEnrollmentDate().isAfter(to))) {
+                found.add(enrollment);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public ChangeSet<Enrollment> fetchChangedSince(long changeNumber) {
+        return engine.changedSince(engine.enrollments, changeNumber, MemoryEngine::copy);
+    }
+
+    // Recorre las inscripciones del motor sin copiarlas ni ordenarlas (ver EnrollmentStore.creditTotals)
+    @Override
+    public CreditTotals creditTotals() {
+        EnrollmentTable table = new EnrollmentTable(Math.max(engine.enrollments.size(), 16));
+        for (Versioned<Enrollment> row : engine.enrollments.values()) {
+            table.add(row.value);
+        }
+        ArrayList<Course> catalog = new ArrayList<>(engine.courses.size());
+        for (Versioned<Course> row : engine.courses.values()) {
+            catalog.add(row.value);
+        }
+        return CreditTotals.of(table, catalog);
+    }
+
+    @Override
+    public Enrollment update(Enrollment enrollment) {
+        if (!engine.updateEnrollment(enrollment)) {
+            return null;
+        }
+        report.dateChanged();
+        rules.dateChanged(enrollment);
+        return enrollment;
+    }
+
+    @Override
+    public boolean delete(String studentId, String courseCode) {
+        Versioned<Enrollment> row = engine.enrollments.get(new EnrollmentKey(studentId, courseCode));
+        if (!engine.deleteEnrollment(studentId, courseCode)) {
+            return false;
+        }
+        seats.enrollmentsChanged(courseCode);
+        report.removed(studentId, courseCode, row == null ? null : row.value.getEnrollmentDate());
+        rules.removed(studentId, courseCode);
+        return true;
+    }
+
+    @Override
+    public int deleteByCourse(String courseCode) {
+        return changed(engine.deleteEnrollmentsOfCourse(courseCode));
+    }
+
+    @Override
+    public int deleteByStudent(String studentId) {
+        return changed(engine.deleteEnrollmentsOfStudent(studentId));
+    }
+
+    private int changed(int deleted) {
+        if (deleted > 0) {
+            seats.enrollmentsChanged();
+            report.refresh();
+            rules.refresh();
+        }
+        return deleted;
+    }
+
+    @Override
+    public ArrayList<Course> getCoursesByStudent(String studentId) {
+        ArrayList<Course> courses = new ArrayList<>();
+        for (String code : engine.coursesByStudent.getOrDefault(studentId, Collections.emptySet())) {
+            Versioned<Course> row = engine.courses.get(code);
+            if (row != null) {
+                courses.add(MemoryEngine.copy(row.value));
+            }
+        }
+        return courses;
+    }
+
+    @Override
+    public ArrayList<Student> getStudentsByCourse(String courseCode) {
+        Set<String> ids = engine.studentsByCourse.getOrDefault(courseCode, Collections.emptySet());
+        ArrayList<Student> students = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Versioned<Student> row = engine.students.get(id);
+            if (row != null) {
+                students.add(MemoryEngine.copy(row.value));
+            }
+        }
+        return students;
+    }
+
+    @Override
+    public boolean authenticate(String studentId, String courseCode) {
+        return !engine.enrollments.containsKey(new EnrollmentKey(studentId, courseCode));
+    }
+
+    @Override
+    public boolean studentExists(String studentId) {
+        return engine.students.containsKey(studentId);
+    }
+
+    @Override
+    public boolean courseExists(String courseCode) {
+        return engine.courses.containsKey(courseCode);
+    }
+
+    // Copia de la inscripción con esa clave; null si se eliminó mientras se recorría el índice
+    private Enrollment find(EnrollmentKey key) {
+        Versioned<Enrollment> row = engine.enrollments.get(key);
+        return row == null ? null : MemoryEngine.copy(row.value);
+    }
+}
@@ -0,0 +1,87 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Student;
+
+// Estudiantes en el motor en memoria (ver MemoryEngine)
+final class MemoryStudentStore implements StudentStore {
+    private static final Comparator<Student> BY_ID = Comparator.comparing(Student::getId);
+
+    private final MemoryEngine engine;
+    private final FuzzyIndex<Student> index = FuzzyIndex.students();
+
+    MemoryStudentStore(MemoryEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public Student save(Student student) {
+        if (!engine.insertStudent(student)) {
+            return null;
+        }
+        index.put(student);
+        return student;
+    }
+
+    @Override
+    public BatchResult<Student> saveAll(Collection<Student> students, int batchSize) {
+        BatchResult<Student> result = engine.insertStudents(students, batchSize);
+        index.invalidate();
+        return result;
+    }
+
+    @Override
+    public ArrayList<Student> fetch() {
+        return MemoryEngine.copyAll(engine.students, BY_ID, MemoryEngine::copy);
+    }
+
+    @Override
+    public void fetch(Consumer<Student> consumer) {
+        fetch().forEach(consumer);
+    }
+
+    @Override
+    public Stream<Student> stream() {
+        return fetch().stream();
+    }
+
+    @Override
+    public ArrayList<Student> search(String prefix, int limit) {
+        return MemoryEngine.search(engine.students,
+                s -> s.getId().startsWith(prefix) || MemoryEngine.startsWithIgnoreCase(s.getName(), prefix),
+                BY_ID, limit, MemoryEngine::copy);
+    }
+
+    @Override
+    public ChangeSet<Student> fetchChangedSince(long changeNumber) {
+        return engine.changedSince(engine.students, changeNumber, MemoryEngine::copy);
+    }
+
+    @Override
+    public Student update(Student student) {
+        if (!engine.updateStudent(student)) {
+            return null;
+        }
+        index.put(student);
+        return student;
+    }
+
+    @Override
+    public boolean delete(String id) {
+        if (!engine.deleteStudent(id)) {
+            return false;
+        }
+        index.remove(id);
+        return true;
+    }
+
+    @Override
+    public boolean authenticate(String id) {
+        return engine.students.containsKey(id);
+    }
+}
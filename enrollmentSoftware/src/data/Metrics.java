@@ -0,0 +1,242 @@
+package data;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métricas de cada operación de los stores: latencia (p50/p99/p999), filas, errores y espera del pool.
+// StorageBackend envuelve cada store con instrument(), un proxy que mide todas las llamadas sin tocar
+// los DAOs (igual que DBConnection envuelve las conexiones). Cada operación se publica por JMX
+// (OperationStatsMXBean) y se puede ver en la pantalla de métricas.
+// Con -Dmetrics.enabled=false los stores se usan sin proxy.
+public final class Metrics {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("metrics.enabled", "true"));
+    private static final String DOMAIN = "enrollmentSoftware";
+
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static final OperationStats POOL_WAIT = register("ConnectionPool.borrow");
+
+    // Errores registrados y espera del pool acumulados por el hilo; cada operación mira cuánto
+    // cambiaron entre su inicio y su fin
+    private static final class ThreadCounters {
+        long errors;
+        long poolWaitNanos;
+    }
+
+    private static final ThreadLocal<ThreadCounters> COUNTERS = ThreadLocal.withInitial(ThreadCounters::new);
+
+    private Metrics() {
+    }
+
+    // Todas las operaciones registradas, ordenadas por nombre
+    public static List<OperationStats> getAll() {
+        return new ArrayList<>(OPERATIONS.values());
+    }
+
+    public static void resetAll() {
+        for (OperationStats stats : OPERATIONS.values()) {
+            stats.reset();
+        }
+    }
+
+    // Llamado por Log.error
+    static void countError() {
+        COUNTERS.get().errors++;
+    }
+
+    // Errores registrados (Log.error) desde el hilo actual; si cambia, alguna operación falló
+    static long errorCount() {
+        return COUNTERS.get().errors;
+    }
+
+    // Llamado por DBConnection con el tiempo que se esperó por una conexión
+    static void recordPoolWait(long nanos) {
+        COUNTERS.get().poolWaitNanos += nanos;
+        POOL_WAIT.record(nanos, nanos, false);
+    }
+
+    // Envuelve target (que implementa type) para medir cada método de type
+    static <T> T instrument(Class<T> type, T target) {
+        if (!ENABLED) {
+            return target;
+        }
+        Map<Method, Operation> operations = new HashMap<>();
+        Map<String, Integer> overloads = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            overloads.merge(method.getName(), 1, Integer::sum);
+        }
+        for (Method method : type.getMethods()) {
+            operations.put(method, new Operation(type, method, overloads.get(method.getName()) > 1, target));
+        }
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new Handler(target, operations));
+        return type.cast(proxy);
+    }
+
+    // También para operaciones fuera de los stores (p. ej. UnitOfWork.commit)
+    static OperationStats register(String name) {
+        return OPERATIONS.computeIfAbsent(name, key -> {
+            OperationStats stats = new OperationStats(key);
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=DataAccess,name=" + ObjectName.quote(key));
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(stats, objectName);
+                }
+            } catch (JMException e) {
+                Log.warn("Cannot register the JMX bean for " + key, e);
+            }
+            return stats;
+        });
+    }
+
+    // Un método del store: su nombre para las métricas y cómo llamarlo
+    private static final class Operation {
+        final OperationStats stats;
+        final boolean async;      // Devuelve CompletableFuture: se mide hasta que termina
+        final boolean viaDefault; // Método default no sobrescrito: se llama sobre el proxy para medir lo que llama
+
+        Operation(Class<?> type, Method method, boolean overloaded, Object target) {
+            String name = type.getSimpleName() + "." + method.getName();
+            if (overloaded) {
+                StringBuilder params = new StringBuilder();
+                for (Class<?> param : method.getParameterTypes()) {
+                    params.append(params.length() == 0 ? "" : ",").append(param.getSimpleName());
+                }
+                name += "(" + params + ")";
+            }
+            stats = register(name);
+            async = CompletableFuture.class.isAssignableFrom(method.getReturnType());
+            boolean overridden;
+            try {
+                overridden = !target.getClass().getMethod(method.getName(), method.getParameterTypes()).isDefault();
+            } catch (NoSuchMethodException e) {
+                overridden = true;
+            }
+            viaDefault = method.isDefault() && !overridden;
+        }
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object target;
+        private final Map<Method, Operation> operations;
+
+        Handler(Object target, Map<Method, Operation> operations) {
+            this.target = target;
+            this.operations = operations;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Operation operation = operations.get(method);
+            if (operation == null) {
+                // equals/hashCode/toString de Object
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                return call(method, args);
+            }
+            OperationStats stats = operation.stats;
+            if (args != null) {
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i] instanceof Consumer) {
+                        args[i] = counting(stats, (Consumer<?>) args[i]);
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            if (operation.async) {
+                CompletableFuture<?> future = (CompletableFuture<?>) invoke(operation, proxy, method, args);
+                future.whenComplete((result, error) -> {
+                    // Una búsqueda cancelada porque llegó otra más reciente no es un error
+                    stats.record(System.nanoTime() - start, 0, error != null && !(error instanceof CancellationException));
+                    stats.addRows(rowsOf(result));
+                });
+                return future;
+            }
+
+            ThreadCounters counters = COUNTERS.get();
+            long errorsBefore = counters.errors;
+            long waitBefore = counters.poolWaitNanos;
+            boolean failed = true;
+            try {
+                Object result = invoke(operation, proxy, method, args);
+                failed = false;
+                if (result instanceof Stream) {
+                    return ((Stream<?>) result).peek(row -> stats.addRows(1));
+                }
+                stats.addRows(rowsOf(result));
+                return result;
+            } finally {
+                stats.record(System.nanoTime() - start, counters.poolWaitNanos - waitBefore,
+                        failed || counters.errors != errorsBefore);
+            }
+        }
+
+        private Object invoke(Operation operation, Object proxy, Method method, Object[] args) throws Throwable {
+            if (operation.viaDefault) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            return call(method, args);
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private static <R> Consumer<R> counting(OperationStats stats, Consumer<R> consumer) {
+            return row -> {
+                stats.addRows(1);
+                consumer.accept(row);
+            };
+        }
+
+        // Filas devueltas o escritas según el tipo de resultado
+        private static long rowsOf(Object result) {
+            if (result instanceof Collection) {
+                return ((Collection<?>) result).size();
+            }
+            if (result instanceof BatchResult) {
+                return ((BatchResult<?>) result).getSavedCount();
+            }
+            if (result instanceof ChangeSet) {
+                return ((ChangeSet<?>) result).getRows().size();
+            }
+            if (result instanceof EnrollmentTable) {
+                return ((EnrollmentTable) result).size();
+            }
+            if (result instanceof Boolean) {
+                return (Boolean) result ? 1 : 0;
+            }
+            if (result instanceof EnrollmentResult) {
+                return result == EnrollmentResult.OK ? 1 : 0;
+            }
+            if (result instanceof Number) {
+                return 0; // count(): no son filas leídas
+            }
+            return result != null ? 1 : 0;
+        }
+    }
+}
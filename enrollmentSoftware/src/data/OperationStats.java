@@ -0,0 +1,91 @@
+package data;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores e histograma de latencia de una operación (p. ej. "EnrollmentStore.fetch"); ver Metrics
+public final class OperationStats implements OperationStatsMXBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder poolWaitNanos = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long poolWait, boolean failed) {
+        latency.record(nanos);
+        poolWaitNanos.add(poolWait);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void addRows(long count) {
+        rows.add(count);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long calls = latency.getCount();
+        return calls == 0 ? 0 : latency.getSumNanos() / NANOS_PER_MILLI / calls;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentileNanos(0.50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentileNanos(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.percentileNanos(0.999) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanPoolWaitMillis() {
+        long calls = latency.getCount();
+        return calls == 0 ? 0 : poolWaitNanos.sum() / NANOS_PER_MILLI / calls;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        rows.reset();
+        poolWaitNanos.reset();
+    }
+}
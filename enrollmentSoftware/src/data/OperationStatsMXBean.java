@@ -0,0 +1,30 @@
+package data;
+
+// Métricas de una operación de acceso a datos, publicadas por JMX (jconsole, VisualVM...) bajo
+// enrollmentSoftware:type=DataAccess. Los tiempos están en milisegundos.
+public interface OperationStatsMXBean {
+    String getName();
+
+    long getCalls();
+
+    // Llamadas que lanzaron una excepción o registraron un error (Log.error)
+    long getErrors();
+
+    // Filas devueltas o escritas
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    // Tiempo medio esperando una conexión del pool dentro de la operación
+    double getMeanPoolWaitMillis();
+
+    void reset();
+}
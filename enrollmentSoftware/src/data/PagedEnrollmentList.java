@@ -0,0 +1,275 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import model.Enrollment;
+
+// Lista observable de solo lectura que carga las inscripciones por páginas a medida que
+// el TableView las pide. Las páginas se cargan en segundo plano; mientras llegan, get()
+// devuelve null y la fila se muestra vacía. Solo se guardan en memoria las últimas
+// maxCachedPages páginas usadas; las demás se descartan y se vuelven a pedir si hace falta.
+// Cada página va desde su clave inicial hasta la clave inicial de la siguiente, así que
+// insert/replace/remove pueden aplicar un cambio sin recargar toda la lista.
+// Debe usarse únicamente desde el hilo de JavaFX.
+public class PagedEnrollmentList extends ObservableListBase<Enrollment> {
+
+    private final EnrollmentStore enrollmentDAO;
+    private final int pageSize;
+    private final Map<Integer, List<Enrollment>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+
+    private List<String[]> pageKeys = Collections.emptyList(); // Clave inicial de cada página
+    private int[] pageCounts = new int[0];  // Filas de cada página
+    private int[] pageOffsets = new int[0]; // Índice de la primera fila de cada página
+    private int size;
+    private int generation; // Se incrementa en cada refresh() para descartar cargas viejas
+
+    public PagedEnrollmentList(EnrollmentStore enrollmentDAO, int pageSize, int maxCachedPages) {
+        this.enrollmentDAO = enrollmentDAO;
+        this.pageSize = pageSize;
+        // LinkedHashMap en orden de acceso: la página menos usada recientemente se descarta primero
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Enrollment>> eldest) {
+                return size() > Math.max(maxCachedPages, 3);
+            }
+        };
+    }
+
+    @Override
+    public Enrollment get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int page = pageOfIndex(index);
+        List<Enrollment> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index - pageOffsets[page];
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Vuelve a leer el total y las claves de página; descarta todas las páginas en memoria
+    public void refresh() {
+        int gen = ++generation;
+        CompletableFuture<Integer> total = DataExecutor.supply(enrollmentDAO::count);
+        CompletableFuture<ArrayList<String[]>> keys = DataExecutor.supply(() -> enrollmentDAO.fetchPageKeys(pageSize));
+        total.thenAcceptBoth(keys, (n, k) -> Platform.runLater(() -> applyRefresh(gen, n, k)))
+                .exceptionally(error -> {
+                    Log.error("Could not reload the enrollment pages", error);
+                    return null;
+                });
+    }
+
+    // Agrega una inscripción recién guardada en su posición según la clave
+    public void insert(Enrollment enrollment) {
+        if (pageKeys.isEmpty()) {
+            refresh(); // Lista vacía: no hay páginas donde ubicarla
+            return;
+        }
+        int page = pageOfKey(enrollment);
+        if (compare(enrollment, pageKeys.get(page)) < 0) {
+            // Solo puede pasar en la primera página: la nueva fila pasa a ser su clave inicial
+            pageKeys.set(page, new String[] { enrollment.getStudentId(), enrollment.getCourseCode() });
+        }
+
+        List<Enrollment> rows = pages.get(page);
+        int position = pageCounts[page]; // Si la página no está en memoria, cualquier posición vale
+        if (rows != null) {
+            position = 0;
+            while (position < rows.size() && compare(rows.get(position), enrollment) < 0) {
+                position++;
+            }
+            rows.add(position, enrollment);
+        }
+        pageCounts[page]++;
+        size++;
+        recomputeOffsets();
+
+        int index = pageOffsets[page] + position;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    // Reemplaza una inscripción modificada (misma clave) si su página está en memoria
+    public void replace(Enrollment enrollment) {
+        if (pageKeys.isEmpty()) {
+            return;
+        }
+        int page = pageOfKey(enrollment);
+        List<Enrollment> rows = pages.get(page);
+        int position = rows == null ? -1 : positionOf(rows, enrollment.getStudentId(), enrollment.getCourseCode());
+        if (position < 0) {
+            return; // No está en memoria: se leerá actualizada cuando se cargue la página
+        }
+        Enrollment old = rows.set(position, enrollment);
+        int index = pageOffsets[page] + position;
+        beginChange();
+        nextReplace(index, index + 1, Collections.singletonList(old));
+        endChange();
+    }
+
+    // Quita una inscripción eliminada
+    public void remove(String studentId, String courseCode) {
+        if (pageKeys.isEmpty()) {
+            return;
+        }
+        Enrollment key = new Enrollment(studentId, courseCode, null);
+        int page = pageOfKey(key);
+        if (pageCounts[page] == 0) {
+            return;
+        }
+        List<Enrollment> rows = pages.get(page);
+        Enrollment removed = null;
+        int position = pageCounts[page] - 1; // Si la página no está en memoria, cualquier posición vale
+        if (rows != null) {
+            position = positionOf(rows, studentId, courseCode);
+            if (position < 0) {
+                return; // No estaba en la lista
+            }
+            removed = rows.remove(position);
+        }
+        int index = pageOffsets[page] + position;
+        pageCounts[page]--;
+        size--;
+        recomputeOffsets();
+
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    private void applyRefresh(int gen, int total, List<String[]> keys) {
+        if (gen != generation) {
+            return; // Hay un refresh más reciente
+        }
+        int oldSize = size;
+        pages.clear();
+        loading.clear();
+        pageKeys = new ArrayList<>(keys);
+        // El total puede haber cambiado entre las dos consultas; no se pasa de las páginas conocidas
+        size = Math.min(total, keys.size() * pageSize);
+        pageCounts = new int[keys.size()];
+        Arrays.fill(pageCounts, pageSize);
+        if (!keys.isEmpty()) {
+            pageCounts[keys.size() - 1] = size - (keys.size() - 1) * pageSize;
+        }
+        recomputeOffsets();
+
+        beginChange();
+        nextReplace(0, size, Collections.nCopies(oldSize, null));
+        endChange();
+    }
+
+    private void requestPage(int page) {
+        if (page >= pageKeys.size() || !loading.add(page)) {
+            return;
+        }
+        int gen = generation;
+        String[] from = pageKeys.get(page);
+        String[] to = page + 1 < pageKeys.size() ? pageKeys.get(page + 1) : new String[2];
+        int expected = pageCounts[page];
+        enrollmentDAO.fetchPageAsync(from[0], from[1], to[0], to[1], Math.max(expected, 1))
+                .thenAccept(rows -> Platform.runLater(() -> {
+            if (gen != generation) {
+                return;
+            }
+            loading.remove(page);
+            // Mientras se cargaba pudo cambiar el número de filas; se ajusta a lo que espera la lista
+            List<Enrollment> pageRows = new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageCounts[page])));
+            pages.put(page, pageRows);
+
+            // Avisa al TableView que las filas de la página ya tienen datos
+            int first = pageOffsets[page];
+            int last = first + pageCounts[page];
+            beginChange();
+            nextReplace(first, last, Collections.nCopies(last - first, null));
+            endChange();
+        })).exceptionally(error -> {
+            // La página se vuelve a pedir la próxima vez que el TableView la muestre
+            Log.error("Could not load enrollment page " + page, error);
+            Platform.runLater(() -> {
+                if (gen == generation) {
+                    loading.remove(page);
+                }
+            });
+            return null;
+        });
+    }
+
+    // Página que contiene el índice: la última cuya primera fila es <= index
+    private int pageOfIndex(int index) {
+        int low = 0;
+        int high = pageOffsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pageOffsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Página donde va la clave: la última cuya clave inicial es <= clave (o la primera)
+    private int pageOfKey(Enrollment enrollment) {
+        int low = 0;
+        int high = pageKeys.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (compare(enrollment, pageKeys.get(mid)) >= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void recomputeOffsets() {
+        pageOffsets = new int[pageCounts.length];
+        int offset = 0;
+        for (int i = 0; i < pageCounts.length; i++) {
+            pageOffsets[i] = offset;
+            offset += pageCounts[i];
+        }
+    }
+
+    private static int positionOf(List<Enrollment> rows, String studentId, String courseCode) {
+        for (int i = 0; i < rows.size(); i++) {
+            Enrollment row = rows.get(i);
+            if (row.getStudentId().equals(studentId) && row.getCourseCode().equals(courseCode)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(Enrollment enrollment, String[] key) {
+        int result = enrollment.getStudentId().compareTo(key[0]);
+        return result != 0 ? result : enrollment.getCourseCode().compareTo(key[1]);
+    }
+
+    private static int compare(Enrollment a, Enrollment b) {
+        return compare(a, new String[] { b.getStudentId(), b.getCourseCode() });
+    }
+}
@@ -0,0 +1,265 @@
+package data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Lectura por streaming compartida por los DAOs: las filas se procesan a medida que llegan
+// del ResultSet (en bloques de fetchSize), sin armar primero una lista con todo el resultado.
+final class RowStreams {
+
+    // Filas por viaje a la base de datos (se puede cambiar con -Ddb.fetchSize)
+    static final int DEFAULT_FETCH_SIZE = Integer.getInteger("db.fetchSize", 500);
+
+    // Convierte la fila actual del ResultSet en un objeto del modelo
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private RowStreams() {
+    }
+
+    // Recorre el resultado de sql y entrega cada fila a consumer
+    static <T> void forEach(DBConnection db, String sql, RowMapper<T> mapper, Consumer<? super T> consumer) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error streaming rows", e);
+        }
+    }
+
+    // Devuelve el resultado de sql como Stream. La conexión queda abierta hasta cerrar el Stream,
+    // por eso debe usarse con try-with-resources.
+    static <T> Stream<T> stream(DBConnection db, String sql, RowMapper<T> mapper) {
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        ResultSet rs;
+        try {
+            connection = db.getConnection();
+            stmt = connection.prepareStatement(sql);
+            stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            Log.error("Error streaming rows", e);
+            closeQuietly(stmt, connection);
+            return Stream.empty();
+        }
+
+        ResultSet results = rs;
+        PreparedStatement statement = stmt;
+        Connection conn = connection;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!results.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(results));
+                    return true;
+                } catch (SQLException e) {
+                    Log.error("Error streaming rows", e);
+                    return false;
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                results.close();
+            } catch (SQLException e) {
+                // Se cierra el statement de todas formas
+            }
+            closeQuietly(statement, conn);
+        });
+    }
+
+    // Devuelve las filas de table cuyo ORA_ROWSCN es mayor que changeNumber. selectSql debe ser
+    // "SELECT <columnas>, ORA_ROWSCN AS scn FROM <tabla>" sin WHERE. ORA_ROWSCN se registra por
+    // bloque, así que puede traer filas de más (nunca de menos). Con changeNumber < 0 solo
+    // devuelve el número de cambio actual de la tabla, para empezar a sincronizar desde ahí.
+    // Si la lectura falla a mitad de camino devuelve las filas leídas pero con el mismo changeNumber
+    // que recibió: las filas no vienen ordenadas por ORA_ROWSCN, así que avanzar hasta la mayor leída
+    // saltaría para siempre las que faltaban. La próxima llamada las vuelve a pedir todas.
+    static <T> ChangeSet<T> fetchChangedSince(DBConnection db, String selectSql, String table,
+                                              long changeNumber, RowMapper<T> mapper) {
+        ArrayList<T> rows = new ArrayList<>();
+        long latest = changeNumber;
+        String sql = changeNumber < 0
+                ? "SELECT MAX(ORA_ROWSCN) FROM " + table
+                : selectSql + " WHERE ORA_ROWSCN > ?";
+
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (changeNumber >= 0) {
+                stmt.setLong(1, changeNumber);
+            }
+            stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (changeNumber < 0) {
+                    return new ChangeSet<>(rows, rs.next() ? rs.getLong(1) : 0);
+                }
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                    latest = Math.max(latest, rs.getLong("scn"));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error fetching changes from " + table, e);
+            latest = changeNumber;
+        }
+        return new ChangeSet<>(rows, latest);
+    }
+
+    // Patrón LIKE para "empieza con text": escapa %, _ y \ para que se tomen literalmente
+    // (las consultas usan ESCAPE '\'). Un prefijo fijo deja usar el índice de la columna.
+    static String prefixPattern(String text) {
+        StringBuilder pattern = new StringBuilder(text.length() + 1);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    // Ejecuta sql con los parámetros dados (en orden) y devuelve todas las filas
+    static <T> ArrayList<T> query(DBConnection db, String sql, Object[] params, RowMapper<T> mapper) {
+        return query(db, sql, params, mapper, new RunningQuery());
+    }
+
+    // Igual que query() pero en DataExecutor. Si el future se cancela (por ejemplo porque llegó una
+    // búsqueda más reciente), también se cancela el statement en el servidor.
+    static <T> CompletableFuture<ArrayList<T>> queryAsync(DBConnection db, String sql, Object[] params,
+                                                         RowMapper<T> mapper) {
+        RunningQuery running = new RunningQuery();
+        CompletableFuture<ArrayList<T>> result = DataExecutor.supply(() -> query(db, sql, params, mapper, running));
+        result.whenComplete((rows, error) -> {
+            if (error instanceof CancellationException) {
+                running.cancel();
+            }
+        });
+        return result;
+    }
+
+    // Junta en DataExecutor las filas del Stream que da source. Si el future se cancela (por ejemplo
+    // porque una búsqueda reemplazó a la carga completa), deja de leer filas y cierra el Stream, y con
+    // él la consulta: no se termina de traer la tabla para descartarla.
+    static <T> CompletableFuture<ArrayList<T>> collectAsync(Supplier<Stream<T>> source) {
+        CompletableFuture<ArrayList<T>> result = new CompletableFuture<>();
+        DataExecutor.run(() -> {
+            if (result.isDone()) {
+                return; // Cancelado antes de empezar
+            }
+            ArrayList<T> rows = new ArrayList<>();
+            try (Stream<T> stream = source.get()) {
+                Iterator<T> iterator = stream.iterator();
+                while (!result.isDone() && iterator.hasNext()) {
+                    rows.add(iterator.next());
+                }
+            }
+            result.complete(rows);
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    private static <T> ArrayList<T> query(DBConnection db, String sql, Object[] params, RowMapper<T> mapper,
+                                          RunningQuery running) {
+        ArrayList<T> rows = new ArrayList<>();
+        try (Connection connection = db.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            if (!running.start(stmt)) {
+                return rows;
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next() && !running.isCancelled()) {
+                    rows.add(mapper.map(rs));
+                }
+            } finally {
+                running.finish();
+            }
+        } catch (SQLException e) {
+            if (!running.isCancelled()) {
+                Log.error("Error running query", e);
+            }
+        }
+        return rows;
+    }
+
+    // Statement en ejecución de una consulta cancelable. El statement vuelve a la caché de la
+    // conexión al terminar, así que cancel() y finish() se sincronizan para no cancelar nunca la
+    // consulta de otro que ya lo esté reutilizando.
+    private static final class RunningQuery {
+        private PreparedStatement stmt;
+        private boolean cancelled;
+
+        // false si la consulta ya se canceló antes de empezar
+        synchronized boolean start(PreparedStatement stmt) {
+            this.stmt = stmt;
+            return !cancelled;
+        }
+
+        synchronized void finish() {
+            stmt = null;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (stmt != null) {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                    // El driver no pudo cancelar: la consulta termina sola y su resultado se descarta
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt, Connection connection) {
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            // Se devuelve la conexión de todas formas
+        }
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            // Nada más que hacer
+        }
+    }
+}
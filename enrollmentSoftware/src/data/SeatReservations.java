@@ -0,0 +1,402 @@
+package data;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.Course;
+import model.Enrollment;
+
+// Cupos de los cursos durante una inscripción masiva. Cada curso con capacidad (Course.capacity > 0)
+// tiene un contador de asientos libres repartido en franjas (una por procesador, -Dseats.stripes),
+// cada una en su propia línea de caché: apartar un asiento es un compareAndSet sobre una franja, sin
+// bloqueos ni viajes a la base de datos, así que se concede o se rechaza en microsegundos aunque
+// muchos hilos pidan el mismo curso a la vez.
+//
+//   hold     aparta un asiento por -Dseats.holdMs (120 s); null si el curso está lleno
+//            (si no se pudo leer el curso, una reserva ya resuelta con ERROR)
+//   confirm  lo convierte en inscripción: se guarda en segundo plano con EnrollmentQueue
+//   cancel   lo devuelve; si vence sin confirmar, se devuelve solo
+//   enroll   hold + confirm, para quien no necesita el paso intermedio
+//
+// Si la inscripción se rechaza al guardarla (DUPLICATE, NO_STUDENT, BUSY, ...) su asiento vuelve a
+// quedar libre.
+//
+// El contador se arma la primera vez que se pide el curso: capacidad - inscritos - reservas en
+// curso (apartadas o confirmadas y todavía sin guardar). Cuando algo lo deja desactualizado (cambia el
+// curso, o se guardan o eliminan inscripciones por fuera de este motor) los stores llaman a
+// invalidate/enrollmentsChanged: el contador se cierra y el próximo pedido arma otro. Siempre se cierra
+// antes de quitarlo: si no, un hilo que ya lo tenía en la mano podría tomar un asiento después de que
+// el contador nuevo leyó las reservas en curso, y ese asiento no estaría en ninguno (sobrecupo).
+// Todo esto vale dentro de un proceso: otra estación que inscriba en el mismo curso no pasa por estos
+// contadores, y sus inscripciones solo se ven al volver a contar (p. ej. después de fetchChangedSince).
+public final class SeatReservations {
+
+    private static final int STRIPES = Math.max(1,
+            Integer.getInteger("seats.stripes", Runtime.getRuntime().availableProcessors()));
+    private static final long HOLD_MS = Long.getLong("seats.holdMs", 120_000);
+    private static final long RECOUNT_NANOS = TimeUnit.MILLISECONDS.toNanos(5); // Ver take()
+
+    private static final int PADDING = 16;               // 16 int = 64 bytes: una franja por línea de caché
+    private static final int CLOSED = Integer.MIN_VALUE / 2; // Franja de un contador cerrado
+
+    private static final OperationStats HOLDS = Metrics.register("SeatReservations.hold");
+
+    private static final SeatReservations INSTANCE = new SeatReservations();
+
+    public static SeatReservations getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<String, Seats> courses = new ConcurrentHashMap<>();
+    private final EnrollmentQueue queue = EnrollmentQueue.getInstance();
+    private final ScheduledExecutorService expiry;
+
+    private SeatReservations() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "seat-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.setRemoveOnCancelPolicy(true); // Las reservas confirmadas no dejan tareas en la cola
+        expiry = scheduler;
+    }
+
+    // Asiento apartado para un estudiante en un curso
+    public static final class Hold {
+        private static final int HELD = 0;
+        private static final int CONFIRMED = 1;
+        private static final int RELEASED = 2; // Cancelado o vencido
+
+        private final Enrollment enrollment;
+        private final Seats seats;
+        private final int stripe;
+        private final long expiresAt;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+        private final CompletableFuture<EnrollmentResult> result = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeout;
+
+        private Hold(Enrollment enrollment, Seats seats, int stripe, long expiresAt) {
+            this.enrollment = enrollment;
+            this.seats = seats;
+            this.stripe = stripe;
+            this.expiresAt = expiresAt;
+        }
+
+        // Reserva sin asiento, ya resuelta con ERROR: no se pudo contar el cupo del curso. confirm
+        // devuelve ese resultado y cancel no hace nada.
+        private static Hold failed(Enrollment enrollment, Seats seats, long expiresAt) {
+            Hold hold = new Hold(enrollment, seats, -1, expiresAt);
+            hold.state.set(RELEASED);
+            hold.result.complete(EnrollmentResult.ERROR);
+            return hold;
+        }
+
+        public String getStudentId() {
+            return enrollment.getStudentId();
+        }
+
+        public String getCourseCode() {
+            return enrollment.getCourseCode();
+        }
+
+        // Momento (System.currentTimeMillis) en que vence si no se confirma
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        // Resultado de la inscripción: se completa al guardarla, o con EXPIRED si se canceló o venció
+        public CompletableFuture<EnrollmentResult> getResult() {
+            return result;
+        }
+
+        // Guardada: ya está entre los inscritos; rechazada: el asiento vuelve
+        private void saved(EnrollmentResult outcome) {
+            if (outcome == EnrollmentResult.OK) {
+                seats.outstanding.decrement();
+                result.complete(outcome);
+            } else {
+                release(outcome);
+            }
+        }
+
+        // Devuelve el asiento y completa el resultado. Va al contador actual del curso aunque no sea del
+        // que se tomó: cualquier contador armado después de tomarlo lo contó como reserva en curso.
+        // Se devuelve antes de descontarlo de outstanding; al revés, un contador armado en el medio
+        // lo recibiría dos veces.
+        private void release(EnrollmentResult outcome) {
+            Counter current = seats.counter.get();
+            if (current != null) {
+                current.release(stripe);
+            }
+            seats.outstanding.decrement();
+            result.complete(outcome);
+        }
+    }
+
+    // Aparta un asiento en el curso; null si no quedan. Un curso sin capacidad (0) o que no existe no
+    // tiene límite: en el segundo caso la inscripción se rechaza al guardarla (NO_COURSE). Si no se
+    // pudo leer el curso o sus inscritos, la reserva vuelve ya resuelta con ERROR: sin saber el cupo
+    // no se aparta nada (tomarlo como ilimitado permitiría el sobrecupo).
+    public Hold hold(Enrollment enrollment) {
+        Hold hold = take(enrollment, System.currentTimeMillis() + HOLD_MS);
+        if (hold != null && hold.state.get() == Hold.HELD) {
+            hold.timeout = expiry.schedule(() -> expire(hold), HOLD_MS, TimeUnit.MILLISECONDS);
+        }
+        return hold;
+    }
+
+    // Guarda la inscripción del asiento apartado. Si ya venció o se canceló, el resultado es EXPIRED.
+    public CompletableFuture<EnrollmentResult> confirm(Hold hold) {
+        if (hold.state.compareAndSet(Hold.HELD, Hold.CONFIRMED)) {
+            ScheduledFuture<?> timeout = hold.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            // Se llama en el hilo de escritura, antes de que termine el bloque (ver count())
+            queue.submit(hold.enrollment, 0, hold::saved);
+        }
+        return hold.result;
+    }
+
+    // Devuelve el asiento; false si ya estaba confirmado, cancelado o vencido
+    public boolean cancel(Hold hold) {
+        if (!hold.state.compareAndSet(Hold.HELD, Hold.RELEASED)) {
+            return false;
+        }
+        ScheduledFuture<?> timeout = hold.timeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        hold.release(EnrollmentResult.EXPIRED);
+        return true;
+    }
+
+    // Aparta y confirma en un paso: FULL si el curso no tiene cupo, ERROR si no se pudo contar, si no
+    // el resultado de guardarla
+    public CompletableFuture<EnrollmentResult> enroll(Enrollment enrollment) {
+        Hold hold = take(enrollment, Long.MAX_VALUE);
+        if (hold == null) {
+            return CompletableFuture.completedFuture(EnrollmentResult.FULL);
+        }
+        return confirm(hold);
+    }
+
+    // Asientos libres del curso según su contador; -1 si no tiene límite o todavía no se armó
+    public int available(String courseCode) {
+        Seats seats = courses.get(courseCode);
+        Counter counter = seats == null ? null : seats.counter.get();
+        return counter == null || counter.free == null ? -1 : counter.available();
+    }
+
+    // Cambió el curso (capacidad, eliminado, ...): se vuelve a contar en el próximo pedido
+    public void invalidate(String courseCode) {
+        Seats seats = courses.get(courseCode);
+        if (seats != null) {
+            seats.epoch.incrementAndGet();
+            Counter counter = seats.counter.get();
+            if (counter != null) {
+                counter.close();
+                seats.counter.compareAndSet(counter, null);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (String courseCode : courses.keySet()) {
+            invalidate(courseCode);
+        }
+    }
+
+    // Llamado por los stores al guardar o eliminar inscripciones; las que guarda este motor ya tienen
+    // su asiento contado
+    void enrollmentsChanged(String courseCode) {
+        if (!queue.isWriter()) {
+            invalidate(courseCode);
+        }
+    }
+
+    void enrollmentsChanged() {
+        if (!queue.isWriter()) {
+            invalidateAll();
+        }
+    }
+
+    // --- Contadores ---
+
+    // Estado de un curso que sobrevive a sus contadores
+    private static final class Seats {
+        final AtomicReference<Counter> counter = new AtomicReference<>();
+        final AtomicInteger epoch = new AtomicInteger();     // Cambia con cada invalidate
+        final LongAdder outstanding = new LongAdder();       // Asientos tomados y todavía sin guardar
+    }
+
+    // Asientos libres de un curso, repartidos en franjas; free == null: sin límite
+    private static final class Counter {
+        final AtomicIntegerArray free;
+        final long builtAt = System.nanoTime();
+        // Se armó mientras se guardaba un bloque: puede tener de menos los asientos de ese bloque
+        final boolean conservative;
+        volatile boolean closed;
+
+        Counter(int seats, boolean conservative) {
+            this.conservative = conservative;
+            if (seats < 0) {
+                free = null;
+                return;
+            }
+            free = new AtomicIntegerArray(STRIPES * PADDING);
+            for (int i = 0; i < STRIPES; i++) {
+                free.set(i * PADDING, seats / STRIPES + (i < seats % STRIPES ? 1 : 0));
+            }
+        }
+
+        // Toma un asiento empezando por la franja start; devuelve la franja, o -1 si no quedan
+        int take(int start) {
+            if (free == null) {
+                return closed ? -1 : start;
+            }
+            for (int i = 0; i < STRIPES; i++) {
+                int stripe = (start + i) % STRIPES;
+                int index = stripe * PADDING;
+                int seats;
+                while ((seats = free.get(index)) > 0) {
+                    if (free.compareAndSet(index, seats, seats - 1)) {
+                        return stripe;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // En un contador cerrado no hace nada: el próximo lo vuelve a contar
+        void release(int stripe) {
+            if (free == null) {
+                return;
+            }
+            int index = stripe * PADDING;
+            int seats;
+            do {
+                seats = free.get(index);
+                if (seats < 0) {
+                    return;
+                }
+            } while (!free.compareAndSet(index, seats, seats + 1));
+        }
+
+        void close() {
+            closed = true;
+            if (free != null) {
+                for (int i = 0; i < STRIPES; i++) {
+                    free.set(i * PADDING, CLOSED);
+                }
+            }
+        }
+
+        int available() {
+            int total = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                total += Math.max(0, free.get(i * PADDING));
+            }
+            return total;
+        }
+    }
+
+    private Hold take(Enrollment enrollment, long expiresAt) {
+        long start = System.nanoTime();
+        String courseCode = enrollment.getCourseCode();
+        Seats seats = courses.computeIfAbsent(courseCode, code -> new Seats());
+        int first = (int) (Thread.currentThread().getId() % STRIPES);
+        boolean recounted = false;
+        try {
+            while (true) {
+                Counter counter = seats.counter.get();
+                if (counter == null) {
+                    counter = build(courseCode, seats);
+                    if (counter == null) {
+                        return Hold.failed(enrollment, seats, expiresAt);
+                    }
+                }
+                // Se cuenta antes de tomar el asiento: quien vuelva a contar ya lo ve en curso
+                seats.outstanding.increment();
+                int stripe = counter.take(first);
+                if (stripe >= 0) {
+                    return new Hold(enrollment, seats, stripe, expiresAt);
+                }
+                seats.outstanding.decrement();
+                if (counter.closed) {
+                    continue; // Se invalidó mientras tanto: se pide al contador nuevo
+                }
+                // Lleno. Si el contador pudo contar de menos, se vuelve a contar una vez por bloque.
+                if (!recounted && counter.conservative && System.nanoTime() - counter.builtAt > RECOUNT_NANOS
+                        && seats.counter.get() == counter) {
+                    counter.close();
+                    seats.counter.compareAndSet(counter, null);
+                    recounted = true;
+                    continue;
+                }
+                return null;
+            }
+        } finally {
+            HOLDS.record(System.nanoTime() - start, 0, false);
+        }
+    }
+
+    // Cuenta los asientos libres del curso e instala el contador, salvo que se invalide mientras tanto.
+    // Un hilo por curso: los demás que llegan al mismo tiempo esperan y usan ese contador. null si no se
+    // pudo leer el curso o sus inscritos (no se instala nada: el próximo pedido vuelve a intentar).
+    private Counter build(String courseCode, Seats seats) {
+        synchronized (seats) {
+            Counter current = seats.counter.get();
+            if (current != null) {
+                return current;
+            }
+            return count(courseCode, seats);
+        }
+    }
+
+    private Counter count(String courseCode, Seats seats) {
+        int epoch = seats.epoch.get();
+        // Un contador armado mientras se guardaba un bloque pudo contar dos veces el mismo asiento
+        long finishedBefore = queue.flushesFinished();
+        // Primero las reservas en curso y después los inscritos: una reserva que se guarda en el medio
+        // se cuenta dos veces (de menos, nunca de más)
+        long outstanding = seats.outstanding.sum();
+        long errors = Metrics.errorCount(); // Los stores devuelven null o -1 al fallar, y lo registran
+        Course course = StorageBackend.getInstance().courses().get(courseCode);
+        int enrolled = course == null || course.getCapacity() <= 0 ? 0
+                : StorageBackend.getInstance().enrollments().countByCourse(courseCode);
+        boolean conservative = queue.flushesStarted() != finishedBefore;
+
+        if (enrolled < 0 || Metrics.errorCount() != errors) {
+            return null; // Base de datos caída: no se sabe cuántos asientos quedan
+        }
+        if (course == null) {
+            // Curso inexistente: sin límite y sin instalar; el guardado lo rechaza (NO_COURSE)
+            return new Counter(-1, false);
+        }
+        Counter counter = course.getCapacity() <= 0 ? new Counter(-1, false)
+                : new Counter((int) Math.max(0, course.getCapacity() - enrolled - outstanding), conservative);
+        seats.counter.set(counter);
+        if (seats.epoch.get() != epoch) {
+            // Se invalidó mientras se contaba: lo que se tomó de acá se vuelve a contar
+            counter.close();
+            seats.counter.compareAndSet(counter, null);
+        }
+        return counter;
+    }
+
+    private void expire(Hold hold) {
+        if (hold.state.compareAndSet(Hold.HELD, Hold.RELEASED)) {
+            hold.release(EnrollmentResult.EXPIRED);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package data;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caché LRU de PreparedStatement/CallableStatement por conexión física, con el texto SQL como clave.
+// DBConnection la usa de forma transparente: prepareStatement(sql) y prepareCall(sql) devuelven
+// un statement de la caché, y al cerrarlo vuelve a la caché en vez de cerrarse.
+final class StatementCache {
+
+    // Contadores globales de aciertos y fallos de todas las conexiones del pool
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private final Connection physical;
+    private final Map<String, PreparedStatement> statements;
+
+    StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        // Orden de acceso: al superar la capacidad se cierra el statement menos usado
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static long getHitCount() {
+        return hits.get();
+    }
+
+    static long getMissCount() {
+        return misses.get();
+    }
+
+    // Devuelve un statement para sql. Mientras está en uso sale de la caché, así que si se pide
+    // el mismo SQL dos veces a la vez, el segundo se prepara de nuevo.
+    PreparedStatement prepare(Connection owner, String sql, boolean callable) throws SQLException {
+        String key = (callable ? "C:" : "P:") + sql;
+        PreparedStatement stmt;
+        synchronized (this) {
+            stmt = statements.remove(key);
+        }
+        if (stmt != null && stmt.isClosed()) {
+            stmt = null; // Cerrado por el driver; se vuelve a preparar
+        }
+        if (stmt != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            stmt = callable ? physical.prepareCall(sql) : physical.prepareStatement(sql);
+        }
+        return wrap(owner, key, stmt, callable);
+    }
+
+    // Cierra todos los statements (cuando la conexión física se descarta)
+    synchronized void closeAll() {
+        for (PreparedStatement stmt : new ArrayList<>(statements.values())) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+    }
+
+    // Devuelve un statement a la caché, limpio para el próximo uso
+    private void release(String key, PreparedStatement stmt, int defaultFetchSize, boolean broken) {
+        try {
+            if (broken || stmt.isClosed()) {
+                closeQuietly(stmt);
+                return;
+            }
+            stmt.clearParameters();
+            stmt.clearBatch();
+            stmt.setFetchSize(defaultFetchSize);
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            return;
+        }
+        PreparedStatement previous;
+        synchronized (this) {
+            previous = statements.put(key, stmt);
+        }
+        if (previous != null && previous != stmt) {
+            closeQuietly(previous);
+        }
+    }
+
+    private PreparedStatement wrap(Connection owner, String key, PreparedStatement stmt, boolean callable)
+            throws SQLException {
+        int defaultFetchSize = stmt.getFetchSize();
+        boolean[] closed = new boolean[1];
+        boolean[] broken = new boolean[1];
+        ResultSet[] lastResult = new ResultSet[1];
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        if (lastResult[0] != null) {
+                            lastResult[0].close(); // Cierra el cursor aunque el statement se reutilice
+                        }
+                        release(key, stmt, defaultFetchSize, broken[0]);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed[0] || stmt.isClosed();
+                case "getConnection":
+                    return owner;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(stmt)) {
+                        return stmt;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed[0]) {
+                throw new SQLException("Statement is closed.");
+            }
+            try {
+                Object result = method.invoke(stmt, args);
+                if (result instanceof ResultSet) {
+                    lastResult[0] = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                // Un statement que falló (p. ej. invalidado por un cambio de esquema) no se reutiliza
+                if (e.getCause() instanceof SQLException) {
+                    broken[0] = true;
+                }
+                throw e.getCause();
+            }
+        };
+        Class<?> type = callable ? CallableStatement.class : PreparedStatement.class;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // Se descarta de todas formas
+        }
+    }
+}
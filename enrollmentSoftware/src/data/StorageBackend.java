@@ -0,0 +1,161 @@
+package data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Motor de almacenamiento de la aplicación. Se elige con -Dstorage.backend:
+//   jdbc   (por defecto) Oracle a través de DBConnection y los DAOs, con una réplica local para
+//          trabajar sin conexión (ver LocalReplica)
+//   memory motor en memoria con log de escritura anticipada (ver MemoryEngine),
+//          en el directorio -Dstorage.memory.dir (por defecto ~/.enrollment)
+// Los stores que entrega están envueltos por Metrics, que mide cada operación.
+public abstract class StorageBackend {
+    private static volatile StorageBackend instance; //Singleton
+
+    public static StorageBackend getInstance() {
+        if (instance == null) {
+            synchronized (StorageBackend.class) {
+                if (instance == null) {
+                    instance = create(System.getProperty("storage.backend", "jdbc"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Cierra el motor si se llegó a abrir (al salir de la aplicación)
+    public static void shutdown() {
+        StorageBackend current;
+        synchronized (StorageBackend.class) {
+            current = instance;
+            instance = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private static StorageBackend create(String name) {
+        switch (name) {
+            case "jdbc":
+                return new JdbcBackend();
+            case "memory":
+                Path dir = Paths.get(System.getProperty("storage.memory.dir",
+                        Paths.get(System.getProperty("user.home"), ".enrollment").toString()));
+                return new MemoryBackend(dir);
+            default:
+                throw new IllegalArgumentException("Unknown storage.backend: " + name);
+        }
+    }
+
+    public abstract CourseStore courses();
+
+    public abstract StudentStore students();
+
+    public abstract EnrollmentStore enrollments();
+
+    // Abre una unidad de trabajo en el hilo actual (ver UnitOfWork)
+    public abstract UnitOfWork begin(UnitOfWork.Isolation isolation);
+
+    public UnitOfWork begin() {
+        return begin(UnitOfWork.DEFAULT_ISOLATION);
+    }
+
+    // Nombre del motor en uso ("jdbc" o "memory")
+    public abstract String getName();
+
+    // Libera conexiones y archivos al cerrar la aplicación
+    public abstract void close();
+
+    // Oracle: los DAOs de siempre sobre el pool de DBConnection, o la réplica local si no hay conexión
+    private static final class JdbcBackend extends StorageBackend {
+        private final CourseStore courses;
+        private final StudentStore students;
+        private final EnrollmentStore enrollments;
+
+        private JdbcBackend() {
+            DBConnection db = DBConnection.getInstance();
+            LocalReplica replica = LocalReplica.getInstance();
+            courses = replica.route(CourseStore.class, new CourseDAO(db), MemoryCourseStore.class);
+            students = replica.route(StudentStore.class, new StudentDAO(db), MemoryStudentStore.class);
+            enrollments = replica.route(EnrollmentStore.class, new EnrollmentDAO(db), MemoryEnrollmentStore.class);
+        }
+
+        @Override
+        public CourseStore courses() {
+            return courses;
+        }
+
+        @Override
+        public StudentStore students() {
+            return students;
+        }
+
+        @Override
+        public EnrollmentStore enrollments() {
+            return enrollments;
+        }
+
+        @Override
+        public UnitOfWork begin(UnitOfWork.Isolation isolation) {
+            return LocalReplica.getInstance().begin(DBConnection.getInstance(), isolation);
+        }
+
+        @Override
+        public String getName() {
+            return "jdbc";
+        }
+
+        @Override
+        public void close() {
+            LocalReplica.getInstance().close();
+            DBConnection.getInstance().shutdown();
+        }
+    }
+
+    // Motor en memoria: las tres tablas comparten un MemoryEngine y su log
+    private static final class MemoryBackend extends StorageBackend {
+        private final MemoryEngine engine;
+        private final CourseStore courses;
+        private final StudentStore students;
+        private final EnrollmentStore enrollments;
+
+        private MemoryBackend(Path dir) {
+            engine = MemoryEngine.open(dir);
+            courses = Metrics.instrument(CourseStore.class, new MemoryCourseStore(engine));
+            students = Metrics.instrument(StudentStore.class, new MemoryStudentStore(engine));
+            enrollments = Metrics.instrument(EnrollmentStore.class, new MemoryEnrollmentStore(engine));
+        }
+
+        @Override
+        public CourseStore courses() {
+            return courses;
+        }
+
+        @Override
+        public StudentStore students() {
+            return students;
+        }
+
+        @Override
+        public EnrollmentStore enrollments() {
+            return enrollments;
+        }
+
+        // Las escrituras del motor ya son de a una; la unidad las serializa todas hasta terminar
+        @Override
+        public UnitOfWork begin(UnitOfWork.Isolation isolation) {
+            return UnitOfWork.memory(engine);
+        }
+
+        @Override
+        public String getName() {
+            return "memory";
+        }
+
+        @Override
+        public void close() {
+            engine.close();
+        }
+    }
+}
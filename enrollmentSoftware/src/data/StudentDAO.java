@@ -3,6 +3,10 @@ package data;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -11,73 +15,154 @@ import java.sql.Types;
 
 import model.Student;
 
-public class StudentDAO implements CRUD_Operation<Student, String> {
+public class StudentDAO implements StudentStore {
     
-    private Connection connection;
+    private final DBConnection db; // Pool de conexiones a la base de datos
+    private final FuzzyIndex<Student> index = FuzzyIndex.students(); // Búsqueda difusa en memoria
 
-    // Constructor que recibe la conexión a la base de datos
-    public StudentDAO(Connection connection) {
-        this.connection = connection;
+    // Constructor que recibe el pool de conexiones a la base de datos
+    public StudentDAO(DBConnection db) {
+        this.db = db;
     }
 
     // Implementación del método save para guardar un nuevo estudiante en la base de datos
-    public void save(Student student) {
+    public Student save(Student student) {
         String sql = "{ call insert_student(?, ?, ?) }";
-        try (CallableStatement stmt = connection.prepareCall(sql)) {
+        try (Connection connection = db.getConnection();
+             CallableStatement stmt = connection.prepareCall(sql)) {
             stmt.setString(1, student.getId());
             stmt.setString(2, student.getName());
             stmt.setString(3, student.getEmail());
             stmt.execute();
-            System.out.println("Student inserted successfully.");
+            Log.debug("Student inserted successfully.");
+            index.put(student); // Mantiene el índice al día
+            return student;
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("StudentDAO.save failed", e);
         }
+        return null;
+    }
+
+    // Guardar muchos estudiantes por lotes con el mismo procedimiento insert_student
+    @Override
+    public BatchResult<Student> saveAll(Collection<Student> students, int batchSize) {
+        String sql = "{ call insert_student(?, ?, ?) }";
+        BatchResult<Student> result = BatchWriter.write(db, sql, true, students, batchSize, (stmt, student) -> {
+            stmt.setString(1, student.getId());
+            stmt.setString(2, student.getName());
+            stmt.setString(3, student.getEmail());
+        });
+        index.invalidate(); // La próxima búsqueda vuelve a armar el índice
+        return result;
     }
 
     // Llamar procedimiento para actualizar
-    public void update(Student student) {
+    public Student update(Student student) {
         String sql = "{ call update_student(?, ?, ?) }";
-        try (CallableStatement stmt = connection.prepareCall(sql)) {
+        try (Connection connection = db.getConnection();
+             CallableStatement stmt = connection.prepareCall(sql)) {
             stmt.setString(1, student.getId());
             stmt.setString(2, student.getName());
             stmt.setString(3, student.getEmail());
             stmt.execute();
-            System.out.println("Student updated successfully.");
+            Log.debug("Student updated successfully.");
+            index.put(student);
+            return student;
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("StudentDAO.update failed", e);
         }
+        return null;
     }
 
     // Llamar procedimiento para eliminar
-    public void delete(String id) {
+    public boolean delete(String id) {
         String sql = "{ call delete_student(?) }";
-        try (CallableStatement stmt = connection.prepareCall(sql)) {
+        try (Connection connection = db.getConnection();
+             CallableStatement stmt = connection.prepareCall(sql)) {
             stmt.setString(1, id);
             stmt.execute();
-            System.out.println("Student deleted successfully.");
+            Log.debug("Student deleted successfully.");
+            index.remove(id);
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("StudentDAO.delete failed", e);
         }
+        return false;
     }
 
     // Llamar función para autenticar
     public boolean authenticate(String id) {
         String sql = "{ ? = call authenticate_student(?) }";
-        try (CallableStatement stmt = connection.prepareCall(sql)) {
+        try (Connection connection = db.getConnection();
+             CallableStatement stmt = connection.prepareCall(sql)) {
             stmt.registerOutParameter(1, Types.INTEGER);
             stmt.setString(2, id);
             stmt.execute();
             int exists = stmt.getInt(1);
             return exists > 0;
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("StudentDAO.authenticate failed", e);
         }
         return false;
     }
 
+	// Obtener todos los estudiantes
 	@Override
 	public ArrayList<Student> fetch() {
-		// TODO Auto-generated method stub
-		return null;
+		ArrayList<Student> students = new ArrayList<>();
+		fetch(students::add);
+		return students;
+	}
+
+	// Recorrer todos los estudiantes fila por fila, a medida que llegan de la base de datos
+	@Override
+	public void fetch(Consumer<Student> consumer) {
+		RowStreams.forEach(db, FETCH_ALL, StudentDAO::mapRow, consumer);
+	}
+
+	// Todos los estudiantes como Stream; cerrar el Stream devuelve la conexión al pool
+	@Override
+	public Stream<Student> stream() {
+		return RowStreams.stream(db, FETCH_ALL, StudentDAO::mapRow);
+	}
+
+	// Estudiantes creados o modificados desde changeNumber
+	@Override
+	public ChangeSet<Student> fetchChangedSince(long changeNumber) {
+		ChangeSet<Student> changes = RowStreams.fetchChangedSince(db,
+				"SELECT id, name, email, ORA_ROWSCN AS scn FROM Student", "Student", changeNumber, StudentDAO::mapRow);
+		for (Student student : changes.getRows()) {
+			index.put(student); // El índice también recibe los cambios de otras estaciones
+		}
+		return changes;
+	}
+
+	// Búsqueda por prefijo del ID o del nombre
+	@Override
+	public ArrayList<Student> search(String prefix, int limit) {
+		return RowStreams.query(db, SEARCH, searchParams(prefix, limit), StudentDAO::mapRow);
+	}
+
+	// Igual que search(), pero cancelar el future cancela también la consulta en Oracle
+	@Override
+	public CompletableFuture<ArrayList<Student>> searchAsync(String prefix, int limit) {
+		return RowStreams.queryAsync(db, SEARCH, searchParams(prefix, limit), StudentDAO::mapRow);
+	}
+
+	private static Object[] searchParams(String prefix, int limit) {
+		return new Object[] { RowStreams.prefixPattern(prefix), RowStreams.prefixPattern(prefix.toUpperCase()), limit };
+	}
+
+	private static final String FETCH_ALL = "SELECT id, name, email FROM Student ORDER BY id";
+
+	// Cada rama de la UNION es un LIKE con prefijo fijo que puede recorrer un índice: la clave primaria
+	// y, para el nombre, un índice sobre UPPER(name). Solo viajan las filas que coinciden.
+	private static final String SEARCH = "SELECT id, name, email FROM ("
+			+ "SELECT id, name, email FROM Student WHERE id LIKE ? ESCAPE '\\' "
+			+ "UNION SELECT id, name, email FROM Student WHERE UPPER(name) LIKE ? ESCAPE '\\') "
+			+ "ORDER BY id FETCH FIRST ? ROWS ONLY";
+
+	private static Student mapRow(ResultSet rs) throws SQLException {
+		return new Student(rs.getString("id"), rs.getString("name"), rs.getString("email"));
 	}
 }
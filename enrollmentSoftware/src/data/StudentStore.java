@@ -0,0 +1,25 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import model.Student;
+
+// Almacenamiento de estudiantes. StudentDAO (Oracle) y MemoryStudentStore (en memoria) lo implementan;
+// StorageBackend decide cuál se usa.
+public interface StudentStore extends CRUD_Operation<Student, String> {
+    // Estudiantes cuyo ID empieza con prefix o cuyo nombre empieza con prefix (sin distinguir
+    // mayúsculas), ordenados por ID; a lo sumo limit filas
+    ArrayList<Student> search(String prefix, int limit);
+
+    // Cancelar el future descarta la búsqueda (en Oracle también se cancela la consulta)
+    default CompletableFuture<ArrayList<Student>> searchAsync(String prefix, int limit) {
+        return DataExecutor.supply(() -> search(prefix, limit));
+    }
+
+    // Todos los estudiantes leídos con stream(): cancelar el future deja de leer filas y cierra la consulta
+    @Override
+    default CompletableFuture<ArrayList<Student>> fetchAsync() {
+        return RowStreams.collectAsync(this::stream);
+    }
+}
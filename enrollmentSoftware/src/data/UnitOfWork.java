@@ -0,0 +1,395 @@
+package data;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+// Unidad de trabajo: agrupa llamadas a los stores (cursos, estudiantes e inscripciones) en una sola
+// transacción con un solo commit. Se abre con StorageBackend.begin() en el hilo que va a trabajar;
+// mientras está abierta, las llamadas síncronas a los stores desde ese hilo forman parte de ella:
+//   jdbc   los DAOs reciben de DBConnection la misma conexión, con autocommit apagado
+//   memory el hilo tiene el writeLock del motor y el log se confirma una sola vez (ver MemoryEngine)
+// Los stores siguen devolviendo null/false/-1 cuando algo falla, así que quien usa la unidad revisa
+// esos resultados y decide; close() sin commit() deshace todo:
+//
+//   try (UnitOfWork unit = StorageBackend.getInstance().begin()) {
+//       if (enrollments.deleteByCourse(code) >= 0 && courses.delete(code)) {
+//           unit.commit();
+//       }
+//   }
+//
+// Las versiones ...Async de los stores corren en otro hilo y quedan fuera de la unidad; para
+// trabajar en segundo plano está runAsync. Como los DAOs actualizan sus cachés al escribir, deshacer
+// (todo o hasta un savepoint) descarta las cachés en memoria para que se vuelvan a leer.
+// Aislamiento por defecto con -Dtx.isolation (READ_COMMITTED o SERIALIZABLE). Con -Dtx.commitWrite,
+// p. ej. "BATCH NOWAIT", Oracle confirma con COMMIT WRITE ...: no espera a escribir el redo log y
+// junta varios commits en una escritura (commit en grupo), a cambio de poder perder las últimas
+// transacciones confirmadas si el servidor se cae.
+public final class UnitOfWork implements AutoCloseable {
+
+    // Niveles de aislamiento que ofrece Oracle
+    public enum Isolation {
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        private final int level;
+
+        Isolation(int level) {
+            this.level = level;
+        }
+    }
+
+    static final Isolation DEFAULT_ISOLATION =
+            Isolation.valueOf(System.getProperty("tx.isolation", "READ_COMMITTED").toUpperCase());
+    private static final String COMMIT_WRITE = System.getProperty("tx.commitWrite");
+
+    private static final OperationStats COMMITS = Metrics.register("UnitOfWork.commit");
+    private static final OperationStats ROLLBACKS = Metrics.register("UnitOfWork.rollback");
+
+    // Unidad abierta en cada hilo
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    // Punto dentro de la unidad al que se puede volver con rollbackTo
+    public static final class Savepoint {
+        private final UnitOfWork unit;
+        private final Object handle; // java.sql.Savepoint (jdbc) o posición del undo (memory)
+
+        private Savepoint(UnitOfWork unit, Object handle) {
+            this.unit = unit;
+            this.handle = handle;
+        }
+    }
+
+    // Lo que cambia entre motores
+    private interface Transaction {
+        Object savepoint() throws SQLException;
+        void rollbackTo(Object savepoint) throws SQLException;
+        void commit() throws SQLException;
+        void rollback() throws SQLException;
+        void end(); // Libera la conexión o el bloqueo
+    }
+
+    private final Transaction tx;
+    private final Thread owner = Thread.currentThread();
+    private final long startedAt = System.nanoTime();
+    private boolean finished;
+
+    private UnitOfWork(Transaction tx) {
+        this.tx = tx;
+        CURRENT.set(this);
+    }
+
+    // Unidad abierta en el hilo actual, o null
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    // Ejecuta work en una unidad de trabajo en DataExecutor: confirma si devuelve true y deshace si
+    // devuelve false o lanza una excepción. El resultado es true solo si se confirmó.
+    public static CompletableFuture<Boolean> runAsync(BooleanSupplier work) {
+        return DataExecutor.supply(() -> run(DEFAULT_ISOLATION, work));
+    }
+
+    // Igual que runAsync, en el hilo actual
+    public static boolean run(Isolation isolation, BooleanSupplier work) {
+        try (UnitOfWork unit = StorageBackend.getInstance().begin(isolation)) {
+            return work.getAsBoolean() && unit.commit();
+        }
+    }
+
+    static UnitOfWork jdbc(DBConnection db, Isolation isolation) {
+        checkNotOpen();
+        try {
+            return new UnitOfWork(new JdbcTransaction(db, isolation));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot begin a unit of work: " + e.getMessage(), e);
+        }
+    }
+
+    static UnitOfWork memory(MemoryEngine engine) {
+        checkNotOpen();
+        return new UnitOfWork(new MemoryTransaction(engine));
+    }
+
+    // true si la unidad es del motor en memoria (o de la réplica local, ver LocalReplica)
+    boolean isMemory() {
+        return tx instanceof MemoryTransaction;
+    }
+
+    // Marca el estado actual; rollbackTo vuelve a él sin deshacer lo anterior
+    public Savepoint savepoint() {
+        checkOpen();
+        try {
+            return new Savepoint(this, tx.savepoint());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot create a savepoint: " + e.getMessage(), e);
+        }
+    }
+
+    // Deshace los cambios hechos después de savepoint; la unidad sigue abierta. false si falló.
+    public boolean rollbackTo(Savepoint savepoint) {
+        checkOpen();
+        if (savepoint.unit != this) {
+            throw new IllegalArgumentException("The savepoint belongs to another unit of work.");
+        }
+        try {
+            tx.rollbackTo(savepoint.handle);
+            return true;
+        } catch (SQLException e) {
+            Log.error("Cannot roll back to the savepoint", e);
+            return false;
+        } finally {
+            invalidateCaches();
+        }
+    }
+
+    // Confirma todo y cierra la unidad; false si el commit falló
+    public boolean commit() {
+        checkOpen();
+        long start = System.nanoTime();
+        boolean committed = false;
+        try {
+            tx.commit();
+            committed = true;
+        } catch (SQLException e) {
+            Log.error("UnitOfWork.commit failed", e);
+        } finally {
+            COMMITS.record(System.nanoTime() - start, 0, !committed);
+            if (!committed) {
+                rollbackQuietly();
+            }
+            end();
+        }
+        if (committed) {
+            Log.debug(String.format("Unit of work committed in %.2f ms.", (System.nanoTime() - startedAt) / 1e6));
+        }
+        return committed;
+    }
+
+    // Deshace todo y cierra la unidad
+    public void rollback() {
+        checkOpen();
+        try {
+            rollbackQuietly();
+        } finally {
+            end();
+        }
+    }
+
+    // Sin commit() deshace la unidad; después de commit() o rollback() no hace nada
+    @Override
+    public void close() {
+        if (!finished) {
+            rollback();
+        }
+    }
+
+    private void rollbackQuietly() {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            tx.rollback();
+        } catch (SQLException e) {
+            failed = true;
+            Log.error("UnitOfWork.rollback failed", e);
+        } finally {
+            ROLLBACKS.record(System.nanoTime() - start, 0, failed);
+            invalidateCaches();
+        }
+    }
+
+    private void end() {
+        finished = true;
+        CURRENT.remove();
+        tx.end();
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("The unit of work is already finished.");
+        }
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("A unit of work can only be used from the thread that began it.");
+        }
+    }
+
+    private static void checkNotOpen() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A unit of work is already open on this thread.");
+        }
+    }
+
+    // Los DAOs ya pusieron en sus cachés filas que ahora no existen (o quitaron filas que vuelven).
+    // LocalReplica también la llama al pasar de Oracle a la réplica local o al revés.
+    static void invalidateCaches() {
+        CourseCache.getInstance().invalidateAll();
+        EnrollmentIndex.getInstance().invalidate();
+        FuzzyIndex.students().invalidate();
+        FuzzyIndex.courses().invalidate();
+        SeatReservations.getInstance().invalidateAll();
+        CreditReport.getInstance().invalidate();
+        CourseRules.getInstance().invalidate();
+    }
+
+    // Oracle: una conexión del pool con autocommit apagado, asociada al hilo en DBConnection. Los
+    // DAOs reciben un envoltorio: close() no la devuelve al pool y su propio manejo de transacciones
+    // (BatchWriter hace commit por bloque y rollback si un bloque falla) se convierte en savepoints
+    // dentro de la unidad, así un bloque fallido no deshace lo anterior de la unidad.
+    private static final class JdbcTransaction implements Transaction {
+        private final DBConnection db;
+        private final Connection connection;
+        private final int previousIsolation;
+        private java.sql.Savepoint storeSavepoint; // Último "commit" de un DAO
+
+        JdbcTransaction(DBConnection db, Isolation isolation) throws SQLException {
+            this.db = db;
+            this.connection = db.borrow();
+            try {
+                previousIsolation = connection.getTransactionIsolation();
+                connection.setAutoCommit(false);
+                if (isolation.level != previousIsolation) {
+                    connection.setTransactionIsolation(isolation.level);
+                }
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            db.bindUnit(shared());
+        }
+
+        private Connection shared() {
+            return (Connection) Proxy.newProxyInstance(DBConnection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null;
+                            case "getAutoCommit":
+                                return false;
+                            case "setAutoCommit":
+                                // El DAO empieza su propia transacción: su rollback() vuelve hasta acá
+                                if (!(Boolean) args[0]) {
+                                    storeSavepoint = connection.setSavepoint();
+                                }
+                                return null;
+                            case "commit":
+                                storeSavepoint = connection.setSavepoint();
+                                return null;
+                            case "rollback":
+                                if (args == null) {
+                                    if (storeSavepoint == null) {
+                                        throw new SQLException("Cannot roll back a whole unit of work from a store.");
+                                    }
+                                    connection.rollback(storeSavepoint);
+                                    return null;
+                                }
+                                break;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public Object savepoint() throws SQLException {
+            return connection.setSavepoint();
+        }
+
+        @Override
+        public void rollbackTo(Object savepoint) throws SQLException {
+            connection.rollback((java.sql.Savepoint) savepoint);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            if (COMMIT_WRITE == null) {
+                connection.commit();
+                return;
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("COMMIT WRITE " + COMMIT_WRITE);
+            }
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            connection.rollback();
+        }
+
+        @Override
+        public void end() {
+            db.bindUnit(null);
+            try {
+                if (connection.getTransactionIsolation() != previousIsolation) {
+                    connection.setTransactionIsolation(previousIsolation);
+                }
+            } catch (SQLException e) {
+                Log.warn("Cannot restore the transaction isolation", e);
+            }
+            try {
+                connection.close(); // Vuelve al pool, que restablece el autocommit
+            } catch (SQLException e) {
+                Log.warn("Cannot return the unit of work connection", e);
+            }
+        }
+    }
+
+    // Motor en memoria: las escrituras son serializables porque la unidad tiene el writeLock
+    private static final class MemoryTransaction implements Transaction {
+        private final MemoryEngine engine;
+        private boolean done;
+
+        MemoryTransaction(MemoryEngine engine) {
+            this.engine = engine;
+            engine.beginUnit();
+        }
+
+        @Override
+        public Object savepoint() {
+            return engine.unitSavepoint();
+        }
+
+        @Override
+        public void rollbackTo(Object savepoint) throws SQLException {
+            if (!engine.rollbackUnitTo((Integer) savepoint)) {
+                throw new SQLException("Storage log write failed.");
+            }
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            done = true; // commitUnit cierra la unidad aunque falle, y en ese caso ya la deshizo
+            if (!engine.commitUnit()) {
+                throw new SQLException("Storage log write failed.");
+            }
+        }
+
+        @Override
+        public void rollback() {
+            if (!done) {
+                done = true;
+                engine.rollbackUnit();
+            }
+        }
+
+        @Override
+        public void end() {
+            if (!done) {
+                done = true;
+                engine.rollbackUnit();
+            }
+        }
+    }
+}
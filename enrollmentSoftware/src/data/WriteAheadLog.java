@@ -0,0 +1,230 @@
+package data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Log de escritura anticipada del motor en memoria. Cada cambio se agrega al log antes de aplicarse
+// en memoria; al abrir se vuelven a aplicar todos los registros en orden. Los registros se juntan en
+// un buffer y se escriben al archivo de una vez en commit() (o cuando el buffer se llena), así que una
+// carga masiva hace una escritura por bloque y no una por fila.
+// Formato de cada registro: [largo int][crc32 int][operación byte][n campos short][campos UTF].
+// Un registro incompleto o con crc inválido al final (corte durante la escritura) se descarta.
+final class WriteAheadLog implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Buffer de serialización que se lee sin copiarlo
+    private static final class Payload extends ByteArrayOutputStream {
+        Payload() {
+            super(256);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    // Recibe cada registro al reproducir el log
+    interface Replayer {
+        void apply(byte op, String[] fields);
+    }
+
+    private final Path file;
+    private final boolean sync; // force() en cada commit: sobrevive a un corte de energía, pero es más lento
+    private FileChannel channel;
+    private long records;
+    private long size; // Bytes ya escritos en el archivo; los registros del buffer van a continuación
+
+    // Registros agregados que todavía no se escribieron, y buffers reutilizados para serializar
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Payload payload = new Payload();
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+
+    private WriteAheadLog(Path file, boolean sync) {
+        this.file = file;
+        this.sync = sync;
+    }
+
+    // Abre (o crea) el log y reproduce sus registros con replayer
+    static WriteAheadLog open(Path file, boolean sync, Replayer replayer) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(file, sync);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        log.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long valid = log.replay(replayer);
+        if (valid < log.channel.size()) {
+            Log.warn("Write-ahead log: discarding " + (log.channel.size() - valid)
+                    + " bytes of an incomplete record in " + file);
+            log.channel.truncate(valid);
+        }
+        log.size = valid;
+        return log;
+    }
+
+    // Reproduce los registros válidos de file sin abrirlo para escribir; devuelve cuántos son
+    static long read(Path file, Replayer replayer) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(file, false);
+        log.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            log.replay(replayer);
+            return log.records;
+        } finally {
+            log.channel.close();
+        }
+    }
+
+    // Número de registros en el archivo (reproducidos más agregados)
+    long getRecordCount() {
+        return records;
+    }
+
+    // Agrega un registro al buffer; llega al archivo en el siguiente commit()
+    void append(byte op, String... fields) throws IOException {
+        payload.reset();
+        payloadOut.writeByte(op);
+        payloadOut.writeShort(fields.length);
+        for (String field : fields) {
+            payloadOut.writeUTF(field);
+        }
+        int length = payload.size();
+        crc.reset();
+        crc.update(payload.bytes(), 0, length);
+
+        if (pending.remaining() < 8 + length) {
+            flush();
+        }
+        if (pending.remaining() < 8 + length) {
+            // Registro más grande que el buffer: se escribe solo
+            ByteBuffer record = ByteBuffer.allocate(8 + length);
+            record.putInt(length).putInt((int) crc.getValue()).put(payload.bytes(), 0, length).flip();
+            write(record);
+        } else {
+            pending.putInt(length).putInt((int) crc.getValue()).put(payload.bytes(), 0, length);
+        }
+        records++;
+    }
+
+    // Escribe los registros pendientes y los hace durables (fsync solo si sync está activado)
+    void commit() throws IOException {
+        flush();
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    // Reemplaza el log por uno nuevo escrito por writer (compactación); el cambio es atómico
+    void rewrite(Writer writer) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        WriteAheadLog compacted = new WriteAheadLog(tmp, sync);
+        compacted.channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writer.writeTo(compacted);
+            compacted.flush();
+            compacted.channel.force(true);
+        } finally {
+            compacted.channel.close();
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = compacted.size;
+        records = compacted.records;
+    }
+
+    // Escribe el contenido completo del log compactado
+    interface Writer {
+        void writeTo(WriteAheadLog log) throws IOException;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        pending.flip();
+        try {
+            write(pending);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    // Escribe buffer al final del archivo; si falla lo deja sin registros a medias (los siguientes
+    // quedarían detrás de uno inválido y se perderían al reproducir)
+    private void write(ByteBuffer buffer) throws IOException {
+        long position = size;
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            channel.truncate(size);
+            throw e;
+        }
+        size = position;
+    }
+
+    // Reproduce los registros válidos; devuelve la posición donde termina el último
+    private long replay(Replayer replayer) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (position + 8 <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 3 || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, position + 8);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()));
+            byte op = in.readByte();
+            String[] fields = new String[in.readShort()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = in.readUTF();
+            }
+            replayer.apply(op, fields);
+            records++;
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+}
@@ -4,11 +4,25 @@ public class Course {
     private String code;
     private String name;
     private int credits;
+    private int capacity; // Cupos del curso; 0 = sin límite
+    private String prerequisites; // Códigos de los cursos previos separados por coma; "" = ninguno
+    private String schedule; // Bloques semanales, p. ej. "LU 08-10, MI 08-10"; "" = sin horario
 
     public Course(String code, String name, int credits) {
+        this(code, name, credits, 0);
+    }
+
+    public Course(String code, String name, int credits, int capacity) {
+        this(code, name, credits, capacity, "", "");
+    }
+
+    public Course(String code, String name, int credits, int capacity, String prerequisites, String schedule) {
         this.code = code;
         this.name = name;
         this.credits = credits;
+        this.capacity = capacity;
+        this.prerequisites = prerequisites == null ? "" : prerequisites;
+        this.schedule = schedule == null ? "" : schedule;
     }
 
     // Getters
@@ -24,6 +38,18 @@ public class Course {
         return credits;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public String getPrerequisites() {
+        return prerequisites;
+    }
+
+    public String getSchedule() {
+        return schedule;
+    }
+
     // Setters
     public void setCode(String code) {
         this.code = code;
@@ -37,4 +63,16 @@ public class Course {
         this.credits = credits;
     }
 
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setPrerequisites(String prerequisites) {
+        this.prerequisites = prerequisites == null ? "" : prerequisites;
+    }
+
+    public void setSchedule(String schedule) {
+        this.schedule = schedule == null ? "" : schedule;
+    }
+
 }
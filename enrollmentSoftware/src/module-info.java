@@ -2,8 +2,10 @@ module enrollmentSoftware {
 	requires javafx.controls;
 	requires javafx.fxml;
 	requires java.sql;
+	requires java.management;
 	requires javafx.base;
 	opens controller;
 	opens application to javafx.graphics, javafx.fxml;
 	opens model to javafx.base;
+	exports data to java.management;
 }